@@ -0,0 +1,38 @@
+package com.portfolio.config;
+
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * In-memory caches for public read paths.
+ * Evictions are bound to the surrounding transaction so a reader can never
+ * repopulate a cache with data from a write that is later rolled back.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PUBLISHED_POSTS = "publishedPosts";
+    public static final String POSTS_BY_CATEGORY = "postsByCategory";
+    public static final String POSTS_BY_HASHTAG = "postsByHashtag";
+    public static final String POST_BY_SLUG = "postBySlug";
+    public static final String HASHTAGS = "hashtags";
+
+    @Value("${app.cache.spec}")
+    private String cacheSpec;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
+                PUBLISHED_POSTS, POSTS_BY_CATEGORY, POSTS_BY_HASHTAG, POST_BY_SLUG, HASHTAGS);
+        cacheManager.setCaffeineSpec(CaffeineSpec.parse(cacheSpec));
+        cacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
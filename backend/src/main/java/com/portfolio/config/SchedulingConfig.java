@@ -0,0 +1,12 @@
+package com.portfolio.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Background jobs, currently the periodic analytics flush.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
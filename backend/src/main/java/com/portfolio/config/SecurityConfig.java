@@ -2,6 +2,7 @@ package com.portfolio.config;
 
 import com.portfolio.security.JwtAuthenticationFilter;
 import com.portfolio.security.OAuth2AuthenticationSuccessHandler;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -39,6 +40,8 @@ public class SecurityConfig {
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Completing an async request (e.g. an upload) was authorized on its way in
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Public endpoints
                         .requestMatchers("/api/health").permitAll()
                         .requestMatchers("/api/posts/**").permitAll()
@@ -52,6 +55,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/achievements/**").permitAll()
                         .requestMatchers("/api/rpg-stats/**").permitAll()
                         .requestMatchers("/api/contact").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/analytics/events").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/media/**").permitAll()
                         // OAuth endpoints
                         .requestMatchers("/oauth2/**").permitAll()
@@ -70,14 +74,18 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList(allowedOrigins.split(",")));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList(
                 "Content-Type",
                 "Authorization",
                 "Accept",
                 "Accept-Language",
-                "X-Requested-With"
+                "X-Requested-With",
+                "Upload-Length",
+                "Upload-Offset"
         ));
+        // Resumable uploads report their progress in headers
+        configuration.setExposedHeaders(Arrays.asList("Location", "Upload-Length", "Upload-Offset"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -0,0 +1,53 @@
+package com.portfolio.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
+
+/**
+ * Client for the S3-compatible media store, used when {@code app.storage.type=s3}.
+ * Without explicit keys the standard AWS credential chain applies (environment,
+ * instance profile, …); a custom endpoint points it at MinIO or another S3 clone.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Value("${app.storage.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${app.storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${app.storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${app.storage.s3.secret-key:}")
+    private String secretKey;
+
+    @Value("${app.storage.s3.path-style:false}")
+    private boolean pathStyle;
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.storage.type", havingValue = "s3")
+    public S3Client s3Client() {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyle)
+                .credentialsProvider(accessKey.isBlank()
+                        ? DefaultCredentialsProvider.create()
+                        : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+}
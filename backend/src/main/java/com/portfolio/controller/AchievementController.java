@@ -3,10 +3,12 @@ package com.portfolio.controller;
 import com.portfolio.dto.AchievementDto;
 import com.portfolio.dto.ApiResponse;
 import com.portfolio.service.AchievementService;
+import com.portfolio.service.ContentVersionService;
 import com.portfolio.util.LocaleUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -17,21 +19,34 @@ import java.util.UUID;
 public class AchievementController {
 
     private final AchievementService achievementService;
+    private final ContentVersionService contentVersionService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<AchievementDto>>> getAll(
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
 
-        List<AchievementDto> achievements = achievementService.getAll(LocaleUtils.extractLocale(locale));
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.ACHIEVEMENTS), lang)) {
+            return null;
+        }
+
+        List<AchievementDto> achievements = achievementService.getAll(lang);
         return ResponseEntity.ok(ApiResponse.success(achievements));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<AchievementDto>> getById(
             @PathVariable UUID id,
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.ACHIEVEMENTS), lang)) {
+            return null;
+        }
 
-        AchievementDto achievement = achievementService.getById(id, LocaleUtils.extractLocale(locale));
+        AchievementDto achievement = achievementService.getById(id, lang);
         return ResponseEntity.ok(ApiResponse.success(achievement));
     }
 }
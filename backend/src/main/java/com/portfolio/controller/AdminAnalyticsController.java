@@ -0,0 +1,32 @@
+package com.portfolio.controller;
+
+import com.portfolio.dto.AnalyticsSummaryDto;
+import com.portfolio.dto.ApiResponse;
+import com.portfolio.service.AnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+@RestController
+@RequestMapping("/api/admin/analytics")
+@RequiredArgsConstructor
+public class AdminAnalyticsController {
+
+    private static final int DEFAULT_DAYS = 30;
+
+    private final AnalyticsService analyticsService;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<AnalyticsSummaryDto>> getSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        LocalDate end = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+        return ResponseEntity.ok(ApiResponse.success(analyticsService.getSummary(start, end)));
+    }
+}
@@ -0,0 +1,35 @@
+package com.portfolio.controller;
+
+import com.portfolio.dto.ApiResponse;
+import com.portfolio.dto.CacheStatsDto;
+import com.portfolio.service.MediaCache;
+import com.portfolio.service.PostCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+@RequiredArgsConstructor
+public class AdminCacheController {
+
+    private final PostCache postCache;
+    private final MediaCache mediaCache;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<CacheStatsDto>>> getStats() {
+        List<CacheStatsDto> stats = new ArrayList<>(postCache.getStats());
+        stats.add(mediaCache.getStats());
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<ApiResponse<Void>> clear() {
+        postCache.evictAll();
+        mediaCache.invalidateAll();
+        return ResponseEntity.ok(ApiResponse.success(null, "Caches cleared successfully"));
+    }
+}
@@ -1,11 +1,18 @@
 package com.portfolio.controller;
 
 import com.portfolio.dto.ApiResponse;
+import com.portfolio.dto.CursorPage;
 import com.portfolio.dto.MediaDto;
+import com.portfolio.dto.MediaReconciliationDto;
+import com.portfolio.dto.MediaUploadResultDto;
+import com.portfolio.dto.MediaUsageDto;
 import com.portfolio.dto.ReorderRequest;
 import com.portfolio.entity.MediaType;
+import com.portfolio.service.MediaReconciler;
 import com.portfolio.service.MediaService;
+import com.portfolio.service.MediaUsageService;
 import com.portfolio.util.LocaleUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -16,7 +23,9 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/admin/media")
@@ -24,6 +33,8 @@ import java.util.UUID;
 public class AdminMediaController {
 
     private final MediaService mediaService;
+    private final MediaReconciler mediaReconciler;
+    private final MediaUsageService mediaUsageService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<Page<MediaDto>>> getAllMedia(
@@ -41,6 +52,17 @@ public class AdminMediaController {
         return ResponseEntity.ok(ApiResponse.success(media));
     }
 
+    @GetMapping(params = "cursor")
+    public ResponseEntity<ApiResponse<CursorPage<MediaDto>>> getMediaByCursor(
+            @RequestParam String cursor,
+            @RequestParam(required = false) MediaType type,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+
+        CursorPage<MediaDto> media = mediaService.getMedia(cursor, type, size, LocaleUtils.extractLocale(locale));
+        return ResponseEntity.ok(ApiResponse.success(media));
+    }
+
     @GetMapping("/unassigned")
     public ResponseEntity<ApiResponse<Page<MediaDto>>> getUnassignedMedia(
             @PageableDefault(size = 20) Pageable pageable,
@@ -51,14 +73,56 @@ public class AdminMediaController {
     }
 
     @PostMapping
-    public ResponseEntity<ApiResponse<MediaDto>> uploadMedia(
+    public CompletableFuture<ResponseEntity<ApiResponse<MediaDto>>> uploadMedia(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "postId", required = false) UUID postId,
             @RequestParam(value = "altTextEn", required = false) String altTextEn,
             @RequestParam(value = "altTextPl", required = false) String altTextPl,
             @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) throws IOException {
 
-        MediaDto media = mediaService.uploadMedia(file, postId, altTextEn, altTextPl, LocaleUtils.extractLocale(locale));
+        return mediaService.uploadMedia(file, postId, altTextEn, altTextPl, LocaleUtils.extractLocale(locale))
+                .thenApply(AdminMediaController::created);
+    }
+
+    /**
+     * Uploads several files in one request. Files that cannot be stored are reported
+     * in their result without failing the others.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<MediaUploadResultDto>>> uploadMediaBatch(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "postId", required = false) UUID postId,
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+
+        List<MediaUploadResultDto> results = mediaService.uploadMediaBatch(files, postId,
+                LocaleUtils.extractLocale(locale));
+        long stored = results.stream().filter(MediaUploadResultDto::isSuccess).count();
+        return ResponseEntity.status(stored > 0 ? HttpStatus.CREATED : HttpStatus.OK)
+                .body(ApiResponse.success(results, stored + " of " + results.size() + " files uploaded"));
+    }
+
+    /**
+     * Uploads a file sent as the raw request body, e.g. {@code fetch(url, {body: file})}.
+     * Unlike the multipart endpoint nothing is spooled to a temporary file first: the
+     * body is read once, straight into storage. The content type is sniffed, not taken
+     * from the request.
+     */
+    @PostMapping(value = "/stream", consumes = {"image/*", "video/*", "application/pdf", "application/octet-stream"})
+    public CompletableFuture<ResponseEntity<ApiResponse<MediaDto>>> streamMedia(
+            @RequestParam("filename") String filename,
+            @RequestParam(value = "postId", required = false) UUID postId,
+            @RequestParam(value = "altTextEn", required = false) String altTextEn,
+            @RequestParam(value = "altTextPl", required = false) String altTextPl,
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            HttpServletRequest request) throws IOException {
+
+        return mediaService.uploadMedia(request.getInputStream(), filename, postId, altTextEn, altTextPl,
+                        LocaleUtils.extractLocale(locale))
+                .thenApply(AdminMediaController::created);
+    }
+
+    // Uploads finish on the image optimizer's threads; the request thread is released meanwhile
+    private static ResponseEntity<ApiResponse<MediaDto>> created(MediaDto media) {
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success(media, "Media uploaded successfully"));
     }
@@ -81,6 +145,33 @@ public class AdminMediaController {
         return ResponseEntity.ok(ApiResponse.success(null, "Media deleted successfully"));
     }
 
+    // Compares stored files with media rows; only reports unless dryRun=false
+    @PostMapping("/reconcile")
+    public ResponseEntity<ApiResponse<MediaReconciliationDto>> reconcileMedia(
+            @RequestParam(defaultValue = "true") boolean dryRun,
+            @RequestParam(defaultValue = "QUARANTINE") MediaReconciler.OrphanAction orphans) {
+
+        return ResponseEntity.ok(ApiResponse.success(mediaReconciler.reconcile(orphans, dryRun)));
+    }
+
+    // Kept up to date on every upload and delete, so reading it scans nothing
+    @GetMapping("/usage")
+    public ResponseEntity<ApiResponse<MediaUsageDto>> getUsage() {
+        return ResponseEntity.ok(ApiResponse.success(mediaUsageService.getUsage()));
+    }
+
+    @GetMapping("/usage/posts/{postId}")
+    public ResponseEntity<ApiResponse<MediaUsageDto.Total>> getPostUsage(@PathVariable UUID postId) {
+        return ResponseEntity.ok(ApiResponse.success(mediaUsageService.getPostUsage(postId)));
+    }
+
+    // Recomputes the usage totals from the media tables and corrects any that drifted
+    @PostMapping("/usage/reconcile")
+    public ResponseEntity<ApiResponse<MediaUsageDto>> reconcileUsage() {
+        int corrected = mediaUsageService.reconcile();
+        return ResponseEntity.ok(ApiResponse.success(mediaUsageService.getUsage(), corrected + " totals corrected"));
+    }
+
     @PostMapping("/youtube")
     public ResponseEntity<ApiResponse<MediaDto>> createYouTubeMedia(
             @RequestParam("videoUrl") String videoUrl,
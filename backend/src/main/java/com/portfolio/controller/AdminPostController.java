@@ -10,6 +10,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -65,7 +66,7 @@ public class AdminPostController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<ApiResponse<Void>> deletePost(@PathVariable UUID id) {
+    public ResponseEntity<ApiResponse<Void>> deletePost(@PathVariable UUID id) throws IOException {
         postService.deletePost(id);
         return ResponseEntity.ok(ApiResponse.success(null, "Post deleted successfully"));
     }
@@ -0,0 +1,87 @@
+package com.portfolio.controller;
+
+import com.portfolio.dto.ApiResponse;
+import com.portfolio.dto.MediaDto;
+import com.portfolio.dto.UploadSessionDto;
+import com.portfolio.service.ResumableUploadService;
+import com.portfolio.util.LocaleUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resumable uploads for large files: open a session with the total length, PATCH
+ * the content in chunks at the current {@code Upload-Offset}, GET (or HEAD) the
+ * session to find the offset after a dropped connection, then complete it.
+ */
+@RestController
+@RequestMapping("/api/admin/media/uploads")
+@RequiredArgsConstructor
+public class AdminUploadController {
+
+    static final String UPLOAD_LENGTH = "Upload-Length";
+    static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    private final ResumableUploadService resumableUploadService;
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<UploadSessionDto>> createUpload(
+            @RequestHeader(UPLOAD_LENGTH) long length,
+            @RequestParam("filename") String filename,
+            @RequestParam(value = "postId", required = false) UUID postId,
+            @RequestParam(value = "altTextEn", required = false) String altTextEn,
+            @RequestParam(value = "altTextPl", required = false) String altTextPl) {
+
+        UploadSessionDto session = resumableUploadService.create(length, filename, postId, altTextEn, altTextPl);
+        return ResponseEntity.created(URI.create("/api/admin/media/uploads/" + session.getId()))
+                .header(UPLOAD_OFFSET, "0")
+                .header(UPLOAD_LENGTH, String.valueOf(session.getLength()))
+                .body(ApiResponse.success(session, "Upload created"));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<UploadSessionDto>> getUpload(@PathVariable UUID id) throws IOException {
+        return progress(resumableUploadService.getSession(id));
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {"application/offset+octet-stream", "application/octet-stream"})
+    public ResponseEntity<ApiResponse<UploadSessionDto>> appendChunk(
+            @PathVariable UUID id,
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest request) throws IOException {
+
+        return progress(resumableUploadService.append(id, offset, request.getInputStream()));
+    }
+
+    @PostMapping("/{id}/complete")
+    public CompletableFuture<ResponseEntity<ApiResponse<MediaDto>>> completeUpload(
+            @PathVariable UUID id,
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) throws IOException {
+
+        return resumableUploadService.complete(id, LocaleUtils.extractLocale(locale))
+                .thenApply(media -> ResponseEntity.status(HttpStatus.CREATED)
+                        .body(ApiResponse.success(media, "Media uploaded successfully")));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> abortUpload(@PathVariable UUID id) throws IOException {
+        resumableUploadService.abort(id);
+        return ResponseEntity.ok(ApiResponse.success(null, "Upload aborted"));
+    }
+
+    private static ResponseEntity<ApiResponse<UploadSessionDto>> progress(UploadSessionDto session) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+                .header(UPLOAD_LENGTH, String.valueOf(session.getLength()))
+                .body(ApiResponse.success(session));
+    }
+}
@@ -0,0 +1,29 @@
+package com.portfolio.controller;
+
+import com.portfolio.dto.AnalyticsEventRequest;
+import com.portfolio.service.AnalyticsService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+    private final ClientAddressResolver clientAddressResolver;
+
+    // 202 with no body: the view is buffered, not yet stored
+    @PostMapping("/events")
+    public ResponseEntity<Void> recordEvent(
+            @Valid @RequestBody AnalyticsEventRequest event,
+            HttpServletRequest request) {
+
+        analyticsService.record(event, clientAddressResolver.resolve(request), request.getHeader(HttpHeaders.USER_AGENT));
+        return ResponseEntity.accepted().build();
+    }
+}
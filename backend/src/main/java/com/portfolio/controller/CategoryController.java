@@ -4,10 +4,12 @@ import com.portfolio.dto.ApiResponse;
 import com.portfolio.dto.CategoryDto;
 import com.portfolio.entity.Category;
 import com.portfolio.service.CategoryService;
+import com.portfolio.service.ContentVersionService;
 import com.portfolio.util.LocaleUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 
@@ -17,21 +19,34 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final ContentVersionService contentVersionService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<CategoryDto>>> getCategories(
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
 
-        List<CategoryDto> categories = categoryService.getAllCategories(LocaleUtils.extractLocale(locale));
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.POSTS), lang)) {
+            return null;
+        }
+
+        List<CategoryDto> categories = categoryService.getAllCategories(lang);
         return ResponseEntity.ok(ApiResponse.success(categories));
     }
 
     @GetMapping("/{category}")
     public ResponseEntity<ApiResponse<CategoryDto>> getCategory(
             @PathVariable Category category,
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.POSTS), lang)) {
+            return null;
+        }
 
-        CategoryDto categoryDto = categoryService.getCategory(category, LocaleUtils.extractLocale(locale));
+        CategoryDto categoryDto = categoryService.getCategory(category, lang);
         return ResponseEntity.ok(ApiResponse.success(categoryDto));
     }
 }
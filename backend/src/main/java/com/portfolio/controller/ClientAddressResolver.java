@@ -0,0 +1,27 @@
+package com.portfolio.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The visitor's address, for anything that counts or limits per client.
+ * <p>
+ * Taken from {@code app.client-ip-header}, {@code X-Real-IP} by default, which nginx
+ * sets to the address the connection came from. Unlike {@code X-Forwarded-For},
+ * whose leftmost entry the client writes itself, it cannot be chosen per request.
+ * Without the header (or with the setting empty) the remote address is used, so the
+ * backend must only be reachable through nginx.
+ */
+@Component
+class ClientAddressResolver {
+
+    // Set by the proxy in front; empty to use the remote address
+    @Value("${app.client-ip-header:X-Real-IP}")
+    private String clientIpHeader;
+
+    String resolve(HttpServletRequest request) {
+        String address = clientIpHeader.isEmpty() ? null : request.getHeader(clientIpHeader);
+        return address != null && !address.isBlank() ? address.strip() : request.getRemoteAddr();
+    }
+}
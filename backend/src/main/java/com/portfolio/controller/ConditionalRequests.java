@@ -0,0 +1,35 @@
+package com.portfolio.controller;
+
+import com.portfolio.service.ContentVersionService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * HTTP validators for public, locale-dependent JSON endpoints.
+ */
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * Sets ETag, Last-Modified and {@code Cache-Control: no-cache}, plus
+     * {@code Vary: Accept-Language} unless {@code locale} is {@code null}, then
+     * evaluates If-None-Match / If-Modified-Since. When this returns {@code true}
+     * the response is already a 304 and the handler should return {@code null}
+     * without loading anything.
+     */
+    static boolean checkNotModified(ServletWebRequest request, ContentVersionService.Version version, String locale) {
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            if (locale != null) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE);
+            }
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        }
+        return request.checkNotModified(version.eTag(locale), version.lastModified().toEpochMilli());
+    }
+}
@@ -2,11 +2,13 @@ package com.portfolio.controller;
 
 import com.portfolio.dto.ApiResponse;
 import com.portfolio.dto.ExperienceDto;
+import com.portfolio.service.ContentVersionService;
 import com.portfolio.service.ExperienceService;
 import com.portfolio.util.LocaleUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -17,21 +19,34 @@ import java.util.UUID;
 public class ExperienceController {
 
     private final ExperienceService experienceService;
+    private final ContentVersionService contentVersionService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<ExperienceDto>>> getAllExperiences(
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
 
-        List<ExperienceDto> experiences = experienceService.getAllExperiences(LocaleUtils.extractLocale(locale));
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.EXPERIENCES), lang)) {
+            return null;
+        }
+
+        List<ExperienceDto> experiences = experienceService.getAllExperiences(lang);
         return ResponseEntity.ok(ApiResponse.success(experiences));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<ExperienceDto>> getExperienceById(
             @PathVariable UUID id,
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.EXPERIENCES), lang)) {
+            return null;
+        }
 
-        ExperienceDto experience = experienceService.getExperienceById(id, LocaleUtils.extractLocale(locale));
+        ExperienceDto experience = experienceService.getExperienceById(id, lang);
         return ResponseEntity.ok(ApiResponse.success(experience));
     }
 }
@@ -2,11 +2,13 @@ package com.portfolio.controller;
 
 import com.portfolio.dto.ApiResponse;
 import com.portfolio.dto.InterestDto;
+import com.portfolio.service.ContentVersionService;
 import com.portfolio.service.InterestService;
 import com.portfolio.util.LocaleUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -17,21 +19,34 @@ import java.util.UUID;
 public class InterestController {
 
     private final InterestService interestService;
+    private final ContentVersionService contentVersionService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<InterestDto>>> getAll(
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
 
-        List<InterestDto> interests = interestService.getAll(LocaleUtils.extractLocale(locale));
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.INTERESTS), lang)) {
+            return null;
+        }
+
+        List<InterestDto> interests = interestService.getAll(lang);
         return ResponseEntity.ok(ApiResponse.success(interests));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<InterestDto>> getById(
             @PathVariable UUID id,
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.INTERESTS), lang)) {
+            return null;
+        }
 
-        InterestDto interest = interestService.getById(id, LocaleUtils.extractLocale(locale));
+        InterestDto interest = interestService.getById(id, lang);
         return ResponseEntity.ok(ApiResponse.success(interest));
     }
 }
@@ -0,0 +1,241 @@
+package com.portfolio.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.portfolio.service.StorageService;
+import com.portfolio.util.TokenBucket;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Paces video and PDF downloads so that one visitor cannot take the whole uplink.
+ * <p>
+ * Files below {@code videos/} and {@code documents/} each have a budget: a token
+ * bucket per client IP and one shared by all clients, refilled at their
+ * {@code client-rate} and {@code global-rate} per second. A body is written in
+ * small chunks, each waiting for both buckets, so a throttled player still receives
+ * an even stream. All range requests of a client draw from the same bucket, and the
+ * first {@code burst} bytes go out at once, which keeps seeking responsive. Other
+ * files, images in particular, are not shaped.
+ * <p>
+ * Clients are told apart by the address the {@link ClientAddressResolver} finds,
+ * which a visitor cannot choose per request.
+ * <p>
+ * A paced download keeps its request thread while it waits, a virtual one with
+ * {@code spring.threads.virtual.enabled}. At most {@code max-downloads} are paced at
+ * once; further ones are turned away until one ends.
+ */
+@Component
+@RequiredArgsConstructor
+class MediaBandwidthShaper {
+
+    static final String X_ACCEL_LIMIT_RATE = "X-Accel-Limit-Rate";
+
+    // Bytes paced at a time; at 1MB/s that is a write every 16ms
+    static final int CHUNK_SIZE = 16 * 1024;
+
+    static final Throttle UNLIMITED = new Throttle(0, null, null);
+
+    private final ClientAddressResolver clientAddressResolver;
+
+    @Value("${app.media.bandwidth.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.media.bandwidth.videos.client-rate:2MB}")
+    private DataSize videoClientRate;
+
+    @Value("${app.media.bandwidth.videos.global-rate:8MB}")
+    private DataSize videoGlobalRate;
+
+    @Value("${app.media.bandwidth.videos.burst:4MB}")
+    private DataSize videoBurst;
+
+    @Value("${app.media.bandwidth.documents.client-rate:1MB}")
+    private DataSize documentClientRate;
+
+    @Value("${app.media.bandwidth.documents.global-rate:4MB}")
+    private DataSize documentGlobalRate;
+
+    @Value("${app.media.bandwidth.documents.burst:2MB}")
+    private DataSize documentBurst;
+
+    // Buckets of clients that downloaded nothing for this long are dropped (they would be full again)
+    @Value("${app.media.bandwidth.client-idle-timeout:PT10M}")
+    private Duration clientIdleTimeout;
+
+    @Value("${app.media.bandwidth.max-clients:10000}")
+    private int maxClients;
+
+    @Value("${app.media.bandwidth.max-downloads:64}")
+    private int maxDownloads;
+
+    // By top-level storage directory
+    private Map<String, Budget> budgets;
+
+    private Semaphore downloads;
+
+    private final class Budget {
+
+        private final long clientRate;
+        private final long burst;
+        private final TokenBucket global;
+        private final Cache<String, TokenBucket> clients;
+
+        private Budget(DataSize clientRate, DataSize globalRate, DataSize burst) {
+            this.clientRate = clientRate.toBytes();
+            this.burst = burst.toBytes();
+            this.global = new TokenBucket(globalRate.toBytes(), this.burst);
+            this.clients = Caffeine.newBuilder()
+                    .maximumSize(maxClients)
+                    .expireAfterAccess(clientIdleTimeout)
+                    .build();
+        }
+
+        private Throttle forClient(String address) {
+            return new Throttle(clientRate, clients.get(address, a -> new TokenBucket(clientRate, burst)), global);
+        }
+    }
+
+    /**
+     * One download's share of a budget; {@link #UNLIMITED} for files that are not shaped.
+     */
+    static final class Throttle {
+
+        private final long clientRate;
+        private final TokenBucket client;
+        private final TokenBucket global;
+
+        private Throttle(long clientRate, TokenBucket client, TokenBucket global) {
+            this.clientRate = clientRate;
+            this.client = client;
+            this.global = global;
+        }
+
+        boolean isLimited() {
+            return client != null;
+        }
+
+        /**
+         * Bytes per second a single client may receive.
+         */
+        long clientRate() {
+            return clientRate;
+        }
+
+        /**
+         * Takes {@code bytes} from both buckets if both have them now, e.g. to send a
+         * range within the burst in one go.
+         */
+        boolean tryAcquire(long bytes) {
+            if (!isLimited()) {
+                return true;
+            }
+            if (!client.tryReserve(bytes)) {
+                return false;
+            }
+            if (!global.tryReserve(bytes)) {
+                client.refund(bytes);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * {@code target}, with every write paced by both buckets.
+         */
+        WritableByteChannel pace(WritableByteChannel target) {
+            return isLimited() ? new PacedChannel(target, this) : target;
+        }
+
+        private void acquire(int bytes) throws IOException {
+            long wait = Math.max(client.reserve(bytes), global.reserve(bytes));
+            if (wait <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(Duration.ofNanos(wait));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while pacing a download");
+            }
+        }
+    }
+
+    private static final class PacedChannel implements WritableByteChannel {
+
+        private final WritableByteChannel target;
+        private final Throttle throttle;
+
+        private PacedChannel(WritableByteChannel target, Throttle throttle) {
+            this.target = target;
+            this.throttle = throttle;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            int limit = source.limit();
+            source.limit(source.position() + Math.min(source.remaining(), CHUNK_SIZE));
+            try {
+                throttle.acquire(source.remaining());
+                return target.write(source);
+            } finally {
+                source.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return target.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            target.close();
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        budgets = Map.of(
+                "videos", new Budget(videoClientRate, videoGlobalRate, videoBurst),
+                "documents", new Budget(documentClientRate, documentGlobalRate, documentBurst));
+        downloads = new Semaphore(maxDownloads);
+    }
+
+    /**
+     * Takes one of the {@code max-downloads} slots for a shaped download.
+     *
+     * @return false when all are taken; otherwise {@link #endDownload()} must follow
+     */
+    boolean startDownload() {
+        return downloads.tryAcquire();
+    }
+
+    void endDownload() {
+        downloads.release();
+    }
+
+    /**
+     * The throttle for sending {@code file} to the client of {@code request}.
+     */
+    Throttle throttle(HttpServletRequest request, StorageService.StoredFile file) {
+        if (!enabled) {
+            return UNLIMITED;
+        }
+        int slash = file.key().indexOf('/');
+        Budget budget = slash > 0 ? budgets.get(file.key().substring(0, slash)) : null;
+        return budget != null ? budget.forClient(clientAddressResolver.resolve(request)) : UNLIMITED;
+    }
+}
@@ -2,16 +2,19 @@ package com.portfolio.controller;
 
 import com.portfolio.dto.ApiResponse;
 import com.portfolio.dto.MediaDto;
+import com.portfolio.service.ContentVersionService;
+import com.portfolio.service.ImageDerivativeService;
 import com.portfolio.service.MediaService;
 import com.portfolio.service.StorageService;
 import com.portfolio.util.LocaleUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.IOException;
 import java.util.UUID;
 
 @RestController
@@ -20,31 +23,41 @@ import java.util.UUID;
 public class MediaController {
 
     private final MediaService mediaService;
+    private final ContentVersionService contentVersionService;
     private final StorageService storageService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final MediaFileSender mediaFileSender;
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<MediaDto>> getMediaInfo(
             @PathVariable UUID id,
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
 
-        MediaDto media = mediaService.getMediaById(id, LocaleUtils.extractLocale(locale));
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.MEDIA), lang)) {
+            return null;
+        }
+
+        MediaDto media = mediaService.getMediaById(id, lang);
         return ResponseEntity.ok(ApiResponse.success(media));
     }
 
     @GetMapping("/{subDir}/{filename}")
-    public ResponseEntity<Resource> serveMedia(
+    public void serveMedia(
             @PathVariable String subDir,
-            @PathVariable String filename) {
-
-        String fullPath = subDir + "/" + filename;
-        Resource resource = storageService.loadAsResource(fullPath);
-
-        String contentType = determineContentType(filename);
+            @PathVariable String filename,
+            @RequestParam(required = false) Integer w,
+            @RequestParam(required = false) Integer h,
+            @RequestParam(required = false) String fit,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
-                .body(resource);
+        // Resized images are files of their own, with their own name and ETag
+        StorageService.StoredFile file = w != null
+                ? imageDerivativeService.resolve(subDir + "/" + filename, w, h, fit)
+                : storageService.resolve(subDir + "/" + filename);
+        mediaFileSender.send(request, response, file, determineContentType(filename), file.name());
     }
 
     private String determineContentType(String filename) {
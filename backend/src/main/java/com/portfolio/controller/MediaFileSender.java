@@ -0,0 +1,375 @@
+package com.portfolio.controller;
+
+import com.portfolio.service.StorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.util.DisconnectedClientHelper;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes stored media files: validators, immutable caching, single and multipart
+ * byte ranges, and zero-copy transfer.
+ * <p>
+ * Stored files never change under their name, so they get a strong ETag and a
+ * year of {@code immutable} caching. Local bodies go through Tomcat's sendfile when
+ * the connector offers it, which hands the transfer to the poller and frees the
+ * request thread; otherwise they are copied with {@link FileChannel#transferTo}.
+ * Files in a remote blob store are streamed range by range from its read channel.
+ * Files held by the {@link com.portfolio.service.MediaCache} are written straight
+ * from their off-heap buffer without opening anything.
+ * <p>
+ * Behind nginx, {@code app.media.accel-redirect} names an internal location that
+ * serves the upload directory. A local file is then only resolved here, and the response
+ * carries its headers and an {@code X-Accel-Redirect} for nginx to send the body from
+ * disk, answering conditional and range requests itself.
+ * <p>
+ * Videos and documents are paced by the {@link MediaBandwidthShaper}. Their bodies
+ * only go through sendfile when the range fits the client's remaining burst. Behind
+ * nginx the client rate is passed on as {@code X-Accel-Limit-Rate}, which nginx applies
+ * per connection; the shared budgets are kept there by the {@code limit_conn} of the
+ * videos and documents locations in {@code nginx.conf}. When the shaper
+ * has no download slot left, they are answered with 503 and a {@code Retry-After}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class MediaFileSender {
+
+    static final String X_ACCEL_REDIRECT = "X-Accel-Redirect";
+
+    static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    // More ranges than this is not seeking; the whole file is cheaper for everyone
+    static final int MAX_RANGES = 16;
+
+    // Below this, sendfile setup costs more than a plain copy (Tomcat's own default)
+    static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    // Seconds a client turned away by the bandwidth shaper is asked to wait
+    static final int RETRY_AFTER = 5;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final StorageService storageService;
+    private final MediaBandwidthShaper bandwidthShaper;
+
+    // Internal nginx location mapped onto the upload directory; empty to send bodies here
+    @Value("${app.media.accel-redirect:}")
+    private String accelRedirect;
+
+    private record Range(long start, long end) {
+
+        long length() {
+            return end - start + 1;
+        }
+
+        String contentRange(long size) {
+            return "bytes " + start + "-" + end + "/" + size;
+        }
+    }
+
+    void send(HttpServletRequest request, HttpServletResponse response, StorageService.StoredFile file,
+              String contentType, String filename) throws IOException {
+        MediaBandwidthShaper.Throttle throttle = bandwidthShaper.throttle(request, file);
+        if (!accelRedirect.isEmpty() && file.localPath() != null) {
+            redirect(response, file, contentType, filename, throttle);
+            return;
+        }
+        if (!throttle.isLimited()) {
+            sendBody(request, response, file, contentType, filename, throttle);
+            return;
+        }
+        if (!bandwidthShaper.startDownload()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER));
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        try {
+            sendBody(request, response, file, contentType, filename, throttle);
+        } finally {
+            bandwidthShaper.endDownload();
+        }
+    }
+
+    private void sendBody(HttpServletRequest request, HttpServletResponse response, StorageService.StoredFile file,
+                          String contentType, String filename, MediaBandwidthShaper.Throttle throttle)
+            throws IOException {
+        long size = file.size();
+        long lastModified = file.lastModified().toEpochMilli();
+        String eTag = eTag(filename, size);
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+            return;
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"");
+
+        List<Range> ranges = requestedRanges(request, eTag, lastModified, size);
+        if (ranges == null) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        boolean head = HttpMethod.HEAD.matches(request.getMethod());
+        try {
+            if (ranges.isEmpty()) {
+                response.setContentType(contentType);
+                response.setContentLengthLong(size);
+                if (!head) {
+                    transfer(request, response, file, new Range(0, size - 1), throttle);
+                }
+            } else if (ranges.size() == 1) {
+                Range range = ranges.get(0);
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setContentType(contentType);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, range.contentRange(size));
+                response.setContentLengthLong(range.length());
+                if (!head) {
+                    transfer(request, response, file, range, throttle);
+                }
+            } else {
+                sendMultipart(response, file, contentType, size, ranges, head, throttle);
+            }
+        } catch (IOException e) {
+            // Players abort range requests all the time while seeking
+            if (DisconnectedClientHelper.isClientDisconnectedException(e)) {
+                log.debug("Client went away while receiving {}", filename);
+                return;
+            }
+            throw e;
+        }
+    }
+
+    // nginx keeps Content-Type, Content-Disposition and Cache-Control from this response
+    private void redirect(HttpServletResponse response, StorageService.StoredFile file, String contentType,
+                          String filename, MediaBandwidthShaper.Throttle throttle) {
+        String location = accelRedirect.endsWith("/") ? accelRedirect : accelRedirect + "/";
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE.getHeaderValue());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"");
+        response.setHeader(X_ACCEL_REDIRECT,
+                location + UriUtils.encodePath(file.key(), StandardCharsets.UTF_8));
+        if (throttle.isLimited()) {
+            // Per connection in nginx, whose limit_conn caps the connections per client and in total
+            response.setHeader(MediaBandwidthShaper.X_ACCEL_LIMIT_RATE, String.valueOf(throttle.clientRate()));
+        }
+    }
+
+    static String eTag(String filename, long size) {
+        int dot = filename.lastIndexOf('.');
+        String name = dot > 0 ? filename.substring(0, dot) : filename;
+        return "\"" + name + "-" + Long.toHexString(size) + "\"";
+    }
+
+    /**
+     * @return an empty list to send the whole file, {@code null} when no requested
+     * range overlaps the file, otherwise sorted, coalesced ranges
+     */
+    private static List<Range> requestedRanges(HttpServletRequest request, String eTag, long lastModified, long size) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !isCurrent(request.getHeader(HttpHeaders.IF_RANGE), eTag, lastModified)) {
+            return List.of();
+        }
+
+        List<HttpRange> parsed;
+        try {
+            parsed = HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            // A malformed Range header is ignored rather than rejected
+            return List.of();
+        }
+
+        List<Range> ranges = new ArrayList<>();
+        for (HttpRange range : parsed) {
+            try {
+                long start = range.getRangeStart(size);
+                // Ranges starting beyond the end of the file are unsatisfiable and skipped
+                if (start < size) {
+                    ranges.add(new Range(start, range.getRangeEnd(size)));
+                }
+            } catch (IllegalArgumentException e) {
+                // Inverted range, likewise unsatisfiable
+            }
+        }
+        if (ranges.isEmpty()) {
+            return null;
+        }
+
+        List<Range> coalesced = coalesce(ranges);
+        if (coalesced.size() > MAX_RANGES) {
+            return List.of();
+        }
+        return coalesced;
+    }
+
+    private static List<Range> coalesce(List<Range> ranges) {
+        List<Range> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(Range::start));
+        List<Range> merged = new ArrayList<>();
+        Range current = sorted.get(0);
+        for (Range next : sorted.subList(1, sorted.size())) {
+            if (next.start() <= current.end() + 1) {
+                current = new Range(current.start(), Math.max(current.end(), next.end()));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    // If-Range holds either a strong ETag or an HTTP date
+    private static boolean isCurrent(String ifRange, String eTag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(eTag);
+        }
+        try {
+            long since = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return lastModified / 1000 <= since / 1000;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void transfer(HttpServletRequest request, HttpServletResponse response, StorageService.StoredFile file,
+                          Range range, MediaBandwidthShaper.Throttle throttle) throws IOException {
+        if (file.content() != null) {
+            write(file.content(), range, throttle.pace(Channels.newChannel(response.getOutputStream())));
+            return;
+        }
+        if (file.localPath() != null && range.length() >= SENDFILE_MIN_SIZE
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))
+                && throttle.tryAcquire(range.length())) {
+            request.setAttribute(SENDFILE_FILENAME, file.localPath().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end() + 1);
+            return;
+        }
+        try (SeekableByteChannel channel = open(file)) {
+            copy(channel, range, throttle.pace(Channels.newChannel(response.getOutputStream())));
+        }
+    }
+
+    private SeekableByteChannel open(StorageService.StoredFile file) throws IOException {
+        return file.localPath() != null
+                ? FileChannel.open(file.localPath(), StandardOpenOption.READ)
+                : storageService.open(file);
+    }
+
+    private static void copy(SeekableByteChannel channel, Range range, WritableByteChannel target) throws IOException {
+        long position = range.start();
+        long remaining = range.length();
+        if (channel instanceof FileChannel file) {
+            while (remaining > 0) {
+                long written = file.transferTo(position, remaining, target);
+                if (written <= 0) {
+                    throw new IOException("File ended before the requested range");
+                }
+                position += written;
+                remaining -= written;
+            }
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        channel.position(position);
+        while (remaining > 0) {
+            buffer.clear().limit((int) Math.min(COPY_BUFFER_SIZE, remaining));
+            int read = channel.read(buffer);
+            if (read < 0) {
+                throw new IOException("File ended before the requested range");
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            remaining -= read;
+        }
+    }
+
+    private static void write(ByteBuffer content, Range range, WritableByteChannel target) throws IOException {
+        // Cached files are small, so their ranges fit an int
+        ByteBuffer slice = content.slice((int) range.start(), (int) range.length());
+        while (slice.hasRemaining()) {
+            target.write(slice);
+        }
+    }
+
+    private void sendMultipart(HttpServletResponse response, StorageService.StoredFile file, String contentType,
+                               long size, List<Range> ranges, boolean head,
+                               MediaBandwidthShaper.Throttle throttle) throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>();
+        long contentLength = 0;
+        for (Range range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + range.contentRange(size) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + range.length();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (head) {
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = throttle.pace(Channels.newChannel(out));
+        if (file.content() != null) {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                write(file.content(), ranges.get(i), target);
+            }
+        } else {
+            try (SeekableByteChannel channel = open(file)) {
+                for (int i = 0; i < ranges.size(); i++) {
+                    out.write(partHeaders.get(i));
+                    copy(channel, ranges.get(i), target);
+                }
+            }
+        }
+        out.write(closing);
+    }
+}
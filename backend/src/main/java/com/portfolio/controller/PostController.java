@@ -1,8 +1,12 @@
 package com.portfolio.controller;
 
 import com.portfolio.dto.ApiResponse;
+import com.portfolio.dto.CursorPage;
+import com.portfolio.dto.HashtagDto;
 import com.portfolio.dto.PostDto;
+import com.portfolio.dto.PostSearchResultDto;
 import com.portfolio.entity.Category;
+import com.portfolio.service.ContentVersionService;
 import com.portfolio.service.PostService;
 import com.portfolio.util.LocaleUtils;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +15,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 
@@ -20,53 +25,125 @@ import java.util.List;
 public class PostController {
 
     private final PostService postService;
+    private final ContentVersionService contentVersionService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<PostDto>>> getPosts(
             @RequestParam(required = false) Category category,
             @RequestParam(required = false) String hashtag,
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.POSTS), lang)) {
+            return null;
+        }
 
         List<PostDto> posts;
         if (hashtag != null && !hashtag.isBlank()) {
-            posts = postService.getPostsByHashtag(hashtag, LocaleUtils.extractLocale(locale));
+            posts = postService.getPostsByHashtag(hashtag, lang);
         } else if (category != null) {
-            posts = postService.getPostsByCategory(category, LocaleUtils.extractLocale(locale));
+            posts = postService.getPostsByCategory(category, lang);
         } else {
-            posts = postService.getAllPublishedPosts(LocaleUtils.extractLocale(locale));
+            posts = postService.getAllPublishedPosts(lang);
         }
 
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
 
     @GetMapping("/hashtags")
-    public ResponseEntity<ApiResponse<List<String>>> getAllHashtags() {
-        List<String> hashtags = postService.getAllHashtags();
+    public ResponseEntity<ApiResponse<List<HashtagDto>>> getAllHashtags(ServletWebRequest request) {
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.POSTS), null)) {
+            return null;
+        }
+
+        List<HashtagDto> hashtags = postService.getAllHashtags();
         return ResponseEntity.ok(ApiResponse.success(hashtags));
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<PostSearchResultDto>>> searchPosts(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.POSTS), lang)) {
+            return null;
+        }
+
+        List<PostSearchResultDto> results = postService.searchPosts(q, limit, lang);
+        return ResponseEntity.ok(ApiResponse.success(results));
+    }
+
     @GetMapping("/paged")
     public ResponseEntity<ApiResponse<Page<PostDto>>> getPostsPaged(
             @RequestParam(required = false) Category category,
             @PageableDefault(size = 10) Pageable pageable,
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.POSTS), lang)) {
+            return null;
+        }
 
         Page<PostDto> posts;
         if (category != null) {
-            posts = postService.getPostsByCategory(category, pageable, LocaleUtils.extractLocale(locale));
+            posts = postService.getPostsByCategory(category, pageable, lang);
         } else {
-            posts = postService.getPublishedPosts(pageable, LocaleUtils.extractLocale(locale));
+            posts = postService.getPublishedPosts(pageable, lang);
         }
 
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
 
+    @GetMapping(value = "/paged", params = "cursor")
+    public ResponseEntity<ApiResponse<CursorPage<PostDto>>> getPostsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(required = false) Category category,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.POSTS), lang)) {
+            return null;
+        }
+
+        CursorPage<PostDto> posts = postService.getPublishedPosts(cursor, category, size, lang);
+        return ResponseEntity.ok(ApiResponse.success(posts));
+    }
+
+    @GetMapping("/{slug}/related")
+    public ResponseEntity<ApiResponse<List<PostDto>>> getRelatedPosts(
+            @PathVariable String slug,
+            @RequestParam(defaultValue = "4") int limit,
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.POSTS), lang)) {
+            return null;
+        }
+
+        List<PostDto> posts = postService.getRelatedPosts(slug, limit, lang);
+        return ResponseEntity.ok(ApiResponse.success(posts));
+    }
+
     @GetMapping("/{slug}")
     public ResponseEntity<ApiResponse<PostDto>> getPost(
             @PathVariable String slug,
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.POSTS), lang)) {
+            return null;
+        }
 
-        PostDto post = postService.getPostBySlug(slug, LocaleUtils.extractLocale(locale));
+        PostDto post = postService.getPostBySlug(slug, lang);
         return ResponseEntity.ok(ApiResponse.success(post));
     }
 }
@@ -2,11 +2,13 @@ package com.portfolio.controller;
 
 import com.portfolio.dto.ApiResponse;
 import com.portfolio.dto.RpgStatDto;
+import com.portfolio.service.ContentVersionService;
 import com.portfolio.service.RpgStatService;
 import com.portfolio.util.LocaleUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -17,21 +19,34 @@ import java.util.UUID;
 public class RpgStatController {
 
     private final RpgStatService rpgStatService;
+    private final ContentVersionService contentVersionService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<RpgStatDto>>> getAll(
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
 
-        List<RpgStatDto> stats = rpgStatService.getAll(LocaleUtils.extractLocale(locale));
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.RPG_STATS), lang)) {
+            return null;
+        }
+
+        List<RpgStatDto> stats = rpgStatService.getAll(lang);
         return ResponseEntity.ok(ApiResponse.success(stats));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<RpgStatDto>> getById(
             @PathVariable UUID id,
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.RPG_STATS), lang)) {
+            return null;
+        }
 
-        RpgStatDto stat = rpgStatService.getById(id, LocaleUtils.extractLocale(locale));
+        RpgStatDto stat = rpgStatService.getById(id, lang);
         return ResponseEntity.ok(ApiResponse.success(stat));
     }
 }
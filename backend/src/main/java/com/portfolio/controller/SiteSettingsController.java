@@ -2,11 +2,13 @@ package com.portfolio.controller;
 
 import com.portfolio.dto.ApiResponse;
 import com.portfolio.dto.SiteSettingsDto;
+import com.portfolio.service.ContentVersionService;
 import com.portfolio.service.SiteSettingsService;
 import com.portfolio.util.LocaleUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @RestController
 @RequestMapping("/api/settings")
@@ -14,12 +16,19 @@ import org.springframework.web.bind.annotation.*;
 public class SiteSettingsController {
 
     private final SiteSettingsService siteSettingsService;
+    private final ContentVersionService contentVersionService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<SiteSettingsDto>> getSettings(
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
 
-        SiteSettingsDto settings = siteSettingsService.getSettings(LocaleUtils.extractLocale(locale));
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.SITE_SETTINGS), lang)) {
+            return null;
+        }
+
+        SiteSettingsDto settings = siteSettingsService.getSettings(lang);
         return ResponseEntity.ok(ApiResponse.success(settings));
     }
 }
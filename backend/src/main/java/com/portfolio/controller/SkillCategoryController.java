@@ -3,11 +3,13 @@ package com.portfolio.controller;
 import com.portfolio.dto.ApiResponse;
 import com.portfolio.dto.SkillCategoryDto;
 import com.portfolio.dto.SkillCategoryWithSkillsDto;
+import com.portfolio.service.ContentVersionService;
 import com.portfolio.service.SkillCategoryService;
 import com.portfolio.util.LocaleUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -18,29 +20,48 @@ import java.util.UUID;
 public class SkillCategoryController {
 
     private final SkillCategoryService skillCategoryService;
+    private final ContentVersionService contentVersionService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<SkillCategoryDto>>> getAllCategories(
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
 
-        List<SkillCategoryDto> categories = skillCategoryService.getAllCategories(LocaleUtils.extractLocale(locale));
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.SKILLS), lang)) {
+            return null;
+        }
+
+        List<SkillCategoryDto> categories = skillCategoryService.getAllCategories(lang);
         return ResponseEntity.ok(ApiResponse.success(categories));
     }
 
     @GetMapping("/with-skills")
     public ResponseEntity<ApiResponse<List<SkillCategoryWithSkillsDto>>> getAllCategoriesWithSkills(
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.SKILLS), lang)) {
+            return null;
+        }
 
-        List<SkillCategoryWithSkillsDto> categories = skillCategoryService.getAllCategoriesWithSkills(LocaleUtils.extractLocale(locale));
+        List<SkillCategoryWithSkillsDto> categories = skillCategoryService.getAllCategoriesWithSkills(lang);
         return ResponseEntity.ok(ApiResponse.success(categories));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<SkillCategoryDto>> getCategoryById(
             @PathVariable UUID id,
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.SKILLS), lang)) {
+            return null;
+        }
 
-        SkillCategoryDto category = skillCategoryService.getCategoryById(id, LocaleUtils.extractLocale(locale));
+        SkillCategoryDto category = skillCategoryService.getCategoryById(id, lang);
         return ResponseEntity.ok(ApiResponse.success(category));
     }
 }
@@ -2,11 +2,13 @@ package com.portfolio.controller;
 
 import com.portfolio.dto.ApiResponse;
 import com.portfolio.dto.SoftSkillDto;
+import com.portfolio.service.ContentVersionService;
 import com.portfolio.service.SoftSkillService;
 import com.portfolio.util.LocaleUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -17,21 +19,34 @@ import java.util.UUID;
 public class SoftSkillController {
 
     private final SoftSkillService softSkillService;
+    private final ContentVersionService contentVersionService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<SoftSkillDto>>> getAllSoftSkills(
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
 
-        List<SoftSkillDto> skills = softSkillService.getAllSoftSkills(LocaleUtils.extractLocale(locale));
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.SKILLS), lang)) {
+            return null;
+        }
+
+        List<SoftSkillDto> skills = softSkillService.getAllSoftSkills(lang);
         return ResponseEntity.ok(ApiResponse.success(skills));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<SoftSkillDto>> getSoftSkillById(
             @PathVariable UUID id,
-            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale) {
+            @RequestHeader(value = "Accept-Language", defaultValue = "en") String locale,
+            ServletWebRequest request) {
+
+        String lang = LocaleUtils.extractLocale(locale);
+        if (ConditionalRequests.checkNotModified(request, contentVersionService.current(ContentVersionService.SKILLS), lang)) {
+            return null;
+        }
 
-        SoftSkillDto skill = softSkillService.getSoftSkillById(id, LocaleUtils.extractLocale(locale));
+        SoftSkillDto skill = softSkillService.getSoftSkillById(id, lang);
         return ResponseEntity.ok(ApiResponse.success(skill));
     }
 }
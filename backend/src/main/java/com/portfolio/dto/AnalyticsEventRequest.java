@@ -0,0 +1,20 @@
+package com.portfolio.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class AnalyticsEventRequest {
+
+    @NotBlank(message = "Path is required")
+    @Size(max = 500, message = "Path must be less than 500 characters")
+    private String path;
+
+    @Size(max = 255, message = "Post slug must be less than 255 characters")
+    private String postSlug;
+
+    // Anonymous id kept by the browser; the server falls back to a daily fingerprint
+    @Size(max = 100, message = "Visitor id must be less than 100 characters")
+    private String visitorId;
+}
@@ -0,0 +1,24 @@
+package com.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalyticsSummaryDto {
+    private LocalDate from;
+    private LocalDate to;
+    private long totalViews;
+    private List<DailyViewsDto> daily;
+    private List<PageViewsDto> topPages;
+    private List<PostViewsDto> posts;
+    // Views dropped since startup because the buffer was full
+    private long droppedEvents;
+}
@@ -0,0 +1,22 @@
+package com.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStatsDto {
+    private String name;
+    private long size;
+    // Bytes held, for caches bounded by size rather than entry count
+    private Long bytes;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long invalidationCount;
+}
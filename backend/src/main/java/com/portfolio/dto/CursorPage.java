@@ -0,0 +1,19 @@
+package com.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
@@ -0,0 +1,17 @@
+package com.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyViewsDto {
+    private LocalDate day;
+    private long views;
+}
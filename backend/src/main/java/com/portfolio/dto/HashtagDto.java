@@ -0,0 +1,16 @@
+package com.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HashtagDto {
+    private String name;
+    private String normalizedName;
+    private int count;
+}
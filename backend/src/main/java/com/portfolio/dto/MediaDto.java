@@ -21,6 +21,11 @@ public class MediaDto {
     private String originalName;
     private String mimeType;
     private Long size;
+    private Long originalSize;
+    private Integer width;
+    private Integer height;
+    // BlurHash of the image, to paint while it loads
+    private String placeholder;
     private String url;
     private String altText;
     private String altTextEn;
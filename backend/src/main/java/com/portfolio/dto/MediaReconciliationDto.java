@@ -0,0 +1,29 @@
+package com.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaReconciliationDto {
+    private boolean dryRun;
+    private String action;
+    private long referencedFiles;
+    private long scannedFiles;
+    private long scannedBytes;
+    private long orphanFiles;
+    private long orphanBytes;
+    private long removedFiles;
+    private long reclaimedBytes;
+    private long danglingFiles;
+    // Sorted and capped; the counts above are complete
+    private List<String> orphans;
+    private List<String> dangling;
+    private long durationMs;
+}
@@ -0,0 +1,20 @@
+package com.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome for one file of a batch upload: the media created, or why not.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaUploadResultDto {
+    private String originalName;
+    private boolean success;
+    private MediaDto media;
+    private String error;
+}
@@ -0,0 +1,31 @@
+package com.portfolio.dto;
+
+import com.portfolio.entity.MediaType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaUsageDto {
+    // Distinct files in the blob store, i.e. the disk used; what the quota applies to
+    private long storedFiles;
+    private long storedBytes;
+    // Null when there is no quota
+    private Long quotaBytes;
+    // Every media row at its full size, so shared files count more than once
+    private Map<MediaType, Total> byType;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Total {
+        private long files;
+        private long bytes;
+    }
+}
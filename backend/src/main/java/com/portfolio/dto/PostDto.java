@@ -1,5 +1,6 @@
 package com.portfolio.dto;
 
+import com.fasterxml.jackson.annotation.JsonRawValue;
 import com.portfolio.entity.Category;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -8,7 +9,6 @@ import lombok.NoArgsConstructor;
 
 import java.time.OffsetDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
 @Data
@@ -26,10 +26,16 @@ public class PostDto {
     private String excerpt;
     private String excerptEn;
     private String excerptPl;
-    private Map<String, Object> content;
-    private Map<String, Object> contentEn;
-    private Map<String, Object> contentPl;
+    // Stored jsonb text, written into the response as-is
+    @JsonRawValue
+    private String content;
+    @JsonRawValue
+    private String contentEn;
+    @JsonRawValue
+    private String contentPl;
     private String featuredImage;
+    // First image in the content, for cards without a featured image
+    private String firstImage;
     private String githubUrl;
     private String liveUrl;
     private Boolean published;
@@ -38,6 +44,12 @@ public class PostDto {
     private OffsetDateTime createdAt;
     private OffsetDateTime updatedAt;
 
+    // Derived on save
+    private Integer wordCount;
+    private Integer readingMinutes;
+    @JsonRawValue
+    private String toc;
+
     // Case Study fields
     private Boolean hasCaseStudy;
     private String caseStudyChallenge;
@@ -0,0 +1,29 @@
+package com.portfolio.dto;
+
+import com.portfolio.entity.Category;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostSearchResultDto {
+    private UUID id;
+    private Category category;
+    private String categoryLabel;
+    private String title;
+    private String slug;
+    private String excerpt;
+    private String featuredImage;
+    private List<String> hashtags;
+    private double rank;
+
+    // HTML-escaped snippet with matches wrapped in <mark>
+    private String headline;
+}
@@ -0,0 +1,21 @@
+package com.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostViewsDto {
+    private UUID postId;
+    private String slug;
+    private String title;
+    private long views;
+    // HyperLogLog estimate, within a few percent
+    private long uniqueVisitors;
+}
@@ -0,0 +1,20 @@
+package com.portfolio.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSessionDto {
+    private UUID id;
+    private long offset;
+    private long length;
+    private OffsetDateTime expiresAt;
+}
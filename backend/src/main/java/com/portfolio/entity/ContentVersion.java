@@ -0,0 +1,31 @@
+package com.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Change counter of a content table, maintained by database triggers.
+ */
+@Entity
+@Immutable
+@Table(name = "content_versions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContentVersion {
+
+    @Id
+    @Column(name = "table_name", length = 64)
+    private String tableName;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
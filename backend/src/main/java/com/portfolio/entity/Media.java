@@ -40,6 +40,10 @@ public class Media {
     @Column(name = "size")
     private Long size;
 
+    // Size as uploaded, before ImageOptimizer; equals size when nothing was optimized
+    @Column(name = "original_size")
+    private Long originalSize;
+
     @Column(name = "url", nullable = false)
     private String url;
 
@@ -50,6 +54,20 @@ public class Media {
     @Column(name = "video_url", length = 500)
     private String videoUrl;
 
+    // Pixel size and BlurHash of images, set by ImageMetadataExtractor
+    @Column(name = "width")
+    private Integer width;
+
+    @Column(name = "height")
+    private Integer height;
+
+    @Column(name = "placeholder", length = 64)
+    private String placeholder;
+
+    @Column(name = "metadata_version", nullable = false)
+    @Builder.Default
+    private Integer metadataVersion = 0;
+
     @Column(name = "alt_text_en")
     private String altTextEn;
 
@@ -0,0 +1,37 @@
+package com.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A stored file and the number of {@link Media} rows referencing it.
+ * Reference counts are only changed through the atomic statements in
+ * {@link com.portfolio.repository.MediaBlobRepository}.
+ */
+@Entity
+@Table(name = "media_blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MediaBlob {
+
+    @Id
+    @Column(name = "filename")
+    private String filename;
+
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+
+    @Column(name = "size", nullable = false)
+    private Long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private OffsetDateTime createdAt;
+}
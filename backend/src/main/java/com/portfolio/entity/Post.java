@@ -7,8 +7,9 @@ import org.hibernate.type.SqlTypes;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import com.portfolio.config.CategoryConverter;
@@ -45,13 +46,15 @@ public class Post {
     @Column(name = "excerpt_pl", columnDefinition = "TEXT")
     private String excerptPl;
 
+    // Kept as the serialized JSON text: Hibernate passes String values through
+    // unparsed, so detail reads never build a Map tree
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "content_en", columnDefinition = "jsonb")
-    private Map<String, Object> contentEn;
+    private String contentEn;
 
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "content_pl", columnDefinition = "jsonb")
-    private Map<String, Object> contentPl;
+    private String contentPl;
 
     @Column(name = "featured_image")
     private String featuredImage;
@@ -101,6 +104,48 @@ public class Post {
     @Column(name = "case_study_testimonial_author")
     private String caseStudyTestimonialAuthor;
 
+    // Derived from content and case study on every save, see PostContentAnalyzer
+    @Column(name = "word_count_en", nullable = false)
+    @Builder.Default
+    private Integer wordCountEn = 0;
+
+    @Column(name = "word_count_pl", nullable = false)
+    @Builder.Default
+    private Integer wordCountPl = 0;
+
+    @Column(name = "reading_minutes_en", nullable = false)
+    @Builder.Default
+    private Integer readingMinutesEn = 0;
+
+    @Column(name = "reading_minutes_pl", nullable = false)
+    @Builder.Default
+    private Integer readingMinutesPl = 0;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "toc_en", columnDefinition = "jsonb")
+    private String tocEn;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "toc_pl", columnDefinition = "jsonb")
+    private String tocPl;
+
+    @Column(name = "plain_excerpt_en", columnDefinition = "TEXT")
+    private String plainExcerptEn;
+
+    @Column(name = "plain_excerpt_pl", columnDefinition = "TEXT")
+    private String plainExcerptPl;
+
+    @Column(name = "first_image", length = 500)
+    private String firstImage;
+
+    @Column(name = "has_case_study", nullable = false)
+    @Builder.Default
+    private Boolean hasCaseStudy = false;
+
+    @Column(name = "derived_version", nullable = false)
+    @Builder.Default
+    private Integer derivedVersion = 0;
+
     @Column(name = "created_at")
     private OffsetDateTime createdAt;
 
@@ -111,6 +156,14 @@ public class Post {
     @Builder.Default
     private List<Media> media = new ArrayList<>();
 
+    // Normalized counterpart of hashtags, used for lookups and counts
+    @ManyToMany
+    @JoinTable(name = "post_tags",
+            joinColumns = @JoinColumn(name = "post_id"),
+            inverseJoinColumns = @JoinColumn(name = "tag_id"))
+    @Builder.Default
+    private Set<Tag> tags = new HashSet<>();
+
     @PrePersist
     protected void onCreate() {
         createdAt = OffsetDateTime.now();
@@ -130,10 +183,31 @@ public class Post {
         return "pl".equalsIgnoreCase(locale) ? excerptPl : excerptEn;
     }
 
-    public Map<String, Object> getContent(String locale) {
+    // The written excerpt, or the start of the content when none was written
+    public String getDisplayExcerpt(String locale) {
+        String excerpt = getExcerpt(locale);
+        if (excerpt != null && !excerpt.isBlank()) {
+            return excerpt;
+        }
+        return "pl".equalsIgnoreCase(locale) ? plainExcerptPl : plainExcerptEn;
+    }
+
+    public String getContent(String locale) {
         return "pl".equalsIgnoreCase(locale) ? contentPl : contentEn;
     }
 
+    public String getToc(String locale) {
+        return "pl".equalsIgnoreCase(locale) ? tocPl : tocEn;
+    }
+
+    public Integer getWordCount(String locale) {
+        return "pl".equalsIgnoreCase(locale) ? wordCountPl : wordCountEn;
+    }
+
+    public Integer getReadingMinutes(String locale) {
+        return "pl".equalsIgnoreCase(locale) ? readingMinutesPl : readingMinutesEn;
+    }
+
     public String getCaseStudyChallenge(String locale) {
         return "pl".equalsIgnoreCase(locale) ? caseStudyChallengePl : caseStudyChallengeEn;
     }
@@ -149,10 +223,4 @@ public class Post {
     public String getCaseStudyTestimonial(String locale) {
         return "pl".equalsIgnoreCase(locale) ? caseStudyTestimonialPl : caseStudyTestimonialEn;
     }
-
-    public boolean hasCaseStudy() {
-        return (caseStudyChallengeEn != null && !caseStudyChallengeEn.isBlank()) ||
-               (caseStudySolutionEn != null && !caseStudySolutionEn.isBlank()) ||
-               (caseStudyResultsEn != null && !caseStudyResultsEn.isBlank());
-    }
 }
@@ -0,0 +1,43 @@
+package com.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * One entry of a post's precomputed related-posts list, written by
+ * {@link com.portfolio.service.RelatedPostService} through native queries.
+ */
+@Entity
+@Immutable
+@Table(name = "post_similarities")
+@IdClass(PostSimilarity.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostSimilarity {
+
+    @Id
+    @Column(name = "post_id")
+    private UUID postId;
+
+    @Id
+    @Column(name = "related_post_id")
+    private UUID relatedPostId;
+
+    @Column(name = "score", nullable = false)
+    private Float score;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID postId;
+        private UUID relatedPostId;
+    }
+}
@@ -0,0 +1,64 @@
+package com.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * A hashtag shared by posts. Lookups go through the case-folded
+ * {@code normalizedName}; {@code name} keeps the first spelling seen.
+ */
+@Entity
+@Table(name = "tags")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Tag {
+
+    public static final int MAX_NAME_LENGTH = 100;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "normalized_name", nullable = false, unique = true, length = MAX_NAME_LENGTH)
+    private String normalizedName;
+
+    @Column(name = "name", nullable = false, length = MAX_NAME_LENGTH)
+    private String name;
+
+    @Column(name = "published_post_count", nullable = false)
+    @Builder.Default
+    private Integer publishedPostCount = 0;
+
+    @Column(name = "created_at")
+    private OffsetDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = OffsetDateTime.now();
+    }
+
+    /**
+     * Display form of a hashtag: trimmed, without leading {@code #}, inner whitespace collapsed.
+     */
+    public static String displayName(String raw) {
+        if (raw == null) {
+            return "";
+        }
+        return raw.strip().replaceFirst("^#+", "").strip().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Case-folded key two spellings of the same hashtag share. Must match the
+     * backfill expression in the V9 migration.
+     */
+    public static String normalize(String raw) {
+        return displayName(raw).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,46 @@
+package com.portfolio.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A resumable upload that has not been completed yet. Only what the upload will
+ * become is kept here; the bytes received so far are in its part file.
+ */
+@Entity
+@Table(name = "upload_sessions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "original_name", nullable = false)
+    private String originalName;
+
+    @Column(name = "length", nullable = false)
+    private Long length;
+
+    @Column(name = "post_id")
+    private UUID postId;
+
+    @Column(name = "alt_text_en")
+    private String altTextEn;
+
+    @Column(name = "alt_text_pl")
+    private String altTextPl;
+
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+}
@@ -0,0 +1,112 @@
+package com.portfolio.repository;
+
+import com.portfolio.service.AnalyticsBuffer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Batched writes and range reads of the page-view rollups. Plain JDBC rather than
+ * JPA: each flush is one multi-row upsert per table, binding whole columns as arrays.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AnalyticsRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record DailyViews(LocalDate day, long views) {
+    }
+
+    public record PageViews(String path, long views) {
+    }
+
+    public record PostDayViews(UUID postId, String slug, String title, long views, byte[] visitors) {
+    }
+
+    @Transactional
+    public void save(AnalyticsBuffer.Batch batch) {
+        if (!batch.pages().isEmpty()) {
+            savePages(batch.pages());
+        }
+        if (!batch.posts().isEmpty()) {
+            savePosts(batch.posts());
+        }
+    }
+
+    private void savePages(List<AnalyticsBuffer.PageCount> pages) {
+        jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement(
+                    "INSERT INTO page_view_hourly (bucket, path, views) " +
+                            "SELECT * FROM unnest(?::timestamptz[], ?::varchar[], ?::bigint[]) " +
+                            "ON CONFLICT (bucket, path) DO UPDATE SET views = page_view_hourly.views + EXCLUDED.views");
+            statement.setArray(1, connection.createArrayOf("timestamptz",
+                    pages.stream().map(page -> Timestamp.from(page.bucket())).toArray()));
+            statement.setArray(2, connection.createArrayOf("varchar",
+                    pages.stream().map(AnalyticsBuffer.PageCount::path).toArray()));
+            statement.setArray(3, connection.createArrayOf("bigint",
+                    pages.stream().map(AnalyticsBuffer.PageCount::views).toArray()));
+            return statement;
+        });
+    }
+
+    // Slugs resolve to posts here; views of unknown slugs are discarded
+    private void savePosts(List<AnalyticsBuffer.PostCount> posts) {
+        jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement(
+                    "INSERT INTO post_view_daily (day, post_id, views, visitors) " +
+                            "SELECT e.day, p.id, e.views, e.visitors " +
+                            "FROM unnest(?::date[], ?::varchar[], ?::bigint[], ?::bytea[]) AS e(day, slug, views, visitors) " +
+                            "JOIN posts p ON p.slug = e.slug " +
+                            "ON CONFLICT (day, post_id) DO UPDATE SET " +
+                            "views = post_view_daily.views + EXCLUDED.views, " +
+                            "visitors = hll_union(post_view_daily.visitors, EXCLUDED.visitors)");
+            statement.setArray(1, connection.createArrayOf("date",
+                    posts.stream().map(post -> Date.valueOf(post.day())).toArray()));
+            statement.setArray(2, connection.createArrayOf("varchar",
+                    posts.stream().map(AnalyticsBuffer.PostCount::slug).toArray()));
+            statement.setArray(3, connection.createArrayOf("bigint",
+                    posts.stream().map(AnalyticsBuffer.PostCount::views).toArray()));
+            statement.setArray(4, connection.createArrayOf("bytea",
+                    posts.stream().map(AnalyticsBuffer.PostCount::visitors).toArray(byte[][]::new)));
+            return statement;
+        });
+    }
+
+    public List<DailyViews> findDailyViews(Instant from, Instant to) {
+        return jdbcTemplate.query(
+                "SELECT (bucket AT TIME ZONE 'UTC')::date AS day, SUM(views) AS views " +
+                        "FROM page_view_hourly WHERE bucket >= ? AND bucket < ? " +
+                        "GROUP BY 1 ORDER BY 1",
+                (rs, row) -> new DailyViews(rs.getObject("day", LocalDate.class), rs.getLong("views")),
+                Timestamp.from(from), Timestamp.from(to));
+    }
+
+    public List<PageViews> findTopPages(Instant from, Instant to, int limit) {
+        return jdbcTemplate.query(
+                "SELECT path, SUM(views) AS views FROM page_view_hourly " +
+                        "WHERE bucket >= ? AND bucket < ? " +
+                        "GROUP BY path ORDER BY views DESC, path LIMIT ?",
+                (rs, row) -> new PageViews(rs.getString("path"), rs.getLong("views")),
+                Timestamp.from(from), Timestamp.from(to), limit);
+    }
+
+    // One row per post and day; sketches are unioned by the caller
+    public List<PostDayViews> findPostDays(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+                "SELECT d.post_id, p.slug, p.title_en, d.views, d.visitors " +
+                        "FROM post_view_daily d JOIN posts p ON p.id = d.post_id " +
+                        "WHERE d.day >= ? AND d.day < ?",
+                (rs, row) -> new PostDayViews(rs.getObject("post_id", UUID.class), rs.getString("slug"),
+                        rs.getString("title_en"), rs.getLong("views"), rs.getBytes("visitors")),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+}
@@ -0,0 +1,52 @@
+package com.portfolio.repository;
+
+import com.portfolio.entity.MediaBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, String> {
+
+    /**
+     * Adds a reference, creating the blob on first use. Locks the row until the
+     * transaction ends, so it serializes with a concurrent {@link #release}.
+     *
+     * @return the new reference count; 1 means the file has to be put in place
+     */
+    @Query(value = "INSERT INTO media_blobs (filename, sha256, size, ref_count) " +
+            "VALUES (:filename, :sha256, :size, 1) " +
+            "ON CONFLICT (filename) DO UPDATE SET ref_count = media_blobs.ref_count + 1 " +
+            "RETURNING ref_count", nativeQuery = true)
+    int acquire(@Param("filename") String filename, @Param("sha256") String sha256, @Param("size") long size);
+
+    /**
+     * Reads a blob and locks its row until the transaction ends, so that no reference
+     * can be taken on it meanwhile.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM MediaBlob b WHERE b.filename = :filename")
+    Optional<MediaBlob> findForUpdate(@Param("filename") String filename);
+
+    @Query("SELECT b.size FROM MediaBlob b WHERE b.filename = :filename")
+    Optional<Long> findSize(@Param("filename") String filename);
+
+    /**
+     * Drops a reference and deletes the blob row when it was the last one.
+     *
+     * @return the remaining reference count, 0 when the file is no longer used,
+     * or null when the blob is unknown
+     */
+    @Query(value = "WITH released AS (" +
+            "UPDATE media_blobs SET ref_count = ref_count - 1 WHERE filename = :filename AND ref_count > 1 " +
+            "RETURNING ref_count), " +
+            "removed AS (" +
+            "DELETE FROM media_blobs WHERE filename = :filename AND ref_count = 1 RETURNING 0 AS ref_count) " +
+            "SELECT ref_count FROM released UNION ALL SELECT ref_count FROM removed", nativeQuery = true)
+    Integer release(@Param("filename") String filename);
+}
@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -31,6 +32,44 @@ public interface MediaRepository extends JpaRepository<Media, UUID> {
     @Query("SELECT COALESCE(MAX(m.displayOrder), 0) FROM Media m WHERE m.post.id = :postId")
     int getMaxDisplayOrderForPost(@Param("postId") UUID postId);
 
+    // Keyset pagination over (created_at DESC, id DESC), backed by idx_media_created_at_id
+    // and idx_media_type_created_at_id
+    @Query(value = "SELECT * FROM media ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Media> findFirstPage(@Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM media WHERE (created_at, id) < (:createdAt, :id) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Media> findPageAfter(@Param("createdAt") OffsetDateTime createdAt,
+                              @Param("id") UUID id,
+                              @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM media WHERE type = :type " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Media> findByTypeFirstPage(@Param("type") String type, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM media WHERE type = :type AND (created_at, id) < (:createdAt, :id) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Media> findByTypePageAfter(@Param("type") String type,
+                                    @Param("createdAt") OffsetDateTime createdAt,
+                                    @Param("id") UUID id,
+                                    @Param("limit") int limit);
+
+    // Keyset batches of stored filenames, backed by idx_media_filename
+    @Query(value = "SELECT DISTINCT filename FROM media WHERE filename > :after " +
+            "ORDER BY filename LIMIT :limit", nativeQuery = true)
+    List<String> findFilenamesAfter(@Param("after") String after, @Param("limit") int limit);
+
+    // Images whose metadata predates the current ImageMetadataExtractor.VERSION
+    @Query("SELECT m FROM Media m WHERE m.type = :type AND m.metadataVersion < :version " +
+            "AND m.filename IS NOT NULL ORDER BY m.id")
+    List<Media> findMetadataBefore(@Param("type") MediaType type, @Param("version") int version, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Media m SET m.width = :width, m.height = :height, m.placeholder = :placeholder, " +
+            "m.metadataVersion = :version WHERE m.id = :id")
+    void updateMetadata(@Param("id") UUID id, @Param("width") Integer width, @Param("height") Integer height,
+                        @Param("placeholder") String placeholder, @Param("version") int version);
+
     @Modifying
     @Query("UPDATE Media m SET m.displayOrder = :displayOrder WHERE m.id = :id")
     void updateDisplayOrder(@Param("id") UUID id, @Param("displayOrder") int displayOrder);
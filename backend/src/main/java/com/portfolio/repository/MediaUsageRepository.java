@@ -0,0 +1,113 @@
+package com.portfolio.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The running totals in {@code media_usage} and {@code post_media_usage}. Plain JDBC
+ * rather than JPA: every change is a single upsert that adds to a total in place and
+ * locks its row until the transaction ends.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MediaUsageRepository {
+
+    public static final String TYPE = "type";
+    public static final String STORE = "store";
+    public static final String BLOBS = "blobs";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Total(String scope, String name, long files, long bytes) {
+    }
+
+    /**
+     * Adds to a total, creating it on first use. Deltas may be negative.
+     *
+     * @return the new byte total
+     */
+    public long add(String scope, String name, long files, long bytes) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO media_usage (scope, name, files, bytes) VALUES (?, ?, ?, ?) " +
+                        "ON CONFLICT (scope, name) DO UPDATE SET " +
+                        "files = media_usage.files + EXCLUDED.files, bytes = media_usage.bytes + EXCLUDED.bytes " +
+                        "RETURNING bytes",
+                Long.class, scope, name, files, bytes);
+    }
+
+    public void addToPost(UUID postId, long files, long bytes) {
+        jdbcTemplate.update(
+                "INSERT INTO post_media_usage (post_id, files, bytes) VALUES (?, ?, ?) " +
+                        "ON CONFLICT (post_id) DO UPDATE SET " +
+                        "files = post_media_usage.files + EXCLUDED.files, bytes = post_media_usage.bytes + EXCLUDED.bytes",
+                postId, files, bytes);
+    }
+
+    public List<Total> findAll() {
+        return jdbcTemplate.query("SELECT scope, name, files, bytes FROM media_usage",
+                (rs, row) -> new Total(rs.getString("scope"), rs.getString("name"),
+                        rs.getLong("files"), rs.getLong("bytes")));
+    }
+
+    public long findBytes(String scope, String name) {
+        List<Long> bytes = jdbcTemplate.queryForList(
+                "SELECT bytes FROM media_usage WHERE scope = ? AND name = ?", Long.class, scope, name);
+        return bytes.isEmpty() ? 0 : bytes.get(0);
+    }
+
+    public Optional<Total> findByPost(UUID postId) {
+        return jdbcTemplate.query("SELECT files, bytes FROM post_media_usage WHERE post_id = ?",
+                (rs, row) -> new Total("post", postId.toString(), rs.getLong("files"), rs.getLong("bytes")),
+                postId).stream().findFirst();
+    }
+
+    /**
+     * Recomputes every total from the media and media_blobs tables and overwrites the
+     * ones that drifted. Uploads and deletes wait for it, so none are lost in between.
+     * Must run in a transaction.
+     *
+     * @return the number of totals corrected
+     */
+    public int recompute() {
+        jdbcTemplate.execute("LOCK TABLE media_usage, post_media_usage IN SHARE ROW EXCLUSIVE MODE");
+        Integer totals = jdbcTemplate.queryForObject(
+                "WITH actual AS (" +
+                        "SELECT 'type' AS scope, type AS name, COUNT(*) AS files, COALESCE(SUM(size), 0) AS bytes " +
+                        "FROM media WHERE filename IS NOT NULL GROUP BY type " +
+                        "UNION ALL " +
+                        "SELECT 'store', 'blobs', COUNT(*), COALESCE(SUM(size), 0) FROM media_blobs), " +
+                        "corrected AS (" +
+                        "INSERT INTO media_usage (scope, name, files, bytes) SELECT scope, name, files, bytes FROM actual " +
+                        "ON CONFLICT (scope, name) DO UPDATE SET files = EXCLUDED.files, bytes = EXCLUDED.bytes " +
+                        "WHERE (media_usage.files, media_usage.bytes) IS DISTINCT FROM (EXCLUDED.files, EXCLUDED.bytes) " +
+                        "RETURNING 1), " +
+                        "zeroed AS (" +
+                        "UPDATE media_usage SET files = 0, bytes = 0 WHERE (files <> 0 OR bytes <> 0) " +
+                        "AND (scope, name) NOT IN (SELECT scope, name FROM actual) RETURNING 1) " +
+                        "SELECT (SELECT COUNT(*) FROM corrected) + (SELECT COUNT(*) FROM zeroed)",
+                Integer.class);
+        Integer posts = jdbcTemplate.queryForObject(
+                "WITH actual AS (" +
+                        "SELECT post_id, COUNT(*) AS files, COALESCE(SUM(size), 0) AS bytes " +
+                        "FROM media WHERE filename IS NOT NULL AND post_id IS NOT NULL GROUP BY post_id), " +
+                        "corrected AS (" +
+                        "INSERT INTO post_media_usage (post_id, files, bytes) SELECT post_id, files, bytes FROM actual " +
+                        "ON CONFLICT (post_id) DO UPDATE SET files = EXCLUDED.files, bytes = EXCLUDED.bytes " +
+                        "WHERE (post_media_usage.files, post_media_usage.bytes) " +
+                        "IS DISTINCT FROM (EXCLUDED.files, EXCLUDED.bytes) " +
+                        "RETURNING 1), " +
+                        "removed AS (" +
+                        "DELETE FROM post_media_usage WHERE post_id NOT IN (SELECT post_id FROM actual) " +
+                        "RETURNING files, bytes) " +
+                        // Totals of posts whose media were all removed are 0 and were right
+                        "SELECT (SELECT COUNT(*) FROM corrected) + " +
+                        "(SELECT COUNT(*) FROM removed WHERE files <> 0 OR bytes <> 0)",
+                Integer.class);
+        return totals + posts;
+    }
+}
@@ -2,11 +2,14 @@ package com.portfolio.repository;
 
 import com.portfolio.entity.Category;
 import com.portfolio.entity.Post;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -17,6 +20,25 @@ import java.util.UUID;
 @Repository
 public interface PostRepository extends JpaRepository<Post, UUID> {
 
+    String SUMMARY_SELECT = "SELECT new com.portfolio.repository.PostSummary(" +
+            "p.id, p.category, p.slug, " +
+            "CASE WHEN :locale = 'pl' THEN p.titlePl ELSE p.titleEn END, " +
+            "CASE WHEN :locale = 'pl' THEN " +
+            "(CASE WHEN TRIM(COALESCE(p.excerptPl, '')) <> '' THEN p.excerptPl ELSE p.plainExcerptPl END) " +
+            "ELSE (CASE WHEN TRIM(COALESCE(p.excerptEn, '')) <> '' THEN p.excerptEn ELSE p.plainExcerptEn END) END, " +
+            "p.featuredImage, p.firstImage, p.githubUrl, p.liveUrl, p.published, p.displayOrder, p.hashtags, " +
+            "p.createdAt, p.updatedAt, p.hasCaseStudy, " +
+            "CASE WHEN :locale = 'pl' THEN p.wordCountPl ELSE p.wordCountEn END, " +
+            "CASE WHEN :locale = 'pl' THEN p.readingMinutesPl ELSE p.readingMinutesEn END) " +
+            "FROM Post p ";
+
+    // Private-use characters that ts_headline wraps around matches; never present in post text
+    String HIGHLIGHT_START = "\uE000";
+    String HIGHLIGHT_STOP = "\uE001";
+
+    String HEADLINE_OPTIONS = "'StartSel=' || chr(57344) || ', StopSel=' || chr(57345) || " +
+            "', MaxFragments=2, MinWords=5, MaxWords=20, FragmentDelimiter=\" ... \"'";
+
     Optional<Post> findBySlug(String slug);
 
     List<Post> findByPublishedTrueOrderByDisplayOrderAsc();
@@ -35,6 +57,21 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
     @Query("SELECT p FROM Post p WHERE p.category = :category ORDER BY p.displayOrder ASC")
     List<Post> findAllByCategory(@Param("category") Category category);
 
+    // Card projections: only the columns list endpoints render, in the requested locale
+    @Query(SUMMARY_SELECT + "WHERE p.published = true ORDER BY p.displayOrder ASC")
+    List<PostSummary> findPublishedSummaries(@Param("locale") String locale);
+
+    @Query(SUMMARY_SELECT + "WHERE p.published = true AND p.category = :category ORDER BY p.displayOrder ASC")
+    List<PostSummary> findPublishedSummariesByCategory(@Param("category") Category category,
+                                                       @Param("locale") String locale);
+
+    @Query(SUMMARY_SELECT + "ORDER BY p.displayOrder ASC")
+    List<PostSummary> findAllSummaries(@Param("locale") String locale);
+
+    @Query(SUMMARY_SELECT + "WHERE p.category = :category ORDER BY p.displayOrder ASC")
+    List<PostSummary> findAllSummariesByCategory(@Param("category") Category category,
+                                                 @Param("locale") String locale);
+
     @Query("SELECT COUNT(p) FROM Post p WHERE p.category = :category AND p.published = true")
     long countByCategoryAndPublished(@Param("category") Category category);
 
@@ -50,10 +87,86 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
     @Query("UPDATE Post p SET p.displayOrder = :displayOrder WHERE p.id = :id")
     void updateDisplayOrder(@Param("id") UUID id, @Param("displayOrder") int displayOrder);
 
-    // Hashtag methods
-    @Query(value = "SELECT * FROM posts WHERE published = true AND :hashtag = ANY(hashtags) ORDER BY display_order", nativeQuery = true)
-    List<Post> findByHashtagAndPublishedTrue(@Param("hashtag") String hashtag);
+    // Posts whose derived fields predate the current PostContentAnalyzer.VERSION.
+    // Loaded read-only so deriving on them never flushes a full-row update.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT p FROM Post p WHERE p.derivedVersion < :version ORDER BY p.id")
+    List<Post> findDerivedBefore(@Param("version") int version, Pageable pageable);
 
-    @Query(value = "SELECT DISTINCT unnest(hashtags) FROM posts WHERE published = true", nativeQuery = true)
-    List<String> findAllUniqueHashtags();
+    // Writes only the derived columns, which the posts' updated_at trigger ignores (V20)
+    @Modifying
+    @Query("UPDATE Post p SET p.wordCountEn = :#{#post.wordCountEn}, p.wordCountPl = :#{#post.wordCountPl}, " +
+            "p.readingMinutesEn = :#{#post.readingMinutesEn}, p.readingMinutesPl = :#{#post.readingMinutesPl}, " +
+            "p.tocEn = :#{#post.tocEn}, p.tocPl = :#{#post.tocPl}, " +
+            "p.plainExcerptEn = :#{#post.plainExcerptEn}, p.plainExcerptPl = :#{#post.plainExcerptPl}, " +
+            "p.firstImage = :#{#post.firstImage}, p.hasCaseStudy = :#{#post.hasCaseStudy}, " +
+            "p.derivedVersion = :#{#post.derivedVersion} WHERE p.id = :#{#post.id}")
+    void updateDerivedFields(@Param("post") Post post);
+
+    // Hashtag methods, by the case-folded key in tags.normalized_name
+    @Query("SELECT p FROM Post p JOIN p.tags t " +
+            "WHERE t.normalizedName = :normalizedName AND p.published = true ORDER BY p.displayOrder ASC")
+    List<Post> findPublishedByTag(@Param("normalizedName") String normalizedName);
+
+    // Full-text search over the generated search_en/search_pl columns (GIN-indexed).
+    // Ranks at most :candidates index matches and builds headlines for the top :limit only.
+    @Query(value = "SELECT p.id AS id, p.category AS category, p.slug AS slug, " +
+            "p.title_en AS title, " +
+            "CASE WHEN TRIM(COALESCE(p.excerpt_en, '')) <> '' THEN p.excerpt_en ELSE p.plain_excerpt_en END AS excerpt, " +
+            "p.featured_image AS featuredImage, " +
+            "p.hashtags AS hashtags, hits.rank AS rank, " +
+            "ts_headline('english', COALESCE(p.excerpt_en, '') || ' ' || post_content_text(p.content_en), " +
+            "hits.query, " + HEADLINE_OPTIONS + ") AS headline " +
+            "FROM (SELECT id, ts_rank_cd(search_en, query, 1) AS rank, query " +
+            "FROM (SELECT id, search_en, query FROM posts, websearch_to_tsquery('english', :query) AS query " +
+            "WHERE published = true AND search_en @@ query LIMIT :candidates) candidates " +
+            "ORDER BY rank DESC, id LIMIT :limit) hits " +
+            "JOIN posts p ON p.id = hits.id " +
+            "ORDER BY hits.rank DESC, p.id", nativeQuery = true)
+    List<PostSearchHit> searchPublishedEn(@Param("query") String query,
+                                          @Param("candidates") int candidates,
+                                          @Param("limit") int limit);
+
+    @Query(value = "SELECT p.id AS id, p.category AS category, p.slug AS slug, " +
+            "p.title_pl AS title, " +
+            "CASE WHEN TRIM(COALESCE(p.excerpt_pl, '')) <> '' THEN p.excerpt_pl ELSE p.plain_excerpt_pl END AS excerpt, " +
+            "p.featured_image AS featuredImage, " +
+            "p.hashtags AS hashtags, hits.rank AS rank, " +
+            "ts_headline('polish_unaccent', COALESCE(p.excerpt_pl, '') || ' ' || post_content_text(p.content_pl), " +
+            "hits.query, " + HEADLINE_OPTIONS + ") AS headline " +
+            "FROM (SELECT id, ts_rank_cd(search_pl, query, 1) AS rank, query " +
+            "FROM (SELECT id, search_pl, query FROM posts, websearch_to_tsquery('polish_unaccent', :query) AS query " +
+            "WHERE published = true AND search_pl @@ query LIMIT :candidates) candidates " +
+            "ORDER BY rank DESC, id LIMIT :limit) hits " +
+            "JOIN posts p ON p.id = hits.id " +
+            "ORDER BY hits.rank DESC, p.id", nativeQuery = true)
+    List<PostSearchHit> searchPublishedPl(@Param("query") String query,
+                                          @Param("candidates") int candidates,
+                                          @Param("limit") int limit);
+
+    // Keyset pagination over (display_order, id), backed by idx_posts_published_order_id
+    // and idx_posts_category_published_order_id
+    @Query(value = "SELECT * FROM posts WHERE published = true " +
+            "ORDER BY display_order, id LIMIT :limit", nativeQuery = true)
+    List<Post> findPublishedFirstPage(@Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM posts WHERE published = true " +
+            "AND (display_order, id) > (:displayOrder, :id) " +
+            "ORDER BY display_order, id LIMIT :limit", nativeQuery = true)
+    List<Post> findPublishedPageAfter(@Param("displayOrder") int displayOrder,
+                                      @Param("id") UUID id,
+                                      @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM posts WHERE published = true AND category = :category " +
+            "ORDER BY display_order, id LIMIT :limit", nativeQuery = true)
+    List<Post> findPublishedByCategoryFirstPage(@Param("category") String category,
+                                                @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM posts WHERE published = true AND category = :category " +
+            "AND (display_order, id) > (:displayOrder, :id) " +
+            "ORDER BY display_order, id LIMIT :limit", nativeQuery = true)
+    List<Post> findPublishedByCategoryPageAfter(@Param("category") String category,
+                                                @Param("displayOrder") int displayOrder,
+                                                @Param("id") UUID id,
+                                                @Param("limit") int limit);
 }
@@ -0,0 +1,29 @@
+package com.portfolio.repository;
+
+import java.util.UUID;
+
+/**
+ * Row of a full-text search over published posts, in the searched locale.
+ * The headline marks matches with {@link PostRepository#HIGHLIGHT_START} and
+ * {@link PostRepository#HIGHLIGHT_STOP} and is not HTML-escaped.
+ */
+public interface PostSearchHit {
+
+    UUID getId();
+
+    String getCategory();
+
+    String getSlug();
+
+    String getTitle();
+
+    String getExcerpt();
+
+    String getFeaturedImage();
+
+    String[] getHashtags();
+
+    Float getRank();
+
+    String getHeadline();
+}
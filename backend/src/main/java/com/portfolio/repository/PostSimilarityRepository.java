@@ -0,0 +1,65 @@
+package com.portfolio.repository;
+
+import com.portfolio.entity.PostSimilarity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PostSimilarityRepository extends JpaRepository<PostSimilarity, PostSimilarity.Key> {
+
+    // Slug lookup plus one range scan of idx_post_similarities_ranked
+    @Query(PostRepository.SUMMARY_SELECT +
+            "JOIN PostSimilarity s ON s.relatedPostId = p.id " +
+            "JOIN Post source ON source.id = s.postId " +
+            "WHERE source.slug = :slug AND p.published = true " +
+            "ORDER BY s.score DESC, s.relatedPostId")
+    List<PostSummary> findRelatedSummaries(@Param("slug") String slug,
+                                           @Param("locale") String locale,
+                                           Pageable pageable);
+
+    // Posts whose lists currently include the given post
+    @Query("SELECT s.postId FROM PostSimilarity s WHERE s.relatedPostId = :postId")
+    List<UUID> findPostIdsRelatedTo(@Param("postId") UUID postId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM post_similarities WHERE post_id = :postId", nativeQuery = true)
+    void deleteByPostId(@Param("postId") UUID postId);
+
+    // Scores come from related_post_scores (V12); unpublished posts get no list
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO post_similarities (post_id, related_post_id, score) " +
+            "SELECT :postId, r.related_post_id, r.score " +
+            "FROM related_post_scores(:postId, :candidates) r " +
+            "WHERE r.score > 0 " +
+            "ORDER BY r.score DESC, r.related_post_id LIMIT :limit", nativeQuery = true)
+    void insertRelated(@Param("postId") UUID postId,
+                       @Param("candidates") int candidates,
+                       @Param("limit") int limit);
+
+    // Scores are symmetric, so the post's own candidates are the lists it may enter
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO post_similarities (post_id, related_post_id, score) " +
+            "SELECT r.related_post_id, :postId, r.score " +
+            "FROM related_post_scores(:postId, :candidates) r " +
+            "WHERE r.score > 0 " +
+            "ON CONFLICT (post_id, related_post_id) DO UPDATE SET score = EXCLUDED.score", nativeQuery = true)
+    void offerToNeighbours(@Param("postId") UUID postId, @Param("candidates") int candidates);
+
+    // Cuts lists that now include the given post back to :limit entries
+    @Modifying
+    @Query(value = "DELETE FROM post_similarities s USING (" +
+            "SELECT post_id, related_post_id, " +
+            "row_number() OVER (PARTITION BY post_id ORDER BY score DESC, related_post_id) AS position " +
+            "FROM post_similarities WHERE post_id IN (" +
+            "SELECT post_id FROM post_similarities WHERE related_post_id = :postId)) ranked " +
+            "WHERE s.post_id = ranked.post_id AND s.related_post_id = ranked.related_post_id " +
+            "AND ranked.position > :limit", nativeQuery = true)
+    void trimNeighbours(@Param("postId") UUID postId, @Param("limit") int limit);
+}
@@ -0,0 +1,32 @@
+package com.portfolio.repository;
+
+import com.portfolio.entity.Category;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Card-sized view of a post for list endpoints.
+ * Carries only the requested locale's title, excerpt and derived stats and none of the
+ * content or case-study bodies, so list queries never read the jsonb columns.
+ */
+public record PostSummary(
+        UUID id,
+        Category category,
+        String slug,
+        String title,
+        String excerpt,
+        String featuredImage,
+        String firstImage,
+        String githubUrl,
+        String liveUrl,
+        Boolean published,
+        Integer displayOrder,
+        String[] hashtags,
+        OffsetDateTime createdAt,
+        OffsetDateTime updatedAt,
+        Boolean hasCaseStudy,
+        Integer wordCount,
+        Integer readingMinutes
+) {
+}
@@ -0,0 +1,40 @@
+package com.portfolio.repository;
+
+import com.portfolio.entity.Tag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TagRepository extends JpaRepository<Tag, UUID> {
+
+    List<Tag> findByNormalizedNameIn(Collection<String> normalizedNames);
+
+    // Served by idx_tags_published_post_count
+    @Query("SELECT t FROM Tag t WHERE t.publishedPostCount > 0 " +
+            "ORDER BY t.publishedPostCount DESC, t.normalizedName ASC")
+    List<Tag> findPublished();
+
+    // Concurrent writers may race to create the same tag; the unique key decides
+    @Modifying
+    @Query(value = "INSERT INTO tags (id, normalized_name, name, published_post_count, created_at) " +
+            "VALUES (:id, :normalizedName, :name, 0, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (normalized_name) DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(@Param("id") UUID id,
+                        @Param("normalizedName") String normalizedName,
+                        @Param("name") String name);
+
+    // Recounts from post_tags rather than incrementing, so counts cannot drift
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE tags t SET published_post_count = (" +
+            "SELECT COUNT(*) FROM post_tags pt JOIN posts p ON p.id = pt.post_id " +
+            "WHERE pt.tag_id = t.id AND p.published = true) " +
+            "WHERE t.id IN (:ids)", nativeQuery = true)
+    void refreshPublishedPostCounts(@Param("ids") Collection<UUID> ids);
+}
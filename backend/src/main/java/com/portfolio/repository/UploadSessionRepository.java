@@ -0,0 +1,27 @@
+package com.portfolio.repository;
+
+import com.portfolio.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    @Query("SELECT s FROM UploadSession s WHERE s.id = :id AND s.expiresAt > :now")
+    Optional<UploadSession> findActive(@Param("id") UUID id, @Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.expiresAt = :expiresAt WHERE s.id = :id")
+    void extend(@Param("id") UUID id, @Param("expiresAt") OffsetDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM UploadSession s WHERE s.expiresAt <= :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+}
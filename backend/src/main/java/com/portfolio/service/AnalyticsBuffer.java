@@ -0,0 +1,155 @@
+package com.portfolio.service;
+
+import com.portfolio.util.HyperLogLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-memory page-view counters between flushes.
+ * <p>
+ * Recording never locks: counters are {@link LongAdder}s (striped per CPU under
+ * contention) and visitor sketches are lock-free. {@link #drain(Instant)} takes
+ * each counter with {@link LongAdder#sumThenReset()}, so views recorded during a
+ * drain land in this batch or the next, never in neither.
+ */
+@Component
+public class AnalyticsBuffer {
+
+    // Keys outlive their bucket by this much, so late writers still find their counter
+    private static final Duration RETENTION = Duration.ofHours(2);
+
+    private final int maxKeys;
+    private final Map<PageKey, LongAdder> pageViews = new ConcurrentHashMap<>();
+    private final Map<PostKey, PostCounter> postViews = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    public AnalyticsBuffer(@Value("${app.analytics.max-buffered-keys:50000}") int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    record PageKey(Instant bucket, String path) {
+    }
+
+    record PostKey(LocalDate day, String slug) {
+    }
+
+    public record PageCount(Instant bucket, String path, long views) {
+    }
+
+    public record PostCount(LocalDate day, String slug, long views, byte[] visitors) {
+    }
+
+    public record Batch(List<PageCount> pages, List<PostCount> posts) {
+
+        public boolean isEmpty() {
+            return pages.isEmpty() && posts.isEmpty();
+        }
+    }
+
+    private static final class PostCounter {
+        private final LongAdder views = new LongAdder();
+        private final HyperLogLog visitors = new HyperLogLog();
+        // Set when a register changed since the sketch was last drained
+        private final AtomicBoolean dirty = new AtomicBoolean();
+    }
+
+    /**
+     * Counts one view of a page and, when {@code postSlug} is given, of that post.
+     *
+     * @return false when the buffer is full of distinct keys and the view was dropped
+     */
+    public boolean record(Instant at, String path, String postSlug, long visitorHash) {
+        LongAdder pageCounter = counter(pageViews, new PageKey(at.truncatedTo(ChronoUnit.HOURS), path),
+                LongAdder::new);
+        PostCounter postCounter = postSlug != null
+                ? counter(postViews, new PostKey(LocalDate.ofInstant(at, ZoneOffset.UTC), postSlug), PostCounter::new)
+                : null;
+        if (pageCounter == null || (postSlug != null && postCounter == null)) {
+            dropped.increment();
+            return false;
+        }
+
+        pageCounter.increment();
+        if (postCounter != null) {
+            postCounter.views.increment();
+            if (postCounter.visitors.offer(visitorHash)) {
+                postCounter.dirty.set(true);
+            }
+        }
+        return true;
+    }
+
+    // Existing keys are always served; new ones only while the buffer has room
+    private <K, V> V counter(Map<K, V> counters, K key, Supplier<V> factory) {
+        V counter = counters.get(key);
+        if (counter == null && pageViews.size() + postViews.size() < maxKeys) {
+            counter = counters.computeIfAbsent(key, k -> factory.get());
+        }
+        return counter;
+    }
+
+    /**
+     * Takes everything recorded since the previous drain and forgets keys whose
+     * bucket is well in the past.
+     */
+    public Batch drain(Instant now) {
+        List<PageCount> pages = new ArrayList<>();
+        pageViews.forEach((key, counter) -> {
+            long views = counter.sumThenReset();
+            if (views > 0) {
+                pages.add(new PageCount(key.bucket(), key.path(), views));
+            }
+        });
+
+        List<PostCount> posts = new ArrayList<>();
+        postViews.forEach((key, counter) -> {
+            long views = counter.views.sumThenReset();
+            boolean changed = counter.dirty.getAndSet(false);
+            if (views > 0 || changed) {
+                // The full sketch every time: unions are idempotent, so resending is harmless
+                posts.add(new PostCount(key.day(), key.slug(), views, counter.visitors.toBytes()));
+            }
+        });
+
+        Instant pageCutoff = now.minus(RETENTION).truncatedTo(ChronoUnit.HOURS);
+        pageViews.keySet().removeIf(key -> key.bucket().isBefore(pageCutoff));
+        LocalDate dayCutoff = LocalDate.ofInstant(now.minus(RETENTION), ZoneOffset.UTC);
+        postViews.keySet().removeIf(key -> key.day().isBefore(dayCutoff));
+
+        return new Batch(pages, posts);
+    }
+
+    /**
+     * Puts a batch that could not be written back, to be retried with the next drain.
+     */
+    public void restore(Batch batch) {
+        for (PageCount page : batch.pages()) {
+            pageViews.computeIfAbsent(new PageKey(page.bucket(), page.path()), key -> new LongAdder())
+                    .add(page.views());
+        }
+        for (PostCount post : batch.posts()) {
+            PostCounter counter = postViews.computeIfAbsent(new PostKey(post.day(), post.slug()),
+                    key -> new PostCounter());
+            counter.views.add(post.views());
+            counter.visitors.merge(HyperLogLog.fromBytes(post.visitors()));
+            counter.dirty.set(true);
+        }
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,154 @@
+package com.portfolio.service;
+
+import com.portfolio.dto.AnalyticsEventRequest;
+import com.portfolio.dto.AnalyticsSummaryDto;
+import com.portfolio.dto.DailyViewsDto;
+import com.portfolio.dto.PageViewsDto;
+import com.portfolio.dto.PostViewsDto;
+import com.portfolio.repository.AnalyticsRepository;
+import com.portfolio.util.HyperLogLog;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Page-view analytics. Events only touch {@link AnalyticsBuffer}; a scheduled
+ * job writes the accumulated counts to the rollup tables every few seconds.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsService {
+
+    public static final int MAX_RANGE_DAYS = 366;
+    public static final int TOP_PAGES = 20;
+
+    private static final Pattern BOT_USER_AGENT =
+            Pattern.compile("bot|crawl|spider|slurp|headless|preview|monitor", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern QUERY_OR_FRAGMENT = Pattern.compile("[?#].*$", Pattern.DOTALL);
+
+    private final AnalyticsBuffer buffer;
+    private final AnalyticsRepository analyticsRepository;
+
+    /**
+     * Counts a page view. Never blocks on the database.
+     *
+     * @return false when the event was ignored (bot traffic or a full buffer)
+     */
+    public boolean record(AnalyticsEventRequest request, String remoteAddress, String userAgent) {
+        if (userAgent != null && BOT_USER_AGENT.matcher(userAgent).find()) {
+            return false;
+        }
+        String path = normalizePath(request.getPath());
+        String slug = request.getPostSlug() != null && !request.getPostSlug().isBlank()
+                ? request.getPostSlug().trim()
+                : null;
+
+        Instant now = Instant.now();
+        // Without a browser id, a visitor is an address and agent within one UTC day
+        String visitor = request.getVisitorId() != null && !request.getVisitorId().isBlank()
+                ? request.getVisitorId()
+                : remoteAddress + '|' + userAgent + '|' + LocalDate.ofInstant(now, ZoneOffset.UTC);
+        return buffer.record(now, path, slug, HyperLogLog.hash(visitor));
+    }
+
+    private static String normalizePath(String path) {
+        // Query strings and fragments would split one page into unbounded keys
+        String trimmed = QUERY_OR_FRAGMENT.matcher(path.trim()).replaceFirst("");
+        if (!trimmed.startsWith("/")) {
+            throw new IllegalArgumentException("Path must start with /");
+        }
+        return trimmed;
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.flush-interval:PT5S}",
+            initialDelayString = "${app.analytics.flush-interval:PT5S}")
+    public void flush() {
+        AnalyticsBuffer.Batch batch = buffer.drain(Instant.now());
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            analyticsRepository.save(batch);
+            log.debug("Flushed {} page and {} post view rollups", batch.pages().size(), batch.posts().size());
+        } catch (RuntimeException e) {
+            buffer.restore(batch);
+            log.warn("Failed to flush analytics, will retry: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Views between two UTC days, both inclusive.
+     */
+    public AnalyticsSummaryDto getSummary(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        LocalDate end = to.plusDays(1);
+        Instant start = from.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant endInstant = end.atStartOfDay(ZoneOffset.UTC).toInstant();
+
+        List<DailyViewsDto> daily = analyticsRepository.findDailyViews(start, endInstant).stream()
+                .map(row -> new DailyViewsDto(row.day(), row.views()))
+                .toList();
+        List<PageViewsDto> topPages = analyticsRepository.findTopPages(start, endInstant, TOP_PAGES).stream()
+                .map(row -> new PageViewsDto(row.path(), row.views()))
+                .toList();
+
+        return AnalyticsSummaryDto.builder()
+                .from(from)
+                .to(to)
+                .totalViews(daily.stream().mapToLong(DailyViewsDto::getViews).sum())
+                .daily(daily)
+                .topPages(topPages)
+                .posts(postViews(analyticsRepository.findPostDays(from, end)))
+                .droppedEvents(buffer.droppedCount())
+                .build();
+    }
+
+    // Unique visitors over a range need the union of the daily sketches, not a sum
+    private static List<PostViewsDto> postViews(List<AnalyticsRepository.PostDayViews> rows) {
+        record Totals(AnalyticsRepository.PostDayViews first, long[] views, HyperLogLog visitors) {
+        }
+        Map<UUID, Totals> byPost = new LinkedHashMap<>();
+        for (AnalyticsRepository.PostDayViews row : rows) {
+            Totals totals = byPost.computeIfAbsent(row.postId(),
+                    id -> new Totals(row, new long[1], new HyperLogLog()));
+            totals.views()[0] += row.views();
+            totals.visitors().merge(HyperLogLog.fromBytes(row.visitors()));
+        }
+        return byPost.values().stream()
+                .map(totals -> PostViewsDto.builder()
+                        .postId(totals.first().postId())
+                        .slug(totals.first().slug())
+                        .title(totals.first().title())
+                        .views(totals.views()[0])
+                        .uniqueVisitors(totals.visitors().estimate())
+                        .build())
+                .sorted(Comparator.comparingLong(PostViewsDto::getViews).reversed()
+                        .thenComparing(PostViewsDto::getSlug))
+                .toList();
+    }
+}
@@ -0,0 +1,82 @@
+package com.portfolio.service;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where stored media bytes live. {@link StorageService} decides what is stored and
+ * when; a blob store only keeps bytes under keys.
+ * <p>
+ * Keys are relative, slash-separated paths such as {@code images/ab/cd/abcd….jpg}.
+ * Implementations are selected with {@code app.storage.type}: the local upload
+ * directory ({@code filesystem}, the default) or an S3-compatible bucket ({@code s3}),
+ * which lets several backend nodes share one store.
+ */
+public interface BlobStore {
+
+    record BlobInfo(String key, long size, Instant lastModified) {
+    }
+
+    /**
+     * One level of the key hierarchy.
+     *
+     * @param blobs    blobs directly below the listed prefix
+     * @param prefixes the next levels down, each ending in {@code /}
+     */
+    record Listing(List<BlobInfo> blobs, List<String> prefixes) {
+    }
+
+    /**
+     * Stores a local file under {@code key}. Keys are written once for a given content,
+     * so a blob already under the key may be kept instead. The store takes over
+     * {@code source}: it is moved into place or deleted afterwards.
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    /**
+     * Opens a blob for reading. The channel may be positioned freely, so ranges can be
+     * read without fetching what precedes them.
+     *
+     * @throws java.nio.file.NoSuchFileException if there is no blob under {@code key}
+     */
+    SeekableByteChannel open(String key) throws IOException;
+
+    Optional<BlobInfo> stat(String key) throws IOException;
+
+    /**
+     * Moves a blob to another key, replacing whatever is there.
+     *
+     * @throws java.nio.file.NoSuchFileException if there is no blob under {@code source}
+     */
+    void move(String source, String target) throws IOException;
+
+    /**
+     * Deletes a blob; deleting a missing blob is not an error.
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * All blobs whose key starts with {@code prefix}, in no particular order. The
+     * stream may hold resources and must be closed.
+     */
+    Stream<BlobInfo> list(String prefix) throws IOException;
+
+    /**
+     * Lists a single level below {@code prefix}, which is empty or ends in {@code /},
+     * so that a caller can walk the levels below it independently.
+     */
+    Listing listLevel(String prefix) throws IOException;
+
+    /**
+     * The blob as a file on this machine, when the store keeps it as one. Callers use
+     * it to hand the file to the kernel or a front proxy instead of copying it.
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+}
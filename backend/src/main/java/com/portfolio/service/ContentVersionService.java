@@ -0,0 +1,61 @@
+package com.portfolio.service;
+
+import com.portfolio.entity.ContentVersion;
+import com.portfolio.repository.ContentVersionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Reads the trigger-maintained versions of the tables behind public endpoints,
+ * bumped once per transaction when it commits. Each constant lists every table
+ * whose rows can change that endpoint's response.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ContentVersionService {
+
+    public static final List<String> POSTS = List.of("posts", "media", "tags");
+    public static final List<String> MEDIA = List.of("media");
+    public static final List<String> EXPERIENCES = List.of("experiences");
+    public static final List<String> SKILLS = List.of("skill_categories", "soft_skills");
+    public static final List<String> INTERESTS = List.of("interests");
+    public static final List<String> SITE_SETTINGS = List.of("site_settings");
+    public static final List<String> ACHIEVEMENTS = List.of("achievements");
+    public static final List<String> RPG_STATS = List.of("rpg_stats");
+
+    private final ContentVersionRepository contentVersionRepository;
+
+    /**
+     * Combined version of the given tables: the sum of their counters, which
+     * only ever grow, and the latest change time.
+     */
+    public record Version(long value, Instant lastModified) {
+
+        /**
+         * Weak ETag, since equal versions guarantee equal content but not equal bytes.
+         * Pass {@code null} for locale-independent responses.
+         */
+        public String eTag(String locale) {
+            String tag = Long.toHexString(value) + "-" + lastModified.toEpochMilli();
+            return "W/\"" + (locale != null ? tag + "-" + locale : tag) + "\"";
+        }
+    }
+
+    public Version current(List<String> tables) {
+        long value = 0;
+        Instant lastModified = Instant.EPOCH;
+        for (ContentVersion version : contentVersionRepository.findAllById(tables)) {
+            value += version.getVersion();
+            Instant updatedAt = version.getUpdatedAt().toInstant();
+            if (updatedAt.isAfter(lastModified)) {
+                lastModified = updatedAt;
+            }
+        }
+        return new Version(value, lastModified);
+    }
+}
@@ -0,0 +1,161 @@
+package com.portfolio.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Blobs as files below the upload directory, one per key. Files are put in place
+ * with an atomic rename from the staging area inside the same directory, so readers
+ * never see a partial file.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "filesystem", matchIfMissing = true)
+@Slf4j
+public class FileSystemBlobStore implements BlobStore {
+
+    @Value("${app.upload.path}")
+    private String uploadPath;
+
+    private Path rootLocation;
+
+    @PostConstruct
+    public void init() {
+        rootLocation = Paths.get(uploadPath).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(rootLocation);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not initialize storage location", e);
+        }
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        Path target = locate(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Same key, same content: a copy left behind earlier is as good as ours
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Override
+    public SeekableByteChannel open(String key) throws IOException {
+        return FileChannel.open(locate(key), StandardOpenOption.READ);
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) throws IOException {
+        Path file = locate(key);
+        if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+            return Optional.empty();
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return Optional.of(new BlobInfo(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+    }
+
+    @Override
+    public void move(String source, String target) throws IOException {
+        Path destination = locate(target);
+        Files.createDirectories(destination.getParent());
+        Files.move(locate(source), destination, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(locate(key));
+    }
+
+    @Override
+    public Stream<BlobInfo> list(String prefix) throws IOException {
+        int slash = prefix.lastIndexOf('/');
+        Path directory = slash >= 0 ? locate(prefix.substring(0, slash)) : rootLocation;
+        if (!Files.isDirectory(directory)) {
+            return Stream.empty();
+        }
+        return Files.find(directory, Integer.MAX_VALUE, (file, attributes) -> attributes.isRegularFile())
+                .map(this::key)
+                .filter(key -> key.startsWith(prefix))
+                .flatMap(key -> {
+                    try {
+                        return stat(key).stream();
+                    } catch (IOException e) {
+                        // Deleted while listing
+                        return Stream.empty();
+                    }
+                });
+    }
+
+    @Override
+    public Listing listLevel(String prefix) throws IOException {
+        Path directory = prefix.isEmpty() ? rootLocation : locate(prefix);
+        List<BlobInfo> blobs = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return new Listing(blobs, prefixes);
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    // Deleted while listing
+                    continue;
+                }
+                if (attributes.isDirectory()) {
+                    prefixes.add(key(entry) + "/");
+                } else if (attributes.isRegularFile()) {
+                    blobs.add(new BlobInfo(key(entry), attributes.size(), attributes.lastModifiedTime().toInstant()));
+                }
+            }
+        }
+        return new Listing(blobs, prefixes);
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(locate(key));
+    }
+
+    private Path locate(String key) {
+        Path file = rootLocation.resolve(key).normalize();
+        if (!file.startsWith(rootLocation) || file.equals(rootLocation)) {
+            throw new IllegalArgumentException("Key outside the store: " + key);
+        }
+        return file;
+    }
+
+    private String key(Path file) {
+        StringBuilder key = new StringBuilder();
+        for (Path part : rootLocation.relativize(file)) {
+            if (!key.isEmpty()) {
+                key.append('/');
+            }
+            key.append(part);
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,315 @@
+package com.portfolio.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Resized renditions of stored images, rendered on first request.
+ * <p>
+ * A derivative is rendered once into staging and stored next to its original, where
+ * later requests find it as a plain blob. Concurrent requests for the same missing
+ * derivative share a single render, and renders across all images are capped at
+ * one per CPU so a burst of new sizes cannot exhaust the request threads' memory.
+ */
+@Service
+@Slf4j
+public class ImageDerivativeService {
+
+    public enum Fit {
+        /** Scale to fit inside the box, keeping the whole image. */
+        CONTAIN,
+        /** Scale to fill the box, cropping the overflow around the centre. */
+        COVER
+    }
+
+    // Decoding anything larger would need hundreds of megabytes of heap
+    static final long MAX_SOURCE_PIXELS = 50_000_000L;
+
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private static final Map<String, String> FORMATS = Map.of(
+            "jpg", "jpeg",
+            "jpeg", "jpeg",
+            "png", "png");
+
+    private final StorageService storageService;
+    private final List<Integer> sizes;
+    private final Map<String, CompletableFuture<StorageService.StoredFile>> inFlight = new ConcurrentHashMap<>();
+    private final Semaphore renders = new Semaphore(Runtime.getRuntime().availableProcessors());
+
+    public ImageDerivativeService(StorageService storageService,
+                                  @Value("${app.media.resize.widths:160,320,480,640,960,1280,1920}") List<Integer> sizes) {
+        this.storageService = storageService;
+        this.sizes = List.copyOf(sizes);
+    }
+
+    /**
+     * The file to serve for {@code filename} resized to at most {@code width} by
+     * {@code height}. Formats that are not resized, and images already within the
+     * box, are served as the original.
+     *
+     * @param height optional; without it the image is only bounded by width
+     * @param fit    optional, {@code contain} or {@code cover}; defaults to contain
+     * @throws IllegalArgumentException for sizes outside the allowlist or an unknown fit
+     */
+    public StorageService.StoredFile resolve(String filename, int width, Integer height, String fit) {
+        Fit mode = parseFit(fit);
+        checkSize(width);
+        if (height != null) {
+            checkSize(height);
+        }
+
+        StorageService.StoredFile original = storageService.resolve(filename);
+        String format = FORMATS.get(extension(original.name()));
+        if (format == null) {
+            return original;
+        }
+        if (height == null) {
+            mode = Fit.CONTAIN;
+        }
+
+        String target = storageService.derivativeKey(original.key(), variant(width, height, mode));
+        StorageService.StoredFile existing = storageService.find(target).orElse(null);
+        if (existing != null) {
+            return existing;
+        }
+
+        CompletableFuture<StorageService.StoredFile> mine = new CompletableFuture<>();
+        CompletableFuture<StorageService.StoredFile> pending = inFlight.putIfAbsent(target, mine);
+        if (pending != null) {
+            return join(pending);
+        }
+        try {
+            // Another render may have finished between the check and claiming the slot
+            StorageService.StoredFile rendered = storageService.find(target).orElse(null);
+            mine.complete(rendered != null ? rendered : render(original, target, format, width, height, mode));
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+        } finally {
+            inFlight.remove(target, mine);
+        }
+        return join(mine);
+    }
+
+    public List<Integer> getSizes() {
+        return sizes;
+    }
+
+    /**
+     * Renders one derivative, or returns the original when resizing would not make
+     * it smaller.
+     */
+    StorageService.StoredFile render(StorageService.StoredFile original, String target, String format,
+                                     int width, Integer height, Fit fit) {
+        renders.acquireUninterruptibly();
+        try {
+            BufferedImage source;
+            try {
+                source = storageService.withLocalFile(original, file -> read(file, width, height, fit));
+            } catch (IOException e) {
+                // A damaged image still gets served; the browser may cope with it
+                log.warn("Cannot decode {} for resizing: {}", original.name(), e.getMessage());
+                return original;
+            }
+            if (source == null) {
+                return original;
+            }
+            BufferedImage resized = resize(source, width, height, fit, format.equals("png"));
+            if (resized == null) {
+                return original;
+            }
+            Path staged = storageService.newStagingFile();
+            try {
+                write(resized, format, staged);
+                storageService.publish(staged, target, "image/" + format);
+            } finally {
+                Files.deleteIfExists(staged);
+            }
+            log.debug("Rendered {}", target);
+            return storageService.find(target)
+                    .orElseThrow(() -> new IOException("Derivative " + target + " vanished after rendering"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to resize " + original.name(), e);
+        } finally {
+            renders.release();
+        }
+    }
+
+    /**
+     * Decodes the original, skipping rows and columns when it is several times larger
+     * than needed.
+     *
+     * @return {@code null} when the image is already small enough or too large to decode
+     */
+    private static BufferedImage read(Path original, int width, Integer height, Fit fit) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                if ((long) sourceWidth * sourceHeight > MAX_SOURCE_PIXELS) {
+                    log.warn("Not resizing {}: {}x{} is too large", original.getFileName(), sourceWidth, sourceHeight);
+                    return null;
+                }
+                double scale = scale(sourceWidth, sourceHeight, width, height, fit);
+                if (scale >= 1) {
+                    return null;
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                // Keep at least twice the target resolution for the smooth downscale
+                int step = (int) Math.floor(1 / (scale * 2));
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static double scale(int sourceWidth, int sourceHeight, int width, Integer height, Fit fit) {
+        double byWidth = (double) width / sourceWidth;
+        if (height == null) {
+            return byWidth;
+        }
+        double byHeight = (double) height / sourceHeight;
+        return fit == Fit.COVER ? Math.max(byWidth, byHeight) : Math.min(byWidth, byHeight);
+    }
+
+    /**
+     * Scales down by halving with bilinear filtering, then one final step to size,
+     * which approximates an area filter at a fraction of the cost.
+     *
+     * @return {@code null} when the result would not be smaller than the source
+     */
+    static BufferedImage resize(BufferedImage source, int width, Integer height, Fit fit, boolean keepAlpha) {
+        double scale = scale(source.getWidth(), source.getHeight(), width, height, fit);
+        if (scale >= 1) {
+            return null;
+        }
+        int scaledWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int scaledHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        int type = keepAlpha && source.getColorModel().hasAlpha()
+                ? BufferedImage.TYPE_INT_ARGB
+                : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= scaledWidth && current.getHeight() / 2 >= scaledHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, type, 0, 0,
+                    current.getWidth() / 2, current.getHeight() / 2);
+        }
+
+        int outWidth = scaledWidth;
+        int outHeight = scaledHeight;
+        int offsetX = 0;
+        int offsetY = 0;
+        if (fit == Fit.COVER && height != null) {
+            outWidth = Math.min(width, scaledWidth);
+            outHeight = Math.min(height, scaledHeight);
+            offsetX = (scaledWidth - outWidth) / 2;
+            offsetY = (scaledHeight - outHeight) / 2;
+        }
+        return draw(current, outWidth, outHeight, type, -offsetX, -offsetY, scaledWidth, scaledHeight);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int canvasWidth, int canvasHeight, int type,
+                                      int x, int y, int width, int height) {
+        BufferedImage target = new BufferedImage(canvasWidth, canvasHeight, type);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, x, y, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static void write(BufferedImage image, String format, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (format.equals("jpeg")) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private void checkSize(int size) {
+        if (!sizes.contains(size)) {
+            throw new IllegalArgumentException("Size must be one of " + sizes);
+        }
+    }
+
+    private static Fit parseFit(String fit) {
+        if (fit == null || fit.isBlank()) {
+            return Fit.CONTAIN;
+        }
+        try {
+            return Fit.valueOf(fit.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Fit must be 'contain' or 'cover'");
+        }
+    }
+
+    private static String variant(int width, Integer height, Fit fit) {
+        if (height == null) {
+            return "w" + width;
+        }
+        return "w" + width + "h" + height + (fit == Fit.COVER ? "-cover" : "");
+    }
+
+    private static String extension(String name) {
+        return name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static StorageService.StoredFile join(CompletableFuture<StorageService.StoredFile> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
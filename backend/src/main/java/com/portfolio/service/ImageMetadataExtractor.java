@@ -0,0 +1,97 @@
+package com.portfolio.service;
+
+import com.portfolio.util.BlurHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Reads the size of an image and a BlurHash placeholder for it, so pages can reserve
+ * the image's box and paint a blurred preview before the file arrives.
+ */
+@Component
+@Slf4j
+public class ImageMetadataExtractor {
+
+    /**
+     * Bumped when extraction changes; media rows below it are redone by
+     * {@link MediaMetadataBackfill}.
+     */
+    public static final int VERSION = 1;
+
+    // The placeholder is computed from a thumbnail no longer than this on either edge
+    private static final int SAMPLE_SIZE = 32;
+
+    // Components along the long edge; the short edge gets one fewer
+    private static final int COMPONENTS = 4;
+
+    public record ImageMetadata(int width, int height, String placeholder) {
+    }
+
+    /**
+     * @return {@code null} when the file is not an image ImageIO can read; the
+     * placeholder is {@code null} for images too large to decode
+     */
+    public ImageMetadata extract(Path file) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > ImageDerivativeService.MAX_SOURCE_PIXELS) {
+                    return new ImageMetadata(width, height, null);
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(width, height) / (SAMPLE_SIZE * 2);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return new ImageMetadata(width, height, placeholder(reader.read(0, param)));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot read image metadata from {}: {}", file.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    static String placeholder(BufferedImage image) {
+        double scale = Math.min(1.0, (double) SAMPLE_SIZE / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage sample = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = sample.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            // Transparent areas show the site's dark background through them
+            graphics.drawImage(image, 0, 0, width, height, Color.BLACK, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        int[] pixels = sample.getRGB(0, 0, width, height, null, 0, width);
+        boolean landscape = width >= height;
+        return BlurHash.encode(pixels, width, height,
+                landscape ? COMPONENTS : COMPONENTS - 1,
+                landscape ? COMPONENTS - 1 : COMPONENTS);
+    }
+}
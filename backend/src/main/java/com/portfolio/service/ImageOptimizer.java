@@ -0,0 +1,355 @@
+package com.portfolio.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepares uploaded photos for the web before they are stored: applies the EXIF
+ * orientation, drops metadata (camera, GPS, embedded thumbnails), caps the longest
+ * edge and re-encodes at a tuned quality.
+ * <p>
+ * Work runs on a small fixed pool with a bounded queue, off the request threads.
+ * When the queue is full, or an image cannot be decoded, the upload is stored as
+ * it arrived rather than failed.
+ */
+@Service
+@Slf4j
+public class ImageOptimizer {
+
+    private static final Set<String> OPTIMIZED_TYPES = Set.of("image/jpeg", "image/png");
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // JPEG markers
+    private static final int SOI = 0xD8;
+    private static final int SOS = 0xDA;
+    private static final int EOI = 0xD9;
+    private static final int APP1 = 0xE1;
+    private static final int APP2 = 0xE2;
+    private static final int APP14 = 0xEE;
+    private static final int APP15 = 0xEF;
+    private static final int COM = 0xFE;
+
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private final StorageService storageService;
+    private final boolean enabled;
+    private final int maxEdge;
+    private final float jpegQuality;
+    private final ThreadPoolExecutor executor;
+
+    public ImageOptimizer(StorageService storageService,
+                          @Value("${app.media.optimize.enabled:true}") boolean enabled,
+                          @Value("${app.media.optimize.max-edge:2560}") int maxEdge,
+                          @Value("${app.media.optimize.jpeg-quality:0.85}") float jpegQuality,
+                          @Value("${app.media.optimize.workers:2}") int workers,
+                          @Value("${app.media.optimize.queue-capacity:16}") int queueCapacity) {
+        this.storageService = storageService;
+        this.enabled = enabled;
+        this.maxEdge = maxEdge;
+        this.jpegQuality = jpegQuality;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("image-optimizer-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Optimizes a staged image on the worker pool. Completes with the staged file to
+     * store: a new one replacing {@code staged} (which is then discarded), or
+     * {@code staged} itself when there is nothing to gain. Never completes exceptionally.
+     */
+    public CompletableFuture<StorageService.StagedFile> optimize(StorageService.StagedFile staged) {
+        if (!enabled || !OPTIMIZED_TYPES.contains(staged.contentType())) {
+            return CompletableFuture.completedFuture(staged);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> optimizeNow(staged), executor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Image optimizer busy, storing {} as uploaded", staged.filename());
+            return CompletableFuture.completedFuture(staged);
+        }
+    }
+
+    StorageService.StagedFile optimizeNow(StorageService.StagedFile staged) {
+        boolean jpeg = staged.contentType().equals("image/jpeg");
+        try {
+            int orientation = jpeg ? readOrientation(staged.path()) : 1;
+            BufferedImage image = read(staged.path());
+            if (image == null) {
+                return staged;
+            }
+            boolean oversized = Math.max(image.getWidth(), image.getHeight()) > maxEdge;
+            if (!oversized && orientation == 1 && !jpeg) {
+                // A PNG within bounds would only grow from ImageIO's encoder
+                return staged;
+            }
+
+            BufferedImage oriented = orient(image, orientation);
+            BufferedImage resized = ImageDerivativeService.resize(oriented, maxEdge, maxEdge,
+                    ImageDerivativeService.Fit.CONTAIN, !jpeg);
+            StorageService.StagedFile optimized = write(resized != null ? resized : oriented, jpeg, staged.contentType());
+
+            // Nothing had to change: keep whichever of re-encoded and merely stripped is smaller
+            if (!oversized && orientation == 1) {
+                StorageService.StagedFile stripped = strip(staged);
+                boolean keepStripped = stripped.size() <= optimized.size();
+                storageService.discard(keepStripped ? optimized : stripped);
+                optimized = keepStripped ? stripped : optimized;
+            }
+            storageService.discard(staged);
+            log.debug("Optimized {} from {} to {} bytes", staged.filename(), staged.size(), optimized.size());
+            return optimized;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not optimize {}, storing as uploaded: {}", staged.filename(), e.getMessage());
+            return staged;
+        }
+    }
+
+    /**
+     * Decodes the image, reading only every n-th pixel when it is far larger than
+     * the edge cap.
+     *
+     * @return {@code null} when the image is too large to decode safely
+     */
+    private BufferedImage read(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("No reader for image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > ImageDerivativeService.MAX_SOURCE_PIXELS) {
+                    log.warn("Not optimizing {}: {}x{} is too large", file.getFileName(), width, height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(width, height) / (maxEdge * 2);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Turns the stored pixels upright according to an EXIF orientation (1 to 8).
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation <= 1 || orientation > 8) {
+            return image;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean swap = orientation >= 5;
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, width, height);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, height);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, height, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, height, width);
+            default -> new AffineTransform(0, -1, 1, 0, 0, width);
+        };
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage oriented = new BufferedImage(swap ? height : width, swap ? width : height, type);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    private StorageService.StagedFile write(BufferedImage image, boolean jpeg, String contentType) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(jpeg ? "jpeg" : "png").next();
+        Path target = storageService.newStagingFile();
+        MessageDigest digest = StorageService.sha256();
+        try (OutputStream output = new DigestOutputStream(
+                Files.newOutputStream(target, StandardOpenOption.CREATE_NEW), digest);
+             ImageOutputStream imageOutput = new MemoryCacheImageOutputStream(output)) {
+            writer.setOutput(imageOutput);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (jpeg) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            // No metadata argument: nothing from the original is carried over
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+        return storageService.adopt(target, contentType, Files.size(target), HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Copies a JPEG without its metadata segments, leaving the compressed image data
+     * untouched. JFIF, ICC profile and Adobe colour-transform segments are kept, since
+     * they change how the pixels decode.
+     */
+    private StorageService.StagedFile strip(StorageService.StagedFile staged) throws IOException {
+        Path target = storageService.newStagingFile();
+        MessageDigest digest = StorageService.sha256();
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(staged.path()), COPY_BUFFER_SIZE));
+             OutputStream output = new DigestOutputStream(
+                     Files.newOutputStream(target, StandardOpenOption.CREATE_NEW), digest)) {
+            copyWithoutMetadata(input, output);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return storageService.adopt(target, staged.contentType(), Files.size(target),
+                HexFormat.of().formatHex(digest.digest()));
+    }
+
+    static void copyWithoutMetadata(DataInputStream input, OutputStream output) throws IOException {
+        if (input.readUnsignedByte() != 0xFF || input.readUnsignedByte() != SOI) {
+            throw new IOException("Not a JPEG");
+        }
+        output.write(0xFF);
+        output.write(SOI);
+        while (true) {
+            int marker = nextMarker(input);
+            if (marker == SOS || marker == EOI) {
+                // Entropy-coded data follows; everything from here is copied as is
+                output.write(0xFF);
+                output.write(marker);
+                input.transferTo(output);
+                return;
+            }
+            int length = input.readUnsignedShort();
+            if (isMetadata(marker)) {
+                input.skipNBytes(length - 2);
+                continue;
+            }
+            output.write(0xFF);
+            output.write(marker);
+            output.write(length >> 8);
+            output.write(length & 0xFF);
+            copy(input, output, length - 2);
+        }
+    }
+
+    private static boolean isMetadata(int marker) {
+        return marker == COM
+                || (marker >= APP1 && marker <= APP15 && marker != APP2 && marker != APP14);
+    }
+
+    /**
+     * Reads the EXIF orientation of a JPEG, or 1 (upright) when it has none.
+     */
+    static int readOrientation(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), COPY_BUFFER_SIZE))) {
+            if (input.readUnsignedByte() != 0xFF || input.readUnsignedByte() != SOI) {
+                return 1;
+            }
+            while (true) {
+                int marker = nextMarker(input);
+                if (marker == SOS || marker == EOI) {
+                    return 1;
+                }
+                int length = input.readUnsignedShort();
+                byte[] segment = input.readNBytes(length - 2);
+                if (marker == APP1 && segment.length > 14 && new String(segment, 0, 6, StandardCharsets.ISO_8859_1).equals("Exif\0\0")) {
+                    return orientation(ByteBuffer.wrap(segment, 6, segment.length - 6).slice());
+                }
+            }
+        } catch (EOFException e) {
+            return 1;
+        }
+    }
+
+    // Walks IFD0 of the TIFF structure inside an Exif segment
+    private static int orientation(ByteBuffer tiff) {
+        try {
+            tiff.order(tiff.getShort(0) == 0x4949 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            int ifd = tiff.getInt(4);
+            int entries = tiff.getShort(ifd) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if ((tiff.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                    int value = tiff.getShort(entry + 8) & 0xFFFF;
+                    return value >= 1 && value <= 8 ? value : 1;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // Truncated or malformed Exif is treated as upright
+        }
+        return 1;
+    }
+
+    private static int nextMarker(DataInputStream input) throws IOException {
+        if (input.readUnsignedByte() != 0xFF) {
+            throw new IOException("Malformed JPEG segment");
+        }
+        int marker = input.readUnsignedByte();
+        // Any number of 0xFF fill bytes may precede a marker
+        while (marker == 0xFF) {
+            marker = input.readUnsignedByte();
+        }
+        return marker;
+    }
+
+    private static void copy(InputStream input, OutputStream output, int length) throws IOException {
+        byte[] buffer = input.readNBytes(length);
+        if (buffer.length < length) {
+            throw new EOFException("JPEG segment ended early");
+        }
+        output.write(buffer);
+    }
+}
@@ -0,0 +1,179 @@
+package com.portfolio.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.portfolio.dto.CacheStatsDto;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small, frequently served media files held off-heap, so that serving them needs
+ * neither a stat nor an open.
+ * <p>
+ * Local files are memory-mapped and their pages loaded once; files in a remote store
+ * are read into a direct buffer. Either way the bytes stay outside the Java heap and
+ * the total is bounded by {@code app.media.cache.max-size}. A file is only admitted
+ * after it was served {@code admit-after} times within {@code candidate-ttl}, which
+ * keeps one-off requests from displacing the profile picture and featured images;
+ * among admitted files Caffeine's frequency-aware policy picks what to evict.
+ * <p>
+ * Stored files never change under their key, so entries go away when the file is
+ * deleted here ({@link #invalidate}) or evicted. A delete on another instance does
+ * not reach this cache, so entries also expire {@code expire-after} after they were
+ * loaded, and are loaded again from the store if still served often enough. When
+ * nginx serves local files ({@code app.media.accel-redirect}) they are not cached
+ * here at all.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MediaCache {
+
+    static final String NAME = "media";
+
+    private final BlobStore blobStore;
+
+    @Value("${app.media.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.media.cache.max-size:64MB}")
+    private DataSize maxSize;
+
+    @Value("${app.media.cache.max-file-size:512KB}")
+    private DataSize maxFileSize;
+
+    // Longest a file deleted on another instance is still served from here
+    @Value("${app.media.cache.expire-after:PT5M}")
+    private Duration expireAfter;
+
+    @Value("${app.media.cache.admit-after:2}")
+    private int admitAfter;
+
+    @Value("${app.media.cache.candidates:10000}")
+    private int candidates;
+
+    @Value("${app.media.cache.candidate-ttl:PT10M}")
+    private Duration candidateTtl;
+
+    @Value("${app.media.accel-redirect:}")
+    private String accelRedirect;
+
+    private Cache<String, StorageService.StoredFile> files;
+
+    // Times a not yet cached file was served recently
+    private Cache<String, AtomicInteger> servedCounts;
+
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        files = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .<String, StorageService.StoredFile>weigher((key, file) -> (int) file.size())
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .build();
+        servedCounts = Caffeine.newBuilder()
+                .maximumSize(candidates)
+                .expireAfterWrite(candidateTtl)
+                .build();
+    }
+
+    /**
+     * The cached file under {@code key}, with its {@link StorageService.StoredFile#content()}.
+     */
+    public Optional<StorageService.StoredFile> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(files.getIfPresent(key));
+    }
+
+    /**
+     * Counts a file served from the store and loads it once it is served often enough.
+     */
+    public void offer(StorageService.StoredFile file) {
+        if (!enabled || file.content() != null || file.size() == 0 || file.size() > maxFileSize.toBytes()
+                || (file.localPath() != null && !accelRedirect.isEmpty())) {
+            return;
+        }
+        int served = servedCounts.get(file.key(), key -> new AtomicInteger()).incrementAndGet();
+        if (served < admitAfter) {
+            return;
+        }
+        servedCounts.invalidate(file.key());
+        long invalidated = invalidations.sum();
+        try {
+            // Two requests racing here both load the file; the second put replaces the first
+            files.put(file.key(), new StorageService.StoredFile(file.key(), file.size(), file.lastModified(),
+                    file.localPath(), load(file)));
+            // A delete that finished while loading must not leave the file behind
+            if (invalidations.sum() != invalidated) {
+                files.invalidate(file.key());
+            }
+        } catch (IOException e) {
+            log.warn("Could not cache {}: {}", file.key(), e.getMessage());
+        }
+    }
+
+    public void invalidate(String key) {
+        invalidations.increment();
+        files.invalidate(key);
+        servedCounts.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        files.invalidateAll();
+        servedCounts.invalidateAll();
+    }
+
+    public CacheStatsDto getStats() {
+        // Settles pending writes so that the weighted size is current
+        files.cleanUp();
+        CacheStats stats = files.stats();
+        return CacheStatsDto.builder()
+                .name(NAME)
+                .size(files.estimatedSize())
+                .bytes(files.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .invalidationCount(invalidations.sum())
+                .build();
+    }
+
+    private ByteBuffer load(StorageService.StoredFile file) throws IOException {
+        if (file.localPath() != null) {
+            try (FileChannel channel = FileChannel.open(file.localPath(), StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                return mapped.load().asReadOnlyBuffer();
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) file.size());
+        try (SeekableByteChannel channel = blobStore.open(file.key())) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("File ended before its recorded size");
+                }
+            }
+        }
+        return buffer.flip().asReadOnlyBuffer();
+    }
+}
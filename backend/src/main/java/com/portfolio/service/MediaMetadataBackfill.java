@@ -0,0 +1,89 @@
+package com.portfolio.service;
+
+import com.portfolio.entity.Media;
+import com.portfolio.entity.MediaType;
+import com.portfolio.repository.MediaRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads size and placeholder for images uploaded before the current
+ * {@link ImageMetadataExtractor#VERSION}. Decoding every stored image can take a
+ * while, so it runs on a background thread after startup: files are read outside
+ * any transaction and each batch of results is written in one.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MediaMetadataBackfill implements ApplicationRunner {
+
+    static final int BATCH_SIZE = 50;
+
+    private final MediaRepository mediaRepository;
+    private final StorageService storageService;
+    private final ImageMetadataExtractor imageMetadataExtractor;
+    private final PostCache postCache;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread.ofVirtual().name("media-metadata-backfill").start(() -> {
+            try {
+                int total = backfill();
+                if (total > 0) {
+                    log.info("Image metadata read for {} media", total);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Image metadata backfill stopped: {}", e.getMessage());
+            }
+        });
+    }
+
+    int backfill() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int total = 0;
+        List<Media> batch;
+        do {
+            batch = mediaRepository.findMetadataBefore(MediaType.IMAGE, ImageMetadataExtractor.VERSION,
+                    PageRequest.of(0, BATCH_SIZE));
+            List<Result> results = batch.stream().map(this::extract).toList();
+            transaction.executeWithoutResult(status -> results.forEach(result -> mediaRepository.updateMetadata(
+                    result.id(), result.width(), result.height(), result.placeholder(), ImageMetadataExtractor.VERSION)));
+            total += batch.size();
+        } while (batch.size() == BATCH_SIZE);
+
+        if (total > 0) {
+            postCache.evictAll();
+        }
+        return total;
+    }
+
+    private record Result(UUID id, Integer width, Integer height, String placeholder) {
+    }
+
+    // Rows whose file is missing or unreadable are marked done too, so every pass makes progress
+    private Result extract(Media media) {
+        ImageMetadataExtractor.ImageMetadata metadata;
+        try {
+            metadata = storageService.withLocalFile(storageService.resolve(media.getFilename()),
+                    imageMetadataExtractor::extract);
+        } catch (EntityNotFoundException | IOException e) {
+            log.warn("Skipping metadata for media {}: {}", media.getId(), e.getMessage());
+            metadata = null;
+        }
+        return metadata != null
+                ? new Result(media.getId(), metadata.width(), metadata.height(), metadata.placeholder())
+                : new Result(media.getId(), media.getWidth(), media.getHeight(), media.getPlaceholder());
+    }
+}
@@ -0,0 +1,309 @@
+package com.portfolio.service;
+
+import com.portfolio.dto.MediaReconciliationDto;
+import com.portfolio.entity.MediaBlob;
+import com.portfolio.repository.MediaBlobRepository;
+import com.portfolio.repository.MediaRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Finds where the blob store and the media table disagree: orphans are blobs no
+ * media row refers to (left behind by a crash between a commit and its file
+ * operations), dangling rows refer to a blob that is gone. Orphans are quarantined
+ * or deleted; dangling rows are only reported.
+ * <p>
+ * Stored filenames are read first, in keyset batches, and the store is walked
+ * afterwards, one fork-join task per directory level. Blobs younger than
+ * {@code app.media.reconcile.min-age} are never orphans, which keeps uploads that
+ * commit during the walk out of it; blobs in the trash are aged from when they were
+ * moved there, so releases still in their transaction keep them. Each orphan is moved aside before the media
+ * table is checked for it once more, so a file stored again meanwhile is put back.
+ * This happens with the orphan's {@code media_blobs} row locked, and the row is
+ * deleted along with the file: a later upload of the same content then stores the
+ * file anew instead of referring to the one removed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MediaReconciler {
+
+    static final int BATCH_SIZE = 1000;
+
+    // Quarantined orphans keep their key below this prefix until removed by hand
+    static final String QUARANTINE_PREFIX = ".quarantine/";
+
+    private static final int SAMPLE_SIZE = 100;
+
+    public enum OrphanAction {
+        QUARANTINE,
+        DELETE
+    }
+
+    private final MediaRepository mediaRepository;
+    private final MediaBlobRepository mediaBlobRepository;
+    private final StorageService storageService;
+    private final BlobStore blobStore;
+    private final MediaUsageService mediaUsageService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.media.reconcile.min-age:PT1H}")
+    private Duration minAge;
+
+    @Value("${app.media.reconcile.parallelism:4}")
+    private int parallelism;
+
+    /**
+     * Compares store and table and, unless {@code dryRun}, applies {@code action} to
+     * the orphans found. Runs one at a time.
+     */
+    public synchronized MediaReconciliationDto reconcile(OrphanAction action, boolean dryRun) {
+        long started = System.nanoTime();
+        Instant cutoff = Instant.now().minus(minAge);
+
+        List<String> dangling = new ArrayList<>();
+        Map<String, String> referenced = referencedFiles(dangling);
+        Set<String> missing = ConcurrentHashMap.newKeySet();
+        missing.addAll(referenced.keySet());
+
+        Tally tally;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            tally = pool.invoke(new Walk("", new Scan(referenced.keySet(), missing, cutoff)));
+        } finally {
+            pool.shutdown();
+        }
+        missing.forEach(key -> dangling.add(referenced.get(key)));
+
+        long orphanBytes = tally.orphans.stream().mapToLong(BlobStore.BlobInfo::size).sum();
+        long removedFiles = 0;
+        long reclaimedBytes = 0;
+        if (dryRun) {
+            removedFiles = tally.orphans.size();
+            reclaimedBytes = orphanBytes;
+        } else {
+            for (BlobStore.BlobInfo orphan : tally.orphans) {
+                if (dispose(orphan, action)) {
+                    removedFiles++;
+                    reclaimedBytes += orphan.size();
+                }
+            }
+        }
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Media reconciliation ({}{}): {} files scanned, {} orphans ({} bytes), {} removed, {} dangling rows",
+                action, dryRun ? ", dry run" : "", tally.files, tally.orphans.size(), orphanBytes, removedFiles,
+                dangling.size());
+        return MediaReconciliationDto.builder()
+                .dryRun(dryRun)
+                .action(action.name())
+                .referencedFiles(referenced.size())
+                .scannedFiles(tally.files)
+                .scannedBytes(tally.bytes)
+                .orphanFiles(tally.orphans.size())
+                .orphanBytes(orphanBytes)
+                .removedFiles(removedFiles)
+                .reclaimedBytes(reclaimedBytes)
+                .danglingFiles(dangling.size())
+                .orphans(sample(tally.orphans.stream().map(BlobStore.BlobInfo::key)))
+                .dangling(sample(dangling.stream()))
+                .durationMs(durationMs)
+                .build();
+    }
+
+    // Blob key -> stored filename; names that cannot be a key are dangling as they are
+    private Map<String, String> referencedFiles(List<String> invalid) {
+        Map<String, String> files = new HashMap<>();
+        String after = "";
+        List<String> batch;
+        do {
+            batch = mediaRepository.findFilenamesAfter(after, BATCH_SIZE);
+            for (String filename : batch) {
+                try {
+                    files.put(storageService.key(filename), filename);
+                } catch (EntityNotFoundException e) {
+                    invalid.add(filename);
+                }
+            }
+            if (!batch.isEmpty()) {
+                after = batch.getLast();
+            }
+        } while (batch.size() == BATCH_SIZE);
+        return files;
+    }
+
+    private boolean dispose(BlobStore.BlobInfo orphan, OrphanAction action) {
+        String key = orphan.key();
+        String aside = action == OrphanAction.QUARANTINE
+                ? QUARANTINE_PREFIX + key
+                : StorageService.trashKey();
+        boolean movedAside;
+        try {
+            movedAside = Boolean.TRUE.equals(new TransactionTemplate(transactionManager)
+                    .execute(status -> setAside(key, aside)));
+        } catch (RuntimeException e) {
+            // Put the file back if the blob row could not be removed with it
+            restore(aside, key);
+            log.warn("Could not {} orphan {}: {}", action.name().toLowerCase(), key, e.getMessage());
+            return false;
+        }
+        if (!movedAside) {
+            return false;
+        }
+        storageService.forget(key);
+        if (action == OrphanAction.DELETE) {
+            try {
+                blobStore.delete(aside);
+            } catch (IOException e) {
+                // Left in the trash, where a later run finds it
+                log.warn("Could not delete orphan {}: {}", key, e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    // Runs with the blob's row locked, so that no upload can take a reference on it meanwhile
+    private boolean setAside(String key, String aside) {
+        Optional<MediaBlob> blob = mediaBlobRepository.findForUpdate(StorageService.filename(key));
+        try {
+            try {
+                blobStore.move(key, aside);
+            } catch (NoSuchFileException e) {
+                return false;
+            }
+            // Stored again since the scan, possibly by keeping this very blob
+            if (isReferenced(key)) {
+                blobStore.move(aside, key);
+                return false;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        blob.ifPresent(orphan -> {
+            mediaBlobRepository.delete(orphan);
+            mediaUsageService.blobRemoved(orphan.getSize());
+        });
+        return true;
+    }
+
+    private void restore(String aside, String key) {
+        try {
+            blobStore.move(aside, key);
+        } catch (NoSuchFileException e) {
+            // Never moved
+        } catch (IOException e) {
+            log.warn("Could not put back {} from {}: {}", key, aside, e.getMessage());
+        }
+    }
+
+    private boolean isReferenced(String key) {
+        String original = StorageService.originalKey(key);
+        return mediaRepository.existsByFilename(StorageService.filename(original != null ? original : key));
+    }
+
+    private static List<String> sample(Stream<String> values) {
+        return values.sorted().limit(SAMPLE_SIZE).toList();
+    }
+
+    // Internal areas other than the trash hold files that are in use or set aside on purpose
+    private static boolean isInternal(String prefix) {
+        return prefix.startsWith(".") && !prefix.equals(StorageService.TRASH_PREFIX);
+    }
+
+    private record Scan(Set<String> referenced, Set<String> missing, Instant cutoff) {
+
+        boolean isOrphan(BlobStore.BlobInfo blob) {
+            if (blob.key().startsWith(StorageService.TRASH_PREFIX)) {
+                // A release still in its transaction moves the blob back on rollback. Judged by
+                // when it was moved, as the move kept its old modification time; names without
+                // that time were written before a restart, by transactions long finished.
+                Instant trashedAt = StorageService.trashedAt(blob.key());
+                return trashedAt == null || trashedAt.isBefore(cutoff);
+            }
+            String original = StorageService.originalKey(blob.key());
+            if (original != null && referenced.contains(original)) {
+                return false;
+            }
+            return blob.lastModified().isBefore(cutoff);
+        }
+    }
+
+    private static final class Tally {
+        long files;
+        long bytes;
+        final List<BlobStore.BlobInfo> orphans = new ArrayList<>();
+
+        void add(Tally other) {
+            files += other.files;
+            bytes += other.bytes;
+            orphans.addAll(other.orphans);
+        }
+    }
+
+    /**
+     * One directory level: lists it, forks a task for each level below and checks the
+     * blobs found directly in it meanwhile.
+     */
+    private final class Walk extends RecursiveTask<Tally> {
+
+        private final String prefix;
+        private final Scan scan;
+
+        Walk(String prefix, Scan scan) {
+            this.prefix = prefix;
+            this.scan = scan;
+        }
+
+        @Override
+        protected Tally compute() {
+            BlobStore.Listing listing;
+            try {
+                listing = blobStore.listLevel(prefix);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not list " + prefix, e);
+            }
+            List<Walk> below = listing.prefixes().stream()
+                    .filter(level -> !isInternal(level))
+                    .map(level -> new Walk(level, scan))
+                    .toList();
+            below.forEach(Walk::fork);
+
+            Tally tally = new Tally();
+            for (BlobStore.BlobInfo blob : listing.blobs()) {
+                tally.files++;
+                tally.bytes += blob.size();
+                if (scan.referenced().contains(blob.key())) {
+                    scan.missing().remove(blob.key());
+                } else if (scan.isOrphan(blob)) {
+                    tally.orphans.add(blob);
+                }
+            }
+            for (Walk walk : below) {
+                tally.add(walk.join());
+            }
+            return tally;
+        }
+    }
+}
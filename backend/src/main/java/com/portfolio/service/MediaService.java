@@ -1,35 +1,71 @@
 package com.portfolio.service;
 
+import com.portfolio.dto.CursorPage;
 import com.portfolio.dto.MediaDto;
+import com.portfolio.dto.MediaUploadResultDto;
 import com.portfolio.dto.ReorderRequest;
 import com.portfolio.entity.Media;
 import com.portfolio.entity.MediaType;
 import com.portfolio.entity.Post;
 import com.portfolio.repository.MediaRepository;
 import com.portfolio.repository.PostRepository;
+import com.portfolio.util.CursorUtils;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
+@Slf4j
 public class MediaService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final MediaRepository mediaRepository;
     private final PostRepository postRepository;
     private final StorageService storageService;
+    private final ImageMetadataExtractor imageMetadataExtractor;
+    private final ImageOptimizer imageOptimizer;
+    private final Mp4FastStart mp4FastStart;
+    private final PostCache postCache;
+    private final MediaUsageService mediaUsageService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.media.batch.parallelism:4}")
+    private int batchParallelism;
+
+    @Value("${app.media.batch.max-files:50}")
+    private int batchMaxFiles;
 
     public MediaDto getMediaById(UUID id, String locale) {
         Media media = mediaRepository.findById(id)
@@ -54,6 +90,44 @@ public class MediaService {
                 .map(media -> mapToDto(media, locale));
     }
 
+    /**
+     * Keyset-paginated media library, newest first, ordered by (createdAt, id).
+     * Skips the count query the {@link Pageable} variants need.
+     */
+    public CursorPage<MediaDto> getMedia(String cursor, MediaType type, int size, String locale) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<Media> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = type != null
+                    ? mediaRepository.findByTypeFirstPage(type.name(), limit + 1)
+                    : mediaRepository.findFirstPage(limit + 1);
+        } else {
+            String[] key = CursorUtils.decode(cursor, 2);
+            OffsetDateTime createdAt;
+            UUID id;
+            try {
+                createdAt = OffsetDateTime.parse(key[0]);
+                id = UUID.fromString(key[1]);
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+            rows = type != null
+                    ? mediaRepository.findByTypePageAfter(type.name(), createdAt, id, limit + 1)
+                    : mediaRepository.findPageAfter(createdAt, id, limit + 1);
+        }
+
+        boolean hasNext = rows.size() > limit;
+        List<Media> page = hasNext ? rows.subList(0, limit) : rows;
+        Media last = page.isEmpty() ? null : page.get(page.size() - 1);
+
+        return CursorPage.<MediaDto>builder()
+                .content(page.stream().map(media -> mapToDto(media, locale)).toList())
+                .size(page.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? CursorUtils.encode(last.getCreatedAt(), last.getId()) : null)
+                .build();
+    }
+
     public Page<MediaDto> getUnassignedMedia(Pageable pageable, String locale) {
         return mediaRepository.findByPostIdIsNull(pageable)
                 .map(media -> mapToDto(media, locale));
@@ -64,34 +138,250 @@ public class MediaService {
                 .map(media -> mapToDto(media, locale));
     }
 
-    @Transactional
-    public MediaDto uploadMedia(MultipartFile file, UUID postId, String altTextEn, String altTextPl, String locale) throws IOException {
-        String filename = storageService.store(file);
-        MediaType type = storageService.getMediaType(file.getContentType());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<MediaDto> uploadMedia(MultipartFile file, UUID postId, String altTextEn, String altTextPl,
+                                                   String locale) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            return uploadMedia(content, file.getOriginalFilename(), postId, altTextEn, altTextPl, locale);
+        }
+    }
 
-        Post post = null;
-        int displayOrder = 0;
-        if (postId != null) {
-            post = postRepository.findById(postId)
-                    .orElseThrow(() -> new EntityNotFoundException("Post not found: " + postId));
-            displayOrder = mediaRepository.getMaxDisplayOrderForPost(postId) + 1;
+    /**
+     * Stores an upload read straight from {@code content}. The body is streamed to
+     * storage before any transaction starts, so slow clients never hold a database
+     * connection; only the reference and the media row are written transactionally.
+     * <p>
+     * The body is read on the calling thread, where MP4s are also made faststart.
+     * Images are then optimized on the {@link ImageOptimizer} pool, which also saves
+     * them, so the returned future completes off the request thread.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<MediaDto> uploadMedia(InputStream content, String originalName, UUID postId,
+                                                   String altTextEn, String altTextPl, String locale) throws IOException {
+        if (postId != null && !postRepository.existsById(postId)) {
+            throw new EntityNotFoundException("Post not found: " + postId);
         }
 
-        Media media = Media.builder()
+        return process(storageService.stage(content, originalName), originalName, postId, altTextEn, altTextPl,
+                locale);
+    }
+
+    /**
+     * Stores an upload that was received in full beforehand, e.g. a completed
+     * resumable upload, the same way as a streamed one.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<MediaDto> uploadMedia(StorageService.StagedFile uploaded, String originalName, UUID postId,
+                                                   String altTextEn, String altTextPl, String locale) {
+        if (postId != null && !postRepository.existsById(postId)) {
+            storageService.discard(uploaded);
+            throw new EntityNotFoundException("Post not found: " + postId);
+        }
+        return process(uploaded, originalName, postId, altTextEn, altTextPl, locale);
+    }
+
+    private CompletableFuture<MediaDto> process(StorageService.StagedFile uploaded, String originalName, UUID postId,
+                                                String altTextEn, String altTextPl, String locale) {
+        // Plain file I/O, cheap enough for the request thread
+        StorageService.StagedFile streamable = mp4FastStart.apply(uploaded);
+        return imageOptimizer.optimize(streamable).thenApply(staged ->
+                save(staged, uploaded.size(), originalName, postId, altTextEn, altTextPl, locale));
+    }
+
+    private MediaDto save(StorageService.StagedFile staged, long originalSize, String originalName, UUID postId,
+                          String altTextEn, String altTextPl, String locale) {
+        try {
+            // Decoded before the transaction, like the upload itself
+            ImageMetadataExtractor.ImageMetadata metadata = readMetadata(staged);
+            return new TransactionTemplate(transactionManager).execute(status -> {
+                Post post = null;
+                int displayOrder = 0;
+                if (postId != null) {
+                    post = postRepository.findById(postId)
+                            .orElseThrow(() -> new EntityNotFoundException("Post not found: " + postId));
+                    displayOrder = mediaRepository.getMaxDisplayOrderForPost(postId) + 1;
+                }
+
+                Media media = mediaRepository.save(newMedia(staged, originalSize, originalName, metadata, post,
+                        displayOrder, altTextEn, altTextPl));
+                mediaUsageService.mediaAdded(List.of(media));
+                postCache.evictDetail(post);
+                return mapToDto(media, locale);
+            });
+        } catch (RuntimeException e) {
+            // Rollbacks clean up after themselves; this covers failures before store()
+            storageService.discard(staged);
+            throw e;
+        }
+    }
+
+    private ImageMetadataExtractor.ImageMetadata readMetadata(StorageService.StagedFile staged) {
+        return storageService.getMediaType(staged.contentType()) == MediaType.IMAGE
+                ? imageMetadataExtractor.extract(staged.path())
+                : null;
+    }
+
+    // Takes the reference on the staged file, so only call it in the transaction that saves the row
+    private Media newMedia(StorageService.StagedFile staged, long originalSize, String originalName,
+                           ImageMetadataExtractor.ImageMetadata metadata, Post post, int displayOrder,
+                           String altTextEn, String altTextPl) {
+        String filename = storageService.store(staged);
+        return Media.builder()
                 .post(post)
-                .type(type)
+                .type(storageService.getMediaType(staged.contentType()))
                 .filename(filename)
-                .originalName(file.getOriginalFilename())
-                .mimeType(file.getContentType())
-                .size(file.getSize())
+                .originalName(originalName)
+                .mimeType(staged.contentType())
+                .size(staged.size())
+                .originalSize(originalSize)
+                .width(metadata != null ? metadata.width() : null)
+                .height(metadata != null ? metadata.height() : null)
+                .placeholder(metadata != null ? metadata.placeholder() : null)
+                .metadataVersion(ImageMetadataExtractor.VERSION)
                 .url("/api/media/" + filename)
                 .altTextEn(altTextEn)
                 .altTextPl(altTextPl)
                 .displayOrder(displayOrder)
                 .build();
+    }
 
-        media = mediaRepository.save(media);
-        return mapToDto(media, locale);
+    /**
+     * Stores several files at once, e.g. a gallery for a post. Each file goes through
+     * the same steps as a single upload, on its own virtual thread, with at most
+     * {@code app.media.batch.parallelism} files in progress at a time. The rows of
+     * the files that made it are then inserted together in one transaction, with
+     * consecutive display orders in the order the files were sent.
+     *
+     * @return one result per file, in the order given
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<MediaUploadResultDto> uploadMediaBatch(List<MultipartFile> files, UUID postId, String locale) {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No files to upload");
+        }
+        if (files.size() > batchMaxFiles) {
+            throw new IllegalArgumentException("At most " + batchMaxFiles + " files can be uploaded at once");
+        }
+        if (postId != null && !postRepository.existsById(postId)) {
+            throw new EntityNotFoundException("Post not found: " + postId);
+        }
+        // Multipart files are spooled already, so a batch that cannot fit is turned away before any work
+        storageService.checkQuota(files.stream().mapToLong(MultipartFile::getSize).sum());
+
+        List<Future<PreparedUpload>> futures = new ArrayList<>();
+        Semaphore permits = new Semaphore(batchParallelism);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (MultipartFile file : files) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return prepare(file);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+
+        MediaUploadResultDto[] results = new MediaUploadResultDto[files.size()];
+        List<Integer> prepared = new ArrayList<>();
+        List<PreparedUpload> uploads = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                uploads.add(futures.get(i).get());
+                prepared.add(i);
+            } catch (ExecutionException e) {
+                results[i] = failure(files.get(i).getOriginalFilename(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while storing uploads", e);
+            }
+        }
+
+        if (!uploads.isEmpty()) {
+            try {
+                List<MediaDto> saved = saveAll(uploads, postId, locale);
+                for (int i = 0; i < saved.size(); i++) {
+                    results[prepared.get(i)] = MediaUploadResultDto.builder()
+                            .originalName(uploads.get(i).originalName())
+                            .success(true)
+                            .media(saved.get(i))
+                            .build();
+                }
+            } catch (RuntimeException e) {
+                for (int i = 0; i < uploads.size(); i++) {
+                    results[prepared.get(i)] = failure(uploads.get(i).originalName(), e);
+                }
+            }
+        }
+        return List.of(results);
+    }
+
+    private record PreparedUpload(StorageService.StagedFile staged, long originalSize, String originalName,
+                                  ImageMetadataExtractor.ImageMetadata metadata) {
+    }
+
+    // Everything a single upload does before its transaction, run on one of the batch's threads
+    private PreparedUpload prepare(MultipartFile file) throws IOException {
+        StorageService.StagedFile uploaded;
+        try (InputStream content = file.getInputStream()) {
+            uploaded = storageService.stage(content, file.getOriginalFilename());
+        }
+        StorageService.StagedFile staged = imageOptimizer.optimize(mp4FastStart.apply(uploaded)).join();
+        try {
+            return new PreparedUpload(staged, uploaded.size(), file.getOriginalFilename(), readMetadata(staged));
+        } catch (RuntimeException e) {
+            storageService.discard(staged);
+            throw e;
+        }
+    }
+
+    private List<MediaDto> saveAll(List<PreparedUpload> uploads, UUID postId, String locale) {
+        try {
+            return new TransactionTemplate(transactionManager).execute(status -> {
+                Post post = null;
+                int displayOrder = 0;
+                if (postId != null) {
+                    post = postRepository.findById(postId)
+                            .orElseThrow(() -> new EntityNotFoundException("Post not found: " + postId));
+                    displayOrder = mediaRepository.getMaxDisplayOrderForPost(postId) + 1;
+                }
+
+                List<Media> media = new ArrayList<>();
+                for (PreparedUpload upload : uploads) {
+                    media.add(newMedia(upload.staged(), upload.originalSize(), upload.originalName(),
+                            upload.metadata(), post, post != null ? displayOrder++ : 0, null, null));
+                }
+                // Ids are generated up front, so the rows go out as one JDBC batch on flush
+                List<Media> saved = mediaRepository.saveAll(media);
+                mediaUsageService.mediaAdded(saved);
+                postCache.evictDetail(post);
+                return saved.stream().map(item -> mapToDto(item, locale)).toList();
+            });
+        } catch (RuntimeException e) {
+            uploads.forEach(upload -> storageService.discard(upload.staged()));
+            throw e;
+        }
+    }
+
+    private static MediaUploadResultDto failure(String originalName, Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        String error;
+        if (cause instanceof IllegalArgumentException || cause instanceof EntityNotFoundException) {
+            error = cause.getMessage();
+        } else if (cause instanceof ResponseStatusException statusException) {
+            error = statusException.getReason();
+        } else {
+            log.warn("Could not store {}: {}", originalName, cause.toString());
+            error = "Could not store file";
+        }
+        return MediaUploadResultDto.builder()
+                .originalName(originalName)
+                .success(false)
+                .error(error)
+                .build();
     }
 
     @Transactional
@@ -119,19 +409,19 @@ public class MediaService {
                 .build();
 
         media = mediaRepository.save(media);
+        postCache.evictDetail(post);
         return mapToDto(media, locale);
     }
 
     @Transactional
     public void reorderMedia(UUID postId, ReorderRequest request) {
-        // Verify post exists
-        if (!postRepository.existsById(postId)) {
-            throw new EntityNotFoundException("Post not found: " + postId);
-        }
+        Post post = postRepository.findById(postId)
+                .orElseThrow(() -> new EntityNotFoundException("Post not found: " + postId));
 
         for (ReorderRequest.OrderItem item : request.getItems()) {
             mediaRepository.updateDisplayOrder(item.getId(), item.getDisplayOrder());
         }
+        postCache.evictDetail(post);
     }
 
     private String extractYouTubeVideoId(String url) {
@@ -160,10 +450,14 @@ public class MediaService {
         if (altTextPl != null) {
             media.setAltTextPl(altTextPl);
         }
+        postCache.evictDetail(media.getPost());
         if (postId != null) {
             Post post = postRepository.findById(postId)
                     .orElseThrow(() -> new EntityNotFoundException("Post not found: " + postId));
+            Post previous = media.getPost();
             media.setPost(post);
+            mediaUsageService.mediaMoved(media, previous);
+            postCache.evictDetail(post);
         }
 
         media = mediaRepository.save(media);
@@ -175,8 +469,26 @@ public class MediaService {
         Media media = mediaRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Media not found: " + id));
 
-        storageService.delete(media.getFilename());
         mediaRepository.delete(media);
+        releaseMedia(List.of(media));
+        postCache.evictDetail(media.getPost());
+    }
+
+    /**
+     * Drops the references of deleted media rows on their files and takes the rows
+     * off the usage totals, e.g. for the media removed along with their post. Files
+     * released for the last time come off the stored total as well. Call it in the
+     * transaction that deletes the rows.
+     */
+    @Transactional
+    public void releaseMedia(Collection<Media> media) throws IOException {
+        for (Media item : media) {
+            // Embedded videos have no file; uploads share theirs with identical uploads
+            if (item.getFilename() != null) {
+                storageService.release(item.getFilename());
+            }
+        }
+        mediaUsageService.mediaRemoved(media);
     }
 
     private MediaDto mapToDto(Media media, String locale) {
@@ -188,6 +500,10 @@ public class MediaService {
                 .originalName(media.getOriginalName())
                 .mimeType(media.getMimeType())
                 .size(media.getSize())
+                .originalSize(media.getOriginalSize())
+                .width(media.getWidth())
+                .height(media.getHeight())
+                .placeholder(media.getPlaceholder())
                 .url(media.getUrl())
                 .altText(media.getAltText(locale))
                 .altTextEn(media.getAltTextEn())
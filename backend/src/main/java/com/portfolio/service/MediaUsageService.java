@@ -0,0 +1,200 @@
+package com.portfolio.service;
+
+import com.portfolio.dto.MediaUsageDto;
+import com.portfolio.entity.Media;
+import com.portfolio.entity.MediaType;
+import com.portfolio.entity.Post;
+import com.portfolio.repository.MediaUsageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Running totals of the space media take, so that nobody has to walk the upload
+ * directory to find out.
+ * <p>
+ * Two kinds of totals are kept. The stored total counts each file in the blob store
+ * once, however many media rows share it: that is the disk actually used, and what
+ * {@code app.media.quota} limits. The totals by {@link MediaType} and by post count
+ * every media row with a file at its full size. All are changed in the transaction
+ * that adds or removes the rows they count, and locked until it ends, in the order
+ * stored total, types, posts.
+ * <p>
+ * The quota is checked against the stored total when a new file is referenced, before
+ * it is put in place, and the transaction fails if it would be exceeded. Uploads are
+ * also turned away early, while being received, once they no longer fit.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@Slf4j
+public class MediaUsageService {
+
+    private final MediaUsageRepository mediaUsageRepository;
+
+    // 0 for no limit
+    @Value("${app.media.quota:0}")
+    private DataSize quota;
+
+    /**
+     * Bytes that can still be stored, or empty when there is no quota.
+     */
+    public OptionalLong remainingQuota() {
+        if (quota.toBytes() <= 0) {
+            return OptionalLong.empty();
+        }
+        long stored = mediaUsageRepository.findBytes(MediaUsageRepository.STORE, MediaUsageRepository.BLOBS);
+        return OptionalLong.of(Math.max(0, quota.toBytes() - stored));
+    }
+
+    /**
+     * Turns away an upload of {@code bytes} that would not fit at the moment. Identical
+     * content already stored would take no space, so a passing check is no promise.
+     *
+     * @throws ResponseStatusException with 507 when the quota would be exceeded
+     */
+    public void checkQuota(long bytes) {
+        OptionalLong remaining = remainingQuota();
+        if (remaining.isPresent() && bytes > remaining.getAsLong()) {
+            throw quotaExceeded();
+        }
+    }
+
+    static ResponseStatusException quotaExceeded() {
+        return new ResponseStatusException(HttpStatus.INSUFFICIENT_STORAGE, "Storage quota exceeded");
+    }
+
+    /**
+     * Counts a file newly added to the blob store.
+     *
+     * @throws ResponseStatusException with 507 when it takes the store over the quota
+     */
+    @Transactional
+    public void blobStored(long size) {
+        long stored = mediaUsageRepository.add(MediaUsageRepository.STORE, MediaUsageRepository.BLOBS, 1, size);
+        if (quota.toBytes() > 0 && stored > quota.toBytes()) {
+            throw quotaExceeded();
+        }
+    }
+
+    /**
+     * Stops counting a file removed from the blob store.
+     */
+    @Transactional
+    public void blobRemoved(long size) {
+        mediaUsageRepository.add(MediaUsageRepository.STORE, MediaUsageRepository.BLOBS, -1, -size);
+    }
+
+    @Transactional
+    public void mediaAdded(Collection<Media> media) {
+        change(media, 1);
+    }
+
+    @Transactional
+    public void mediaRemoved(Collection<Media> media) {
+        change(media, -1);
+    }
+
+    /**
+     * Moves a media row's file from the totals of {@code from} to those of its current post.
+     */
+    @Transactional
+    public void mediaMoved(Media media, Post from) {
+        UUID fromId = from != null ? from.getId() : null;
+        UUID toId = media.getPost() != null ? media.getPost().getId() : null;
+        if (media.getFilename() == null || Objects.equals(fromId, toId)) {
+            return;
+        }
+        long size = size(media);
+        if (fromId != null) {
+            mediaUsageRepository.addToPost(fromId, -1, -size);
+        }
+        if (toId != null) {
+            mediaUsageRepository.addToPost(toId, 1, size);
+        }
+    }
+
+    // Summed up first, so a batch takes one update per total
+    private void change(Collection<Media> media, int sign) {
+        Map<MediaType, long[]> byType = new EnumMap<>(MediaType.class);
+        Map<UUID, long[]> byPost = new LinkedHashMap<>();
+        for (Media item : media) {
+            // Embedded videos have no file
+            if (item.getFilename() == null) {
+                continue;
+            }
+            add(byType.computeIfAbsent(item.getType(), type -> new long[2]), size(item));
+            if (item.getPost() != null) {
+                add(byPost.computeIfAbsent(item.getPost().getId(), id -> new long[2]), size(item));
+            }
+        }
+        byType.forEach((type, total) ->
+                mediaUsageRepository.add(MediaUsageRepository.TYPE, type.name(), sign * total[0], sign * total[1]));
+        byPost.forEach((postId, total) ->
+                mediaUsageRepository.addToPost(postId, sign * total[0], sign * total[1]));
+    }
+
+    private static void add(long[] total, long size) {
+        total[0]++;
+        total[1] += size;
+    }
+
+    private static long size(Media media) {
+        return media.getSize() != null ? media.getSize() : 0;
+    }
+
+    /**
+     * All totals; a handful of rows whatever the number of files.
+     */
+    public MediaUsageDto getUsage() {
+        MediaUsageDto.MediaUsageDtoBuilder usage = MediaUsageDto.builder()
+                .quotaBytes(quota.toBytes() > 0 ? quota.toBytes() : null);
+        Map<MediaType, MediaUsageDto.Total> byType = new EnumMap<>(MediaType.class);
+        for (MediaUsageRepository.Total total : mediaUsageRepository.findAll()) {
+            if (MediaUsageRepository.STORE.equals(total.scope())) {
+                usage.storedFiles(total.files()).storedBytes(total.bytes());
+            } else if (MediaUsageRepository.TYPE.equals(total.scope())) {
+                byType.put(MediaType.valueOf(total.name()), toDto(total));
+            }
+        }
+        return usage.byType(byType).build();
+    }
+
+    public MediaUsageDto.Total getPostUsage(UUID postId) {
+        return mediaUsageRepository.findByPost(postId)
+                .map(MediaUsageService::toDto)
+                .orElseGet(() -> new MediaUsageDto.Total(0, 0));
+    }
+
+    /**
+     * Recomputes the totals from the media and blob tables and corrects those that
+     * drifted, e.g. after rows were changed by hand. Uploads and deletes wait while it runs.
+     *
+     * @return the number of totals corrected
+     */
+    @Transactional
+    public int reconcile() {
+        int corrected = mediaUsageRepository.recompute();
+        if (corrected > 0) {
+            log.warn("Corrected {} media usage totals", corrected);
+        }
+        return corrected;
+    }
+
+    private static MediaUsageDto.Total toDto(MediaUsageRepository.Total total) {
+        return new MediaUsageDto.Total(total.files(), total.bytes());
+    }
+}
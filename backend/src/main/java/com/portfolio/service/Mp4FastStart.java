@@ -0,0 +1,280 @@
+package com.portfolio.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Moves the {@code moov} box of an MP4 in front of its media data ("faststart"), so
+ * players can start from the first bytes instead of fetching the end of the file.
+ * <p>
+ * The sample tables in {@code moov} address media by absolute file offset, so every
+ * {@code stco}/{@code co64} entry is shifted by however far its data moved. Chunk
+ * offset tables that would overflow 32 bits are widened to {@code co64}. Files that
+ * are already faststart, fragmented, or not understood are left as they are.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class Mp4FastStart {
+
+    // moov is rewritten in memory; real ones are a few hundred KB even for long videos
+    static final long MAX_MOOV_SIZE = 32 * 1024 * 1024;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // Boxes on the path from moov down to the chunk offset tables
+    private static final Set<String> CONTAINERS = Set.of("moov", "trak", "mdia", "minf", "stbl");
+
+    private final StorageService storageService;
+
+    record Box(String type, long offset, long size) {
+
+        long end() {
+            return offset + size;
+        }
+    }
+
+    /**
+     * @return a new staged file with {@code moov} first, replacing {@code staged}
+     * (which is then discarded), or {@code staged} itself when nothing needs to move
+     */
+    public StorageService.StagedFile apply(StorageService.StagedFile staged) {
+        if (!"video/mp4".equals(staged.contentType())) {
+            return staged;
+        }
+        try (FileChannel source = FileChannel.open(staged.path(), StandardOpenOption.READ)) {
+            List<Box> boxes = topLevelBoxes(source);
+            Box moov = first(boxes, "moov");
+            Box mdat = first(boxes, "mdat");
+            if (moov == null || mdat == null || moov.offset() < mdat.offset() || first(boxes, "moof") != null) {
+                return staged;
+            }
+            if (moov.size() > MAX_MOOV_SIZE) {
+                log.warn("Not relocating moov of {}: {} bytes", staged.filename(), moov.size());
+                return staged;
+            }
+
+            ByteBuffer original = ByteBuffer.allocate((int) moov.size());
+            readFully(source, original, moov.offset());
+            byte[] relocated = relocate(original.flip(), moov, mdat);
+
+            StorageService.StagedFile result = write(source, boxes, moov, mdat, relocated, staged.contentType());
+            storageService.discard(staged);
+            log.debug("Moved moov to the front of {}", staged.filename());
+            return result;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not make {} faststart, storing as uploaded: {}", staged.filename(), e.getMessage());
+            return staged;
+        }
+    }
+
+    /**
+     * Rewrites {@code moov} for its new place just before {@code mdat}. Data between
+     * {@code mdat} and the old {@code moov} moves forward by the new moov's size; data
+     * after the old {@code moov} only by the difference in size.
+     */
+    static byte[] relocate(ByteBuffer moovBox, Box moov, Box mdat) throws IOException {
+        boolean widen = false;
+        // The table layout decides the size; offsets only need it to be known
+        long size = rewrite(moovBox.duplicate(), offset -> offset, false).length;
+        while (true) {
+            long newSize = size;
+            LongUnaryOperator shift = offset -> {
+                if (offset >= mdat.offset() && offset < moov.offset()) {
+                    return offset + newSize;
+                }
+                return offset >= moov.end() ? offset + newSize - moov.size() : offset;
+            };
+            try {
+                return rewrite(moovBox.duplicate(), shift, widen);
+            } catch (OffsetOverflowException e) {
+                if (widen) {
+                    throw e;
+                }
+                widen = true;
+                size = rewrite(moovBox.duplicate(), offset -> offset, true).length;
+            }
+        }
+    }
+
+    // box starts at position 0 and is left positioned just after its end
+    private static byte[] rewrite(ByteBuffer box, LongUnaryOperator shift, boolean widen) throws IOException {
+        long size = Integer.toUnsignedLong(box.getInt());
+        String type = type(box);
+        int headerSize = 8;
+        if (size == 1) {
+            size = box.getLong();
+            headerSize = 16;
+        } else if (size == 0) {
+            size = box.limit();
+        }
+        int end = Math.toIntExact(size);
+        if (end > box.limit() || size < headerSize) {
+            throw new IOException("Box " + type + " overruns its parent");
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        box.position(headerSize);
+        if (CONTAINERS.contains(type)) {
+            while (box.position() + 8 <= end) {
+                ByteBuffer child = box.slice(box.position(), end - box.position());
+                out.write(rewrite(child, shift, widen));
+                box.position(box.position() + child.position());
+            }
+            out.write(bytes(box, end - box.position()));
+        } else if (type.equals("stco") || type.equals("co64")) {
+            boolean wide = type.equals("co64");
+            int versionAndFlags = box.getInt();
+            long count = Integer.toUnsignedLong(box.getInt());
+            type = wide || widen ? "co64" : "stco";
+            out.writeInt(versionAndFlags);
+            out.writeInt((int) count);
+            for (long i = 0; i < count; i++) {
+                long offset = shift.applyAsLong(wide ? box.getLong() : Integer.toUnsignedLong(box.getInt()));
+                if (type.equals("co64")) {
+                    out.writeLong(offset);
+                } else if (offset > 0xFFFFFFFFL) {
+                    throw new OffsetOverflowException();
+                } else {
+                    out.writeInt((int) offset);
+                }
+            }
+        } else {
+            out.write(bytes(box, end - box.position()));
+        }
+        box.position(end);
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream(headerSize + body.size());
+        DataOutputStream header = new DataOutputStream(result);
+        if (headerSize == 16) {
+            header.writeInt(1);
+            header.write(type.getBytes(StandardCharsets.ISO_8859_1));
+            header.writeLong(16L + body.size());
+        } else {
+            header.writeInt(8 + body.size());
+            header.write(type.getBytes(StandardCharsets.ISO_8859_1));
+        }
+        body.writeTo(result);
+        return result.toByteArray();
+    }
+
+    private static byte[] bytes(ByteBuffer box, int length) {
+        byte[] content = new byte[length];
+        box.get(content);
+        return content;
+    }
+
+    private static final class OffsetOverflowException extends RuntimeException {
+
+        OffsetOverflowException() {
+            super("Chunk offset does not fit in stco", null, false, false);
+        }
+    }
+
+    static List<Box> topLevelBoxes(FileChannel channel) throws IOException {
+        List<Box> boxes = new ArrayList<>();
+        long fileSize = channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(16);
+        while (offset + 8 <= fileSize) {
+            header.clear().limit(8);
+            readFully(channel, header, offset);
+            header.flip();
+            long size = Integer.toUnsignedLong(header.getInt());
+            String type = type(header);
+            if (size == 1) {
+                header.clear().limit(8);
+                readFully(channel, header, offset + 8);
+                size = header.flip().getLong();
+            } else if (size == 0) {
+                size = fileSize - offset;
+            }
+            if (size < 8 || offset + size > fileSize) {
+                throw new IOException("Malformed box " + type + " at " + offset);
+            }
+            boxes.add(new Box(type, offset, size));
+            offset += size;
+        }
+        return boxes;
+    }
+
+    private StorageService.StagedFile write(FileChannel source, List<Box> boxes, Box moov, Box mdat,
+                                            byte[] relocated, String contentType) throws IOException {
+        Path target = storageService.newStagingFile();
+        MessageDigest digest = StorageService.sha256();
+        try (OutputStream output = new DigestOutputStream(
+                Files.newOutputStream(target, StandardOpenOption.CREATE_NEW), digest)) {
+            boolean moovWritten = false;
+            for (Box box : boxes) {
+                if (box == moov) {
+                    continue;
+                }
+                if (!moovWritten && box.offset() >= mdat.offset()) {
+                    output.write(relocated);
+                    moovWritten = true;
+                }
+                copy(source, box, output);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return storageService.adopt(target, contentType, Files.size(target), HexFormat.of().formatHex(digest.digest()));
+    }
+
+    private static void copy(FileChannel source, Box box, OutputStream output) throws IOException {
+        var target = Channels.newChannel(output);
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        long position = box.offset();
+        while (position < box.end()) {
+            buffer.clear().limit((int) Math.min(COPY_BUFFER_SIZE, box.end() - position));
+            int read = source.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("File ended inside " + box.type());
+            }
+            position += read;
+            target.write(buffer.flip());
+        }
+    }
+
+    private static Box first(List<Box> boxes, String type) {
+        return boxes.stream().filter(box -> box.type().equals(type)).findFirst().orElse(null);
+    }
+
+    private static String type(ByteBuffer buffer) {
+        byte[] type = new byte[4];
+        buffer.get(type);
+        return new String(type, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            position += read;
+        }
+    }
+}
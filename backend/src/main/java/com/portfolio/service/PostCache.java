@@ -0,0 +1,153 @@
+package com.portfolio.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.portfolio.config.CacheConfig;
+import com.portfolio.dto.CacheStatsDto;
+import com.portfolio.entity.Category;
+import com.portfolio.entity.Post;
+import com.portfolio.entity.Tag;
+import com.portfolio.util.LocaleUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Targeted eviction and statistics for the public post caches.
+ * <p>
+ * Cache keys are {@code <filter>:<locale>} (or just {@code <locale>} for the
+ * unfiltered listing) and must stay in sync with the {@code @Cacheable} keys
+ * in {@link PostService}.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostCache {
+
+    static final String HASHTAGS_KEY = "all";
+
+    private static final List<String> POST_CACHES = List.of(
+            CacheConfig.PUBLISHED_POSTS,
+            CacheConfig.POSTS_BY_CATEGORY,
+            CacheConfig.POSTS_BY_HASHTAG,
+            CacheConfig.POST_BY_SLUG,
+            CacheConfig.HASHTAGS);
+
+    private final CacheManager cacheManager;
+    private final Map<String, LongAdder> invalidations = new ConcurrentHashMap<>();
+
+    /**
+     * The parts of a post that decide which cache entries it can appear in.
+     */
+    public record Footprint(String slug, Category category, boolean published, Set<String> hashtags) {
+
+        public static Footprint of(Post post) {
+            return new Footprint(
+                    post.getSlug(),
+                    post.getCategory(),
+                    Boolean.TRUE.equals(post.getPublished()),
+                    post.getHashtags() != null
+                            ? Arrays.stream(post.getHashtags())
+                                    .filter(Objects::nonNull)
+                                    .map(Tag::normalize)
+                                    .collect(Collectors.toSet())
+                            : Set.of());
+        }
+    }
+
+    /**
+     * Evicts every entry a post could appear in, given its state before and/or
+     * after a write. Either footprint may be {@code null} (create, delete).
+     */
+    public void evict(Footprint before, Footprint after) {
+        boolean listed = false;
+        for (Footprint footprint : new Footprint[]{before, after}) {
+            if (footprint == null) {
+                continue;
+            }
+            evictLocalized(CacheConfig.POST_BY_SLUG, footprint.slug());
+            if (footprint.published()) {
+                listed = true;
+                evictLocalized(CacheConfig.POSTS_BY_CATEGORY, footprint.category().name());
+                footprint.hashtags().forEach(hashtag -> evictLocalized(CacheConfig.POSTS_BY_HASHTAG, hashtag));
+            }
+        }
+        if (listed) {
+            evictLocalized(CacheConfig.PUBLISHED_POSTS, null);
+            evictKey(CacheConfig.HASHTAGS, HASHTAGS_KEY);
+        }
+    }
+
+    /**
+     * Evicts only the detail entry of a post, e.g. when its media changes.
+     */
+    public void evictDetail(Post post) {
+        if (post != null) {
+            evictLocalized(CacheConfig.POST_BY_SLUG, post.getSlug());
+        }
+    }
+
+    public void evictAll() {
+        for (String name : POST_CACHES) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+                invalidations.computeIfAbsent(name, n -> new LongAdder()).increment();
+            }
+        }
+    }
+
+    public List<CacheStatsDto> getStats() {
+        return POST_CACHES.stream()
+                .map(this::statsFor)
+                .toList();
+    }
+
+    static String key(String filter, String locale) {
+        return filter == null ? locale : filter + ":" + locale;
+    }
+
+    private void evictLocalized(String cacheName, String filter) {
+        for (String locale : LocaleUtils.SUPPORTED_LOCALES) {
+            evictKey(cacheName, key(filter, locale));
+        }
+    }
+
+    private void evictKey(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+            invalidations.computeIfAbsent(cacheName, n -> new LongAdder()).increment();
+        }
+    }
+
+    private CacheStatsDto statsFor(String name) {
+        CacheStatsDto.CacheStatsDtoBuilder builder = CacheStatsDto.builder()
+                .name(name)
+                .invalidationCount(invalidations.getOrDefault(name, new LongAdder()).sum());
+
+        Cache cache = cacheManager.getCache(name);
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+        if (cache instanceof CaffeineCache caffeineCache) {
+            CacheStats stats = caffeineCache.getNativeCache().stats();
+            builder.size(caffeineCache.getNativeCache().estimatedSize())
+                    .hitCount(stats.hitCount())
+                    .missCount(stats.missCount())
+                    .hitRate(stats.hitRate())
+                    .evictionCount(stats.evictionCount());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,208 @@
+package com.portfolio.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.slugify.Slugify;
+import com.portfolio.entity.Post;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Derives the read-side fields of a post (word count, reading time, table of
+ * contents, plain-text excerpt, first image, case-study flag) from its TipTap
+ * content. Runs once per save so list and detail reads never walk the content.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostContentAnalyzer {
+
+    /**
+     * Bumped whenever the derivation changes; posts stored with an older
+     * version are re-derived by {@link PostDerivationBackfill}.
+     */
+    public static final int VERSION = 1;
+
+    static final int WORDS_PER_MINUTE = 200;
+    static final int PLAIN_EXCERPT_LENGTH = 200;
+
+    // Letters and digits, keeping hyphenated words and contractions together
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+(?:['’-][\\p{L}\\p{N}]+)*");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ObjectMapper objectMapper;
+    private final Slugify slugify = Slugify.builder().build();
+
+    /**
+     * A heading of the post body, with the anchor the frontend links to.
+     */
+    public record Heading(int level, String text, String anchor) {
+    }
+
+    /**
+     * What a single locale's content yields.
+     */
+    public record Analysis(int wordCount, List<Heading> headings, String plainExcerpt, String firstImage) {
+    }
+
+    /**
+     * Recomputes every derived field of the post from its current state.
+     */
+    public void derive(Post post) {
+        Analysis en = analyze(post.getContentEn());
+        Analysis pl = analyze(post.getContentPl());
+
+        int wordsEn = en.wordCount() + countWords(post.getCaseStudyChallengeEn(), post.getCaseStudySolutionEn(),
+                post.getCaseStudyResultsEn(), post.getCaseStudyTestimonialEn());
+        int wordsPl = pl.wordCount() + countWords(post.getCaseStudyChallengePl(), post.getCaseStudySolutionPl(),
+                post.getCaseStudyResultsPl(), post.getCaseStudyTestimonialPl());
+
+        post.setWordCountEn(wordsEn);
+        post.setWordCountPl(wordsPl);
+        post.setReadingMinutesEn(readingMinutes(wordsEn));
+        post.setReadingMinutesPl(readingMinutes(wordsPl));
+        post.setTocEn(writeToc(en.headings()));
+        post.setTocPl(writeToc(pl.headings()));
+        post.setPlainExcerptEn(en.plainExcerpt());
+        post.setPlainExcerptPl(pl.plainExcerpt());
+        post.setFirstImage(en.firstImage() != null ? en.firstImage() : pl.firstImage());
+        post.setHasCaseStudy(hasText(post.getCaseStudyChallengeEn())
+                || hasText(post.getCaseStudySolutionEn())
+                || hasText(post.getCaseStudyResultsEn()));
+        post.setDerivedVersion(VERSION);
+    }
+
+    /**
+     * Walks one TipTap document. Unreadable or missing content yields an empty analysis.
+     */
+    public Analysis analyze(String content) {
+        if (content == null || content.isBlank()) {
+            return new Analysis(0, List.of(), null, null);
+        }
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(content);
+        } catch (JsonProcessingException e) {
+            return new Analysis(0, List.of(), null, null);
+        }
+
+        Walk walk = new Walk();
+        walk.visit(root);
+        return new Analysis(walk.words, walk.headings, excerpt(walk.paragraphs.toString()), walk.firstImage);
+    }
+
+    static int readingMinutes(int words) {
+        return words == 0 ? 0 : Math.max(1, (words + WORDS_PER_MINUTE - 1) / WORDS_PER_MINUTE);
+    }
+
+    static int countWords(String... texts) {
+        int words = 0;
+        for (String text : texts) {
+            if (text != null) {
+                Matcher matcher = WORD.matcher(text);
+                while (matcher.find()) {
+                    words++;
+                }
+            }
+        }
+        return words;
+    }
+
+    private static String excerpt(String text) {
+        String plain = WHITESPACE.matcher(text).replaceAll(" ").strip();
+        if (plain.isEmpty()) {
+            return null;
+        }
+        if (plain.length() <= PLAIN_EXCERPT_LENGTH) {
+            return plain;
+        }
+        int cut = plain.lastIndexOf(' ', PLAIN_EXCERPT_LENGTH);
+        return plain.substring(0, cut > 0 ? cut : PLAIN_EXCERPT_LENGTH).stripTrailing() + "…";
+    }
+
+    private String writeToc(List<Heading> headings) {
+        if (headings.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(headings);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize table of contents", e);
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    /**
+     * Single pass over the document tree. Text is gathered per block, so marks
+     * that split a word into several text nodes do not split the count.
+     */
+    private class Walk {
+        private final List<Heading> headings = new ArrayList<>();
+        private final Map<String, Integer> anchors = new HashMap<>();
+        private final StringBuilder paragraphs = new StringBuilder();
+        private int words;
+        private String firstImage;
+
+        void visit(JsonNode node) {
+            String type = node.path("type").asText();
+            switch (type) {
+                case "heading" -> {
+                    String text = blockText(node);
+                    words += countWords(text);
+                    addHeading(node.path("attrs").path("level").asInt(1), text);
+                }
+                case "paragraph" -> {
+                    String text = blockText(node);
+                    words += countWords(text);
+                    paragraphs.append(text).append(' ');
+                }
+                case "codeBlock" -> words += countWords(blockText(node));
+                case "image" -> {
+                    String src = node.path("attrs").path("src").asText(null);
+                    if (firstImage == null && src != null && !src.isBlank()) {
+                        firstImage = src;
+                    }
+                }
+                default -> node.path("content").forEach(this::visit);
+            }
+        }
+
+        private void addHeading(int level, String text) {
+            String title = WHITESPACE.matcher(text).replaceAll(" ").strip();
+            if (title.isEmpty()) {
+                return;
+            }
+            String base = slugify.slugify(title);
+            if (base.isEmpty()) {
+                base = "section";
+            }
+            int seen = anchors.merge(base, 1, Integer::sum);
+            headings.add(new Heading(level, title, seen == 1 ? base : base + "-" + seen));
+        }
+
+        private String blockText(JsonNode node) {
+            StringBuilder text = new StringBuilder();
+            appendText(node, text);
+            return text.toString();
+        }
+
+        private void appendText(JsonNode node, StringBuilder text) {
+            switch (node.path("type").asText()) {
+                case "text" -> text.append(node.path("text").asText(""));
+                case "hardBreak" -> text.append(' ');
+                case "image" -> visit(node);
+                default -> node.path("content").forEach(child -> appendText(child, text));
+            }
+        }
+    }
+}
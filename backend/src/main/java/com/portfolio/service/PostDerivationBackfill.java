@@ -0,0 +1,65 @@
+package com.portfolio.service;
+
+import com.portfolio.entity.Post;
+import com.portfolio.repository.PostRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Derives fields for posts saved before the current {@link PostContentAnalyzer#VERSION},
+ * e.g. rows that predate the derived columns. Runs once at startup, a batch per transaction.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostDerivationBackfill implements ApplicationRunner {
+
+    static final int BATCH_SIZE = 100;
+
+    private final PostRepository postRepository;
+    private final PostContentAnalyzer postContentAnalyzer;
+    private final PostCache postCache;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int total = backfill();
+        if (total > 0) {
+            log.info("Derived fields recomputed for {} posts", total);
+        }
+    }
+
+    int backfill() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int total = 0;
+        Integer updated;
+        do {
+            updated = transaction.execute(status -> backfillBatch());
+            total += updated != null ? updated : 0;
+        } while (updated != null && updated == BATCH_SIZE);
+
+        if (total > 0) {
+            postCache.evictAll();
+        }
+        return total;
+    }
+
+    // Each pass picks up the rows the previous one left behind, so no cursor is needed
+    private int backfillBatch() {
+        List<Post> posts = postRepository.findDerivedBefore(
+                PostContentAnalyzer.VERSION, PageRequest.of(0, BATCH_SIZE));
+        for (Post post : posts) {
+            postContentAnalyzer.derive(post);
+            postRepository.updateDerivedFields(post);
+        }
+        return posts.size();
+    }
+}
@@ -1,32 +1,63 @@
 package com.portfolio.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.slugify.Slugify;
+import com.portfolio.config.CacheConfig;
 import com.portfolio.dto.*;
 import com.portfolio.entity.*;
 import com.portfolio.repository.PostRepository;
+import com.portfolio.repository.PostSearchHit;
+import com.portfolio.repository.PostSimilarityRepository;
+import com.portfolio.repository.PostSummary;
+import com.portfolio.util.CursorUtils;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.HtmlUtils;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class PostService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SEARCH_RESULTS = 50;
+    private static final int MAX_SEARCH_QUERY_LENGTH = 200;
+    // Upper bound on matches ranked per search, so very common terms stay cheap
+    private static final int SEARCH_CANDIDATES = 500;
+    private static final int MAX_RELATED_POSTS = RelatedPostService.LIST_SIZE;
+
     private final PostRepository postRepository;
+    private final PostSimilarityRepository postSimilarityRepository;
+    private final PostCache postCache;
+    private final TagService tagService;
+    private final RelatedPostService relatedPostService;
+    private final PostContentAnalyzer postContentAnalyzer;
+    private final MediaService mediaService;
+    private final ObjectMapper objectMapper;
     private final Slugify slugify = Slugify.builder().build();
 
+    @Cacheable(cacheNames = CacheConfig.PUBLISHED_POSTS, key = "#locale")
     public List<PostDto> getAllPublishedPosts(String locale) {
-        return postRepository.findAllPublished().stream()
-                .map(post -> mapToDto(post, locale, false))
+        return postRepository.findPublishedSummaries(locale).stream()
+                .map(summary -> mapSummaryToDto(summary, locale))
                 .toList();
     }
 
@@ -35,9 +66,10 @@ public class PostService {
                 .map(post -> mapToDto(post, locale, false));
     }
 
+    @Cacheable(cacheNames = CacheConfig.POSTS_BY_CATEGORY, key = "#category.name() + ':' + #locale")
     public List<PostDto> getPostsByCategory(Category category, String locale) {
-        return postRepository.findByCategoryAndPublishedTrueOrderByDisplayOrderAsc(category).stream()
-                .map(post -> mapToDto(post, locale, false))
+        return postRepository.findPublishedSummariesByCategory(category, locale).stream()
+                .map(summary -> mapSummaryToDto(summary, locale))
                 .toList();
     }
 
@@ -46,22 +78,102 @@ public class PostService {
                 .map(post -> mapToDto(post, locale, false));
     }
 
+    /**
+     * Keyset-paginated published posts ordered by (displayOrder, id).
+     * Unlike the {@link Pageable} variants this never issues a count query and
+     * costs the same for every page.
+     */
+    public CursorPage<PostDto> getPublishedPosts(String cursor, Category category, int size, String locale) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<Post> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = category != null
+                    ? postRepository.findPublishedByCategoryFirstPage(category.name(), limit + 1)
+                    : postRepository.findPublishedFirstPage(limit + 1);
+        } else {
+            String[] key = CursorUtils.decode(cursor, 2);
+            int displayOrder;
+            UUID id;
+            try {
+                displayOrder = Integer.parseInt(key[0]);
+                id = UUID.fromString(key[1]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+            rows = category != null
+                    ? postRepository.findPublishedByCategoryPageAfter(category.name(), displayOrder, id, limit + 1)
+                    : postRepository.findPublishedPageAfter(displayOrder, id, limit + 1);
+        }
+
+        boolean hasNext = rows.size() > limit;
+        List<Post> page = hasNext ? rows.subList(0, limit) : rows;
+        Post last = page.isEmpty() ? null : page.get(page.size() - 1);
+
+        return CursorPage.<PostDto>builder()
+                .content(page.stream().map(post -> mapToDto(post, locale, false)).toList())
+                .size(page.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? CursorUtils.encode(last.getDisplayOrder(), last.getId()) : null)
+                .build();
+    }
+
+    @Cacheable(cacheNames = CacheConfig.POSTS_BY_HASHTAG,
+            key = "T(com.portfolio.entity.Tag).normalize(#hashtag) + ':' + #locale")
     public List<PostDto> getPostsByHashtag(String hashtag, String locale) {
-        return postRepository.findByHashtagAndPublishedTrue(hashtag).stream()
+        return postRepository.findPublishedByTag(Tag.normalize(hashtag)).stream()
                 .map(post -> mapToDto(post, locale, false))
                 .toList();
     }
 
-    public List<String> getAllHashtags() {
-        return postRepository.findAllUniqueHashtags();
+    @Cacheable(cacheNames = CacheConfig.HASHTAGS, key = "'" + PostCache.HASHTAGS_KEY + "'")
+    public List<HashtagDto> getAllHashtags() {
+        return tagService.getPublishedHashtags();
     }
 
+    /**
+     * Ranked full-text search over published posts in the given locale.
+     * Accepts web-search syntax: quoted phrases, {@code or} and {@code -exclusions}.
+     */
+    public List<PostSearchResultDto> searchPosts(String query, int limit, String locale) {
+        String trimmed = query != null ? query.trim() : "";
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Search query must not be blank");
+        }
+        if (trimmed.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search query must not exceed " + MAX_SEARCH_QUERY_LENGTH + " characters");
+        }
+        int size = Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS);
+
+        List<PostSearchHit> hits = "pl".equals(locale)
+                ? postRepository.searchPublishedPl(trimmed, SEARCH_CANDIDATES, size)
+                : postRepository.searchPublishedEn(trimmed, SEARCH_CANDIDATES, size);
+        return hits.stream()
+                .map(hit -> mapSearchHitToDto(hit, locale))
+                .toList();
+    }
+
+    @Cacheable(cacheNames = CacheConfig.POST_BY_SLUG, key = "#slug + ':' + #locale")
     public PostDto getPostBySlug(String slug, String locale) {
         Post post = postRepository.findBySlug(slug)
                 .orElseThrow(() -> new EntityNotFoundException("Post not found: " + slug));
         return mapToDto(post, locale, true);
     }
 
+    /**
+     * Published posts most similar to the given one, from the precomputed
+     * post_similarities lists.
+     */
+    public List<PostDto> getRelatedPosts(String slug, int limit, String locale) {
+        int size = Math.min(Math.max(limit, 1), MAX_RELATED_POSTS);
+        List<PostSummary> related = postSimilarityRepository.findRelatedSummaries(slug, locale, PageRequest.of(0, size));
+        if (related.isEmpty() && !postRepository.existsBySlug(slug)) {
+            throw new EntityNotFoundException("Post not found: " + slug);
+        }
+        return related.stream()
+                .map(summary -> mapSummaryToDto(summary, locale))
+                .toList();
+    }
+
     public PostDto getPostById(UUID id, String locale) {
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Post not found: " + id));
@@ -70,14 +182,14 @@ public class PostService {
 
     // Admin methods
     public List<PostDto> getAllPosts(String locale) {
-        return postRepository.findAll().stream()
-                .map(post -> mapToDto(post, locale, false))
+        return postRepository.findAllSummaries(locale).stream()
+                .map(summary -> mapSummaryToDto(summary, locale))
                 .toList();
     }
 
     public List<PostDto> getAllPostsByCategory(Category category, String locale) {
-        return postRepository.findAllByCategory(category).stream()
-                .map(post -> mapToDto(post, locale, false))
+        return postRepository.findAllSummariesByCategory(category, locale).stream()
+                .map(summary -> mapSummaryToDto(summary, locale))
                 .toList();
     }
 
@@ -87,6 +199,7 @@ public class PostService {
         if (slug == null || slug.isBlank()) {
             slug = generateUniqueSlug(request.getTitleEn());
         }
+        Map<String, String> hashtags = TagService.clean(request.getHashtags());
 
         Post post = Post.builder()
                 .category(request.getCategory())
@@ -95,13 +208,14 @@ public class PostService {
                 .slug(slug)
                 .excerptEn(request.getExcerptEn())
                 .excerptPl(request.getExcerptPl())
-                .contentEn(request.getContentEn())
-                .contentPl(request.getContentPl())
+                .contentEn(writeContent(request.getContentEn()))
+                .contentPl(writeContent(request.getContentPl()))
                 .featuredImage(request.getFeaturedImage())
                 .githubUrl(request.getGithubUrl())
                 .liveUrl(request.getLiveUrl())
                 .published(request.getPublished() != null ? request.getPublished() : false)
-                .hashtags(request.getHashtags() != null ? request.getHashtags().toArray(new String[0]) : new String[0])
+                .hashtags(hashtags.values().toArray(new String[0]))
+                .tags(tagService.resolve(hashtags))
                 .displayOrder(request.getDisplayOrder() != null ? request.getDisplayOrder() :
                         postRepository.getMaxDisplayOrder(request.getCategory()) + 1)
                 .caseStudyChallengeEn(request.getCaseStudyChallengeEn())
@@ -114,8 +228,12 @@ public class PostService {
                 .caseStudyTestimonialPl(request.getCaseStudyTestimonialPl())
                 .caseStudyTestimonialAuthor(request.getCaseStudyTestimonialAuthor())
                 .build();
+        postContentAnalyzer.derive(post);
 
         post = postRepository.save(post);
+        tagService.refreshCounts(post.getTags());
+        relatedPostService.refresh(post.getId());
+        postCache.evict(null, PostCache.Footprint.of(post));
         return mapToDto(post, locale, true);
     }
 
@@ -123,6 +241,9 @@ public class PostService {
     public PostDto updatePost(UUID id, PostUpdateRequest request, String locale) {
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Post not found: " + id));
+        PostCache.Footprint before = PostCache.Footprint.of(post);
+        Set<Tag> tagsBefore = new HashSet<>(post.getTags());
+        List<Object> similarityBefore = similarityInputs(post);
 
         if (request.getCategory() != null) {
             post.setCategory(request.getCategory());
@@ -143,10 +264,10 @@ public class PostService {
             post.setExcerptPl(request.getExcerptPl());
         }
         if (request.getContentEn() != null) {
-            post.setContentEn(request.getContentEn());
+            post.setContentEn(writeContent(request.getContentEn()));
         }
         if (request.getContentPl() != null) {
-            post.setContentPl(request.getContentPl());
+            post.setContentPl(writeContent(request.getContentPl()));
         }
         if (request.getFeaturedImage() != null) {
             post.setFeaturedImage(request.getFeaturedImage());
@@ -164,7 +285,9 @@ public class PostService {
             post.setDisplayOrder(request.getDisplayOrder());
         }
         if (request.getHashtags() != null) {
-            post.setHashtags(request.getHashtags().toArray(new String[0]));
+            Map<String, String> hashtags = TagService.clean(request.getHashtags());
+            post.setHashtags(hashtags.values().toArray(new String[0]));
+            post.setTags(tagService.resolve(hashtags));
         }
         // Case Study fields
         if (request.getCaseStudyChallengeEn() != null) {
@@ -194,33 +317,80 @@ public class PostService {
         if (request.getCaseStudyTestimonialAuthor() != null) {
             post.setCaseStudyTestimonialAuthor(request.getCaseStudyTestimonialAuthor());
         }
+        postContentAnalyzer.derive(post);
 
         post = postRepository.save(post);
+        if (!similarityInputs(post).equals(similarityBefore)) {
+            relatedPostService.refresh(post.getId());
+        }
+        tagsBefore.addAll(post.getTags());
+        tagService.refreshCounts(tagsBefore);
+        postCache.evict(before, PostCache.Footprint.of(post));
         return mapToDto(post, locale, true);
     }
 
     @Transactional
-    public void deletePost(UUID id) {
-        if (!postRepository.existsById(id)) {
-            throw new EntityNotFoundException("Post not found: " + id);
-        }
-        postRepository.deleteById(id);
+    public void deletePost(UUID id) throws IOException {
+        Post post = postRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Post not found: " + id));
+        Set<Tag> tags = new HashSet<>(post.getTags());
+        List<UUID> neighbours = relatedPostService.findNeighbours(id);
+        // The post's media rows go with it, their files with the last reference
+        mediaService.releaseMedia(post.getMedia());
+        postRepository.delete(post);
+        tagService.refreshCounts(tags);
+        relatedPostService.recompute(neighbours);
+        postCache.evict(PostCache.Footprint.of(post), null);
     }
 
     @Transactional
     public PostDto togglePublish(UUID id, String locale) {
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Post not found: " + id));
+        PostCache.Footprint before = PostCache.Footprint.of(post);
         post.setPublished(!post.getPublished());
         post = postRepository.save(post);
+        tagService.refreshCounts(post.getTags());
+        relatedPostService.refresh(post.getId());
+        postCache.evict(before, PostCache.Footprint.of(post));
         return mapToDto(post, locale, true);
     }
 
     @Transactional
     public void reorderPosts(ReorderRequest request) {
+        List<UUID> ids = request.getItems().stream()
+                .map(ReorderRequest.OrderItem::getId)
+                .toList();
         for (ReorderRequest.OrderItem item : request.getItems()) {
             postRepository.updateDisplayOrder(item.getId(), item.getDisplayOrder());
         }
+        // Order is part of every listing and of the detail DTO
+        postRepository.findAllById(ids)
+                .forEach(post -> postCache.evict(PostCache.Footprint.of(post), null));
+    }
+
+    /**
+     * Serializes request content for the jsonb columns. Requests bind content to
+     * a Map, so by now Jackson has already rejected anything but a JSON object.
+     */
+    private String writeContent(Map<String, Object> content) {
+        if (content == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(content);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid post content", e);
+        }
+    }
+
+    // Everything related_post_scores reads; other edits leave similarity lists alone
+    private static List<Object> similarityInputs(Post post) {
+        Set<UUID> tagIds = post.getTags().stream()
+                .map(Tag::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return Arrays.asList(post.getCategory(), post.getPublished(), post.getTitleEn(), post.getExcerptEn(), tagIds);
     }
 
     private String generateUniqueSlug(String title) {
@@ -244,10 +414,11 @@ public class PostService {
                 .titleEn(post.getTitleEn())
                 .titlePl(post.getTitlePl())
                 .slug(post.getSlug())
-                .excerpt(post.getExcerpt(locale))
+                .excerpt(post.getDisplayExcerpt(locale))
                 .excerptEn(post.getExcerptEn())
                 .excerptPl(post.getExcerptPl())
                 .featuredImage(post.getFeaturedImage())
+                .firstImage(post.getFirstImage())
                 .githubUrl(post.getGithubUrl())
                 .liveUrl(post.getLiveUrl())
                 .published(post.getPublished())
@@ -255,7 +426,9 @@ public class PostService {
                 .hashtags(post.getHashtags() != null ? Arrays.asList(post.getHashtags()) : new ArrayList<>())
                 .createdAt(post.getCreatedAt())
                 .updatedAt(post.getUpdatedAt())
-                .hasCaseStudy(post.hasCaseStudy())
+                .wordCount(post.getWordCount(locale))
+                .readingMinutes(post.getReadingMinutes(locale))
+                .hasCaseStudy(post.getHasCaseStudy())
                 .caseStudyChallenge(post.getCaseStudyChallenge(locale))
                 .caseStudyChallengeEn(post.getCaseStudyChallengeEn())
                 .caseStudyChallengePl(post.getCaseStudyChallengePl())
@@ -272,6 +445,7 @@ public class PostService {
 
         if (includeContent) {
             builder.content(post.getContent(locale))
+                    .toc(post.getToc(locale))
                     .contentEn(post.getContentEn())
                     .contentPl(post.getContentPl());
 
@@ -291,6 +465,54 @@ public class PostService {
         return builder.build();
     }
 
+    private PostDto mapSummaryToDto(PostSummary summary, String locale) {
+        return PostDto.builder()
+                .id(summary.id())
+                .category(summary.category())
+                .categoryLabel(summary.category().getLabel(locale))
+                .title(summary.title())
+                .slug(summary.slug())
+                .excerpt(summary.excerpt())
+                .featuredImage(summary.featuredImage())
+                .firstImage(summary.firstImage())
+                .githubUrl(summary.githubUrl())
+                .liveUrl(summary.liveUrl())
+                .published(summary.published())
+                .displayOrder(summary.displayOrder())
+                .hashtags(summary.hashtags() != null ? Arrays.asList(summary.hashtags()) : new ArrayList<>())
+                .createdAt(summary.createdAt())
+                .updatedAt(summary.updatedAt())
+                .wordCount(summary.wordCount())
+                .readingMinutes(summary.readingMinutes())
+                .hasCaseStudy(summary.hasCaseStudy())
+                .build();
+    }
+
+    private PostSearchResultDto mapSearchHitToDto(PostSearchHit hit, String locale) {
+        Category category = Category.valueOf(hit.getCategory());
+        return PostSearchResultDto.builder()
+                .id(hit.getId())
+                .category(category)
+                .categoryLabel(category.getLabel(locale))
+                .title(hit.getTitle())
+                .slug(hit.getSlug())
+                .excerpt(hit.getExcerpt())
+                .featuredImage(hit.getFeaturedImage())
+                .hashtags(hit.getHashtags() != null ? Arrays.asList(hit.getHashtags()) : new ArrayList<>())
+                .rank(hit.getRank() != null ? hit.getRank() : 0)
+                .headline(highlight(hit.getHeadline()))
+                .build();
+    }
+
+    private static String highlight(String headline) {
+        if (headline == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(headline)
+                .replace(PostRepository.HIGHLIGHT_START, "<mark>")
+                .replace(PostRepository.HIGHLIGHT_STOP, "</mark>");
+    }
+
     private MediaDto mapMediaToDto(Media media, String locale) {
         return MediaDto.builder()
                 .id(media.getId())
@@ -300,6 +522,10 @@ public class PostService {
                 .originalName(media.getOriginalName())
                 .mimeType(media.getMimeType())
                 .size(media.getSize())
+                .originalSize(media.getOriginalSize())
+                .width(media.getWidth())
+                .height(media.getHeight())
+                .placeholder(media.getPlaceholder())
                 .url(media.getUrl())
                 .altText(media.getAltText(locale))
                 .altTextEn(media.getAltTextEn())
@@ -0,0 +1,60 @@
+package com.portfolio.service;
+
+import com.portfolio.repository.PostSimilarityRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps the precomputed related-posts lists in post_similarities current.
+ * A write recomputes only the written post's list and the lists it appears in
+ * or may now enter; reads are a single indexed lookup.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class RelatedPostService {
+
+    // Both must match the initial fill in V12__create_post_similarities.sql
+    public static final int LIST_SIZE = 10;
+    static final int CANDIDATES = 200;
+
+    private final PostSimilarityRepository postSimilarityRepository;
+
+    /**
+     * Refreshes after a post was created or changed (content, tags, category or
+     * publication state).
+     */
+    @Transactional
+    public void refresh(UUID postId) {
+        // The post's old score is stale in every list it appeared in, and a
+        // lower score may let another post back in, so those are rebuilt
+        List<UUID> neighbours = postSimilarityRepository.findPostIdsRelatedTo(postId);
+        recompute(postId);
+        recompute(neighbours);
+        postSimilarityRepository.offerToNeighbours(postId, CANDIDATES);
+        postSimilarityRepository.trimNeighbours(postId, LIST_SIZE);
+    }
+
+    /**
+     * The posts whose lists include the given one; call before deleting it and
+     * pass the result to {@link #recompute(Collection)} afterwards.
+     */
+    public List<UUID> findNeighbours(UUID postId) {
+        return postSimilarityRepository.findPostIdsRelatedTo(postId);
+    }
+
+    @Transactional
+    public void recompute(Collection<UUID> postIds) {
+        postIds.forEach(this::recompute);
+    }
+
+    private void recompute(UUID postId) {
+        postSimilarityRepository.deleteByPostId(postId);
+        postSimilarityRepository.insertRelated(postId, CANDIDATES, LIST_SIZE);
+    }
+}
@@ -0,0 +1,281 @@
+package com.portfolio.service;
+
+import com.portfolio.dto.MediaDto;
+import com.portfolio.dto.UploadSessionDto;
+import com.portfolio.entity.UploadSession;
+import com.portfolio.repository.PostRepository;
+import com.portfolio.repository.UploadSessionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resumable uploads, along the lines of the tus protocol: a session is opened with
+ * the total length, chunks are appended at the offset the client last saw, the
+ * offset can be asked for again after a dropped connection, and a complete upload
+ * becomes a media row through {@link MediaService}.
+ * <p>
+ * Each chunk is written straight to the end of the session's part file, without
+ * buffering and with no transaction open. Sessions are rows, so they survive a
+ * restart; the offset is the part file's size, which covers what a chunk cut off
+ * midway managed to write. A lock on the part file keeps requests for one session
+ * from writing at the same time. Sessions not written to for
+ * {@code app.media.uploads.expire-after} are removed with their part files.
+ * <p>
+ * Part files live in the local upload directory, not the blob store, so with several
+ * instances all requests of a session must reach the same one: nginx routes
+ * {@code /api/admin/media/uploads/{id}} by the session id (upstream
+ * {@code backend_uploads}). An upload that lands on another instance anyway, e.g.
+ * after its own went away, reports offset 0 and starts over.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumableUploadService {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final PostRepository postRepository;
+    private final StorageService storageService;
+    private final MediaService mediaService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.upload.path}")
+    private String uploadPath;
+
+    @Value("${app.upload.max-file-size:50MB}")
+    private DataSize maxFileSize;
+
+    @Value("${app.media.uploads.expire-after:PT24H}")
+    private Duration expireAfter;
+
+    private Path partLocation;
+
+    @PostConstruct
+    public void init() {
+        // Below the upload directory, so that a complete part file is renamed into staging
+        partLocation = Paths.get(uploadPath).toAbsolutePath().normalize().resolve(".uploads");
+        try {
+            Files.createDirectories(partLocation);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not initialize upload location", e);
+        }
+    }
+
+    @Transactional
+    public UploadSessionDto create(long length, String originalName, UUID postId, String altTextEn,
+                                   String altTextPl) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Cannot store empty file");
+        }
+        if (length > maxFileSize.toBytes()) {
+            throw new IllegalArgumentException("File size exceeds the maximum allowed limit");
+        }
+        storageService.checkQuota(length);
+        if (postId != null && !postRepository.existsById(postId)) {
+            throw new EntityNotFoundException("Post not found: " + postId);
+        }
+
+        UploadSession session = uploadSessionRepository.save(UploadSession.builder()
+                .originalName(originalName)
+                .length(length)
+                .postId(postId)
+                .altTextEn(altTextEn)
+                .altTextPl(altTextPl)
+                .expiresAt(OffsetDateTime.now().plus(expireAfter))
+                .build());
+        // The part file is created by the first chunk, once this row is committed
+        return toDto(session, 0);
+    }
+
+    public UploadSessionDto getSession(UUID id) throws IOException {
+        return toDto(find(id), offset(id));
+    }
+
+    /**
+     * Appends a chunk, which must start where the upload currently ends.
+     *
+     * @throws ResponseStatusException with 409 when {@code offset} is not the current
+     *                                 offset or another request is writing to the session
+     */
+    public UploadSessionDto append(UUID id, long offset, InputStream content) throws IOException {
+        UploadSession session = find(id);
+        long size;
+        try (FileChannel channel = FileChannel.open(partFile(id), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = lock(channel)) {
+            size = channel.size();
+            if (offset != size) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Upload is at offset " + size + ", not " + offset);
+            }
+            channel.position(size);
+            size += copy(content, channel, session.getLength() - size);
+        }
+
+        OffsetDateTime expiresAt = OffsetDateTime.now().plus(expireAfter);
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> uploadSessionRepository.extend(id, expiresAt));
+        session.setExpiresAt(expiresAt);
+        return toDto(session, size);
+    }
+
+    /**
+     * Turns a fully received upload into a media row. The session ends here, also when
+     * the content turns out not to be storable.
+     */
+    public CompletableFuture<MediaDto> complete(UUID id, String locale) throws IOException {
+        UploadSession session = find(id);
+        Path part = partFile(id);
+        StorageService.StagedFile uploaded;
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE);
+             FileLock ignored = lock(channel)) {
+            if (channel.size() != session.getLength()) {
+                throw new IllegalArgumentException("Upload is incomplete: " + channel.size() + " of "
+                        + session.getLength() + " bytes received");
+            }
+            uploaded = storageService.stage(part, session.getOriginalName());
+        } catch (NoSuchFileException e) {
+            throw new IllegalArgumentException("Upload is incomplete: 0 of " + session.getLength() + " bytes received");
+        } catch (IllegalArgumentException e) {
+            if (Files.exists(part) && Files.size(part) == session.getLength()) {
+                abort(id);
+            }
+            throw e;
+        }
+
+        uploadSessionRepository.deleteById(id);
+        return mediaService.uploadMedia(uploaded, session.getOriginalName(), session.getPostId(),
+                session.getAltTextEn(), session.getAltTextPl(), locale);
+    }
+
+    public void abort(UUID id) throws IOException {
+        uploadSessionRepository.delete(find(id));
+        Files.deleteIfExists(partFile(id));
+    }
+
+    /**
+     * Removes expired sessions, and part files whose session is gone, unless a request
+     * is still writing to them.
+     */
+    @Scheduled(fixedDelayString = "${app.media.uploads.sweep-interval:PT1H}",
+            initialDelayString = "${app.media.uploads.sweep-interval:PT1H}")
+    public void removeExpired() {
+        Integer expired = new TransactionTemplate(transactionManager).execute(
+                status -> uploadSessionRepository.deleteExpired(OffsetDateTime.now()));
+        int removed = 0;
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(partLocation)) {
+            for (Path part : parts) {
+                UUID id;
+                try {
+                    id = UUID.fromString(part.getFileName().toString());
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if (!uploadSessionRepository.existsById(id) && deleteUnlocked(part)) {
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not sweep upload parts: {}", e.getMessage());
+        }
+        if ((expired != null && expired > 0) || removed > 0) {
+            log.info("Removed {} expired upload sessions and {} part files", expired, removed);
+        }
+    }
+
+    private UploadSession find(UUID id) {
+        return uploadSessionRepository.findActive(id, OffsetDateTime.now())
+                .orElseThrow(() -> new EntityNotFoundException("Upload not found: " + id));
+    }
+
+    private long offset(UUID id) throws IOException {
+        try {
+            return Files.size(partFile(id));
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private Path partFile(UUID id) {
+        return partLocation.resolve(id.toString());
+    }
+
+    private static FileLock lock(FileChannel channel) throws IOException {
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload is being written by another request");
+        }
+        return lock;
+    }
+
+    private static boolean deleteUnlocked(Path part) {
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE);
+             FileLock ignored = lock(channel)) {
+            Files.delete(part);
+            return true;
+        } catch (IOException | ResponseStatusException e) {
+            return false;
+        }
+    }
+
+    // A chunk running past the declared length fails; what fit before that is kept
+    private static long copy(InputStream content, FileChannel channel, long remaining) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long written = 0;
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            if (written + read > remaining) {
+                throw new IllegalArgumentException("Chunk exceeds the upload length");
+            }
+            ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+            written += read;
+        }
+        return written;
+    }
+
+    private static UploadSessionDto toDto(UploadSession session, long offset) {
+        return UploadSessionDto.builder()
+                .id(session.getId())
+                .offset(offset)
+                .length(session.getLength())
+                .expiresAt(session.getExpiresAt())
+                .build();
+    }
+}
@@ -0,0 +1,343 @@
+package com.portfolio.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Blobs as objects in an S3-compatible bucket (AWS S3, MinIO, …), shared by every
+ * backend node.
+ * <p>
+ * Large files go up as multipart uploads, one part at a time straight from the
+ * staged file. Reads are ranged GETs streamed into the caller's buffer; seeking
+ * starts a new request from the new position rather than reading up to it.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "s3")
+@RequiredArgsConstructor
+@Slf4j
+public class S3BlobStore implements BlobStore {
+
+    // S3 rejects smaller parts, except for the last one
+    static final long MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final S3Client s3;
+
+    @Value("${app.storage.s3.bucket}")
+    private String bucket;
+
+    @Value("${app.storage.s3.multipart-threshold:16MB}")
+    private DataSize multipartThreshold;
+
+    @Value("${app.storage.s3.part-size:8MB}")
+    private DataSize partSize;
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        try {
+            long size = Files.size(source);
+            if (size < multipartThreshold.toBytes()) {
+                s3.putObject(request -> request.bucket(bucket).key(key).contentType(contentType).contentLength(size),
+                        RequestBody.fromFile(source));
+            } else {
+                putMultipart(key, source, size, contentType);
+            }
+        } catch (SdkException e) {
+            throw new IOException("Could not upload " + key, e);
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    private void putMultipart(String key, Path source, long size, String contentType) {
+        String uploadId = s3.createMultipartUpload(request -> request.bucket(bucket).key(key).contentType(contentType))
+                .uploadId();
+        try {
+            long part = Math.max(partSize.toBytes(), MIN_PART_SIZE);
+            List<CompletedPart> parts = new ArrayList<>();
+            for (long offset = 0; offset < size; offset += part) {
+                int number = parts.size() + 1;
+                long start = offset;
+                long length = Math.min(part, size - offset);
+                // Each attempt re-reads its slice of the file, so retries need no buffered copy
+                String eTag = s3.uploadPart(
+                        request -> request.bucket(bucket).key(key).uploadId(uploadId).partNumber(number)
+                                .contentLength(length),
+                        RequestBody.fromContentProvider(() -> slice(source, start, length), length, contentType)
+                ).eTag();
+                parts.add(CompletedPart.builder().partNumber(number).eTag(eTag).build());
+            }
+            s3.completeMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(upload -> upload.parts(parts)));
+            log.debug("Uploaded {} in {} parts", key, parts.size());
+        } catch (RuntimeException e) {
+            try {
+                s3.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId));
+            } catch (SdkException abort) {
+                e.addSuppressed(abort);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public SeekableByteChannel open(String key) throws IOException {
+        return new ObjectChannel(key, head(key).orElseThrow(() -> new NoSuchFileException(key)).contentLength());
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) throws IOException {
+        return head(key).map(head -> new BlobInfo(key, head.contentLength(), head.lastModified()));
+    }
+
+    // Server-side copy; the bytes do not pass through this node
+    @Override
+    public void move(String source, String target) throws IOException {
+        try {
+            s3.copyObject(request -> request.sourceBucket(bucket).sourceKey(source)
+                    .destinationBucket(bucket).destinationKey(target));
+            s3.deleteObject(request -> request.bucket(bucket).key(source));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new NoSuchFileException(source);
+            }
+            throw new IOException("Could not move " + source + " to " + target, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not move " + source + " to " + target, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Could not delete " + key, e);
+        }
+    }
+
+    @Override
+    public Stream<BlobInfo> list(String prefix) throws IOException {
+        try {
+            return s3.listObjectsV2Paginator(request -> request.bucket(bucket).prefix(prefix))
+                    .contents().stream()
+                    .map(object -> new BlobInfo(object.key(), object.size(), object.lastModified()));
+        } catch (SdkException e) {
+            throw new IOException("Could not list " + prefix, e);
+        }
+    }
+
+    @Override
+    public Listing listLevel(String prefix) throws IOException {
+        List<BlobInfo> blobs = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        try {
+            for (ListObjectsV2Response page : s3.listObjectsV2Paginator(
+                    request -> request.bucket(bucket).prefix(prefix).delimiter("/"))) {
+                for (S3Object object : page.contents()) {
+                    blobs.add(new BlobInfo(object.key(), object.size(), object.lastModified()));
+                }
+                for (CommonPrefix common : page.commonPrefixes()) {
+                    prefixes.add(common.prefix());
+                }
+            }
+        } catch (SdkException e) {
+            throw new IOException("Could not list " + prefix, e);
+        }
+        return new Listing(blobs, prefixes);
+    }
+
+    private Optional<HeadObjectResponse> head(String key) throws IOException {
+        try {
+            return Optional.of(s3.headObject(request -> request.bucket(bucket).key(key)));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("Could not read " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not read " + key, e);
+        }
+    }
+
+    private static InputStream slice(Path file, long start, long length) {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ).position(start);
+            return new FilterInputStream(Channels.newInputStream(channel)) {
+                private long remaining = length;
+
+                @Override
+                public int read() throws IOException {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    int read = super.read();
+                    if (read >= 0) {
+                        remaining--;
+                    }
+                    return read;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int count) throws IOException {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    int read = super.read(buffer, offset, (int) Math.min(count, remaining));
+                    if (read > 0) {
+                        remaining -= read;
+                    }
+                    return read;
+                }
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A read-only view of one object. The response body of the last GET is kept open
+     * while reads continue where the previous one stopped.
+     */
+    private final class ObjectChannel implements SeekableByteChannel {
+
+        private final String key;
+        private final long size;
+        private long position;
+        private ResponseInputStream<GetObjectResponse> body;
+        private long bodyPosition;
+        private boolean open = true;
+
+        ObjectChannel(String key, long size) {
+            this.key = key;
+            this.size = size;
+        }
+
+        @Override
+        public int read(ByteBuffer target) throws IOException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            if (position >= size) {
+                return -1;
+            }
+            if (body == null || bodyPosition != position) {
+                closeBody();
+                long start = position;
+                try {
+                    body = s3.getObject(request -> request.bucket(bucket).key(key).range("bytes=" + start + "-"));
+                } catch (SdkException e) {
+                    throw new IOException("Could not read " + key, e);
+                }
+                bodyPosition = position;
+            }
+
+            int read;
+            if (target.hasArray()) {
+                read = body.read(target.array(), target.arrayOffset() + target.position(), target.remaining());
+                if (read > 0) {
+                    target.position(target.position() + read);
+                }
+            } else {
+                byte[] buffer = new byte[Math.min(target.remaining(), READ_BUFFER_SIZE)];
+                read = body.read(buffer);
+                if (read > 0) {
+                    target.put(buffer, 0, read);
+                }
+            }
+            if (read < 0) {
+                throw new IOException("Object " + key + " ended at " + position + " of " + size);
+            }
+            position += read;
+            bodyPosition += read;
+            return read;
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) {
+            if (newPosition < 0) {
+                throw new IllegalArgumentException("Negative position");
+            }
+            position = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public int write(ByteBuffer source) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long newSize) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            closeBody();
+        }
+
+        private void closeBody() throws IOException {
+            if (body == null) {
+                return;
+            }
+            // Draining the rest of a large object just to reuse the connection costs more than a new one
+            if (bodyPosition < size) {
+                body.abort();
+            }
+            body.close();
+            body = null;
+        }
+    }
+}
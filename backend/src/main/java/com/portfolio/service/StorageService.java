@@ -1,41 +1,117 @@
 package com.portfolio.service;
 
 import com.portfolio.entity.MediaType;
+import com.portfolio.repository.MediaBlobRepository;
 import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.MalformedURLException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+/**
+ * Content-addressed file storage.
+ * <p>
+ * Uploads are stored once per content as {@code <subDir>/<sha256>.<ext>}, kept in
+ * the {@link BlobStore} under two levels of hash-prefix directories. Every media row
+ * holds a reference on its file through {@code media_blobs}; the file is removed with
+ * the last reference. New files are written within the surrounding transaction, so
+ * a failed write fails it, and removed again if it rolls back; removals are applied
+ * when it commits. A rolled-back upload or delete leaves the store as it was.
+ * <p>
+ * Uploads are staged and processed as local files below {@code app.upload.path}
+ * whichever blob store is in use. Small files served often are kept in the
+ * {@link MediaCache} and resolved without asking the store. Files added to and
+ * removed from the store are counted by the {@link MediaUsageService}, which also
+ * enforces the storage quota.
+ */
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class StorageService {
 
+    private static final int SNIFF_LENGTH = 16;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // Marks derived renditions (e.g. resized images) stored beside an original
+    private static final String DERIVATIVE_PREFIX = "d-";
+
+    // Blobs released in a transaction that has not finished yet
+    static final String TRASH_PREFIX = ".trash/";
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{64}\\.[a-z0-9]+");
+
+    // Major brands of plain MP4 files; the same ftyp box also starts HEIC/AVIF photos,
+    // QuickTime movies and 3GP files, which are not
+    private static final Set<String> MP4_BRANDS = Set.of(
+            "isom", "iso2", "iso3", "iso4", "iso5", "iso6", "mp41", "mp42", "avc1", "M4V ", "dash");
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", ".jpg",
+            "image/png", ".png",
+            "image/gif", ".gif",
+            "image/webp", ".webp",
+            "video/mp4", ".mp4",
+            "video/webm", ".webm",
+            "application/pdf", ".pdf");
+
+    private final MediaBlobRepository mediaBlobRepository;
+    private final BlobStore blobStore;
+    private final MediaCache mediaCache;
+    private final MediaUsageService mediaUsageService;
+
     @Value("${app.upload.path}")
     private String uploadPath;
 
     @Value("${app.upload.allowed-types}")
     private String allowedTypes;
 
-    private Path rootLocation;
+    @Value("${app.upload.max-file-size:50MB}")
+    private DataSize maxFileSize;
+
+    private Path stagingLocation;
     private Set<String> allowedMimeTypes;
 
     @PostConstruct
     public void init() {
-        rootLocation = Paths.get(uploadPath);
+        // Inside the upload directory so that staged files move into a filesystem store with a rename
+        stagingLocation = Paths.get(uploadPath).toAbsolutePath().normalize().resolve(".staging");
         try {
-            Files.createDirectories(rootLocation);
+            Files.createDirectories(stagingLocation);
         } catch (IOException e) {
             throw new RuntimeException("Could not initialize storage location", e);
         }
@@ -43,51 +119,392 @@ public class StorageService {
         allowedMimeTypes = Set.of(allowedTypes.split(","));
     }
 
-    public String store(MultipartFile file) throws IOException {
-        if (file.isEmpty()) {
+    /**
+     * An upload written to the staging area, hashed and identified, but not yet stored.
+     */
+    public record StagedFile(Path path, String filename, String contentType, long size, String sha256) {
+    }
+
+    /**
+     * A file in the blob store, as found when it was resolved.
+     *
+     * @param localPath the file on this machine, or {@code null} when the store is remote
+     * @param content   the whole file, read-only and off-heap, when it came from the
+     *                  {@link MediaCache}; otherwise {@code null}
+     */
+    public record StoredFile(String key, long size, Instant lastModified, Path localPath, ByteBuffer content) {
+
+        public StoredFile(String key, long size, Instant lastModified, Path localPath) {
+            this(key, size, lastModified, localPath, null);
+        }
+
+        public String name() {
+            return key.substring(key.lastIndexOf('/') + 1);
+        }
+    }
+
+    @FunctionalInterface
+    public interface LocalFileReader<T> {
+        T read(Path file) throws IOException;
+    }
+
+    /**
+     * Streams an upload into the staging area in a single pass: the content type is
+     * sniffed from the first bytes, and size and SHA-256 are computed while writing.
+     * Heap use is one copy buffer regardless of file size. Runs outside any
+     * transaction; hand the result to {@link #store(StagedFile)} or {@link #discard}.
+     *
+     * @throws IllegalArgumentException if the content is empty, too large or not of an allowed type
+     * @throws ResponseStatusException  with 507 once the content no longer fits the storage quota
+     */
+    public StagedFile stage(InputStream content, String originalName) throws IOException {
+        BufferedInputStream input = new BufferedInputStream(content, COPY_BUFFER_SIZE);
+        input.mark(SNIFF_LENGTH);
+        byte[] head = input.readNBytes(SNIFF_LENGTH);
+        input.reset();
+        if (head.length == 0) {
+            throw new IllegalArgumentException("Cannot store empty file");
+        }
+        String contentType = allowedContentType(head);
+
+        long quotaLeft = mediaUsageService.remainingQuota().orElse(Long.MAX_VALUE);
+        Path staged = newStagingFile();
+        MessageDigest digest = sha256();
+        long size = 0;
+        try (OutputStream output = Files.newOutputStream(staged, StandardOpenOption.CREATE_NEW)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                size += read;
+                if (size > maxFileSize.toBytes()) {
+                    throw new IllegalArgumentException("File size exceeds the maximum allowed limit");
+                }
+                if (size > quotaLeft) {
+                    throw MediaUsageService.quotaExceeded();
+                }
+                digest.update(buffer, 0, read);
+                output.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(staged);
+            throw e;
+        }
+
+        StagedFile stagedFile = adopt(staged, contentType, size, HexFormat.of().formatHex(digest.digest()));
+        log.debug("Staged {} ({} bytes) as {}", originalName, size, stagedFile.filename());
+        return stagedFile;
+    }
+
+    /**
+     * Stages a complete file written elsewhere below the upload directory, such as a
+     * finished resumable upload. It is checked and hashed like a streamed upload, in
+     * one read, and then renamed into the staging area.
+     *
+     * @throws IllegalArgumentException if the file is empty, too large or not of an allowed type
+     * @throws ResponseStatusException  with 507 if it does not fit the storage quota
+     */
+    public StagedFile stage(Path file, String originalName) throws IOException {
+        long size = Files.size(file);
+        if (size == 0) {
             throw new IllegalArgumentException("Cannot store empty file");
         }
+        if (size > maxFileSize.toBytes()) {
+            throw new IllegalArgumentException("File size exceeds the maximum allowed limit");
+        }
+        mediaUsageService.checkQuota(size);
+        MessageDigest digest = sha256();
+        byte[] head;
+        try (InputStream input = Files.newInputStream(file)) {
+            head = input.readNBytes(SNIFF_LENGTH);
+            digest.update(head);
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        String contentType = allowedContentType(head);
 
-        String contentType = file.getContentType();
+        Path staged = newStagingFile();
+        Files.move(file, staged, StandardCopyOption.ATOMIC_MOVE);
+        StagedFile stagedFile = adopt(staged, contentType, size, HexFormat.of().formatHex(digest.digest()));
+        log.debug("Staged {} ({} bytes) as {}", originalName, size, stagedFile.filename());
+        return stagedFile;
+    }
+
+    /**
+     * Turns away an upload of {@code size} bytes that would not fit the storage quota,
+     * before it is received.
+     *
+     * @throws ResponseStatusException with 507 when the quota would be exceeded
+     */
+    public void checkQuota(long size) {
+        mediaUsageService.checkQuota(size);
+    }
+
+    private String allowedContentType(byte[] head) {
+        String contentType = sniffContentType(head);
         if (contentType == null || !allowedMimeTypes.contains(contentType)) {
-            throw new IllegalArgumentException("File type not allowed: " + contentType);
+            throw new IllegalArgumentException("File type not allowed: " + (contentType != null ? contentType : "unknown"));
+        }
+        return contentType;
+    }
+
+    /**
+     * Wraps content that was written to a {@link #newStagingFile()} by other code,
+     * e.g. a re-encoded upload, so it can be stored like any staged upload.
+     */
+    public StagedFile adopt(Path staged, String contentType, long size, String sha256) {
+        String filename = getSubDirectory(contentType) + "/" + sha256 + EXTENSIONS.get(contentType);
+        return new StagedFile(staged, filename, contentType, size, sha256);
+    }
+
+    /**
+     * Takes a reference on a staged upload's content. Must run inside the transaction
+     * that saves the referencing media row. New content is put into the store at once,
+     * with its blob row locked, so that the transaction never commits a row without
+     * its file; the file is removed again when the transaction rolls back.
+     *
+     * @return the storage filename, e.g. {@code images/<sha256>.jpg}
+     * @throws ResponseStatusException with 507 when new content would exceed the storage quota
+     * @throws UncheckedIOException    when the file cannot be written to the store
+     */
+    @Transactional
+    public String store(StagedFile staged) {
+        boolean created = mediaBlobRepository.acquire(staged.filename(), staged.sha256(), staged.size()) == 1;
+        if (!created) {
+            deleteQuietly(staged.path());
+            return staged.filename();
         }
+        mediaUsageService.blobStored(staged.size());
+        String key = key(staged.filename());
+        put(staged.path(), key, staged.contentType());
+        afterCompletion(committed -> {
+            // Only this transaction holds the new blob row, so nobody else refers to the file
+            if (!committed) {
+                try {
+                    blobStore.delete(key);
+                } catch (IOException e) {
+                    // Left for the reconciler to find as an orphan
+                    log.warn("Could not remove {} after a rollback: {}", key, e.getMessage());
+                }
+                mediaCache.invalidate(key);
+            }
+        });
+        return staged.filename();
+    }
 
-        String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
-        String extension = getExtension(originalFilename);
-        String filename = UUID.randomUUID().toString() + extension;
+    public void discard(StagedFile staged) {
+        deleteQuietly(staged.path());
+    }
+
+    // Magic numbers of the types we accept; the declared Content-Type is not trusted
+    static String sniffContentType(byte[] head) {
+        if (startsWith(head, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(head, 0, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(head, 0, 'R', 'I', 'F', 'F') && startsWith(head, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        if (startsWith(head, 4, 'f', 't', 'y', 'p') && head.length >= 12
+                && MP4_BRANDS.contains(new String(head, 8, 4, StandardCharsets.ISO_8859_1))) {
+            return "video/mp4";
+        }
+        if (startsWith(head, 0, 0x1A, 0x45, 0xDF, 0xA3)) {
+            return "video/webm";
+        }
+        if (startsWith(head, 0, '%', 'P', 'D', 'F', '-')) {
+            return "application/pdf";
+        }
+        return null;
+    }
 
-        // Create subdirectory based on media type
-        String subDir = getSubDirectory(contentType);
-        Path destinationDir = rootLocation.resolve(subDir);
-        Files.createDirectories(destinationDir);
+    private static boolean startsWith(byte[] data, int offset, int... prefix) {
+        if (data.length < offset + prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[offset + i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        Path destinationFile = destinationDir.resolve(filename);
+    /**
+     * Resolves a stored file for serving.
+     *
+     * @throws EntityNotFoundException if the name leaves the store or names no readable file
+     */
+    public StoredFile resolve(String filename) {
+        return find(key(filename)).orElseThrow(() -> new EntityNotFoundException("File not found: " + filename));
+    }
 
-        try (InputStream inputStream = file.getInputStream()) {
-            Files.copy(inputStream, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Looks up a blob by its key, e.g. a derivative's.
+     */
+    public Optional<StoredFile> find(String key) {
+        Optional<StoredFile> cached = mediaCache.get(key);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        try {
+            Optional<StoredFile> file = blobStore.stat(key).map(blob -> new StoredFile(blob.key(), blob.size(),
+                    blob.lastModified(), blobStore.localPath(blob.key()).orElse(null)));
+            file.ifPresent(mediaCache::offer);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not look up " + key, e);
         }
+    }
+
+    /**
+     * Opens a resolved file for reading from any position. Reads the store even for a
+     * cached file; use its {@link StoredFile#content()} to avoid that.
+     */
+    public SeekableByteChannel open(StoredFile file) throws IOException {
+        return blobStore.open(file.key());
+    }
 
-        return subDir + "/" + filename;
+    /**
+     * Runs {@code reader} on the file as a local file. Files in a remote store are
+     * downloaded to staging for the duration of the call.
+     */
+    public <T> T withLocalFile(StoredFile file, LocalFileReader<T> reader) throws IOException {
+        if (file.localPath() != null) {
+            return reader.read(file.localPath());
+        }
+        Path copy = newStagingFile();
+        try (InputStream input = Channels.newInputStream(open(file))) {
+            Files.copy(input, copy);
+            return reader.read(copy);
+        } finally {
+            deleteQuietly(copy);
+        }
     }
 
     public Resource loadAsResource(String filename) {
+        StoredFile file = resolve(filename);
+        if (file.localPath() != null) {
+            return new FileSystemResource(file.localPath());
+        }
         try {
-            Path file = rootLocation.resolve(filename);
-            Resource resource = new UrlResource(file.toUri());
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
-            } else {
-                throw new RuntimeException("Could not read file: " + filename);
+            return new InputStreamResource(Channels.newInputStream(open(file)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read file: " + filename, e);
+        }
+    }
+
+    /**
+     * Drops one reference to a stored file and deletes the file with the last one.
+     * The file is moved aside at once, while the blob row is locked, and deleted on
+     * commit; a rollback moves it back.
+     */
+    @Transactional
+    public void release(String filename) throws IOException {
+        Optional<Long> size = mediaBlobRepository.findSize(filename);
+        Integer remaining = mediaBlobRepository.release(filename);
+        if (remaining != null && remaining > 0) {
+            return;
+        }
+        if (remaining != null) {
+            mediaUsageService.blobRemoved(size.orElse(0L));
+        }
+        String key = key(filename);
+        if (blobStore.stat(key).isEmpty()) {
+            return;
+        }
+        String removed = trashKey();
+        blobStore.move(key, removed);
+        afterCompletion(committed -> {
+            try {
+                if (committed) {
+                    blobStore.delete(removed);
+                    mediaCache.invalidate(key);
+                    deleteDerivatives(key);
+                } else {
+                    blobStore.move(removed, key);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not finish removing " + key, e);
             }
-        } catch (MalformedURLException e) {
-            throw new RuntimeException("Could not read file: " + filename, e);
+        });
+    }
+
+    /**
+     * The key of a derived rendition of a stored file: beside the original, as
+     * {@code <name>.<variant>.<ext>}, so it is found and removed together with it.
+     */
+    public String derivativeKey(String key, String variant) {
+        int slash = key.lastIndexOf('/');
+        int dot = key.lastIndexOf('.');
+        String stem = dot > slash ? key.substring(0, dot) : key;
+        String extension = dot > slash ? key.substring(dot) : "";
+        return stem + "." + DERIVATIVE_PREFIX + variant + extension;
+    }
+
+    /**
+     * A fresh, not yet existing path in the staging area, on the same filesystem as
+     * the upload directory so that a finished file can be renamed into place.
+     */
+    public Path newStagingFile() {
+        return stagingLocation.resolve(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Publishes a finished staging file under {@code key}, taking it over.
+     */
+    public void publish(Path staged, String key, String contentType) throws IOException {
+        blobStore.put(key, staged, contentType);
+    }
+
+    private void deleteDerivatives(String key) throws IOException {
+        int slash = key.lastIndexOf('/');
+        int dot = key.lastIndexOf('.');
+        String prefix = (dot > slash ? key.substring(0, dot) : key) + "." + DERIVATIVE_PREFIX;
+        List<String> derivatives;
+        try (Stream<BlobStore.BlobInfo> blobs = blobStore.list(prefix)) {
+            derivatives = blobs.map(BlobStore.BlobInfo::key).toList();
+        }
+        for (String derivative : derivatives) {
+            blobStore.delete(derivative);
+            mediaCache.invalidate(derivative);
+        }
+    }
+
+    /**
+     * A fresh key in the trash. It records when the blob was set aside, since a move
+     * keeps the blob's own modification time.
+     */
+    static String trashKey() {
+        return TRASH_PREFIX + System.currentTimeMillis() + "-" + UUID.randomUUID();
+    }
+
+    /**
+     * When a blob was moved to {@code key} in the trash, or {@code null} for a name
+     * that does not record it, as written by versions before {@link #trashKey()}.
+     */
+    static Instant trashedAt(String key) {
+        String name = key.substring(TRASH_PREFIX.length());
+        int dash = name.indexOf('-');
+        try {
+            return dash > 0 ? Instant.ofEpochMilli(Long.parseLong(name.substring(0, dash))) : null;
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
 
-    public void delete(String filename) throws IOException {
-        Path file = rootLocation.resolve(filename);
-        Files.deleteIfExists(file);
+    /**
+     * Drops a blob that was removed behind this service's back from the cache.
+     */
+    void forget(String key) {
+        mediaCache.invalidate(key);
     }
 
     public MediaType getMediaType(String mimeType) {
@@ -101,9 +518,95 @@ public class StorageService {
         return MediaType.IMAGE;
     }
 
-    private String getExtension(String filename) {
-        int dotIndex = filename.lastIndexOf('.');
-        return dotIndex > 0 ? filename.substring(dotIndex) : "";
+    /**
+     * Maps a storage filename to its blob key. Content-addressed names live in
+     * hash-prefix directories ({@code images/ab/cd/abcd….jpg}); older random names
+     * stay directly in their type directory.
+     *
+     * @throws EntityNotFoundException for names that would leave the store or reach
+     *                                 its internal areas
+     */
+    String key(String filename) {
+        for (String part : filename.split("/", -1)) {
+            if (part.isEmpty() || part.startsWith(".") || part.contains("\\")) {
+                throw new EntityNotFoundException("File not found: " + filename);
+            }
+        }
+        int slash = filename.lastIndexOf('/');
+        String name = filename.substring(slash + 1);
+        return CONTENT_ADDRESSED.matcher(name).matches()
+                ? filename.substring(0, slash + 1) + name.substring(0, 2) + "/" + name.substring(2, 4) + "/" + name
+                : filename;
+    }
+
+    /**
+     * Maps a blob key back to its storage filename; the reverse of {@link #key(String)}.
+     */
+    static String filename(String key) {
+        int slash = key.lastIndexOf('/');
+        String name = key.substring(slash + 1);
+        String directory = key.substring(0, slash + 1);
+        if (CONTENT_ADDRESSED.matcher(name).matches()
+                && directory.endsWith("/" + name.substring(0, 2) + "/" + name.substring(2, 4) + "/")) {
+            return directory.substring(0, directory.length() - 6) + name;
+        }
+        return key;
+    }
+
+    /**
+     * The key of the original a derived rendition was made from, or {@code null} when
+     * {@code key} is not a rendition (see {@link #derivativeKey}).
+     */
+    static String originalKey(String key) {
+        int marker = key.indexOf("." + DERIVATIVE_PREFIX, key.lastIndexOf('/') + 1);
+        if (marker < 0) {
+            return null;
+        }
+        int dot = key.lastIndexOf('.');
+        return key.substring(0, marker) + (dot > marker ? key.substring(dot) : "");
+    }
+
+    private static void afterCompletion(FileAction action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface FileAction {
+        void run(boolean committed);
+    }
+
+    private void put(Path source, String key, String contentType) {
+        try {
+            blobStore.put(key, source, contentType);
+        } catch (IOException e) {
+            deleteQuietly(source);
+            throw new UncheckedIOException("Could not store " + key, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     private String getSubDirectory(String mimeType) {
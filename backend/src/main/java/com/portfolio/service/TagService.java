@@ -0,0 +1,93 @@
+package com.portfolio.service;
+
+import com.portfolio.dto.HashtagDto;
+import com.portfolio.entity.Tag;
+import com.portfolio.repository.TagRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the normalized {@code tags} table behind {@code Post.hashtags}.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TagService {
+
+    private final TagRepository tagRepository;
+
+    public List<HashtagDto> getPublishedHashtags() {
+        return tagRepository.findPublished().stream()
+                .map(tag -> HashtagDto.builder()
+                        .name(tag.getName())
+                        .normalizedName(tag.getNormalizedName())
+                        .count(tag.getPublishedPostCount())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Cleans up raw hashtags: strips {@code #} and whitespace, drops blanks and
+     * case-insensitive duplicates (the first spelling wins). Keyed by normalized name.
+     */
+    public static Map<String, String> clean(Collection<String> rawHashtags) {
+        Map<String, String> byKey = new LinkedHashMap<>();
+        if (rawHashtags == null) {
+            return byKey;
+        }
+        for (String raw : rawHashtags) {
+            String name = Tag.displayName(raw);
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (name.length() > Tag.MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("Hashtag must not exceed " + Tag.MAX_NAME_LENGTH + " characters");
+            }
+            byKey.putIfAbsent(Tag.normalize(name), name);
+        }
+        return byKey;
+    }
+
+    /**
+     * Finds or creates the tags for the given cleaned hashtags.
+     */
+    @Transactional
+    public Set<Tag> resolve(Map<String, String> hashtagsByKey) {
+        if (hashtagsByKey.isEmpty()) {
+            return new HashSet<>();
+        }
+        Set<Tag> tags = new HashSet<>(tagRepository.findByNormalizedNameIn(hashtagsByKey.keySet()));
+        Set<String> existing = tags.stream().map(Tag::getNormalizedName).collect(Collectors.toSet());
+        if (existing.size() < hashtagsByKey.size()) {
+            hashtagsByKey.forEach((key, name) -> {
+                if (!existing.contains(key)) {
+                    tagRepository.insertIfAbsent(UUID.randomUUID(), key, name);
+                }
+            });
+            tags = new HashSet<>(tagRepository.findByNormalizedNameIn(hashtagsByKey.keySet()));
+        }
+        return tags;
+    }
+
+    /**
+     * Recomputes published-post counts of the given tags from {@code post_tags}.
+     * Call after the post changes are saved; pending changes are flushed first.
+     */
+    @Transactional
+    public void refreshCounts(Collection<Tag> tags) {
+        Set<UUID> ids = tags.stream().map(Tag::getId).collect(Collectors.toSet());
+        if (!ids.isEmpty()) {
+            tagRepository.refreshPublishedPostCounts(ids);
+        }
+    }
+}
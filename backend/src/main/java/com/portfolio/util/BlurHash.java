@@ -0,0 +1,122 @@
+package com.portfolio.util;
+
+/**
+ * Encoder for <a href="https://blurha.sh">BlurHash</a>, a compact text form of an
+ * image's blurred colour layout.
+ * <p>
+ * The image is reduced to a few cosine components per axis, in linear light, and
+ * those are quantised into base-83 characters: 4 by 3 components take 28 characters.
+ * Clients decode the string into a small bitmap to show while the real image loads.
+ */
+public final class BlurHash {
+
+    public static final int MAX_COMPONENTS = 9;
+
+    private static final String BASE83 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    private BlurHash() {
+    }
+
+    /**
+     * @param pixels      packed RGB pixels, row by row; alpha is ignored
+     * @param componentsX horizontal detail, 1 to 9
+     * @param componentsY vertical detail, 1 to 9
+     */
+    public static String encode(int[] pixels, int width, int height, int componentsX, int componentsY) {
+        if (componentsX < 1 || componentsX > MAX_COMPONENTS || componentsY < 1 || componentsY > MAX_COMPONENTS) {
+            throw new IllegalArgumentException("Components must be between 1 and " + MAX_COMPONENTS);
+        }
+        if (width < 1 || height < 1 || pixels.length < width * height) {
+            throw new IllegalArgumentException("Pixels do not cover " + width + "x" + height);
+        }
+
+        double[] linear = new double[width * height * 3];
+        for (int i = 0; i < width * height; i++) {
+            int rgb = pixels[i];
+            linear[i * 3] = toLinear((rgb >> 16) & 0xFF);
+            linear[i * 3 + 1] = toLinear((rgb >> 8) & 0xFF);
+            linear[i * 3 + 2] = toLinear(rgb & 0xFF);
+        }
+
+        double[][] factors = new double[componentsX * componentsY][];
+        for (int j = 0; j < componentsY; j++) {
+            for (int i = 0; i < componentsX; i++) {
+                factors[j * componentsX + i] = factor(linear, width, height, i, j);
+            }
+        }
+
+        StringBuilder hash = new StringBuilder(4 + 2 * factors.length);
+        append(hash, (componentsX - 1) + (componentsY - 1) * 9, 1);
+
+        double maximum = 1;
+        if (factors.length > 1) {
+            double actual = 0;
+            for (int k = 1; k < factors.length; k++) {
+                for (double value : factors[k]) {
+                    actual = Math.max(actual, Math.abs(value));
+                }
+            }
+            int quantised = (int) Math.max(0, Math.min(82, Math.floor(actual * 166 - 0.5)));
+            maximum = (quantised + 1) / 166.0;
+            append(hash, quantised, 1);
+        } else {
+            append(hash, 0, 1);
+        }
+
+        double[] dc = factors[0];
+        append(hash, (toSrgb(dc[0]) << 16) | (toSrgb(dc[1]) << 8) | toSrgb(dc[2]), 4);
+        for (int k = 1; k < factors.length; k++) {
+            double[] ac = factors[k];
+            append(hash, quantise(ac[0], maximum) * 19 * 19 + quantise(ac[1], maximum) * 19
+                    + quantise(ac[2], maximum), 2);
+        }
+        return hash.toString();
+    }
+
+    private static double[] factor(double[] linear, int width, int height, int i, int j) {
+        double r = 0;
+        double g = 0;
+        double b = 0;
+        double[] cosX = new double[width];
+        for (int x = 0; x < width; x++) {
+            cosX[x] = Math.cos(Math.PI * i * x / width);
+        }
+        for (int y = 0; y < height; y++) {
+            double cosY = Math.cos(Math.PI * j * y / height);
+            for (int x = 0; x < width; x++) {
+                double basis = cosX[x] * cosY;
+                int p = (y * width + x) * 3;
+                r += basis * linear[p];
+                g += basis * linear[p + 1];
+                b += basis * linear[p + 2];
+            }
+        }
+        double scale = (i == 0 && j == 0 ? 1.0 : 2.0) / (width * height);
+        return new double[]{r * scale, g * scale, b * scale};
+    }
+
+    private static int quantise(double value, double maximum) {
+        double scaled = Math.signum(value) * Math.sqrt(Math.abs(value / maximum));
+        return (int) Math.max(0, Math.min(18, Math.floor(scaled * 9 + 9.5)));
+    }
+
+    private static double toLinear(int value) {
+        double v = value / 255.0;
+        return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    }
+
+    private static int toSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308
+                ? (int) (v * 12.92 * 255 + 0.5)
+                : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static void append(StringBuilder hash, int value, int length) {
+        for (int i = 1; i <= length; i++) {
+            int digit = (value / (int) Math.pow(83, length - i)) % 83;
+            hash.append(BASE83.charAt(digit));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.portfolio.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class for opaque keyset pagination cursors.
+ * A cursor is the sort key of the last row of a page, URL-safe Base64 encoded
+ * so clients treat it as a token rather than something to construct.
+ */
+public final class CursorUtils {
+
+    private static final String SEPARATOR = "|";
+
+    private CursorUtils() {
+        // Utility class, prevent instantiation
+    }
+
+    /**
+     * Encodes the sort key parts of a row into a cursor.
+     *
+     * @param parts sort key values, in sort order
+     * @return opaque cursor string
+     */
+    public static String encode(Object... parts) {
+        String raw = Arrays.stream(parts)
+                .map(String::valueOf)
+                .collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode(Object...)}.
+     *
+     * @param cursor        the cursor string
+     * @param expectedParts number of sort key parts the caller expects
+     * @return the sort key parts as strings
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static String[] decode(String cursor, int expectedParts) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        String[] parts = raw.split("\\" + SEPARATOR, -1);
+        if (parts.length != expectedParts) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return parts;
+    }
+}
@@ -1,10 +1,17 @@
 package com.portfolio.util;
 
+import java.util.List;
+
 /**
  * Utility class for locale/language handling.
  */
 public final class LocaleUtils {
 
+    /**
+     * Every value {@link #extractLocale(String)} can return.
+     */
+    public static final List<String> SUPPORTED_LOCALES = List.of("en", "pl");
+
     private LocaleUtils() {
         // Utility class, prevent instantiation
     }
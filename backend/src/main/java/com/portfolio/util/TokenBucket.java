@@ -0,0 +1,83 @@
+package com.portfolio.util;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket for pacing a byte stream: tokens accrue at a fixed rate up to a
+ * burst capacity, and each write takes as many tokens as it has bytes.
+ * <p>
+ * {@link #reserve(long)} never blocks. It takes the tokens at once, going into debt
+ * when there are not enough, and tells the caller how long to wait before using
+ * them; later callers queue up behind that debt. Several buckets can therefore be
+ * charged for one write and the caller waits for the slowest.
+ */
+public final class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double ratePerSecond;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+
+    private double available;
+    private long updatedAt;
+
+    /**
+     * @param ratePerSecond tokens added per second
+     * @param capacity      most tokens that can accrue, i.e. the largest burst; the
+     *                      bucket starts full
+     */
+    public TokenBucket(long ratePerSecond, long capacity) {
+        this(ratePerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(long ratePerSecond, long capacity, LongSupplier nanoClock) {
+        if (ratePerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Rate and capacity must be positive");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.capacity = capacity;
+        this.nanoClock = nanoClock;
+        this.available = capacity;
+        this.updatedAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * Takes {@code tokens} from the bucket.
+     *
+     * @return nanoseconds to wait before the tokens may be used, 0 when they were available
+     */
+    public synchronized long reserve(long tokens) {
+        refill();
+        available -= tokens;
+        return available >= 0 ? 0 : (long) Math.ceil(-available * NANOS_PER_SECOND / ratePerSecond);
+    }
+
+    /**
+     * Takes {@code tokens} only if they are available now.
+     *
+     * @return whether they were taken
+     */
+    public synchronized boolean tryReserve(long tokens) {
+        refill();
+        if (available < tokens) {
+            return false;
+        }
+        available -= tokens;
+        return true;
+    }
+
+    /**
+     * Puts back tokens taken but not used.
+     */
+    public synchronized void refund(long tokens) {
+        refill();
+        available = Math.min(capacity, available + tokens);
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        available = Math.min(capacity, available + (now - updatedAt) * ratePerSecond / NANOS_PER_SECOND);
+        updatedAt = now;
+    }
+}
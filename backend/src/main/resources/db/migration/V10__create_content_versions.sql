@@ -0,0 +1,71 @@
+-- Per-table content versions for HTTP validators (ETag / Last-Modified).
+-- Bumped by statement-level triggers, so bulk updates, deletes and truncates
+-- are covered too, which a MAX(updated_at) scan would miss.
+CREATE TABLE content_versions (
+    table_name VARCHAR(64) PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 1,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE OR REPLACE FUNCTION bump_content_version()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE content_versions
+    SET version = version + 1, updated_at = clock_timestamp()
+    WHERE table_name = TG_TABLE_NAME;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Seed Last-Modified from the existing rows where the table tracks it
+INSERT INTO content_versions (table_name, updated_at) VALUES
+    ('posts', COALESCE((SELECT MAX(updated_at) FROM posts), CURRENT_TIMESTAMP)),
+    ('media', COALESCE((SELECT MAX(created_at) FROM media), CURRENT_TIMESTAMP)),
+    ('tags', CURRENT_TIMESTAMP),
+    ('experiences', COALESCE((SELECT MAX(updated_at) FROM experiences), CURRENT_TIMESTAMP)),
+    ('skill_categories', COALESCE((SELECT MAX(updated_at) FROM skill_categories), CURRENT_TIMESTAMP)),
+    ('soft_skills', COALESCE((SELECT MAX(updated_at) FROM soft_skills), CURRENT_TIMESTAMP)),
+    ('interests', COALESCE((SELECT MAX(updated_at) FROM interests), CURRENT_TIMESTAMP)),
+    ('site_settings', COALESCE((SELECT MAX(updated_at) FROM site_settings), CURRENT_TIMESTAMP)),
+    ('achievements', COALESCE((SELECT MAX(updated_at) FROM achievements), CURRENT_TIMESTAMP)),
+    ('rpg_stats', COALESCE((SELECT MAX(updated_at) FROM rpg_stats), CURRENT_TIMESTAMP));
+
+CREATE TRIGGER bump_posts_content_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON posts
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_content_version();
+
+CREATE TRIGGER bump_media_content_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON media
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_content_version();
+
+CREATE TRIGGER bump_tags_content_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON tags
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_content_version();
+
+CREATE TRIGGER bump_experiences_content_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON experiences
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_content_version();
+
+CREATE TRIGGER bump_skill_categories_content_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON skill_categories
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_content_version();
+
+CREATE TRIGGER bump_soft_skills_content_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON soft_skills
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_content_version();
+
+CREATE TRIGGER bump_interests_content_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON interests
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_content_version();
+
+CREATE TRIGGER bump_site_settings_content_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON site_settings
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_content_version();
+
+CREATE TRIGGER bump_achievements_content_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON achievements
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_content_version();
+
+CREATE TRIGGER bump_rpg_stats_content_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON rpg_stats
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_content_version();
@@ -0,0 +1,25 @@
+-- Read-side fields derived from post content on save (PostContentAnalyzer).
+-- Rows keep derived_version = 0 until PostDerivationBackfill recomputes them at startup.
+ALTER TABLE posts
+    ADD COLUMN word_count_en INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN word_count_pl INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN reading_minutes_en INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN reading_minutes_pl INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN toc_en JSONB,
+    ADD COLUMN toc_pl JSONB,
+    ADD COLUMN plain_excerpt_en TEXT,
+    ADD COLUMN plain_excerpt_pl TEXT,
+    ADD COLUMN first_image VARCHAR(500),
+    ADD COLUMN has_case_study BOOLEAN NOT NULL DEFAULT FALSE,
+    ADD COLUMN derived_version INTEGER NOT NULL DEFAULT 0;
+
+-- Cheap enough to settle here, so list endpoints are right before the backfill runs.
+-- A derived column, so the posts keep their updated_at.
+ALTER TABLE posts DISABLE TRIGGER update_posts_updated_at;
+UPDATE posts SET has_case_study = TRUE
+WHERE TRIM(COALESCE(case_study_challenge_en, '')) <> ''
+   OR TRIM(COALESCE(case_study_solution_en, '')) <> ''
+   OR TRIM(COALESCE(case_study_results_en, '')) <> '';
+ALTER TABLE posts ENABLE TRIGGER update_posts_updated_at;
+
+CREATE INDEX idx_posts_derived_version ON posts (derived_version);
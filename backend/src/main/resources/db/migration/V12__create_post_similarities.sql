@@ -0,0 +1,91 @@
+-- Precomputed "more like this" lists: the top related published posts of every
+-- published post. Maintained incrementally by RelatedPostService on post writes.
+CREATE TABLE post_similarities (
+    post_id UUID NOT NULL REFERENCES posts(id) ON DELETE CASCADE,
+    related_post_id UUID NOT NULL REFERENCES posts(id) ON DELETE CASCADE,
+    score REAL NOT NULL,
+    PRIMARY KEY (post_id, related_post_id)
+);
+
+-- Serves GET /api/posts/{slug}/related
+CREATE INDEX idx_post_similarities_ranked ON post_similarities (post_id, score DESC, related_post_id);
+-- Finds the lists a post appears in when it changes
+CREATE INDEX idx_post_similarities_related_post_id ON post_similarities (related_post_id);
+
+-- Quotes a lexeme as a tsquery operand matching title or excerpt (weights A, B)
+CREATE FUNCTION title_lexeme_query(lexemes TEXT[]) RETURNS tsquery
+LANGUAGE sql IMMUTABLE STRICT AS $$
+    SELECT array_to_string(ARRAY(
+        SELECT '''' || replace(replace(l, '\', '\\'), '''', '''''') || ''':AB'
+        FROM unnest(lexemes) AS l), ' | ')::tsquery
+$$;
+
+-- Similarity of a published post to its candidate neighbours, symmetric in both posts:
+--   0.5 * Jaccard of tags + 0.2 * same category + 0.3 * Jaccard of title/excerpt lexemes.
+-- Candidates are posts sharing a tag, posts matching a title/excerpt lexeme and, as a
+-- fallback, posts of the same category, each source capped at p_candidates.
+CREATE FUNCTION related_post_scores(p_post_id UUID, p_candidates INTEGER)
+RETURNS TABLE (related_post_id UUID, score REAL)
+LANGUAGE sql STABLE AS $$
+    WITH source AS (
+        SELECT p.id,
+               p.category,
+               tsvector_to_array(ts_filter(p.search_en, '{a,b}')) AS lexemes,
+               ARRAY(SELECT pt.tag_id FROM post_tags pt WHERE pt.post_id = p.id) AS tags
+        FROM posts p
+        WHERE p.id = p_post_id AND p.published = true
+    ),
+    candidates AS (
+        (SELECT pt.post_id AS id
+         FROM source s
+         JOIN post_tags pt ON pt.tag_id = ANY (s.tags) AND pt.post_id <> s.id
+         JOIN posts c ON c.id = pt.post_id AND c.published = true
+         GROUP BY pt.post_id
+         ORDER BY COUNT(*) DESC, pt.post_id
+         LIMIT p_candidates)
+        UNION
+        (SELECT c.id
+         FROM source s
+         JOIN posts c ON c.published = true AND c.id <> s.id
+             AND c.search_en @@ title_lexeme_query(s.lexemes)
+         WHERE cardinality(s.lexemes) > 0
+         LIMIT p_candidates)
+        UNION
+        (SELECT c.id
+         FROM source s
+         JOIN posts c ON c.published = true AND c.category = s.category AND c.id <> s.id
+         ORDER BY c.display_order, c.id
+         LIMIT p_candidates)
+    )
+    SELECT c.id,
+           CAST(0.5 * COALESCE(t.shared / NULLIF(cardinality(s.tags) + t.total - t.shared, 0), 0)
+                + 0.2 * CASE WHEN c.category = s.category THEN 1 ELSE 0 END
+                + 0.3 * COALESCE(w.shared / NULLIF(cardinality(s.lexemes) + w.total - w.shared, 0), 0)
+                AS REAL)
+    FROM source s
+    CROSS JOIN candidates k
+    -- Row by row through the primary key: the candidate set is small next to posts
+    CROSS JOIN LATERAL (
+        SELECT p.id, p.category, p.search_en FROM posts p WHERE p.id = k.id OFFSET 0) c
+    CROSS JOIN LATERAL (
+        SELECT COUNT(*) FILTER (WHERE pt.tag_id = ANY (s.tags))::REAL AS shared,
+               COUNT(*)::REAL AS total
+        FROM post_tags pt
+        WHERE pt.post_id = c.id) t
+    CROSS JOIN LATERAL (
+        SELECT COUNT(*) FILTER (WHERE l = ANY (s.lexemes))::REAL AS shared,
+               COUNT(*)::REAL AS total
+        FROM unnest(tsvector_to_array(ts_filter(c.search_en, '{a,b}'))) AS l) w
+$$;
+
+-- Initial lists; RelatedPostService.LIST_SIZE and CANDIDATES must match
+INSERT INTO post_similarities (post_id, related_post_id, score)
+SELECT p.id, r.related_post_id, r.score
+FROM posts p
+CROSS JOIN LATERAL (
+    SELECT s.related_post_id, s.score
+    FROM related_post_scores(p.id, 200) s
+    WHERE s.score > 0
+    ORDER BY s.score DESC, s.related_post_id
+    LIMIT 10) r
+WHERE p.published = true;
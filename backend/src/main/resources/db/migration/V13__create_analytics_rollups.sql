@@ -0,0 +1,42 @@
+-- Page-view rollups written in batches by AnalyticsService; raw events are never stored.
+
+-- Views per page per hour (UTC)
+CREATE TABLE page_view_hourly (
+    bucket TIMESTAMP WITH TIME ZONE NOT NULL,
+    path VARCHAR(500) NOT NULL,
+    views BIGINT NOT NULL,
+    PRIMARY KEY (bucket, path)
+);
+
+-- Views and a HyperLogLog sketch of visitors per post per day (UTC).
+-- visitors holds the 4096 registers of com.portfolio.util.HyperLogLog.
+CREATE TABLE post_view_daily (
+    day DATE NOT NULL,
+    post_id UUID NOT NULL REFERENCES posts(id) ON DELETE CASCADE,
+    views BIGINT NOT NULL,
+    visitors BYTEA NOT NULL,
+    PRIMARY KEY (day, post_id)
+);
+
+CREATE INDEX idx_post_view_daily_post_id ON post_view_daily (post_id, day);
+
+-- Union of two sketches: the per-register maximum
+CREATE FUNCTION hll_union(a BYTEA, b BYTEA) RETURNS BYTEA
+LANGUAGE plpgsql IMMUTABLE AS $$
+DECLARE
+    result BYTEA := a;
+BEGIN
+    IF a IS NULL OR length(a) <> length(b) THEN
+        RETURN b;
+    END IF;
+    IF b IS NULL THEN
+        RETURN a;
+    END IF;
+    FOR i IN 0 .. length(a) - 1 LOOP
+        IF get_byte(b, i) > get_byte(result, i) THEN
+            result := set_byte(result, i, get_byte(b, i));
+        END IF;
+    END LOOP;
+    RETURN result;
+END
+$$;
@@ -0,0 +1,19 @@
+-- One row per stored file, shared by every media row that points at it.
+-- New uploads are stored under their SHA-256 (e.g. images/<sha256>.jpg) so identical
+-- content is kept once; ref_count is the number of media rows using the file.
+CREATE TABLE media_blobs (
+    filename VARCHAR(255) PRIMARY KEY,
+    sha256 VARCHAR(64),
+    size BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL CHECK (ref_count > 0),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Files uploaded before content addressing keep their names; their hash is unknown
+INSERT INTO media_blobs (filename, size, ref_count)
+SELECT filename, COALESCE(MAX(size), 0), COUNT(*)
+FROM media
+WHERE filename IS NOT NULL
+GROUP BY filename;
+
+CREATE INDEX idx_media_filename ON media(filename);
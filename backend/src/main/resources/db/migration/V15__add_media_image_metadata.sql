@@ -0,0 +1,9 @@
+-- Image size and BlurHash placeholder, extracted at upload (ImageMetadataExtractor).
+-- Existing images keep metadata_version = 0 until MediaMetadataBackfill reads them.
+ALTER TABLE media
+    ADD COLUMN width INTEGER,
+    ADD COLUMN height INTEGER,
+    ADD COLUMN placeholder VARCHAR(64),
+    ADD COLUMN metadata_version INTEGER NOT NULL DEFAULT 0;
+
+CREATE INDEX idx_media_metadata_version ON media (metadata_version) WHERE type = 'IMAGE';
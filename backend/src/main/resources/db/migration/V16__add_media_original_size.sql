@@ -0,0 +1,5 @@
+-- Upload size before ImageOptimizer re-encoded it; size holds what is stored.
+-- Earlier uploads were stored as they arrived.
+ALTER TABLE media ADD COLUMN original_size BIGINT;
+
+UPDATE media SET original_size = size WHERE filename IS NOT NULL;
@@ -0,0 +1,14 @@
+-- Resumable uploads in progress. The bytes received so far are in a part file named
+-- after the id below the upload directory; its size is the upload's offset.
+CREATE TABLE upload_sessions (
+    id UUID PRIMARY KEY,
+    original_name VARCHAR(255) NOT NULL,
+    length BIGINT NOT NULL CHECK (length > 0),
+    post_id UUID,
+    alt_text_en VARCHAR(255),
+    alt_text_pl VARCHAR(255),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_upload_sessions_expires_at ON upload_sessions(expires_at);
@@ -0,0 +1,37 @@
+-- Running storage totals, updated by MediaUsageService in the transactions that add and
+-- remove media, so that reading them needs no scan. Only uploaded files count; embedded
+-- videos have no file.
+
+-- scope 'type': media rows per MediaType (name) and their stored sizes.
+-- scope 'store': name 'blobs', the distinct stored files, i.e. the disk used after
+-- deduplication; this is what the quota applies to.
+CREATE TABLE media_usage (
+    scope VARCHAR(16) NOT NULL,
+    name VARCHAR(32) NOT NULL,
+    files BIGINT NOT NULL,
+    bytes BIGINT NOT NULL,
+    PRIMARY KEY (scope, name)
+);
+
+-- Media rows per post and their stored sizes
+CREATE TABLE post_media_usage (
+    post_id UUID PRIMARY KEY REFERENCES posts(id) ON DELETE CASCADE,
+    files BIGINT NOT NULL,
+    bytes BIGINT NOT NULL
+);
+
+INSERT INTO media_usage (scope, name, files, bytes)
+SELECT 'type', type, COUNT(*), COALESCE(SUM(size), 0)
+FROM media
+WHERE filename IS NOT NULL
+GROUP BY type;
+
+INSERT INTO media_usage (scope, name, files, bytes)
+SELECT 'store', 'blobs', COUNT(*), COALESCE(SUM(size), 0)
+FROM media_blobs;
+
+INSERT INTO post_media_usage (post_id, files, bytes)
+SELECT post_id, COUNT(*), COALESCE(SUM(size), 0)
+FROM media
+WHERE filename IS NOT NULL AND post_id IS NOT NULL
+GROUP BY post_id;
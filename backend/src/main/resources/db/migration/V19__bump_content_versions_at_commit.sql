@@ -0,0 +1,58 @@
+-- Bump content versions once per transaction, at commit, in table_name order.
+-- Bumping from every statement locked a table's counter row until the end of the
+-- transaction, so writers of one table waited on each other's whole transaction,
+-- and two transactions touching two tables in opposite order deadlocked. The
+-- statement triggers now only note the table; a deferred trigger applies the notes
+-- of the transaction when it commits.
+
+-- Transient: rows live from a statement to the commit of their transaction
+CREATE UNLOGGED TABLE content_version_changes (
+    xact_id XID8 NOT NULL,
+    table_name VARCHAR(64) NOT NULL,
+    PRIMARY KEY (xact_id, table_name)
+);
+
+-- Still what the statement triggers of V10 call
+CREATE OR REPLACE FUNCTION bump_content_version()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO content_version_changes (xact_id, table_name)
+    VALUES (pg_current_xact_id(), TG_TABLE_NAME)
+    ON CONFLICT DO NOTHING;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Fires at commit for each noted table; the first one applies all of them
+CREATE OR REPLACE FUNCTION apply_content_version_changes()
+RETURNS TRIGGER AS $$
+DECLARE
+    changed VARCHAR(64)[];
+BEGIN
+    WITH applied AS (
+        DELETE FROM content_version_changes
+        WHERE xact_id = pg_current_xact_id()
+        RETURNING table_name
+    )
+    SELECT array_agg(table_name) INTO changed FROM applied;
+    IF changed IS NULL THEN
+        RETURN NULL;
+    END IF;
+
+    -- Locked in a fixed order, so that concurrent commits cannot deadlock
+    PERFORM 1 FROM content_versions
+    WHERE table_name = ANY (changed)
+    ORDER BY table_name
+    FOR UPDATE;
+
+    UPDATE content_versions
+    SET version = version + 1, updated_at = clock_timestamp()
+    WHERE table_name = ANY (changed);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE CONSTRAINT TRIGGER apply_content_version_changes
+    AFTER INSERT ON content_version_changes
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION apply_content_version_changes();
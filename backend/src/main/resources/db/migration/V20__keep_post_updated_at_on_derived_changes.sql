@@ -0,0 +1,27 @@
+-- posts.updated_at is the post's public "updated" date, so writing only the columns
+-- derived from its content (V11, e.g. by PostDerivationBackfill) must not move it.
+-- The trigger now stamps the row only when a column outside that set changes; an
+-- explicit updated_at is kept when nothing else does.
+CREATE OR REPLACE FUNCTION update_posts_updated_at_column()
+RETURNS TRIGGER AS $$
+DECLARE
+    -- Generated columns (search_*) are not computed yet in NEW here
+    unstamped CONSTANT TEXT[] := ARRAY[
+        'updated_at', 'search_en', 'search_pl',
+        'word_count_en', 'word_count_pl', 'reading_minutes_en', 'reading_minutes_pl',
+        'toc_en', 'toc_pl', 'plain_excerpt_en', 'plain_excerpt_pl',
+        'first_image', 'has_case_study', 'derived_version'];
+BEGIN
+    IF (to_jsonb(NEW) - unstamped) IS DISTINCT FROM (to_jsonb(OLD) - unstamped) THEN
+        NEW.updated_at = CURRENT_TIMESTAMP;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER update_posts_updated_at ON posts;
+
+CREATE TRIGGER update_posts_updated_at
+    BEFORE UPDATE ON posts
+    FOR EACH ROW
+    EXECUTE FUNCTION update_posts_updated_at_column();
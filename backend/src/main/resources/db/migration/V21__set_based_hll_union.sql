@@ -0,0 +1,13 @@
+-- hll_union (V13) looped over the registers in plpgsql, and each set_byte copied the
+-- whole sketch: up to 4096 copies of 4KB per merged post-day on every flush. The
+-- union is now one set-based expression that builds the result in a single pass.
+CREATE OR REPLACE FUNCTION hll_union(a BYTEA, b BYTEA) RETURNS BYTEA
+LANGUAGE sql IMMUTABLE PARALLEL SAFE AS $$
+    SELECT CASE
+        WHEN a IS NULL OR length(a) <> length(b) THEN b
+        WHEN b IS NULL THEN a
+        ELSE (SELECT string_agg(set_byte('\x00'::bytea, 0, greatest(get_byte(a, i), get_byte(b, i))), ''::bytea
+                                ORDER BY i)
+              FROM generate_series(0, length(a) - 1) AS i)
+    END
+$$;
@@ -0,0 +1,13 @@
+-- Keyset pagination orders posts by (display_order, id) and media by (created_at, id).
+-- Row comparisons skip NULLs, so both sort columns must be NOT NULL.
+UPDATE posts SET display_order = 0 WHERE display_order IS NULL;
+ALTER TABLE posts ALTER COLUMN display_order SET NOT NULL;
+
+UPDATE media SET created_at = CURRENT_TIMESTAMP WHERE created_at IS NULL;
+ALTER TABLE media ALTER COLUMN created_at SET NOT NULL;
+
+CREATE INDEX idx_posts_published_order_id ON posts (display_order, id) WHERE published = true;
+CREATE INDEX idx_posts_category_published_order_id ON posts (category, display_order, id) WHERE published = true;
+
+CREATE INDEX idx_media_created_at_id ON media (created_at DESC, id DESC);
+CREATE INDEX idx_media_type_created_at_id ON media (type, created_at DESC, id DESC);
@@ -0,0 +1,41 @@
+-- Bilingual full-text search over posts.
+-- English fields use the stemming 'english' configuration; Polish fields use
+-- 'simple' with unaccent so that "zrodlo" matches "źródło".
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+CREATE TEXT SEARCH CONFIGURATION polish_unaccent (COPY = simple);
+ALTER TEXT SEARCH CONFIGURATION polish_unaccent
+    ALTER MAPPING FOR hword, hword_part, word WITH unaccent, simple;
+
+-- Concatenates every "text" value of a TipTap document (the leaves of the jsonb tree).
+-- Declared IMMUTABLE so it can be used in generated columns.
+CREATE FUNCTION post_content_text(doc JSONB) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+AS $$
+    SELECT COALESCE(string_agg(value #>> '{}', ' '), '')
+    FROM jsonb_path_query(doc, 'strict $.**.text ? (@.type() == "string")') AS value
+$$;
+
+-- Weights: A title, B excerpt, C case study, D body content
+ALTER TABLE posts ADD COLUMN search_en TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('english'::regconfig, COALESCE(title_en, '')), 'A') ||
+    setweight(to_tsvector('english'::regconfig, COALESCE(excerpt_en, '')), 'B') ||
+    setweight(to_tsvector('english'::regconfig,
+        COALESCE(case_study_challenge_en, '') || ' ' ||
+        COALESCE(case_study_solution_en, '') || ' ' ||
+        COALESCE(case_study_results_en, '')), 'C') ||
+    setweight(to_tsvector('english'::regconfig, post_content_text(content_en)), 'D')
+) STORED;
+
+ALTER TABLE posts ADD COLUMN search_pl TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('polish_unaccent'::regconfig, COALESCE(title_pl, '')), 'A') ||
+    setweight(to_tsvector('polish_unaccent'::regconfig, COALESCE(excerpt_pl, '')), 'B') ||
+    setweight(to_tsvector('polish_unaccent'::regconfig,
+        COALESCE(case_study_challenge_pl, '') || ' ' ||
+        COALESCE(case_study_solution_pl, '') || ' ' ||
+        COALESCE(case_study_results_pl, '')), 'C') ||
+    setweight(to_tsvector('polish_unaccent'::regconfig, post_content_text(content_pl)), 'D')
+) STORED;
+
+CREATE INDEX idx_posts_search_en ON posts USING GIN (search_en) WHERE published = true;
+CREATE INDEX idx_posts_search_pl ON posts USING GIN (search_pl) WHERE published = true;
@@ -0,0 +1,44 @@
+-- Normalized hashtags. posts.hashtags keeps the display list in author order;
+-- tags/post_tags back hashtag lookups and per-tag published-post counts.
+CREATE TABLE tags (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    normalized_name VARCHAR(100) NOT NULL UNIQUE,
+    name VARCHAR(100) NOT NULL,
+    published_post_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE post_tags (
+    post_id UUID NOT NULL REFERENCES posts(id) ON DELETE CASCADE,
+    tag_id UUID NOT NULL REFERENCES tags(id) ON DELETE CASCADE,
+    PRIMARY KEY (post_id, tag_id)
+);
+
+CREATE INDEX idx_post_tags_tag_id ON post_tags(tag_id);
+CREATE INDEX idx_tags_published_post_count ON tags (published_post_count DESC, normalized_name)
+    WHERE published_post_count > 0;
+
+-- Backfill. Display names mirror Tag.displayName and keys mirror Tag.normalize;
+-- the spelling on the oldest post wins.
+CREATE TEMPORARY TABLE post_hashtags ON COMMIT DROP AS
+SELECT p.id AS post_id,
+       p.created_at,
+       u.ordinality,
+       left(btrim(regexp_replace(regexp_replace(btrim(u.hashtag), '^#+', ''), '\s+', ' ', 'g')), 100) AS name
+FROM posts p, unnest(p.hashtags) WITH ORDINALITY AS u(hashtag, ordinality);
+
+DELETE FROM post_hashtags WHERE name IS NULL OR name = '';
+
+INSERT INTO tags (normalized_name, name)
+SELECT DISTINCT ON (lower(name)) lower(name), name
+FROM post_hashtags
+ORDER BY lower(name), created_at, ordinality;
+
+INSERT INTO post_tags (post_id, tag_id)
+SELECT DISTINCT ph.post_id, t.id
+FROM post_hashtags ph
+JOIN tags t ON t.normalized_name = lower(ph.name);
+
+UPDATE tags t SET published_post_count = (
+    SELECT COUNT(*) FROM post_tags pt JOIN posts p ON p.id = pt.post_id
+    WHERE pt.tag_id = t.id AND p.published = true);
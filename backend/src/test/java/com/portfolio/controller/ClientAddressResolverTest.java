@@ -0,0 +1,42 @@
+package com.portfolio.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ClientAddressResolver")
+class ClientAddressResolverTest {
+
+    private final ClientAddressResolver resolver = new ClientAddressResolver();
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(resolver, "clientIpHeader", "X-Real-IP");
+        request.setRemoteAddr("10.0.0.2");
+    }
+
+    @Test
+    @DisplayName("should take the address nginx set and ignore X-Forwarded-For")
+    void shouldUseRealIp() {
+        request.addHeader("X-Real-IP", " 203.0.113.1 ");
+        request.addHeader("X-Forwarded-For", "198.51.100.7, 203.0.113.1");
+
+        assertThat(resolver.resolve(request)).isEqualTo("203.0.113.1");
+    }
+
+    @Test
+    @DisplayName("should fall back to the remote address without the header or the setting")
+    void shouldFallBackToRemoteAddress() {
+        assertThat(resolver.resolve(request)).isEqualTo("10.0.0.2");
+
+        request.addHeader("X-Real-IP", "203.0.113.1");
+        ReflectionTestUtils.setField(resolver, "clientIpHeader", "");
+        assertThat(resolver.resolve(request)).isEqualTo("10.0.0.2");
+    }
+}
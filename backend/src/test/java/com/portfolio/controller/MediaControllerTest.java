@@ -0,0 +1,489 @@
+package com.portfolio.controller;
+
+import com.portfolio.config.TestSecurityConfig;
+import com.portfolio.security.JwtService;
+import com.portfolio.service.ContentVersionService;
+import com.portfolio.service.ImageDerivativeService;
+import com.portfolio.service.MediaService;
+import com.portfolio.service.StorageService;
+import com.portfolio.service.UserService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(
+        controllers = MediaController.class,
+        excludeAutoConfiguration = {
+                org.springframework.boot.autoconfigure.security.oauth2.client.servlet.OAuth2ClientAutoConfiguration.class
+        }
+)
+@Import({TestSecurityConfig.class, MediaFileSender.class, MediaBandwidthShaper.class, ClientAddressResolver.class})
+@ActiveProfiles("test")
+@DisplayName("MediaController")
+class MediaControllerTest {
+
+    private static final String URL = "/api/media/videos/clip.mp4";
+    private static final String ETAG = "\"clip-64\"";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MediaFileSender mediaFileSender;
+
+    @Autowired
+    private MediaBandwidthShaper bandwidthShaper;
+
+    @MockBean
+    private MediaService mediaService;
+
+    @MockBean
+    private StorageService storageService;
+
+    @MockBean
+    private ImageDerivativeService imageDerivativeService;
+
+    @MockBean
+    private ContentVersionService contentVersionService;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private UserService userService;
+
+    @TempDir
+    Path tempDir;
+
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        content = new byte[100];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        Path file = Files.write(tempDir.resolve("clip.mp4"), content);
+        given(storageService.resolve("videos/clip.mp4")).willReturn(stored("videos/clip.mp4", file));
+    }
+
+    private static StorageService.StoredFile stored(String key, Path file) throws IOException {
+        return new StorageService.StoredFile(key, Files.size(file), Files.getLastModifiedTime(file).toInstant(), file);
+    }
+
+    @Nested
+    @DisplayName("GET /api/media/{subDir}/{filename}")
+    class ServeMedia {
+
+        @Test
+        @DisplayName("should send the whole file with a strong ETag and immutable caching")
+        void shouldSendWholeFile() throws Exception {
+            mockMvc.perform(get(URL))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("video/mp4"))
+                    .andExpect(content().bytes(content))
+                    .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                    .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                    .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100));
+        }
+
+        @Test
+        @DisplayName("should answer 304 when the ETag matches")
+        void shouldReturnNotModified() throws Exception {
+            mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().bytes(new byte[0]));
+        }
+
+        @Test
+        @DisplayName("should send a single range as 206 partial content")
+        void shouldSendSingleRange() throws Exception {
+            mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=10-19"))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/100"))
+                    .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                    .andExpect(content().bytes(Arrays.copyOfRange(content, 10, 20)));
+        }
+
+        @Test
+        @DisplayName("should send a suffix range")
+        void shouldSendSuffixRange() throws Exception {
+            mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=-5"))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 95-99/100"))
+                    .andExpect(content().bytes(Arrays.copyOfRange(content, 95, 100)));
+        }
+
+        @Test
+        @DisplayName("should send several ranges as multipart/byteranges")
+        void shouldSendMultipleRanges() throws Exception {
+            MvcResult result = mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=0-1,50-51"))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string(HttpHeaders.CONTENT_TYPE, startsWith("multipart/byteranges; boundary=")))
+                    .andReturn();
+
+            byte[] body = result.getResponse().getContentAsByteArray();
+            String text = new String(body, StandardCharsets.ISO_8859_1);
+            assertThat(text).contains("Content-Range: bytes 0-1/100", "Content-Range: bytes 50-51/100");
+            assertThat(text).contains(new String(new byte[]{0, 1}, StandardCharsets.ISO_8859_1));
+            assertThat(text).contains(new String(new byte[]{50, 51}, StandardCharsets.ISO_8859_1));
+            assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_LENGTH))
+                    .isEqualTo(String.valueOf(body.length));
+        }
+
+        @Test
+        @DisplayName("should merge overlapping ranges into one")
+        void shouldCoalesceOverlappingRanges() throws Exception {
+            mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=20-29,0-9,5-24"))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-29/100"));
+        }
+
+        @Test
+        @DisplayName("should answer 416 when no range overlaps the file")
+        void shouldRejectUnsatisfiableRange() throws Exception {
+            mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=200-300"))
+                    .andExpect(status().isRequestedRangeNotSatisfiable())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100"));
+        }
+
+        @Test
+        @DisplayName("should ignore a malformed Range header")
+        void shouldIgnoreMalformedRange() throws Exception {
+            mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "items=1-2"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(content));
+        }
+
+        @Test
+        @DisplayName("should send the whole file when If-Range no longer matches")
+        void shouldIgnoreStaleIfRange() throws Exception {
+            mockMvc.perform(get(URL)
+                            .header(HttpHeaders.RANGE, "bytes=10-19")
+                            .header(HttpHeaders.IF_RANGE, "\"other-64\""))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(content));
+        }
+
+        @Test
+        @DisplayName("should send headers only for HEAD")
+        void shouldHandleHead() throws Exception {
+            mockMvc.perform(head(URL))
+                    .andExpect(status().isOk())
+                    .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+                    .andExpect(content().bytes(new byte[0]));
+        }
+
+        @Test
+        @DisplayName("should hand large files to sendfile when the connector supports it")
+        void shouldUseSendfile() throws Exception {
+            Path large = Files.write(tempDir.resolve("large.mp4"), new byte[(int) MediaFileSender.SENDFILE_MIN_SIZE]);
+            given(storageService.resolve("videos/large.mp4")).willReturn(stored("videos/large.mp4", large));
+
+            mockMvc.perform(get("/api/media/videos/large.mp4")
+                            .requestAttr("org.apache.tomcat.sendfile.support", true))
+                    .andExpect(status().isOk())
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", large.toAbsolutePath().toString()))
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.end", MediaFileSender.SENDFILE_MIN_SIZE))
+                    .andExpect(content().bytes(new byte[0]));
+        }
+
+        @Test
+        @DisplayName("should serve a resized derivative under its own ETag")
+        void shouldServeDerivative() throws Exception {
+            byte[] thumbnail = {1, 2, 3};
+            Path derivative = Files.write(tempDir.resolve("photo.d-w480.jpg"), thumbnail);
+            given(imageDerivativeService.resolve("images/photo.jpg", 480, null, "cover"))
+                    .willReturn(stored("images/photo.d-w480.jpg", derivative));
+
+            mockMvc.perform(get("/api/media/images/photo.jpg").param("w", "480").param("fit", "cover"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("image/jpeg"))
+                    .andExpect(content().bytes(thumbnail))
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"photo.d-w480-3\""))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")));
+        }
+
+        @Test
+        @DisplayName("should reject sizes outside the allowlist")
+        void shouldRejectUnknownSize() throws Exception {
+            given(imageDerivativeService.resolve("images/photo.jpg", 500, null, null))
+                    .willThrow(new IllegalArgumentException("Size must be one of [480]"));
+
+            mockMvc.perform(get("/api/media/images/photo.jpg").param("w", "500"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("should stream ranges of files in a remote store from their read channel")
+        void shouldStreamRemoteFile() throws Exception {
+            Path file = tempDir.resolve("clip.mp4");
+            StorageService.StoredFile remote = new StorageService.StoredFile("videos/clip.mp4", content.length,
+                    Files.getLastModifiedTime(file).toInstant(), null);
+            given(storageService.resolve("videos/clip.mp4")).willReturn(remote);
+            given(storageService.open(remote)).willAnswer(invocation ->
+                    mock(SeekableByteChannel.class, delegatesTo(FileChannel.open(file, StandardOpenOption.READ))));
+
+            mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=10-19,50-59"))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", nullValue()))
+                    .andExpect(content().string(containsString(
+                            new String(Arrays.copyOfRange(content, 50, 60), StandardCharsets.ISO_8859_1))));
+        }
+
+        @Test
+        @DisplayName("should write cached files from their buffer without opening the file")
+        void shouldServeCachedFile() throws Exception {
+            ByteBuffer cached = ByteBuffer.allocateDirect(content.length).put(content).flip().asReadOnlyBuffer();
+            Path file = tempDir.resolve("clip.mp4");
+            given(storageService.resolve("videos/clip.mp4")).willReturn(new StorageService.StoredFile("videos/clip.mp4",
+                    content.length, Files.getLastModifiedTime(file).toInstant(), file, cached));
+            Files.delete(file);
+
+            mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=10-19")
+                            .requestAttr("org.apache.tomcat.sendfile.support", true))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", nullValue()))
+                    .andExpect(content().bytes(Arrays.copyOfRange(content, 10, 20)));
+            mockMvc.perform(get(URL))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(content));
+        }
+
+        @Test
+        @DisplayName("should return 404 for unknown files")
+        void shouldReturnNotFound() throws Exception {
+            given(storageService.resolve("videos/missing.mp4"))
+                    .willThrow(new EntityNotFoundException("File not found: videos/missing.mp4"));
+
+            mockMvc.perform(get("/api/media/videos/missing.mp4"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/media/{subDir}/{filename} behind nginx")
+    class AccelRedirect {
+
+        @BeforeEach
+        void enable() {
+            ReflectionTestUtils.setField(mediaFileSender, "accelRedirect", "/internal-media/");
+        }
+
+        @AfterEach
+        void disable() {
+            ReflectionTestUtils.setField(mediaFileSender, "accelRedirect", "");
+        }
+
+        @Test
+        @DisplayName("should hand the body to nginx with the file's headers")
+        void shouldRedirectToNginx() throws Exception {
+            given(storageService.resolve("videos/clip.mp4"))
+                    .willReturn(stored("videos/ab/cd/clip.mp4", tempDir.resolve("clip.mp4")));
+
+            mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=10-19"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(MediaFileSender.X_ACCEL_REDIRECT, "/internal-media/videos/ab/cd/clip.mp4"))
+                    .andExpect(header().longValue(MediaBandwidthShaper.X_ACCEL_LIMIT_RATE, DataSize.ofMegabytes(2).toBytes()))
+                    .andExpect(content().contentType("video/mp4"))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, nullValue()))
+                    .andExpect(content().bytes(new byte[0]));
+        }
+
+        @Test
+        @DisplayName("should not limit the rate of images")
+        void shouldNotLimitImages() throws Exception {
+            Path image = Files.write(tempDir.resolve("photo.jpg"), new byte[]{1, 2, 3});
+            given(storageService.resolve("images/photo.jpg")).willReturn(stored("images/ab/cd/photo.jpg", image));
+
+            mockMvc.perform(get("/api/media/images/photo.jpg"))
+                    .andExpect(header().exists(MediaFileSender.X_ACCEL_REDIRECT))
+                    .andExpect(header().doesNotExist(MediaBandwidthShaper.X_ACCEL_LIMIT_RATE));
+        }
+
+        @Test
+        @DisplayName("should still return 404 for unknown files")
+        void shouldReturnNotFound() throws Exception {
+            given(storageService.resolve("videos/missing.mp4"))
+                    .willThrow(new EntityNotFoundException("File not found: videos/missing.mp4"));
+
+            mockMvc.perform(get("/api/media/videos/missing.mp4"))
+                    .andExpect(status().isNotFound())
+                    .andExpect(header().doesNotExist(MediaFileSender.X_ACCEL_REDIRECT));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/media/{subDir}/{filename} with bandwidth shaping")
+    class BandwidthShaping {
+
+        private static final int SIZE = 64 * 1024;
+
+        private Object defaultBudgets;
+
+        private Object defaultDownloads;
+
+        @BeforeEach
+        void shrinkBudgets() {
+            defaultBudgets = ReflectionTestUtils.getField(bandwidthShaper, "budgets");
+            defaultDownloads = ReflectionTestUtils.getField(bandwidthShaper, "downloads");
+            ReflectionTestUtils.setField(bandwidthShaper, "videoClientRate", DataSize.ofMegabytes(1));
+            ReflectionTestUtils.setField(bandwidthShaper, "videoBurst", DataSize.ofKilobytes(16));
+            bandwidthShaper.init();
+        }
+
+        @AfterEach
+        void restoreBudgets() {
+            ReflectionTestUtils.setField(bandwidthShaper, "budgets", defaultBudgets);
+            ReflectionTestUtils.setField(bandwidthShaper, "downloads", defaultDownloads);
+            ReflectionTestUtils.setField(bandwidthShaper, "maxDownloads", 64);
+        }
+
+        private byte[] sequence(int size) {
+            byte[] bytes = new byte[size];
+            for (int i = 0; i < size; i++) {
+                bytes[i] = (byte) i;
+            }
+            return bytes;
+        }
+
+        @Test
+        @DisplayName("should pace videos beyond the burst instead of handing them to sendfile")
+        void shouldPaceVideos() throws Exception {
+            byte[] video = sequence(SIZE);
+            Path file = Files.write(tempDir.resolve("demo.mp4"), video);
+            given(storageService.resolve("videos/demo.mp4")).willReturn(stored("videos/demo.mp4", file));
+
+            long started = System.nanoTime();
+            mockMvc.perform(get("/api/media/videos/demo.mp4")
+                            .requestAttr("org.apache.tomcat.sendfile.support", true))
+                    .andExpect(status().isOk())
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", nullValue()))
+                    .andExpect(content().bytes(video));
+
+            // 48KB beyond the burst at 1MB/s
+            assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(40));
+        }
+
+        @Test
+        @DisplayName("should send ranges within the client's burst through sendfile")
+        void shouldSendfileWithinBurst() throws Exception {
+            Path file = Files.write(tempDir.resolve("demo.mp4"), sequence(SIZE));
+            given(storageService.resolve("videos/demo.mp4")).willReturn(stored("videos/demo.mp4", file));
+            String range = "bytes=0-" + (MediaFileSender.SENDFILE_MIN_SIZE - 1);
+
+            mockMvc.perform(get("/api/media/videos/demo.mp4").header(HttpHeaders.RANGE, range)
+                            .requestAttr("org.apache.tomcat.sendfile.support", true))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", nullValue()));
+
+            ReflectionTestUtils.setField(bandwidthShaper, "videoBurst", DataSize.ofKilobytes(64));
+            bandwidthShaper.init();
+            mockMvc.perform(get("/api/media/videos/demo.mp4").header(HttpHeaders.RANGE, range)
+                            .requestAttr("org.apache.tomcat.sendfile.support", true))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString()));
+        }
+
+        @Test
+        @DisplayName("should keep budgets by X-Real-IP and ignore X-Forwarded-For")
+        void shouldKeepBudgetsByRealIp() throws Exception {
+            Path file = Files.write(tempDir.resolve("demo.mp4"), sequence(SIZE));
+            given(storageService.resolve("videos/demo.mp4")).willReturn(stored("videos/demo.mp4", file));
+            ReflectionTestUtils.setField(bandwidthShaper, "videoBurst", DataSize.ofKilobytes(64));
+            bandwidthShaper.init();
+            String range = "bytes=0-" + (MediaFileSender.SENDFILE_MIN_SIZE - 1);
+            String path = file.toAbsolutePath().toString();
+
+            mockMvc.perform(get("/api/media/videos/demo.mp4").header(HttpHeaders.RANGE, range)
+                            .header("X-Real-IP", "203.0.113.1")
+                            .requestAttr("org.apache.tomcat.sendfile.support", true))
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", path));
+            // Same client under another forwarded address: its burst is spent
+            mockMvc.perform(get("/api/media/videos/demo.mp4").header(HttpHeaders.RANGE, range)
+                            .header("X-Real-IP", "203.0.113.1")
+                            .header("X-Forwarded-For", "198.51.100.7")
+                            .requestAttr("org.apache.tomcat.sendfile.support", true))
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", nullValue()));
+            mockMvc.perform(get("/api/media/videos/demo.mp4").header(HttpHeaders.RANGE, range)
+                            .header("X-Real-IP", "203.0.113.2")
+                            .requestAttr("org.apache.tomcat.sendfile.support", true))
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", path));
+        }
+
+        @Test
+        @DisplayName("should leave images unshaped")
+        void shouldNotShapeImages() throws Exception {
+            Path image = Files.write(tempDir.resolve("photo.jpg"), sequence(SIZE));
+            given(storageService.resolve("images/photo.jpg")).willReturn(stored("images/photo.jpg", image));
+
+            mockMvc.perform(get("/api/media/images/photo.jpg")
+                            .requestAttr("org.apache.tomcat.sendfile.support", true))
+                    .andExpect(status().isOk())
+                    .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", image.toAbsolutePath().toString()));
+        }
+
+        @Test
+        @DisplayName("should turn away shaped downloads beyond max-downloads, but not images")
+        void shouldLimitConcurrentDownloads() throws Exception {
+            Path video = Files.write(tempDir.resolve("demo.mp4"), sequence(SIZE));
+            Path image = Files.write(tempDir.resolve("photo.jpg"), sequence(SIZE));
+            given(storageService.resolve("videos/demo.mp4")).willReturn(stored("videos/demo.mp4", video));
+            given(storageService.resolve("images/photo.jpg")).willReturn(stored("images/photo.jpg", image));
+            ReflectionTestUtils.setField(bandwidthShaper, "maxDownloads", 1);
+            bandwidthShaper.init();
+
+            assertThat(bandwidthShaper.startDownload()).isTrue();
+            mockMvc.perform(get("/api/media/videos/demo.mp4"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, String.valueOf(MediaFileSender.RETRY_AFTER)));
+            mockMvc.perform(get("/api/media/images/photo.jpg"))
+                    .andExpect(status().isOk());
+
+            // A finished download gives its slot back
+            bandwidthShaper.endDownload();
+            mockMvc.perform(get("/api/media/videos/demo.mp4"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/api/media/videos/demo.mp4"))
+                    .andExpect(status().isOk());
+        }
+    }
+}
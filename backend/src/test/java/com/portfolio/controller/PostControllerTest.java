@@ -1,11 +1,16 @@
 package com.portfolio.controller;
 
 import com.portfolio.config.TestSecurityConfig;
+import com.portfolio.dto.CursorPage;
+import com.portfolio.dto.HashtagDto;
 import com.portfolio.dto.PostDto;
+import com.portfolio.dto.PostSearchResultDto;
 import com.portfolio.entity.Category;
 import com.portfolio.security.JwtService;
+import com.portfolio.service.ContentVersionService;
 import com.portfolio.service.PostService;
 import com.portfolio.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -17,6 +22,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.util.Collections;
 import java.util.List;
@@ -25,6 +31,7 @@ import java.util.UUID;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -51,6 +58,17 @@ class PostControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private ContentVersionService contentVersionService;
+
+    private final ContentVersionService.Version version =
+            new ContentVersionService.Version(42, Instant.parse("2024-05-01T10:15:30Z"));
+
+    @BeforeEach
+    void setUp() {
+        given(contentVersionService.current(ContentVersionService.POSTS)).willReturn(version);
+    }
+
     private PostDto createSamplePostDto() {
         return PostDto.builder()
                 .id(UUID.randomUUID())
@@ -152,6 +170,151 @@ class PostControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /api/posts/paged?cursor=")
+    class GetPostsByCursor {
+
+        @Test
+        @DisplayName("should route cursor requests to keyset pagination")
+        void shouldRouteCursorRequestsToKeysetPagination() throws Exception {
+            CursorPage<PostDto> page = CursorPage.<PostDto>builder()
+                    .content(List.of(createSamplePostDto()))
+                    .size(1)
+                    .hasNext(true)
+                    .nextCursor("next")
+                    .build();
+            given(postService.getPublishedPosts("", null, 1, "en")).willReturn(page);
+
+            mockMvc.perform(get("/api/posts/paged")
+                            .param("cursor", "")
+                            .param("size", "1")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.content", hasSize(1)))
+                    .andExpect(jsonPath("$.data.hasNext").value(true))
+                    .andExpect(jsonPath("$.data.nextCursor").value("next"));
+        }
+
+        @Test
+        @DisplayName("should return 400 for a malformed cursor")
+        void shouldReturn400ForMalformedCursor() throws Exception {
+            given(postService.getPublishedPosts("garbage", null, 10, "en"))
+                    .willThrow(new IllegalArgumentException("Invalid cursor"));
+
+            mockMvc.perform(get("/api/posts/paged")
+                            .param("cursor", "garbage")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Invalid cursor"));
+        }
+    }
+
+    @Nested
+    @DisplayName("conditional requests")
+    class ConditionalGets {
+
+        @Test
+        @DisplayName("should send validators that vary by Accept-Language")
+        void shouldSendValidators() throws Exception {
+            given(postService.getAllPublishedPosts("pl")).willReturn(List.of());
+
+            mockMvc.perform(get("/api/posts").header("Accept-Language", "pl"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", version.eTag("pl")))
+                    .andExpect(header().string("Last-Modified", "Wed, 01 May 2024 10:15:30 GMT"))
+                    .andExpect(header().stringValues("Vary", hasItem("Accept-Language")))
+                    .andExpect(header().string("Cache-Control", "no-cache"));
+        }
+
+        @Test
+        @DisplayName("should answer 304 without loading posts when the ETag matches")
+        void shouldShortCircuitOnMatchingETag() throws Exception {
+            mockMvc.perform(get("/api/posts/sample-post")
+                            .header("Accept-Language", "en")
+                            .header("If-None-Match", version.eTag("en")))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+
+            verifyNoInteractions(postService);
+        }
+
+        @Test
+        @DisplayName("should answer 304 when not modified since Last-Modified")
+        void shouldShortCircuitOnIfModifiedSince() throws Exception {
+            mockMvc.perform(get("/api/posts/hashtags")
+                            .header("If-Modified-Since", "Wed, 01 May 2024 10:15:30 GMT"))
+                    .andExpect(status().isNotModified());
+
+            verifyNoInteractions(postService);
+        }
+
+        @Test
+        @DisplayName("should return the body when the ETag belongs to another locale")
+        void shouldNotMatchOtherLocale() throws Exception {
+            given(postService.getAllPublishedPosts("pl")).willReturn(List.of(createSamplePostDto()));
+
+            mockMvc.perform(get("/api/posts")
+                            .header("Accept-Language", "pl")
+                            .header("If-None-Match", version.eTag("en")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data", hasSize(1)));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/posts/hashtags")
+    class GetHashtags {
+
+        @Test
+        @DisplayName("should return hashtags with published post counts")
+        void shouldReturnHashtagsWithCounts() throws Exception {
+            given(postService.getAllHashtags()).willReturn(List.of(new HashtagDto("Java", "java", 3)));
+
+            mockMvc.perform(get("/api/posts/hashtags")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data[0].name").value("Java"))
+                    .andExpect(jsonPath("$.data[0].count").value(3));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/posts/search")
+    class SearchPosts {
+
+        @Test
+        @DisplayName("should return ranked results in the requested locale")
+        void shouldReturnResults() throws Exception {
+            PostSearchResultDto result = PostSearchResultDto.builder()
+                    .slug("sample-post")
+                    .title("Przykładowy post")
+                    .headline("<mark>przykład</mark>")
+                    .build();
+            given(postService.searchPosts("przyklad", 5, "pl")).willReturn(List.of(result));
+
+            mockMvc.perform(get("/api/posts/search")
+                            .param("q", "przyklad")
+                            .param("limit", "5")
+                            .header("Accept-Language", "pl-PL")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data", hasSize(1)))
+                    .andExpect(jsonPath("$.data[0].slug").value("sample-post"))
+                    .andExpect(jsonPath("$.data[0].headline").value("<mark>przykład</mark>"));
+        }
+
+        @Test
+        @DisplayName("should return 400 when the query is missing")
+        void shouldReturn400WhenQueryMissing() throws Exception {
+            given(postService.searchPosts("", 20, "en"))
+                    .willThrow(new IllegalArgumentException("Search query must not be blank"));
+
+            mockMvc.perform(get("/api/posts/search")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
     @Nested
     @DisplayName("GET /api/posts/{slug}")
     class GetPostBySlug {
@@ -181,6 +344,35 @@ class PostControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /api/posts/{slug}/related")
+    class GetRelatedPosts {
+
+        @Test
+        @DisplayName("should return related posts with the default limit")
+        void shouldReturnRelatedPosts() throws Exception {
+            given(postService.getRelatedPosts("sample-post", 4, "pl")).willReturn(List.of(createSamplePostDto()));
+
+            mockMvc.perform(get("/api/posts/sample-post/related")
+                            .header("Accept-Language", "pl-PL")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data[0].slug").value("sample-post"));
+        }
+
+        @Test
+        @DisplayName("should return 404 when post not found")
+        void shouldReturn404WhenNotFound() throws Exception {
+            given(postService.getRelatedPosts("non-existent", 2, "en"))
+                    .willThrow(new jakarta.persistence.EntityNotFoundException("Post not found"));
+
+            mockMvc.perform(get("/api/posts/non-existent/related")
+                            .param("limit", "2")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
     @Nested
     @DisplayName("Language parsing")
     class LanguageParsing {
@@ -0,0 +1,88 @@
+package com.portfolio.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares serving post content as raw jsonb text with the previous
+ * parse-into-a-Map-then-serialize round trip by heap allocated per response, which
+ * unlike wall-clock time does not depend on what else the machine is running.
+ */
+@DisplayName("PostDto content serialization benchmark")
+class PostContentSerializationBenchmarkTest {
+
+    private static final int PARAGRAPHS = 2_000;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 200;
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String content = document(PARAGRAPHS);
+
+    @Test
+    @DisplayName("should embed stored content as a JSON object")
+    void shouldEmbedContentAsJsonObject() throws Exception {
+        String json = objectMapper.writeValueAsString(PostDto.builder().slug("post").content(content).build());
+
+        JsonNode body = objectMapper.readTree(json).get("content");
+        assertThat(body.isObject()).isTrue();
+        assertThat(body.get("content")).hasSize(PARAGRAPHS);
+        assertThat(body).isEqualTo(objectMapper.readTree(content));
+    }
+
+    @Test
+    @DisplayName("should write null content as JSON null")
+    void shouldWriteNullContent() throws Exception {
+        String json = objectMapper.writeValueAsString(PostDto.builder().slug("post").build());
+
+        assertThat(objectMapper.readTree(json).get("content").isNull()).isTrue();
+    }
+
+    @Test
+    @DisplayName("should allocate less than half of a Map round trip")
+    void shouldBeCheaperThanMapRoundTrip() throws Exception {
+        long tree = allocatedBytes(() -> objectMapper.writeValueAsString(
+                Map.of("slug", "post", "content", objectMapper.readValue(content, MAP_TYPE))));
+        long raw = allocatedBytes(() -> objectMapper.writeValueAsString(
+                PostDto.builder().slug("post").content(content).build()));
+
+        assertThat(raw)
+                .as("bytes per response for %d KB of content: raw=%d, map=%d", content.length() / 1024, raw, tree)
+                .isLessThan(tree / 2);
+    }
+
+    // Heap allocated per call on this thread, after warming up
+    private static long allocatedBytes(Callable<String> serialize) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        for (int i = 0; i < WARMUP; i++) {
+            assertThat(serialize.call()).isNotEmpty();
+        }
+        long startBytes = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            serialize.call();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - startBytes) / ITERATIONS;
+    }
+
+    private static String document(int paragraphs) {
+        StringJoiner content = new StringJoiner(",", "{\"type\":\"doc\",\"content\":[", "]}");
+        for (int i = 0; i < paragraphs; i++) {
+            content.add("{\"type\":\"paragraph\",\"content\":[{\"type\":\"text\",\"marks\":[{\"type\":\"bold\"}]," +
+                    "\"text\":\"Paragraph " + i + " of a reasonably long portfolio write-up.\"}]}");
+        }
+        return content.toString();
+    }
+}
@@ -0,0 +1,140 @@
+package com.portfolio.repository;
+
+import com.portfolio.entity.Category;
+import com.portfolio.entity.Post;
+import com.portfolio.service.AnalyticsBuffer;
+import com.portfolio.util.HyperLogLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the analytics rollup upserts. Runs the Flyway migrations,
+ * since sketches are merged by the hll_union database function.
+ * Requires Docker to be running. Tests will be skipped if Docker is unavailable.
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(AnalyticsRepository.class)
+@DisplayName("AnalyticsRepository")
+class AnalyticsRepositoryTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> true);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    private static final Instant HOUR = Instant.parse("2024-03-01T12:00:00Z");
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Autowired
+    private AnalyticsRepository analyticsRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        postRepository.deleteAll();
+        postRepository.saveAndFlush(Post.builder()
+                .category(Category.PROFESSIONAL_PROJECT)
+                .slug("kafka")
+                .titleEn("Kafka")
+                .titlePl("Kafka")
+                .published(true)
+                .build());
+    }
+
+    @Test
+    @DisplayName("should add repeated flushes of a page bucket together")
+    void shouldAccumulatePageViews() {
+        analyticsRepository.save(pages(new AnalyticsBuffer.PageCount(HOUR, "/", 3),
+                new AnalyticsBuffer.PageCount(HOUR, "/blog/kafka", 5)));
+        analyticsRepository.save(pages(new AnalyticsBuffer.PageCount(HOUR, "/", 2),
+                new AnalyticsBuffer.PageCount(HOUR.plusSeconds(3600), "/", 1)));
+
+        assertThat(analyticsRepository.findTopPages(HOUR, HOUR.plusSeconds(86400), 10)).containsExactly(
+                new AnalyticsRepository.PageViews("/", 6),
+                new AnalyticsRepository.PageViews("/blog/kafka", 5));
+        assertThat(analyticsRepository.findDailyViews(HOUR, HOUR.plusSeconds(86400)))
+                .containsExactly(new AnalyticsRepository.DailyViews(DAY, 11));
+    }
+
+    @Test
+    @DisplayName("should sum post views, union visitor sketches and skip unknown slugs")
+    void shouldMergePostViews() {
+        analyticsRepository.save(posts(new AnalyticsBuffer.PostCount(DAY, "kafka", 10, visitors(0, 50)),
+                new AnalyticsBuffer.PostCount(DAY, "missing", 4, visitors(0, 4))));
+        analyticsRepository.save(posts(new AnalyticsBuffer.PostCount(DAY, "kafka", 7, visitors(25, 100))));
+
+        List<AnalyticsRepository.PostDayViews> rows = analyticsRepository.findPostDays(DAY, DAY.plusDays(1));
+
+        assertThat(rows).singleElement().satisfies(row -> {
+            assertThat(row.slug()).isEqualTo("kafka");
+            assertThat(row.views()).isEqualTo(17);
+            assertThat(HyperLogLog.fromBytes(row.visitors()).estimate()).isBetween(98L, 102L);
+        });
+    }
+
+    @Test
+    @DisplayName("should union sketches register by register, like HyperLogLog.merge")
+    void shouldUnionLikeMerge() {
+        byte[] first = visitors(0, 3000);
+        byte[] second = visitors(2000, 6000);
+        HyperLogLog merged = HyperLogLog.fromBytes(first);
+        merged.merge(HyperLogLog.fromBytes(second));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT hll_union(?, ?)", byte[].class, first, second))
+                .isEqualTo(merged.toBytes());
+        assertThat(jdbcTemplate.queryForObject("SELECT hll_union(NULL, ?)", byte[].class, second))
+                .isEqualTo(second);
+    }
+
+    private static AnalyticsBuffer.Batch pages(AnalyticsBuffer.PageCount... pages) {
+        return new AnalyticsBuffer.Batch(List.of(pages), List.of());
+    }
+
+    private static AnalyticsBuffer.Batch posts(AnalyticsBuffer.PostCount... posts) {
+        return new AnalyticsBuffer.Batch(List.of(), List.of(posts));
+    }
+
+    private static byte[] visitors(int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        IntStream.range(from, to).forEach(i -> sketch.offer(HyperLogLog.hash("visitor-" + i)));
+        return sketch.toBytes();
+    }
+}
@@ -0,0 +1,113 @@
+package com.portfolio.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the content version triggers, which only act at commit, so
+ * these tests commit instead of rolling back.
+ * Requires Docker to be running. Tests will be skipped if Docker is unavailable.
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("ContentVersionRepository")
+class ContentVersionRepositoryTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> true);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired
+    private ContentVersionRepository contentVersionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long version(String table) {
+        return contentVersionRepository.findById(table).orElseThrow().getVersion();
+    }
+
+    // Statement triggers fire whether or not a row matches
+    private void touch(String table) {
+        jdbcTemplate.update("UPDATE " + table + " SET updated_at = updated_at WHERE false");
+    }
+
+    @Test
+    @DisplayName("should bump each table once per committed transaction")
+    void shouldBumpOncePerTransaction() {
+        long interests = version("interests");
+        long achievements = version("achievements");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            touch("interests");
+            touch("achievements");
+            touch("interests");
+            // Nothing is bumped, and so nothing locked, before the commit
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT version FROM content_versions WHERE table_name = 'interests'", Long.class))
+                    .isEqualTo(interests);
+        });
+
+        assertThat(version("interests")).isEqualTo(interests + 1);
+        assertThat(version("achievements")).isEqualTo(achievements + 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM content_version_changes", Long.class))
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("should leave versions alone when the transaction rolls back")
+    void shouldIgnoreRollback() {
+        long interests = version("interests");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            touch("interests");
+            status.setRollbackOnly();
+        });
+
+        assertThat(version("interests")).isEqualTo(interests);
+    }
+
+    @Test
+    @DisplayName("should bump statements outside a transaction too")
+    void shouldBumpAutocommit() {
+        long interests = version("interests");
+
+        touch("interests");
+
+        assertThat(version("interests")).isEqualTo(interests + 1);
+    }
+}
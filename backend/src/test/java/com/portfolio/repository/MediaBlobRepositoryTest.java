@@ -0,0 +1,67 @@
+package com.portfolio.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for blob reference counting.
+ * Requires Docker to be running. Tests will be skipped if Docker is unavailable.
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@DisplayName("MediaBlobRepository")
+class MediaBlobRepositoryTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> true);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    private static final String FILENAME = "images/" + "a".repeat(64) + ".png";
+
+    @Autowired
+    private MediaBlobRepository mediaBlobRepository;
+
+    @Test
+    @DisplayName("should count references up and down and remove the blob with the last one")
+    void shouldCountReferences() {
+        assertThat(mediaBlobRepository.acquire(FILENAME, "a".repeat(64), 10)).isEqualTo(1);
+        assertThat(mediaBlobRepository.acquire(FILENAME, "a".repeat(64), 10)).isEqualTo(2);
+
+        assertThat(mediaBlobRepository.release(FILENAME)).isEqualTo(1);
+        assertThat(mediaBlobRepository.findById(FILENAME)).get()
+                .extracting(blob -> blob.getRefCount()).isEqualTo(1);
+        assertThat(mediaBlobRepository.release(FILENAME)).isZero();
+        assertThat(mediaBlobRepository.existsById(FILENAME)).isFalse();
+    }
+
+    @Test
+    @DisplayName("should report unknown blobs")
+    void shouldReturnNullForUnknownBlob() {
+        assertThat(mediaBlobRepository.release("images/missing.png")).isNull();
+    }
+}
@@ -0,0 +1,139 @@
+package com.portfolio.repository;
+
+import com.portfolio.entity.Category;
+import com.portfolio.entity.Media;
+import com.portfolio.entity.MediaType;
+import com.portfolio.entity.Post;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the media usage totals.
+ * Requires Docker to be running. Tests will be skipped if Docker is unavailable.
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(MediaUsageRepository.class)
+@DisplayName("MediaUsageRepository")
+class MediaUsageRepositoryTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> true);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired
+    private MediaUsageRepository mediaUsageRepository;
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        post = postRepository.saveAndFlush(Post.builder()
+                .category(Category.PROFESSIONAL_PROJECT)
+                .slug("gallery")
+                .titleEn("Gallery")
+                .titlePl("Galeria")
+                .published(true)
+                .build());
+    }
+
+    @Test
+    @DisplayName("should add deltas to a total and return the new byte count")
+    void shouldAccumulate() {
+        assertThat(mediaUsageRepository.add(MediaUsageRepository.TYPE, "PDF", 1, 300)).isEqualTo(300);
+        assertThat(mediaUsageRepository.add(MediaUsageRepository.TYPE, "PDF", 2, 700)).isEqualTo(1000);
+        assertThat(mediaUsageRepository.add(MediaUsageRepository.TYPE, "PDF", -1, -300)).isEqualTo(700);
+
+        assertThat(mediaUsageRepository.findAll())
+                .contains(new MediaUsageRepository.Total(MediaUsageRepository.TYPE, "PDF", 2, 700));
+        assertThat(mediaUsageRepository.findBytes(MediaUsageRepository.TYPE, "PDF")).isEqualTo(700);
+    }
+
+    @Test
+    @DisplayName("should keep totals per post")
+    void shouldAccumulatePerPost() {
+        mediaUsageRepository.addToPost(post.getId(), 2, 500);
+        mediaUsageRepository.addToPost(post.getId(), -1, -100);
+
+        assertThat(mediaUsageRepository.findByPost(post.getId())).get()
+                .extracting(MediaUsageRepository.Total::files, MediaUsageRepository.Total::bytes)
+                .containsExactly(1L, 400L);
+    }
+
+    @Test
+    @DisplayName("should correct totals that drifted from the media rows")
+    void shouldRecompute() {
+        mediaRepository.saveAndFlush(media(MediaType.IMAGE, "images/a.png", 100));
+        mediaRepository.saveAndFlush(media(MediaType.IMAGE, "images/b.png", 50));
+        mediaUsageRepository.add(MediaUsageRepository.TYPE, "IMAGE", 1, 100);
+        mediaUsageRepository.add(MediaUsageRepository.TYPE, "VIDEO", 1, 900);
+        mediaUsageRepository.addToPost(post.getId(), 2, 150);
+
+        int corrected = mediaUsageRepository.recompute();
+
+        // IMAGE was short a file, VIDEO has none left; the post was right
+        assertThat(corrected).isEqualTo(2);
+        assertThat(mediaUsageRepository.findAll()).contains(
+                new MediaUsageRepository.Total(MediaUsageRepository.TYPE, "IMAGE", 2, 150),
+                new MediaUsageRepository.Total(MediaUsageRepository.TYPE, "VIDEO", 0, 0));
+        assertThat(mediaUsageRepository.recompute()).isZero();
+    }
+
+    @Test
+    @DisplayName("should not count embedded videos")
+    void shouldSkipEmbeddedVideos() {
+        mediaRepository.saveAndFlush(Media.builder()
+                .post(post)
+                .type(MediaType.YOUTUBE)
+                .url("https://www.youtube.com/embed/dQw4w9WgXcQ")
+                .build());
+
+        mediaUsageRepository.recompute();
+
+        assertThat(mediaUsageRepository.findBytes(MediaUsageRepository.TYPE, "YOUTUBE")).isZero();
+        assertThat(mediaUsageRepository.findByPost(post.getId())).isEmpty();
+    }
+
+    private Media media(MediaType type, String filename, long size) {
+        return Media.builder()
+                .post(post)
+                .type(type)
+                .filename(filename)
+                .size(size)
+                .url("/api/media/" + filename)
+                .build();
+    }
+}
@@ -293,6 +293,95 @@ class PostRepositoryTest {
         }
     }
 
+    @Nested
+    @DisplayName("derived fields")
+    class DerivedFields {
+
+        @Test
+        @DisplayName("should find posts derived by an older version")
+        void shouldFindStalePosts() {
+            publishedPost1.setDerivedVersion(1);
+            entityManager.flush();
+
+            List<Post> stale = postRepository.findDerivedBefore(1, PageRequest.of(0, 10));
+
+            assertThat(stale).extracting(Post::getSlug)
+                    .containsExactlyInAnyOrder("published-post-2", "draft-post");
+        }
+
+        @Test
+        @DisplayName("should write derived columns without touching updated_at")
+        void shouldWriteDerivedColumnsOnly() {
+            entityManager.clear();
+            Post post = postRepository.findDerivedBefore(1, PageRequest.of(0, 10)).stream()
+                    .filter(candidate -> candidate.getSlug().equals("published-post-1"))
+                    .findFirst()
+                    .orElseThrow();
+            var updatedAt = post.getUpdatedAt();
+            post.setWordCountEn(420);
+            post.setReadingMinutesEn(3);
+            post.setTocEn("[{\"level\": 2, \"text\": \"Setup\", \"anchor\": \"setup\"}]");
+            post.setPlainExcerptEn("Plain start");
+            post.setHasCaseStudy(true);
+            post.setDerivedVersion(1);
+
+            postRepository.updateDerivedFields(post);
+            entityManager.clear();
+
+            Post reloaded = entityManager.find(Post.class, post.getId());
+            assertThat(reloaded.getWordCountEn()).isEqualTo(420);
+            assertThat(reloaded.getTocEn()).contains("\"anchor\": \"setup\"");
+            assertThat(reloaded.getHasCaseStudy()).isTrue();
+            assertThat(reloaded.getDerivedVersion()).isEqualTo(1);
+            assertThat(reloaded.getUpdatedAt()).isEqualTo(updatedAt);
+        }
+
+        @Test
+        @DisplayName("should fall back to the plain excerpt in summaries")
+        void shouldFallBackToPlainExcerpt() {
+            publishedPost1.setPlainExcerptEn("From the content");
+            publishedPost2.setExcerptEn("Written");
+            publishedPost2.setPlainExcerptEn("Ignored");
+            entityManager.flush();
+
+            List<PostSummary> summaries = postRepository.findPublishedSummaries("en");
+
+            assertThat(summaries).extracting(PostSummary::excerpt)
+                    .containsExactly("From the content", "Written");
+        }
+    }
+
+    @Nested
+    @DisplayName("keyset pagination")
+    class KeysetPagination {
+
+        @Test
+        @DisplayName("should return first page ordered by displayOrder")
+        void shouldReturnFirstPage() {
+            List<Post> result = postRepository.findPublishedFirstPage(1);
+
+            assertThat(result).extracting(Post::getSlug).containsExactly("published-post-1");
+        }
+
+        @Test
+        @DisplayName("should continue strictly after the cursor row")
+        void shouldContinueAfterCursorRow() {
+            List<Post> result = postRepository.findPublishedPageAfter(
+                    publishedPost1.getDisplayOrder(), publishedPost1.getId(), 10);
+
+            assertThat(result).extracting(Post::getSlug).containsExactly("published-post-2");
+        }
+
+        @Test
+        @DisplayName("should filter by category")
+        void shouldFilterByCategory() {
+            List<Post> result = postRepository.findPublishedByCategoryFirstPage(
+                    Category.PROFESSIONAL_PROJECT.name(), 10);
+
+            assertThat(result).isEmpty();
+        }
+    }
+
     @Nested
     @DisplayName("updateDisplayOrder")
     class UpdateDisplayOrder {
@@ -0,0 +1,139 @@
+package com.portfolio.repository;
+
+import com.portfolio.entity.Category;
+import com.portfolio.entity.Post;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for full-text search. Runs the Flyway migrations, since the
+ * search columns are generated by the database and not mapped on the entity.
+ * Requires Docker to be running. Tests will be skipped if Docker is unavailable.
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@DisplayName("PostRepository search")
+class PostSearchRepositoryTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> true);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @BeforeEach
+    void setUp() {
+        postRepository.deleteAll();
+
+        postRepository.save(post("kubernetes-operators", "Writing Kubernetes operators", "Pisanie operatorów",
+                "Reconciling custom resources", "Źródło prawdy w klastrze",
+                "Operators watch resources and reconcile the cluster state.", true));
+        postRepository.save(post("caching-notes", "Caching notes", "Notatki o pamięci podręcznej",
+                "Mentions operators once", "Krótko",
+                "Nothing about clusters here.", true));
+        postRepository.save(post("draft-operators", "Draft about operators", "Szkic",
+                null, null, "Operators again.", false));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Nested
+    @DisplayName("searchPublishedEn")
+    class SearchEn {
+
+        @Test
+        @DisplayName("should rank title matches above excerpt matches and skip drafts")
+        void shouldRankTitleMatchesFirst() {
+            List<PostSearchHit> hits = postRepository.searchPublishedEn("operator", 500, 10);
+
+            assertThat(hits).extracting(PostSearchHit::getSlug)
+                    .containsExactly("kubernetes-operators", "caching-notes");
+            assertThat(hits.get(0).getRank()).isGreaterThan(hits.get(1).getRank());
+        }
+
+        @Test
+        @DisplayName("should match stemmed words from jsonb content and highlight them")
+        void shouldMatchContent() {
+            List<PostSearchHit> hits = postRepository.searchPublishedEn("reconciled", 500, 10);
+
+            assertThat(hits).extracting(PostSearchHit::getSlug).containsExactly("kubernetes-operators");
+            assertThat(hits.get(0).getHeadline())
+                    .contains(PostRepository.HIGHLIGHT_START + "reconcile" + PostRepository.HIGHLIGHT_STOP);
+        }
+
+        @Test
+        @DisplayName("should support exclusions")
+        void shouldSupportExclusions() {
+            List<PostSearchHit> hits = postRepository.searchPublishedEn("operators -kubernetes", 500, 10);
+
+            assertThat(hits).extracting(PostSearchHit::getSlug).containsExactly("caching-notes");
+        }
+    }
+
+    @Nested
+    @DisplayName("searchPublishedPl")
+    class SearchPl {
+
+        @Test
+        @DisplayName("should match Polish words without diacritics")
+        void shouldMatchWithoutDiacritics() {
+            List<PostSearchHit> hits = postRepository.searchPublishedPl("zrodlo", 500, 10);
+
+            assertThat(hits).extracting(PostSearchHit::getSlug).containsExactly("kubernetes-operators");
+            assertThat(hits.get(0).getTitle()).isEqualTo("Pisanie operatorów");
+            assertThat(hits.get(0).getHeadline())
+                    .contains(PostRepository.HIGHLIGHT_START + "Źródło" + PostRepository.HIGHLIGHT_STOP);
+        }
+    }
+
+    private static Post post(String slug, String titleEn, String titlePl, String excerptEn, String excerptPl,
+                             String body, boolean published) {
+        String content = "{\"type\": \"doc\", \"content\": [{\"type\": \"paragraph\", " +
+                "\"content\": [{\"type\": \"text\", \"text\": \"" + body + "\"}]}]}";
+        return Post.builder()
+                .category(Category.PERSONAL_PROJECT)
+                .slug(slug)
+                .titleEn(titleEn)
+                .titlePl(titlePl)
+                .excerptEn(excerptEn)
+                .excerptPl(excerptPl)
+                .contentEn(content)
+                .contentPl(content)
+                .published(published)
+                .build();
+    }
+}
@@ -0,0 +1,179 @@
+package com.portfolio.repository;
+
+import com.portfolio.entity.Category;
+import com.portfolio.entity.Post;
+import com.portfolio.entity.Tag;
+import com.portfolio.service.RelatedPostService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the related-posts lists. Runs the Flyway migrations, since
+ * scoring lives in the related_post_scores database function.
+ * Requires Docker to be running. Tests will be skipped if Docker is unavailable.
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(RelatedPostService.class)
+@DisplayName("PostSimilarityRepository")
+class PostSimilarityRepositoryTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> true);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostSimilarityRepository postSimilarityRepository;
+
+    @Autowired
+    private RelatedPostService relatedPostService;
+
+    private Post kafka;
+    private Post streams;
+    private Post caching;
+    private Post draft;
+
+    @BeforeEach
+    void setUp() {
+        postRepository.deleteAll();
+
+        kafka = save("kafka-consumers", "Tuning Kafka consumers", Category.PROFESSIONAL_PROJECT, true,
+                "kafka", "java");
+        streams = save("kafka-streams", "Kafka Streams joins", Category.PROFESSIONAL_PROJECT, true,
+                "kafka", "java");
+        caching = save("caching-notes", "Caching notes", Category.PROFESSIONAL_PROJECT, true,
+                "redis");
+        draft = save("kafka-draft", "Tuning Kafka drafts", Category.PROFESSIONAL_PROJECT, false,
+                "kafka", "java");
+        entityManager.flush();
+        relatedPostService.recompute(List.of(kafka.getId(), streams.getId(), caching.getId(), draft.getId()));
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("should rank shared tags and title words above category alone and skip drafts")
+    void shouldRankRelatedPosts() {
+        List<PostSummary> related = postSimilarityRepository.findRelatedSummaries(
+                "kafka-consumers", "en", PageRequest.of(0, 10));
+
+        assertThat(related).extracting(PostSummary::slug).containsExactly("kafka-streams", "caching-notes");
+    }
+
+    @Test
+    @DisplayName("should return nothing for a draft")
+    void shouldReturnNothingForDraft() {
+        assertThat(postSimilarityRepository.findRelatedSummaries("kafka-draft", "en", PageRequest.of(0, 10)))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("should add a newly published post to its neighbours' lists")
+    void shouldOfferPublishedPost() {
+        Post published = entityManager.find(Post.class, draft.getId());
+        published.setPublished(true);
+        entityManager.flush();
+
+        relatedPostService.refresh(published.getId());
+
+        assertThat(relatedSlugs("kafka-consumers")).startsWith("kafka-draft", "kafka-streams");
+        assertThat(relatedSlugs("kafka-draft")).containsExactly("kafka-consumers", "kafka-streams", "caching-notes");
+    }
+
+    @Test
+    @DisplayName("should drop an unpublished post from every list")
+    void shouldDropUnpublishedPost() {
+        Post unpublished = entityManager.find(Post.class, streams.getId());
+        unpublished.setPublished(false);
+        entityManager.flush();
+
+        relatedPostService.refresh(unpublished.getId());
+
+        assertThat(relatedSlugs("kafka-consumers")).containsExactly("caching-notes");
+        assertThat(relatedSlugs("kafka-streams")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should rebuild neighbour lists after a delete")
+    void shouldRebuildAfterDelete() {
+        List<UUID> neighbours = relatedPostService.findNeighbours(caching.getId());
+        postRepository.deleteById(caching.getId());
+
+        relatedPostService.recompute(neighbours);
+
+        assertThat(relatedSlugs("kafka-consumers")).containsExactly("kafka-streams");
+        assertThat(relatedSlugs("kafka-streams")).containsExactly("kafka-consumers");
+    }
+
+    private List<String> relatedSlugs(String slug) {
+        entityManager.clear();
+        return postSimilarityRepository.findRelatedSummaries(slug, "en", PageRequest.of(0, 10)).stream()
+                .map(PostSummary::slug)
+                .toList();
+    }
+
+    private Post save(String slug, String title, Category category, boolean published, String... tags) {
+        Set<Tag> tagEntities = Arrays.stream(tags)
+                .map(this::tag)
+                .collect(Collectors.toSet());
+        return postRepository.save(Post.builder()
+                .category(category)
+                .slug(slug)
+                .titleEn(title)
+                .titlePl(title)
+                .published(published)
+                .hashtags(tags)
+                .tags(tagEntities)
+                .build());
+    }
+
+    private Tag tag(String name) {
+        List<Tag> existing = entityManager.getEntityManager()
+                .createQuery("SELECT t FROM Tag t WHERE t.normalizedName = :name", Tag.class)
+                .setParameter("name", name)
+                .getResultList();
+        return existing.isEmpty()
+                ? entityManager.persist(Tag.builder().normalizedName(name).name(name).build())
+                : existing.get(0);
+    }
+}
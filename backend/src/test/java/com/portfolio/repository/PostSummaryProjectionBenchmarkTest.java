@@ -0,0 +1,145 @@
+package com.portfolio.repository;
+
+import com.portfolio.entity.Category;
+import com.portfolio.entity.Post;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares full {@link Post} listings with {@link PostSummary} projections:
+ * bytes fetched from Postgres and heap allocated per request.
+ * Requires Docker to be running. Tests will be skipped if Docker is unavailable.
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@DisplayName("PostSummary projection benchmark")
+class PostSummaryProjectionBenchmarkTest {
+
+    private static final int POSTS = 50;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> false);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        postRepository.deleteAll();
+        for (int i = 0; i < POSTS; i++) {
+            postRepository.save(Post.builder()
+                    .category(Category.PERSONAL_PROJECT)
+                    .titleEn("Post " + i)
+                    .titlePl("Wpis " + i)
+                    .slug("post-" + i)
+                    .excerptEn("Excerpt " + i)
+                    .excerptPl("Zajawka " + i)
+                    .contentEn(document(200))
+                    .contentPl(document(200))
+                    .caseStudyChallengeEn("Challenge ".repeat(100))
+                    .caseStudyChallengePl("Wyzwanie ".repeat(100))
+                    .caseStudySolutionEn("Solution ".repeat(100))
+                    .caseStudySolutionPl("Rozwiazanie ".repeat(100))
+                    .published(true)
+                    .displayOrder(i)
+                    .hashtags(new String[]{"java", "spring"})
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("should fetch fewer bytes than the full row")
+    void shouldFetchFewerBytes() {
+        Long fullRow = jdbcTemplate.queryForObject(
+                "SELECT SUM(pg_column_size(p.*)) FROM posts p WHERE published", Long.class);
+        Long projected = jdbcTemplate.queryForObject(
+                "SELECT SUM(pg_column_size(ROW(id, category, slug, title_en, excerpt_en, featured_image, " +
+                        "github_url, live_url, published, display_order, hashtags, created_at, updated_at))) " +
+                        "FROM posts WHERE published", Long.class);
+
+        assertThat(projected)
+                .as("bytes fetched for %d posts: projection=%d, full=%d", POSTS, projected, fullRow)
+                .isLessThan(fullRow / 10);
+    }
+
+    @Test
+    @DisplayName("should allocate less heap per listing than full entities")
+    void shouldAllocateLessHeap() {
+        long full = allocatedPerCall(() -> postRepository.findAllPublished());
+        long projected = allocatedPerCall(() -> postRepository.findPublishedSummaries("en"));
+
+        assertThat(projected)
+                .as("heap bytes per listing: projection=%d, full=%d", projected, full)
+                .isLessThan(full / 2);
+    }
+
+    private long allocatedPerCall(Supplier<List<?>> query) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        for (int i = 0; i < WARMUP; i++) {
+            assertThat(query.get()).hasSize(POSTS);
+            entityManager.clear();
+        }
+        long start = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+            entityManager.clear();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - start) / ITERATIONS;
+    }
+
+    private static String document(int paragraphs) {
+        StringJoiner content = new StringJoiner(", ", "{\"type\": \"doc\", \"content\": [", "]}");
+        for (int i = 0; i < paragraphs; i++) {
+            content.add("{\"type\": \"paragraph\", \"content\": [{\"type\": \"text\", " +
+                    "\"text\": \"Paragraph " + i + " of a reasonably long portfolio write-up.\"}]}");
+        }
+        return content.toString();
+    }
+}
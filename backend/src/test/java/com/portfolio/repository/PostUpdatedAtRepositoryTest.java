@@ -0,0 +1,114 @@
+package com.portfolio.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portfolio.entity.Category;
+import com.portfolio.entity.Post;
+import com.portfolio.service.PostContentAnalyzer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the posts' updated_at trigger, with the Flyway schema.
+ * Requires Docker to be running. Tests will be skipped if Docker is unavailable.
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@DisplayName("posts.updated_at")
+class PostUpdatedAtRepositoryTest {
+
+    private static final OffsetDateTime EDITED = OffsetDateTime.parse("2020-01-01T00:00:00Z");
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> true);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        post = postRepository.saveAndFlush(Post.builder()
+                .category(Category.PERSONAL_PROJECT)
+                .slug("old-post")
+                .titleEn("Old post")
+                .titlePl("Stary wpis")
+                .excerptEn("Written long ago")
+                .published(true)
+                .build());
+        // As left by a version before the derived columns
+        jdbcTemplate.update("UPDATE posts SET updated_at = ?, derived_version = 0 WHERE id = ?", EDITED, post.getId());
+        entityManager.clear();
+    }
+
+    private OffsetDateTime updatedAt() {
+        return jdbcTemplate.queryForObject("SELECT updated_at FROM posts WHERE id = ?", OffsetDateTime.class,
+                post.getId());
+    }
+
+    @Test
+    @DisplayName("should keep updated_at when the backfill writes the derived fields")
+    void shouldKeepUpdatedAtOnBackfill() {
+        assertThat(updatedAt()).isAtSameInstantAs(EDITED);
+        PostContentAnalyzer analyzer = new PostContentAnalyzer(new ObjectMapper());
+
+        // What PostDerivationBackfill does with each batch
+        List<Post> stale = postRepository.findDerivedBefore(PostContentAnalyzer.VERSION, PageRequest.of(0, 100));
+        assertThat(stale).extracting(Post::getId).containsExactly(post.getId());
+        for (Post stalePost : stale) {
+            analyzer.derive(stalePost);
+            postRepository.updateDerivedFields(stalePost);
+        }
+        entityManager.clear();
+
+        assertThat(postRepository.findDerivedBefore(PostContentAnalyzer.VERSION, PageRequest.of(0, 100))).isEmpty();
+        assertThat(updatedAt()).isAtSameInstantAs(EDITED);
+    }
+
+    @Test
+    @DisplayName("should still stamp updated_at when an editable column changes")
+    void shouldStampEdits() {
+        jdbcTemplate.update("UPDATE posts SET title_en = 'Renamed' WHERE id = ?", post.getId());
+
+        assertThat(updatedAt()).isAfter(EDITED);
+    }
+}
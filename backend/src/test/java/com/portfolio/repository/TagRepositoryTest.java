@@ -0,0 +1,123 @@
+package com.portfolio.repository;
+
+import com.portfolio.entity.Category;
+import com.portfolio.entity.Post;
+import com.portfolio.entity.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Integration tests for TagRepository using TestContainers.
+ * Requires Docker to be running. Tests will be skipped if Docker is unavailable.
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@DisplayName("TagRepository")
+class TagRepositoryTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.flyway.enabled", () -> false);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    private Tag java;
+    private Tag rust;
+
+    @BeforeEach
+    void setUp() {
+        postRepository.deleteAll();
+        tagRepository.deleteAll();
+
+        java = tagRepository.save(Tag.builder().normalizedName("java").name("Java").build());
+        rust = tagRepository.save(Tag.builder().normalizedName("rust").name("Rust").build());
+
+        postRepository.save(post("published-java", true, java));
+        postRepository.save(post("published-both", true, java, rust));
+        postRepository.save(post("draft-rust", false, rust));
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("should count only published posts per tag")
+    void shouldCountPublishedPosts() {
+        tagRepository.refreshPublishedPostCounts(Set.of(java.getId(), rust.getId()));
+        entityManager.clear();
+
+        assertThat(tagRepository.findPublished())
+                .extracting(Tag::getNormalizedName, Tag::getPublishedPostCount)
+                .containsExactly(
+                        tuple("java", 2),
+                        tuple("rust", 1));
+    }
+
+    @Test
+    @DisplayName("should find published posts by normalized tag")
+    void shouldFindPublishedPostsByTag() {
+        List<Post> posts = postRepository.findPublishedByTag("rust");
+
+        assertThat(posts).extracting(Post::getSlug).containsExactly("published-both");
+    }
+
+    @Test
+    @DisplayName("should ignore inserts of an existing normalized name")
+    void shouldIgnoreDuplicateInsert() {
+        tagRepository.insertIfAbsent(UUID.randomUUID(), "java", "JAVA");
+        entityManager.clear();
+
+        assertThat(tagRepository.findByNormalizedNameIn(Set.of("java")))
+                .extracting(Tag::getName)
+                .containsExactly("Java");
+    }
+
+    private static Post post(String slug, boolean published, Tag... tags) {
+        return Post.builder()
+                .category(Category.PERSONAL_PROJECT)
+                .slug(slug)
+                .titleEn(slug)
+                .titlePl(slug)
+                .published(published)
+                .displayOrder(0)
+                .tags(Set.of(tags))
+                .build();
+    }
+}
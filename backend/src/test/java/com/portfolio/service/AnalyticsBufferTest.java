@@ -0,0 +1,153 @@
+package com.portfolio.service;
+
+import com.portfolio.util.HyperLogLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("AnalyticsBuffer")
+class AnalyticsBufferTest {
+
+    private static final Instant NOON = Instant.parse("2024-03-01T12:15:00Z");
+
+    private final AnalyticsBuffer buffer = new AnalyticsBuffer(100);
+
+    @Nested
+    @DisplayName("drain")
+    class Drain {
+
+        @Test
+        @DisplayName("should roll views up by hour and page and by day and post")
+        void shouldRollUpViews() {
+            buffer.record(NOON, "/blog/a", "a", HyperLogLog.hash("v1"));
+            buffer.record(NOON.plusSeconds(60), "/blog/a", "a", HyperLogLog.hash("v2"));
+            buffer.record(NOON, "/", null, HyperLogLog.hash("v1"));
+
+            AnalyticsBuffer.Batch batch = buffer.drain(NOON);
+
+            assertThat(batch.pages()).containsExactlyInAnyOrder(
+                    new AnalyticsBuffer.PageCount(Instant.parse("2024-03-01T12:00:00Z"), "/blog/a", 2),
+                    new AnalyticsBuffer.PageCount(Instant.parse("2024-03-01T12:00:00Z"), "/", 1));
+            assertThat(batch.posts()).singleElement().satisfies(post -> {
+                assertThat(post.day()).isEqualTo(LocalDate.of(2024, 3, 1));
+                assertThat(post.slug()).isEqualTo("a");
+                assertThat(post.views()).isEqualTo(2);
+                assertThat(HyperLogLog.fromBytes(post.visitors()).estimate()).isEqualTo(2);
+            });
+        }
+
+        @Test
+        @DisplayName("should return nothing when no views arrived since the last drain")
+        void shouldResetCounters() {
+            buffer.record(NOON, "/blog/a", "a", HyperLogLog.hash("v1"));
+            buffer.drain(NOON);
+
+            assertThat(buffer.drain(NOON).isEmpty()).isTrue();
+        }
+
+        @Test
+        @DisplayName("should forget keys of buckets well in the past")
+        void shouldEvictOldKeys() {
+            AnalyticsBuffer single = new AnalyticsBuffer(1);
+            single.record(NOON, "/a", null, 1);
+            single.drain(NOON);
+            assertThat(single.record(NOON, "/b", null, 1)).isFalse();
+
+            single.drain(NOON.plusSeconds(3 * 3600));
+
+            assertThat(single.record(NOON.plusSeconds(3 * 3600), "/b", null, 1)).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("capacity")
+    class Capacity {
+
+        @Test
+        @DisplayName("should drop views of new keys once full but keep counting existing ones")
+        void shouldDropNewKeysWhenFull() {
+            AnalyticsBuffer small = new AnalyticsBuffer(2);
+            assertThat(small.record(NOON, "/a", null, 1)).isTrue();
+            assertThat(small.record(NOON, "/b", null, 1)).isTrue();
+
+            assertThat(small.record(NOON, "/c", null, 1)).isFalse();
+            assertThat(small.record(NOON, "/a", null, 1)).isTrue();
+            assertThat(small.droppedCount()).isEqualTo(1);
+            assertThat(small.drain(NOON).pages()).hasSize(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("restore")
+    class Restore {
+
+        @Test
+        @DisplayName("should add a failed batch to views recorded since")
+        void shouldRestoreFailedBatch() {
+            buffer.record(NOON, "/blog/a", "a", HyperLogLog.hash("v1"));
+            AnalyticsBuffer.Batch failed = buffer.drain(NOON);
+            buffer.record(NOON, "/blog/a", "a", HyperLogLog.hash("v2"));
+
+            buffer.restore(failed);
+            AnalyticsBuffer.Batch retried = buffer.drain(NOON);
+
+            assertThat(retried.pages()).singleElement()
+                    .extracting(AnalyticsBuffer.PageCount::views).isEqualTo(2L);
+            assertThat(retried.posts()).singleElement().satisfies(post -> {
+                assertThat(post.views()).isEqualTo(2);
+                assertThat(HyperLogLog.fromBytes(post.visitors()).estimate()).isEqualTo(2);
+            });
+        }
+    }
+
+    @Test
+    @DisplayName("should not lose views recorded concurrently with drains")
+    void shouldCountConcurrentViewsExactly() throws Exception {
+        int threads = 8;
+        int viewsPerThread = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < viewsPerThread; i++) {
+                        buffer.record(NOON, "/blog/a", "a", HyperLogLog.hash(thread + "-" + i));
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            long drained = 0;
+            while (!writers.stream().allMatch(Future::isDone)) {
+                drained += totalPageViews(buffer.drain(NOON));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            drained += totalPageViews(buffer.drain(NOON));
+
+            assertThat(drained).isEqualTo((long) threads * viewsPerThread);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long totalPageViews(AnalyticsBuffer.Batch batch) {
+        return batch.pages().stream().mapToLong(AnalyticsBuffer.PageCount::views).sum();
+    }
+}
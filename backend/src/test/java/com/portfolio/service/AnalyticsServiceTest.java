@@ -0,0 +1,153 @@
+package com.portfolio.service;
+
+import com.portfolio.dto.AnalyticsEventRequest;
+import com.portfolio.dto.AnalyticsSummaryDto;
+import com.portfolio.repository.AnalyticsRepository;
+import com.portfolio.util.HyperLogLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AnalyticsService")
+class AnalyticsServiceTest {
+
+    @Spy
+    private AnalyticsBuffer buffer = new AnalyticsBuffer(1000);
+
+    @Mock
+    private AnalyticsRepository analyticsRepository;
+
+    @InjectMocks
+    private AnalyticsService analyticsService;
+
+    private static AnalyticsEventRequest event(String path, String postSlug) {
+        AnalyticsEventRequest request = new AnalyticsEventRequest();
+        request.setPath(path);
+        request.setPostSlug(postSlug);
+        return request;
+    }
+
+    @Nested
+    @DisplayName("record")
+    class Record {
+
+        @Test
+        @DisplayName("should count a view without touching the database")
+        void shouldBufferView() {
+            assertThat(analyticsService.record(event("/blog/kafka?ref=x#top", "kafka"), "10.0.0.1", "Firefox"))
+                    .isTrue();
+
+            AnalyticsBuffer.Batch batch = buffer.drain(Instant.now());
+            assertThat(batch.pages()).extracting(AnalyticsBuffer.PageCount::path).containsExactly("/blog/kafka");
+            assertThat(batch.posts()).extracting(AnalyticsBuffer.PostCount::slug).containsExactly("kafka");
+            verify(analyticsRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("should ignore crawlers")
+        void shouldIgnoreBots() {
+            assertThat(analyticsService.record(event("/", null), "10.0.0.1", "Googlebot/2.1")).isFalse();
+
+            assertThat(buffer.drain(Instant.now()).isEmpty()).isTrue();
+        }
+
+        @Test
+        @DisplayName("should reject paths that are not absolute")
+        void shouldRejectRelativePath() {
+            assertThatThrownBy(() -> analyticsService.record(event("https://example.com/", null), "10.0.0.1", "Firefox"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("flush")
+    class Flush {
+
+        @Test
+        @DisplayName("should write buffered views as one batch")
+        void shouldSaveBatch() {
+            analyticsService.record(event("/", null), "10.0.0.1", "Firefox");
+
+            analyticsService.flush();
+
+            verify(analyticsRepository).save(any());
+            assertThat(buffer.drain(Instant.now()).isEmpty()).isTrue();
+        }
+
+        @Test
+        @DisplayName("should skip the database when nothing was recorded")
+        void shouldSkipEmptyBatch() {
+            analyticsService.flush();
+
+            verify(analyticsRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("should keep views for the next flush when the write fails")
+        void shouldRestoreOnFailure() {
+            analyticsService.record(event("/", null), "10.0.0.1", "Firefox");
+            willThrow(new IllegalStateException("down")).given(analyticsRepository).save(any());
+
+            analyticsService.flush();
+
+            assertThat(buffer.drain(Instant.now()).pages()).singleElement()
+                    .extracting(AnalyticsBuffer.PageCount::views).isEqualTo(1L);
+        }
+    }
+
+    @Nested
+    @DisplayName("getSummary")
+    class GetSummary {
+
+        @Test
+        @DisplayName("should sum views and union visitor sketches across days")
+        void shouldMergePostDays() {
+            UUID postId = UUID.randomUUID();
+            given(analyticsRepository.findPostDays(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 3)))
+                    .willReturn(List.of(
+                            new AnalyticsRepository.PostDayViews(postId, "kafka", "Kafka", 30, visitors(0, 20)),
+                            new AnalyticsRepository.PostDayViews(postId, "kafka", "Kafka", 25, visitors(10, 30))));
+
+            AnalyticsSummaryDto summary = analyticsService.getSummary(
+                    LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 2));
+
+            assertThat(summary.getPosts()).singleElement().satisfies(post -> {
+                assertThat(post.getViews()).isEqualTo(55);
+                assertThat(post.getUniqueVisitors()).isBetween(29L, 31L);
+            });
+        }
+
+        @Test
+        @DisplayName("should reject a range that ends before it starts")
+        void shouldRejectInvertedRange() {
+            assertThatThrownBy(() -> analyticsService.getSummary(LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 1)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        private static byte[] visitors(int from, int to) {
+            HyperLogLog sketch = new HyperLogLog();
+            IntStream.range(from, to).forEach(i -> sketch.offer(HyperLogLog.hash("visitor-" + i)));
+            return sketch.toBytes();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.portfolio.service;
+
+import com.portfolio.entity.ContentVersion;
+import com.portfolio.repository.ContentVersionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ContentVersionService")
+class ContentVersionServiceTest {
+
+    @Mock
+    private ContentVersionRepository contentVersionRepository;
+
+    @InjectMocks
+    private ContentVersionService contentVersionService;
+
+    @Test
+    @DisplayName("should sum versions and take the latest change time")
+    void shouldCombineTables() {
+        given(contentVersionRepository.findAllById(ContentVersionService.POSTS)).willReturn(List.of(
+                new ContentVersion("posts", 7L, OffsetDateTime.parse("2024-05-01T10:00:00Z")),
+                new ContentVersion("media", 3L, OffsetDateTime.parse("2024-05-02T08:30:00Z")),
+                new ContentVersion("tags", 5L, OffsetDateTime.parse("2024-04-01T00:00:00Z"))));
+
+        ContentVersionService.Version version = contentVersionService.current(ContentVersionService.POSTS);
+
+        assertThat(version.value()).isEqualTo(15);
+        assertThat(version.lastModified()).isEqualTo(Instant.parse("2024-05-02T08:30:00Z"));
+    }
+
+    @Test
+    @DisplayName("should tag each locale separately")
+    void shouldTagEachLocale() {
+        ContentVersionService.Version version = new ContentVersionService.Version(255, Instant.ofEpochMilli(1000));
+
+        assertThat(version.eTag("en")).isEqualTo("W/\"ff-1000-en\"");
+        assertThat(version.eTag("pl")).isNotEqualTo(version.eTag("en"));
+        assertThat(version.eTag(null)).isEqualTo("W/\"ff-1000\"");
+    }
+}
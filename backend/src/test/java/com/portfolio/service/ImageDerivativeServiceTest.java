@@ -0,0 +1,193 @@
+package com.portfolio.service;
+
+import com.portfolio.repository.MediaBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("ImageDerivativeService")
+class ImageDerivativeServiceTest {
+
+    @TempDir
+    Path root;
+
+    private StorageService storageService;
+    private ImageDerivativeService imageDerivativeService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore();
+        ReflectionTestUtils.setField(blobStore, "uploadPath", root.toString());
+        blobStore.init();
+        storageService = new StorageService(mock(MediaBlobRepository.class), blobStore, mock(MediaCache.class),
+                mock(MediaUsageService.class));
+        ReflectionTestUtils.setField(storageService, "uploadPath", root.toString());
+        ReflectionTestUtils.setField(storageService, "allowedTypes", "image/png,image/jpeg");
+        storageService.init();
+        imageDerivativeService = spy(new ImageDerivativeService(storageService, List.of(160, 320, 480)));
+        Files.createDirectories(root.resolve("images"));
+    }
+
+    private Path image(String name, int width, int height, String format) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(width / 2, 0, width - width / 2, height);
+        graphics.dispose();
+        Path file = root.resolve("images").resolve(name);
+        ImageIO.write(image, format, file.toFile());
+        return file;
+    }
+
+    private static BufferedImage read(Path file) throws Exception {
+        return ImageIO.read(file.toFile());
+    }
+
+    @Nested
+    @DisplayName("resolve")
+    class Resolve {
+
+        @Test
+        @DisplayName("should render a width-bounded derivative next to the original")
+        void shouldRenderByWidth() throws Exception {
+            Path original = image("photo.jpg", 1200, 800, "jpeg");
+
+            Path derivative = imageDerivativeService.resolve("images/photo.jpg", 480, null, null).localPath();
+
+            assertThat(derivative).isEqualTo(original.resolveSibling("photo.d-w480.jpg"));
+            BufferedImage resized = read(derivative);
+            assertThat(resized.getWidth()).isEqualTo(480);
+            assertThat(resized.getHeight()).isEqualTo(320);
+        }
+
+        @Test
+        @DisplayName("should fill and centre-crop the box for fit=cover")
+        void shouldCover() throws Exception {
+            image("photo.png", 1200, 800, "png");
+
+            Path derivative = imageDerivativeService.resolve("images/photo.png", 320, 320, "cover").localPath();
+
+            assertThat(derivative.getFileName()).hasToString("photo.d-w320h320-cover.png");
+            BufferedImage resized = read(derivative);
+            assertThat(resized.getWidth()).isEqualTo(320);
+            assertThat(resized.getHeight()).isEqualTo(320);
+            assertThat(new Color(resized.getRGB(10, 160))).isEqualTo(Color.RED);
+            assertThat(new Color(resized.getRGB(310, 160))).isEqualTo(Color.BLUE);
+        }
+
+        @Test
+        @DisplayName("should fit inside the box for fit=contain")
+        void shouldContain() throws Exception {
+            image("photo.png", 1200, 800, "png");
+
+            BufferedImage resized = read(imageDerivativeService.resolve("images/photo.png", 320, 320, "contain").localPath());
+
+            assertThat(resized.getWidth()).isEqualTo(320);
+            assertThat(resized.getHeight()).isEqualTo(213);
+        }
+
+        @Test
+        @DisplayName("should serve the original instead of upscaling")
+        void shouldNotUpscale() throws Exception {
+            Path original = image("small.png", 200, 100, "png");
+
+            assertThat(imageDerivativeService.resolve("images/small.png", 480, null, null).localPath()).isEqualTo(original);
+            assertThat(original.resolveSibling("small.d-w480.png")).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("should serve formats it does not resize as they are")
+        void shouldPassThroughOtherFormats() throws Exception {
+            Path gif = Files.write(root.resolve("images/anim.gif"), "GIF89a".getBytes());
+
+            assertThat(imageDerivativeService.resolve("images/anim.gif", 160, null, null).localPath()).isEqualTo(gif);
+            verify(imageDerivativeService, never()).render(any(), any(), anyString(), anyInt(), any(), any());
+        }
+
+        @Test
+        @DisplayName("should render once and reuse the stored derivative afterwards")
+        void shouldReuseDerivative() throws Exception {
+            image("photo.jpg", 1200, 800, "jpeg");
+
+            StorageService.StoredFile first = imageDerivativeService.resolve("images/photo.jpg", 160, null, null);
+            StorageService.StoredFile second = imageDerivativeService.resolve("images/photo.jpg", 160, null, null);
+
+            assertThat(second).isEqualTo(first);
+            verify(imageDerivativeService, times(1)).render(any(), any(), anyString(), anyInt(), any(), any());
+        }
+
+        @Test
+        @DisplayName("should coalesce concurrent requests for the same missing derivative")
+        void shouldCoalesceConcurrentRenders() throws Exception {
+            image("photo.jpg", 1200, 800, "jpeg");
+            CountDownLatch waiting = new CountDownLatch(1);
+            doAnswer(invocation -> {
+                // Hold the render until every other request has queued behind it
+                waiting.await();
+                return invocation.callRealMethod();
+            }).when(imageDerivativeService).render(any(), any(), anyString(), anyInt(), any(), any());
+
+            int requests = 8;
+            ExecutorService executor = Executors.newFixedThreadPool(requests);
+            try {
+                List<Future<StorageService.StoredFile>> results = new ArrayList<>();
+                for (int i = 0; i < requests; i++) {
+                    results.add(executor.submit(() -> imageDerivativeService.resolve("images/photo.jpg", 320, null, null)));
+                }
+                Thread.sleep(200);
+                waiting.countDown();
+                for (Future<StorageService.StoredFile> result : results) {
+                    assertThat(result.get().name()).isEqualTo("photo.d-w320.jpg");
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            verify(imageDerivativeService, times(1)).render(any(), any(), anyString(), anyInt(), any(), any());
+        }
+
+        @Test
+        @DisplayName("should reject sizes outside the allowlist and unknown fits")
+        void shouldRejectUnknownParameters() throws Exception {
+            image("photo.jpg", 1200, 800, "jpeg");
+
+            assertThatThrownBy(() -> imageDerivativeService.resolve("images/photo.jpg", 500, null, null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("[160, 320, 480]");
+            assertThatThrownBy(() -> imageDerivativeService.resolve("images/photo.jpg", 480, 999, null))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> imageDerivativeService.resolve("images/photo.jpg", 480, 320, "stretch"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("cover");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.portfolio.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ImageMetadataExtractor")
+class ImageMetadataExtractorTest {
+
+    private final ImageMetadataExtractor extractor = new ImageMetadataExtractor();
+
+    @TempDir
+    Path dir;
+
+    private Path image(int width, int height, String format) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        Path file = dir.resolve("image." + format);
+        ImageIO.write(image, format, file.toFile());
+        return file;
+    }
+
+    @Test
+    @DisplayName("should read the size and a 4x3 placeholder of a landscape image")
+    void shouldExtractLandscape() throws Exception {
+        ImageMetadataExtractor.ImageMetadata metadata = extractor.extract(image(1600, 900, "jpg"));
+
+        assertThat(metadata.width()).isEqualTo(1600);
+        assertThat(metadata.height()).isEqualTo(900);
+        assertThat(metadata.placeholder()).hasSize(28).startsWith("L");
+    }
+
+    @Test
+    @DisplayName("should use more vertical components for portrait images")
+    void shouldExtractPortrait() throws Exception {
+        ImageMetadataExtractor.ImageMetadata metadata = extractor.extract(image(300, 500, "png"));
+
+        assertThat(metadata.width()).isEqualTo(300);
+        assertThat(metadata.height()).isEqualTo(500);
+        // Size flag (3 - 1) + (4 - 1) * 9 = 29 is 'T' in base 83
+        assertThat(metadata.placeholder()).hasSize(28).startsWith("T");
+    }
+
+    @Test
+    @DisplayName("should return null for files that are not readable images")
+    void shouldIgnoreNonImages() throws Exception {
+        Path file = Files.writeString(dir.resolve("notes.png"), "not really a png");
+
+        assertThat(extractor.extract(file)).isNull();
+    }
+}
@@ -0,0 +1,194 @@
+package com.portfolio.service;
+
+import com.portfolio.repository.MediaBlobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("ImageOptimizer")
+class ImageOptimizerTest {
+
+    private static final int MAX_EDGE = 400;
+
+    @TempDir
+    Path root;
+
+    private StorageService storageService;
+    private ImageOptimizer imageOptimizer;
+
+    @BeforeEach
+    void setUp() {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore();
+        ReflectionTestUtils.setField(blobStore, "uploadPath", root.toString());
+        blobStore.init();
+        storageService = new StorageService(mock(MediaBlobRepository.class), blobStore, mock(MediaCache.class),
+                mock(MediaUsageService.class));
+        ReflectionTestUtils.setField(storageService, "uploadPath", root.toString());
+        ReflectionTestUtils.setField(storageService, "allowedTypes", "image/png,image/jpeg,video/mp4");
+        ReflectionTestUtils.setField(storageService, "maxFileSize", DataSize.ofMegabytes(10));
+        storageService.init();
+        imageOptimizer = new ImageOptimizer(storageService, true, MAX_EDGE, 0.85f, 1, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageOptimizer.shutdown();
+    }
+
+    // Left half red, right half blue, so orientation can be told from the pixels
+    private static BufferedImage image(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, x < width / 2 ? 0xFF0000 : 0x0000FF);
+            }
+        }
+        return image;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, format, output);
+        return output.toByteArray();
+    }
+
+    // Inserts segments right after SOI, as cameras do
+    private static byte[] withSegments(byte[] jpeg, byte[]... segments) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(jpeg, 0, 2);
+        for (byte[] segment : segments) {
+            output.writeBytes(segment);
+        }
+        output.write(jpeg, 2, jpeg.length - 2);
+        return output.toByteArray();
+    }
+
+    private static byte[] segment(int marker, byte[] payload) {
+        return ByteBuffer.allocate(4 + payload.length)
+                .put((byte) 0xFF).put((byte) marker).putShort((short) (payload.length + 2)).put(payload)
+                .array();
+    }
+
+    // Minimal big-endian Exif block with a single IFD0 entry: the orientation tag
+    private static byte[] exifOrientation(int orientation) {
+        return segment(0xE1, ByteBuffer.allocate(6 + 8 + 2 + 12 + 4)
+                .put("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1))
+                .put(new byte[]{'M', 'M', 0, 42}).putInt(8)
+                .putShort((short) 1)
+                .putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0)
+                .putInt(0)
+                .array());
+    }
+
+    private StorageService.StagedFile stage(byte[] content, String name) throws Exception {
+        return storageService.stage(new ByteArrayInputStream(content), name);
+    }
+
+    private StorageService.StagedFile optimize(StorageService.StagedFile staged) {
+        return imageOptimizer.optimize(staged).join();
+    }
+
+    @Nested
+    @DisplayName("optimize")
+    class Optimize {
+
+        @Test
+        @DisplayName("should scale images down to the maximum edge")
+        void shouldCapLongestEdge() throws Exception {
+            StorageService.StagedFile staged = stage(encode(image(1600, 800), "jpg"), "wide.jpg");
+
+            StorageService.StagedFile optimized = optimize(staged);
+
+            BufferedImage result = ImageIO.read(optimized.path().toFile());
+            assertThat(result.getWidth()).isEqualTo(MAX_EDGE);
+            assertThat(result.getHeight()).isEqualTo(MAX_EDGE / 2);
+            assertThat(optimized.size()).isEqualTo(Files.size(optimized.path())).isLessThan(staged.size());
+            assertThat(optimized.filename()).isEqualTo("images/" + optimized.sha256() + ".jpg");
+            assertThat(staged.path()).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("should rotate according to the EXIF orientation and drop the tag")
+        void shouldApplyOrientation() throws Exception {
+            // Orientation 6: the stored pixels must be turned 90 degrees clockwise
+            byte[] jpeg = withSegments(encode(image(200, 100), "jpg"), exifOrientation(6));
+            StorageService.StagedFile staged = stage(jpeg, "phone.jpg");
+            assertThat(ImageOptimizer.readOrientation(staged.path())).isEqualTo(6);
+
+            StorageService.StagedFile optimized = optimize(staged);
+
+            BufferedImage result = ImageIO.read(optimized.path().toFile());
+            assertThat(result.getWidth()).isEqualTo(100);
+            assertThat(result.getHeight()).isEqualTo(200);
+            // The left (red) half of the stored image is now on top
+            assertThat(new Color(result.getRGB(50, 20)).getRed()).isGreaterThan(200);
+            assertThat(new Color(result.getRGB(50, 180)).getBlue()).isGreaterThan(200);
+            assertThat(ImageOptimizer.readOrientation(optimized.path())).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should strip metadata segments from images within bounds")
+        void shouldStripMetadata() throws Exception {
+            byte[] gps = new byte[4000];
+            System.arraycopy("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1), 0, gps, 0, 6);
+            byte[] jpeg = withSegments(encode(image(200, 100), "jpg"),
+                    segment(0xE1, gps), segment(0xFE, "Shot on a phone".getBytes(StandardCharsets.US_ASCII)));
+
+            StorageService.StagedFile optimized = optimize(stage(jpeg, "small.jpg"));
+
+            byte[] content = Files.readAllBytes(optimized.path());
+            assertThat(new String(content, StandardCharsets.ISO_8859_1)).doesNotContain("Exif").doesNotContain("Shot on");
+            assertThat(content.length).isLessThan(jpeg.length);
+            assertThat(ImageIO.read(optimized.path().toFile()).getWidth()).isEqualTo(200);
+        }
+
+        @Test
+        @DisplayName("should leave PNGs within bounds as uploaded")
+        void shouldKeepSmallPng() throws Exception {
+            StorageService.StagedFile staged = stage(encode(image(200, 100), "png"), "diagram.png");
+
+            assertThat(optimize(staged)).isSameAs(staged);
+            assertThat(staged.path()).exists();
+        }
+
+        @Test
+        @DisplayName("should store undecodable images as uploaded")
+        void shouldKeepUndecodableImage() throws Exception {
+            byte[] broken = new byte[64];
+            broken[0] = (byte) 0xFF;
+            broken[1] = (byte) 0xD8;
+            broken[2] = (byte) 0xFF;
+            StorageService.StagedFile staged = stage(broken, "broken.jpg");
+
+            assertThat(optimize(staged)).isSameAs(staged);
+            assertThat(staged.path()).exists();
+        }
+
+        @Test
+        @DisplayName("should pass other types through without queuing")
+        void shouldSkipOtherTypes() throws Exception {
+            byte[] mp4 = "\0\0\0\u0018ftypmp42 video".getBytes(StandardCharsets.ISO_8859_1);
+            StorageService.StagedFile staged = stage(mp4, "clip.mp4");
+
+            assertThat(imageOptimizer.optimize(staged)).isCompletedWithValue(staged);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.portfolio.service;
+
+import com.portfolio.dto.CacheStatsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("MediaCache")
+class MediaCacheTest {
+
+    private static final String KEY = "images/ab/cd/photo.png";
+
+    @TempDir
+    Path root;
+
+    private FileSystemBlobStore blobStore;
+    private MediaCache mediaCache;
+
+    @BeforeEach
+    void setUp() {
+        blobStore = new FileSystemBlobStore();
+        ReflectionTestUtils.setField(blobStore, "uploadPath", root.toString());
+        blobStore.init();
+        mediaCache = new MediaCache(blobStore);
+        ReflectionTestUtils.setField(mediaCache, "enabled", true);
+        ReflectionTestUtils.setField(mediaCache, "maxSize", DataSize.ofKilobytes(1));
+        ReflectionTestUtils.setField(mediaCache, "maxFileSize", DataSize.ofBytes(600));
+        ReflectionTestUtils.setField(mediaCache, "expireAfter", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(mediaCache, "admitAfter", 2);
+        ReflectionTestUtils.setField(mediaCache, "candidates", 100);
+        ReflectionTestUtils.setField(mediaCache, "candidateTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(mediaCache, "accelRedirect", "");
+        mediaCache.init();
+    }
+
+    private StorageService.StoredFile file(String key, int size) throws Exception {
+        Path file = root.resolve(key);
+        Files.createDirectories(file.getParent());
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) i;
+        }
+        Files.write(file, content);
+        return new StorageService.StoredFile(key, size, Instant.now(), file);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    @Nested
+    @DisplayName("offer")
+    class Offer {
+
+        @Test
+        @DisplayName("should admit a file only once it has been served often enough")
+        void shouldAdmitOnRepeatedServes() throws Exception {
+            StorageService.StoredFile file = file(KEY, 100);
+
+            mediaCache.offer(file);
+            assertThat(mediaCache.get(KEY)).isEmpty();
+            mediaCache.offer(file);
+
+            StorageService.StoredFile cached = mediaCache.get(KEY).orElseThrow();
+            assertThat(cached.content().isDirect()).isTrue();
+            assertThat(cached.content().isReadOnly()).isTrue();
+            assertThat(bytes(cached.content())).isEqualTo(Files.readAllBytes(file.localPath()));
+            assertThat(cached.size()).isEqualTo(100);
+        }
+
+        @Test
+        @DisplayName("should read files of a remote store into a direct buffer")
+        void shouldLoadRemoteFile() throws Exception {
+            StorageService.StoredFile local = file(KEY, 100);
+            StorageService.StoredFile remote = new StorageService.StoredFile(KEY, 100, local.lastModified(), null);
+
+            mediaCache.offer(remote);
+            mediaCache.offer(remote);
+
+            ByteBuffer content = mediaCache.get(KEY).orElseThrow().content();
+            assertThat(content.isDirect()).isTrue();
+            assertThat(bytes(content)).isEqualTo(Files.readAllBytes(local.localPath()));
+        }
+
+        @Test
+        @DisplayName("should never cache files over the size threshold")
+        void shouldSkipLargeFiles() throws Exception {
+            StorageService.StoredFile file = file(KEY, 700);
+
+            for (int i = 0; i < 5; i++) {
+                mediaCache.offer(file);
+            }
+
+            assertThat(mediaCache.get(KEY)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should leave local files to nginx when it serves them")
+        void shouldSkipLocalFilesBehindAccelRedirect() throws Exception {
+            ReflectionTestUtils.setField(mediaCache, "accelRedirect", "/internal-media/");
+            StorageService.StoredFile file = file(KEY, 100);
+
+            mediaCache.offer(file);
+            mediaCache.offer(file);
+
+            assertThat(mediaCache.get(KEY)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should do nothing when disabled")
+        void shouldDoNothingWhenDisabled() throws Exception {
+            ReflectionTestUtils.setField(mediaCache, "enabled", false);
+            StorageService.StoredFile file = file(KEY, 100);
+
+            mediaCache.offer(file);
+            mediaCache.offer(file);
+
+            assertThat(mediaCache.get(KEY)).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("should drop a file when it is invalidated")
+    void shouldInvalidate() throws Exception {
+        StorageService.StoredFile file = file(KEY, 100);
+        mediaCache.offer(file);
+        mediaCache.offer(file);
+
+        mediaCache.invalidate(KEY);
+
+        assertThat(mediaCache.get(KEY)).isEmpty();
+        // Counting starts over after an invalidation
+        mediaCache.offer(file);
+        assertThat(mediaCache.get(KEY)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should expire a file some time after loading it")
+    void shouldExpire() throws Exception {
+        ReflectionTestUtils.setField(mediaCache, "expireAfter", Duration.ofMillis(50));
+        mediaCache.init();
+        StorageService.StoredFile file = file(KEY, 100);
+        mediaCache.offer(file);
+        mediaCache.offer(file);
+        assertThat(mediaCache.get(KEY)).isPresent();
+
+        // As if deleted on another instance: nothing here invalidates it
+        Thread.sleep(100);
+
+        assertThat(mediaCache.get(KEY)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should report entries, bytes held, hits and misses")
+    void shouldReportStats() throws Exception {
+        StorageService.StoredFile file = file(KEY, 100);
+        mediaCache.get(KEY);
+        mediaCache.offer(file);
+        mediaCache.offer(file);
+        mediaCache.get(KEY);
+        mediaCache.get(KEY);
+        mediaCache.invalidate("images/other.png");
+
+        CacheStatsDto stats = mediaCache.getStats();
+
+        assertThat(stats.getName()).isEqualTo("media");
+        assertThat(stats.getSize()).isEqualTo(1);
+        assertThat(stats.getBytes()).isEqualTo(100);
+        assertThat(stats.getHitCount()).isEqualTo(2);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getInvalidationCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,246 @@
+package com.portfolio.service;
+
+import com.portfolio.dto.MediaReconciliationDto;
+import com.portfolio.entity.MediaBlob;
+import com.portfolio.repository.MediaBlobRepository;
+import com.portfolio.repository.MediaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MediaReconciler")
+class MediaReconcilerTest {
+
+    private static final String SHA = "ab".repeat(32);
+    private static final String REFERENCED = "images/" + SHA + ".jpg";
+    private static final String REFERENCED_KEY = "images/ab/ab/" + SHA + ".jpg";
+    private static final String ORPHAN_SHA = "cd".repeat(32);
+    private static final String ORPHAN_KEY = "images/cd/cd/" + ORPHAN_SHA + ".jpg";
+
+    @Mock
+    private MediaRepository mediaRepository;
+
+    @Mock
+    private MediaBlobRepository mediaBlobRepository;
+
+    @Mock
+    private MediaCache mediaCache;
+
+    @Mock
+    private MediaUsageService mediaUsageService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path root;
+
+    private MediaReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore();
+        ReflectionTestUtils.setField(blobStore, "uploadPath", root.toString());
+        blobStore.init();
+        StorageService storageService = new StorageService(mediaBlobRepository, blobStore, mediaCache, mediaUsageService);
+        ReflectionTestUtils.setField(storageService, "uploadPath", root.toString());
+        ReflectionTestUtils.setField(storageService, "allowedTypes", "image/jpeg");
+        storageService.init();
+
+        reconciler = new MediaReconciler(mediaRepository, mediaBlobRepository, storageService, blobStore,
+                mediaUsageService, transactionManager);
+        ReflectionTestUtils.setField(reconciler, "minAge", Duration.ofHours(1));
+        ReflectionTestUtils.setField(reconciler, "parallelism", 2);
+    }
+
+    private Path file(String key, int size, Duration age) throws Exception {
+        Path file = root.resolve(key);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+        return file;
+    }
+
+    private void givenFilenames(String... filenames) {
+        given(mediaRepository.findFilenamesAfter(eq(""), anyInt())).willReturn(List.of(filenames));
+    }
+
+    @Nested
+    @DisplayName("dry run")
+    class DryRun {
+
+        @Test
+        @DisplayName("should count orphans and dangling rows without touching files")
+        void shouldReportOnly() throws Exception {
+            file(REFERENCED_KEY, 100, Duration.ofDays(2));
+            Path orphan = file(ORPHAN_KEY, 40, Duration.ofDays(2));
+            givenFilenames(REFERENCED, "documents/missing.pdf");
+
+            MediaReconciliationDto report = reconciler.reconcile(MediaReconciler.OrphanAction.DELETE, true);
+
+            assertThat(report.getScannedFiles()).isEqualTo(2);
+            assertThat(report.getScannedBytes()).isEqualTo(140);
+            assertThat(report.getReferencedFiles()).isEqualTo(2);
+            assertThat(report.getOrphans()).containsExactly(ORPHAN_KEY);
+            assertThat(report.getOrphanBytes()).isEqualTo(40);
+            assertThat(report.getReclaimedBytes()).isEqualTo(40);
+            assertThat(report.getDangling()).containsExactly("documents/missing.pdf");
+            assertThat(orphan).exists();
+            verify(mediaRepository, never()).existsByFilename(anyString());
+        }
+
+        @Test
+        @DisplayName("should leave young files, renditions of stored files and internal areas alone")
+        void shouldSkipWhatMayBeInUse() throws Exception {
+            file(REFERENCED_KEY, 100, Duration.ofDays(2));
+            file("images/ab/ab/" + SHA + ".d-w480.jpg", 10, Duration.ofDays(2));
+            file("videos/fresh.mp4", 10, Duration.ofMinutes(5));
+            file(".staging/upload", 10, Duration.ofDays(2));
+            file(".quarantine/images/old.jpg", 10, Duration.ofDays(2));
+            givenFilenames(REFERENCED);
+
+            MediaReconciliationDto report = reconciler.reconcile(MediaReconciler.OrphanAction.DELETE, true);
+
+            assertThat(report.getScannedFiles()).isEqualTo(3);
+            assertThat(report.getOrphanFiles()).isZero();
+            assertThat(report.getDanglingFiles()).isZero();
+        }
+
+        @Test
+        @DisplayName("should read stored filenames in keyset batches")
+        void shouldReadFilenamesInBatches() throws Exception {
+            List<String> first = IntStream.range(0, MediaReconciler.BATCH_SIZE)
+                    .mapToObj(i -> "images/%05d.jpg".formatted(i))
+                    .toList();
+            given(mediaRepository.findFilenamesAfter(eq(""), anyInt())).willReturn(first);
+            given(mediaRepository.findFilenamesAfter(eq(first.getLast()), anyInt()))
+                    .willReturn(List.of("videos/last.mp4"));
+
+            MediaReconciliationDto report = reconciler.reconcile(MediaReconciler.OrphanAction.DELETE, true);
+
+            assertThat(report.getReferencedFiles()).isEqualTo(MediaReconciler.BATCH_SIZE + 1);
+            assertThat(report.getDanglingFiles()).isEqualTo(MediaReconciler.BATCH_SIZE + 1);
+        }
+    }
+
+    @Nested
+    @DisplayName("orphans")
+    class Orphans {
+
+        @Test
+        @DisplayName("should delete orphans with their renditions and leftovers in the trash")
+        void shouldDeleteOrphans() throws Exception {
+            Path referenced = file(REFERENCED_KEY, 100, Duration.ofDays(2));
+            Path orphan = file(ORPHAN_KEY, 40, Duration.ofDays(2));
+            Path rendition = file("images/cd/cd/" + ORPHAN_SHA + ".d-w480.jpg", 8, Duration.ofDays(2));
+            Path trash = file(".trash/left-behind", 2, Duration.ofDays(2));
+            givenFilenames(REFERENCED);
+
+            MediaReconciliationDto report = reconciler.reconcile(MediaReconciler.OrphanAction.DELETE, false);
+
+            assertThat(report.getRemovedFiles()).isEqualTo(3);
+            assertThat(report.getReclaimedBytes()).isEqualTo(50);
+            assertThat(orphan).doesNotExist();
+            assertThat(rendition).doesNotExist();
+            assertThat(trash).doesNotExist();
+            assertThat(referenced).exists();
+            try (var left = Files.list(root.resolve(".trash"))) {
+                assertThat(left).isEmpty();
+            }
+        }
+
+        @Test
+        @DisplayName("should leave files in the trash alone until long after they were moved there")
+        void shouldKeepRecentTrash() throws Exception {
+            // Moved a minute ago by a release that may still roll back; the move kept the old time
+            String recent = StorageService.TRASH_PREFIX + Instant.now().minus(Duration.ofMinutes(1)).toEpochMilli()
+                    + "-" + UUID.randomUUID();
+            String old = StorageService.TRASH_PREFIX + Instant.now().minus(Duration.ofDays(1)).toEpochMilli()
+                    + "-" + UUID.randomUUID();
+            Path kept = file(recent, 10, Duration.ofDays(2));
+            Path removed = file(old, 10, Duration.ofDays(2));
+            givenFilenames();
+
+            MediaReconciliationDto report = reconciler.reconcile(MediaReconciler.OrphanAction.DELETE, false);
+
+            assertThat(report.getRemovedFiles()).isEqualTo(1);
+            assertThat(kept).exists();
+            assertThat(removed).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("should move orphans into quarantine under their key")
+        void shouldQuarantineOrphans() throws Exception {
+            Path orphan = file(ORPHAN_KEY, 40, Duration.ofDays(2));
+            givenFilenames();
+
+            MediaReconciliationDto report = reconciler.reconcile(MediaReconciler.OrphanAction.QUARANTINE, false);
+
+            assertThat(report.getRemovedFiles()).isEqualTo(1);
+            assertThat(orphan).doesNotExist();
+            assertThat(root.resolve(MediaReconciler.QUARANTINE_PREFIX + ORPHAN_KEY)).hasSize(40);
+        }
+
+        @Test
+        @DisplayName("should remove an orphan's blob row with its file, so its content is stored anew")
+        void shouldDeleteBlobRow() throws Exception {
+            file(ORPHAN_KEY, 40, Duration.ofDays(2));
+            givenFilenames();
+            MediaBlob blob = MediaBlob.builder()
+                    .filename("images/" + ORPHAN_SHA + ".jpg")
+                    .sha256(ORPHAN_SHA)
+                    .size(40L)
+                    .refCount(1)
+                    .build();
+            given(mediaBlobRepository.findForUpdate("images/" + ORPHAN_SHA + ".jpg")).willReturn(Optional.of(blob));
+
+            reconciler.reconcile(MediaReconciler.OrphanAction.QUARANTINE, false);
+
+            verify(mediaBlobRepository).delete(blob);
+            verify(mediaUsageService).blobRemoved(40);
+        }
+
+        @Test
+        @DisplayName("should put back a file that was stored again during the scan")
+        void shouldKeepFileStoredAgain() throws Exception {
+            Path orphan = file(ORPHAN_KEY, 40, Duration.ofDays(2));
+            givenFilenames();
+            given(mediaRepository.existsByFilename("images/" + ORPHAN_SHA + ".jpg")).willReturn(true);
+
+            MediaReconciliationDto report = reconciler.reconcile(MediaReconciler.OrphanAction.DELETE, false);
+
+            assertThat(report.getOrphanFiles()).isEqualTo(1);
+            assertThat(report.getRemovedFiles()).isZero();
+            assertThat(report.getReclaimedBytes()).isZero();
+            assertThat(orphan).hasSize(40);
+            verify(mediaBlobRepository, never()).delete(any());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.portfolio.service;
+
+import com.portfolio.dto.MediaUploadResultDto;
+import com.portfolio.entity.Media;
+import com.portfolio.entity.MediaType;
+import com.portfolio.entity.Post;
+import com.portfolio.repository.MediaBlobRepository;
+import com.portfolio.repository.MediaRepository;
+import com.portfolio.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MediaService")
+class MediaServiceTest {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+
+    @Mock
+    private MediaRepository mediaRepository;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private MediaBlobRepository mediaBlobRepository;
+
+    @Mock
+    private MediaCache mediaCache;
+
+    @Mock
+    private MediaUsageService mediaUsageService;
+
+    @Mock
+    private ImageMetadataExtractor imageMetadataExtractor;
+
+    @Mock
+    private ImageOptimizer imageOptimizer;
+
+    @Mock
+    private Mp4FastStart mp4FastStart;
+
+    @Mock
+    private PostCache postCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path root;
+
+    private MediaService mediaService;
+
+    @BeforeEach
+    void setUp() {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore();
+        ReflectionTestUtils.setField(blobStore, "uploadPath", root.toString());
+        blobStore.init();
+        StorageService storageService = new StorageService(mediaBlobRepository, blobStore, mediaCache, mediaUsageService);
+        ReflectionTestUtils.setField(storageService, "uploadPath", root.toString());
+        ReflectionTestUtils.setField(storageService, "allowedTypes", "image/png");
+        ReflectionTestUtils.setField(storageService, "maxFileSize", DataSize.ofMegabytes(1));
+        storageService.init();
+
+        mediaService = new MediaService(mediaRepository, postRepository, storageService, imageMetadataExtractor,
+                imageOptimizer, mp4FastStart, postCache, mediaUsageService, transactionManager);
+        ReflectionTestUtils.setField(mediaService, "batchParallelism", 2);
+        ReflectionTestUtils.setField(mediaService, "batchMaxFiles", 5);
+    }
+
+    private static MultipartFile png(String name) {
+        byte[] body = name.getBytes(StandardCharsets.UTF_8);
+        byte[] content = Arrays.copyOf(PNG_SIGNATURE, PNG_SIGNATURE.length + body.length);
+        System.arraycopy(body, 0, content, PNG_SIGNATURE.length, body.length);
+        return new MockMultipartFile("files", name, "image/png", content);
+    }
+
+    private void givenPipeline() {
+        given(mp4FastStart.apply(any())).willAnswer(invocation -> invocation.getArgument(0));
+        given(imageOptimizer.optimize(any()))
+                .willAnswer(invocation -> CompletableFuture.completedFuture(invocation.getArgument(0)));
+        given(mediaBlobRepository.acquire(anyString(), anyString(), anyLong())).willReturn(1);
+    }
+
+    private long stagedFiles() throws Exception {
+        try (Stream<Path> staged = Files.list(root.resolve(".staging"))) {
+            return staged.count();
+        }
+    }
+
+    @Nested
+    @DisplayName("uploadMediaBatch")
+    class UploadMediaBatch {
+
+        @Test
+        @DisplayName("should save all rows at once with consecutive display orders and report each file")
+        @SuppressWarnings("unchecked")
+        void shouldSaveBatch() throws Exception {
+            UUID postId = UUID.randomUUID();
+            Post post = Post.builder().id(postId).build();
+            givenPipeline();
+            given(postRepository.existsById(postId)).willReturn(true);
+            given(postRepository.findById(postId)).willReturn(Optional.of(post));
+            given(mediaRepository.getMaxDisplayOrderForPost(postId)).willReturn(3);
+            given(mediaRepository.saveAll(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+            MultipartFile text = new MockMultipartFile("files", "notes.txt", "text/plain", "plain text".getBytes());
+
+            List<MediaUploadResultDto> results = mediaService.uploadMediaBatch(
+                    List.of(png("a.png"), text, png("b.png"), png("c.png")), postId, "en");
+
+            assertThat(results).extracting(MediaUploadResultDto::getOriginalName)
+                    .containsExactly("a.png", "notes.txt", "b.png", "c.png");
+            assertThat(results).extracting(MediaUploadResultDto::isSuccess)
+                    .containsExactly(true, false, true, true);
+            assertThat(results.get(1).getError()).startsWith("File type not allowed");
+
+            ArgumentCaptor<List<Media>> saved = ArgumentCaptor.forClass(List.class);
+            verify(mediaRepository).saveAll(saved.capture());
+            assertThat(saved.getValue()).extracting(Media::getOriginalName, Media::getDisplayOrder)
+                    .containsExactly(
+                            tuple("a.png", 4),
+                            tuple("b.png", 5),
+                            tuple("c.png", 6));
+            verify(mediaRepository, times(1)).getMaxDisplayOrderForPost(postId);
+            verify(postCache).evictDetail(post);
+            verify(mediaUsageService).mediaAdded(saved.getValue());
+        }
+
+        @Test
+        @DisplayName("should report every file as failed when the rows cannot be saved")
+        void shouldReportSaveFailure() throws Exception {
+            givenPipeline();
+            given(mediaRepository.saveAll(anyList())).willThrow(new DataIntegrityViolationException("boom"));
+
+            List<MediaUploadResultDto> results = mediaService.uploadMediaBatch(
+                    List.of(png("a.png"), png("b.png")), null, "en");
+
+            assertThat(results).extracting(MediaUploadResultDto::isSuccess).containsExactly(false, false);
+            assertThat(results).extracting(MediaUploadResultDto::getError)
+                    .containsOnly("Could not store file");
+            assertThat(stagedFiles()).isZero();
+        }
+
+        @Test
+        @DisplayName("should report the quota as the reason when the files do not fit")
+        void shouldReportQuotaExceeded() throws Exception {
+            givenPipeline();
+            willThrow(MediaUsageService.quotaExceeded()).given(mediaUsageService).blobStored(anyLong());
+
+            List<MediaUploadResultDto> results = mediaService.uploadMediaBatch(
+                    List.of(png("a.png"), png("b.png")), null, "en");
+
+            assertThat(results).extracting(MediaUploadResultDto::getError)
+                    .containsOnly("Storage quota exceeded");
+            assertThat(stagedFiles()).isZero();
+            verify(mediaRepository, never()).saveAll(anyList());
+        }
+
+        @Test
+        @DisplayName("should refuse more files than allowed at once")
+        void shouldRejectTooManyFiles() {
+            List<MultipartFile> files = Collections.nCopies(6, png("a.png"));
+
+            assertThatThrownBy(() -> mediaService.uploadMediaBatch(files, null, "en"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("releaseMedia")
+    class ReleaseMedia {
+
+        @Test
+        @DisplayName("should take deleted rows and files released for the last time off the usage totals")
+        void shouldReleaseFilesAndUsage() throws Exception {
+            Media upload = Media.builder().type(MediaType.IMAGE).filename("images/a.png").size(100L).build();
+            Media youtube = Media.builder().type(MediaType.YOUTUBE).build();
+            given(mediaBlobRepository.findSize("images/a.png")).willReturn(Optional.of(100L));
+            given(mediaBlobRepository.release("images/a.png")).willReturn(0);
+
+            mediaService.releaseMedia(List.of(upload, youtube));
+
+            verify(mediaUsageService).blobRemoved(100);
+            verify(mediaUsageService).mediaRemoved(List.of(upload, youtube));
+        }
+    }
+}
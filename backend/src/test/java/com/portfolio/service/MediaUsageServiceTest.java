@@ -0,0 +1,162 @@
+package com.portfolio.service;
+
+import com.portfolio.dto.MediaUsageDto;
+import com.portfolio.entity.Media;
+import com.portfolio.entity.MediaType;
+import com.portfolio.entity.Post;
+import com.portfolio.repository.MediaUsageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MediaUsageService")
+class MediaUsageServiceTest {
+
+    @Mock
+    private MediaUsageRepository mediaUsageRepository;
+
+    private MediaUsageService mediaUsageService;
+
+    private final Post post = Post.builder().id(UUID.randomUUID()).build();
+
+    @BeforeEach
+    void setUp() {
+        mediaUsageService = new MediaUsageService(mediaUsageRepository);
+        ReflectionTestUtils.setField(mediaUsageService, "quota", DataSize.ofBytes(1000));
+    }
+
+    private Media media(MediaType type, long size, Post post) {
+        return Media.builder().type(type).filename("images/" + UUID.randomUUID() + ".png").size(size).post(post).build();
+    }
+
+    @Nested
+    @DisplayName("quota")
+    class Quota {
+
+        @Test
+        @DisplayName("should report what is left of the quota")
+        void shouldReportRemainingQuota() {
+            given(mediaUsageRepository.findBytes(MediaUsageRepository.STORE, MediaUsageRepository.BLOBS))
+                    .willReturn(600L);
+
+            assertThat(mediaUsageService.remainingQuota()).hasValue(400);
+            mediaUsageService.checkQuota(400);
+            assertThatThrownBy(() -> mediaUsageService.checkQuota(401))
+                    .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+                            assertThat(e.getStatusCode()).isEqualTo(HttpStatus.INSUFFICIENT_STORAGE));
+        }
+
+        @Test
+        @DisplayName("should not limit anything without a quota")
+        void shouldAllowAnythingWithoutQuota() {
+            ReflectionTestUtils.setField(mediaUsageService, "quota", DataSize.ofBytes(0));
+
+            assertThat(mediaUsageService.remainingQuota()).isEmpty();
+            mediaUsageService.checkQuota(Long.MAX_VALUE);
+            then(mediaUsageRepository).shouldHaveNoInteractions();
+        }
+
+        @Test
+        @DisplayName("should fail a new file that takes the store over the quota")
+        void shouldRejectFileOverQuota() {
+            given(mediaUsageRepository.add(MediaUsageRepository.STORE, MediaUsageRepository.BLOBS, 1, 300))
+                    .willReturn(1000L, 1300L);
+
+            mediaUsageService.blobStored(300);
+            assertThatThrownBy(() -> mediaUsageService.blobStored(300))
+                    .isInstanceOf(ResponseStatusException.class)
+                    .hasMessageContaining("quota");
+        }
+    }
+
+    @Nested
+    @DisplayName("totals")
+    class Totals {
+
+        @Test
+        @DisplayName("should add up a batch into one change per type and per post")
+        void shouldAggregateBatch() {
+            mediaUsageService.mediaAdded(List.of(
+                    media(MediaType.PDF, 50, null),
+                    media(MediaType.IMAGE, 100, post),
+                    media(MediaType.IMAGE, 200, post)));
+
+            // Types in a fixed order, so concurrent transactions lock them alike
+            InOrder order = inOrder(mediaUsageRepository);
+            order.verify(mediaUsageRepository).add(MediaUsageRepository.TYPE, "IMAGE", 2, 300);
+            order.verify(mediaUsageRepository).add(MediaUsageRepository.TYPE, "PDF", 1, 50);
+            order.verify(mediaUsageRepository).addToPost(post.getId(), 2, 300);
+        }
+
+        @Test
+        @DisplayName("should subtract removed media and skip embedded videos")
+        void shouldSubtractRemovedMedia() {
+            Media youtube = Media.builder().type(MediaType.YOUTUBE).post(post).build();
+
+            mediaUsageService.mediaRemoved(List.of(media(MediaType.VIDEO, 700, post), youtube));
+
+            then(mediaUsageRepository).should().add(MediaUsageRepository.TYPE, "VIDEO", -1, -700);
+            then(mediaUsageRepository).should().addToPost(post.getId(), -1, -700);
+            then(mediaUsageRepository).should(never()).add(any(), eq("YOUTUBE"), anyLong(), anyLong());
+        }
+
+        @Test
+        @DisplayName("should move a file's size from its old post to its new one")
+        void shouldMoveBetweenPosts() {
+            Post other = Post.builder().id(UUID.randomUUID()).build();
+            Media media = media(MediaType.IMAGE, 100, other);
+
+            mediaUsageService.mediaMoved(media, post);
+            mediaUsageService.mediaMoved(media, other);
+
+            then(mediaUsageRepository).should().addToPost(post.getId(), -1, -100);
+            then(mediaUsageRepository).should().addToPost(other.getId(), 1, 100);
+            then(mediaUsageRepository).should(never()).add(anyString(), anyString(), anyLong(), anyLong());
+        }
+
+        @Test
+        @DisplayName("should read all totals into one summary")
+        void shouldSummarize() {
+            given(mediaUsageRepository.findAll()).willReturn(List.of(
+                    new MediaUsageRepository.Total(MediaUsageRepository.STORE, MediaUsageRepository.BLOBS, 3, 900),
+                    new MediaUsageRepository.Total(MediaUsageRepository.TYPE, "IMAGE", 4, 1000)));
+
+            MediaUsageDto usage = mediaUsageService.getUsage();
+
+            assertThat(usage.getStoredFiles()).isEqualTo(3);
+            assertThat(usage.getStoredBytes()).isEqualTo(900);
+            assertThat(usage.getQuotaBytes()).isEqualTo(1000);
+            assertThat(usage.getByType()).containsEntry(MediaType.IMAGE, new MediaUsageDto.Total(4, 1000));
+        }
+
+        @Test
+        @DisplayName("should report zeros for a post without files")
+        void shouldReportEmptyPost() {
+            assertThat(mediaUsageService.getPostUsage(post.getId())).isEqualTo(new MediaUsageDto.Total(0, 0));
+        }
+    }
+}
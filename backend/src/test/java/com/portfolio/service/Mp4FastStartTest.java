@@ -0,0 +1,188 @@
+package com.portfolio.service;
+
+import com.portfolio.repository.MediaBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Mp4FastStart")
+class Mp4FastStartTest {
+
+    private static final byte[] FRAME_1 = "first-chunk".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FRAME_2 = "second-chunk".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path root;
+
+    private StorageService storageService;
+    private Mp4FastStart mp4FastStart;
+
+    @BeforeEach
+    void setUp() {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore();
+        ReflectionTestUtils.setField(blobStore, "uploadPath", root.toString());
+        blobStore.init();
+        storageService = new StorageService(mock(MediaBlobRepository.class), blobStore, mock(MediaCache.class),
+                mock(MediaUsageService.class));
+        ReflectionTestUtils.setField(storageService, "uploadPath", root.toString());
+        ReflectionTestUtils.setField(storageService, "allowedTypes", "video/mp4,image/png");
+        ReflectionTestUtils.setField(storageService, "maxFileSize", DataSize.ofMegabytes(1));
+        storageService.init();
+        mp4FastStart = new Mp4FastStart(storageService);
+    }
+
+    private static byte[] box(String type, byte[]... children) {
+        int size = 8 + Arrays.stream(children).mapToInt(child -> child.length).sum();
+        ByteBuffer buffer = ByteBuffer.allocate(size).putInt(size).put(type.getBytes(StandardCharsets.ISO_8859_1));
+        for (byte[] child : children) {
+            buffer.put(child);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] chunkOffsets(String type, long... offsets) {
+        boolean wide = type.equals("co64");
+        ByteBuffer table = ByteBuffer.allocate(8 + offsets.length * (wide ? 8 : 4)).putInt(0).putInt(offsets.length);
+        for (long offset : offsets) {
+            if (wide) {
+                table.putLong(offset);
+            } else {
+                table.putInt((int) offset);
+            }
+        }
+        return box(type, table.array());
+    }
+
+    private static byte[] moov(byte[] chunkOffsets) {
+        return box("moov", box("mvhd", new byte[100]),
+                box("trak", box("tkhd", new byte[84]),
+                        box("mdia", box("mdhd", new byte[24]),
+                                box("minf", box("stbl", box("stsd", new byte[16]), chunkOffsets)))));
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            output.writeBytes(part);
+        }
+        return output.toByteArray();
+    }
+
+    private static final byte[] FTYP = box("ftyp", "isom\0\0\2\0isomiso2mp41".getBytes(StandardCharsets.ISO_8859_1));
+    private static final byte[] MDAT = box("mdat", FRAME_1, FRAME_2);
+
+    // Offsets of the two chunks when mdat directly follows ftyp
+    private static final long CHUNK_1 = FTYP.length + 8;
+    private static final long CHUNK_2 = CHUNK_1 + FRAME_1.length;
+
+    private StorageService.StagedFile stage(byte[] content) throws Exception {
+        return storageService.stage(new ByteArrayInputStream(content), "demo.mp4");
+    }
+
+    private static List<Mp4FastStart.Box> boxes(Path file) throws Exception {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return Mp4FastStart.topLevelBoxes(channel);
+        }
+    }
+
+    // Follows moov/trak/mdia/minf/stbl to the chunk offset table and reads it
+    private static long[] readChunkOffsets(byte[] file, Mp4FastStart.Box moov, String type) {
+        String content = new String(file, StandardCharsets.ISO_8859_1);
+        int table = content.indexOf(type, (int) moov.offset()) + 4;
+        ByteBuffer buffer = ByteBuffer.wrap(file, table + 4, file.length - table - 4);
+        long[] offsets = new long[buffer.getInt()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = type.equals("co64") ? buffer.getLong() : Integer.toUnsignedLong(buffer.getInt());
+        }
+        return offsets;
+    }
+
+    private static byte[] read(byte[] file, long offset, int length) {
+        return Arrays.copyOfRange(file, (int) offset, (int) offset + length);
+    }
+
+    @Test
+    @DisplayName("should move moov before mdat and shift chunk offsets to the same data")
+    void shouldMoveMoovToFront() throws Exception {
+        byte[] moov = moov(chunkOffsets("stco", CHUNK_1, CHUNK_2));
+        StorageService.StagedFile staged = stage(concat(FTYP, MDAT, moov));
+
+        StorageService.StagedFile result = mp4FastStart.apply(staged);
+
+        assertThat(result).isNotSameAs(staged);
+        assertThat(staged.path()).doesNotExist();
+        assertThat(boxes(result.path())).extracting(Mp4FastStart.Box::type).containsExactly("ftyp", "moov", "mdat");
+        assertThat(result.size()).isEqualTo(staged.size());
+
+        byte[] file = Files.readAllBytes(result.path());
+        long[] offsets = readChunkOffsets(file, boxes(result.path()).get(1), "stco");
+        assertThat(offsets).containsExactly(CHUNK_1 + moov.length, CHUNK_2 + moov.length);
+        assertThat(read(file, offsets[0], FRAME_1.length)).isEqualTo(FRAME_1);
+        assertThat(read(file, offsets[1], FRAME_2.length)).isEqualTo(FRAME_2);
+    }
+
+    @Test
+    @DisplayName("should patch 64-bit chunk offsets")
+    void shouldPatchCo64() throws Exception {
+        StorageService.StagedFile staged = stage(concat(FTYP, MDAT, moov(chunkOffsets("co64", CHUNK_1, CHUNK_2))));
+
+        StorageService.StagedFile result = mp4FastStart.apply(staged);
+
+        byte[] file = Files.readAllBytes(result.path());
+        long[] offsets = readChunkOffsets(file, boxes(result.path()).get(1), "co64");
+        assertThat(read(file, offsets[0], FRAME_1.length)).isEqualTo(FRAME_1);
+        assertThat(read(file, offsets[1], FRAME_2.length)).isEqualTo(FRAME_2);
+    }
+
+    @Test
+    @DisplayName("should widen stco to co64 when shifted offsets pass 4 GiB")
+    void shouldWidenOverflowingOffsets() throws Exception {
+        byte[] moov = moov(chunkOffsets("stco", CHUNK_1, 0xFFFFFFF0L));
+        // Boxes as they would sit in a file whose mdat is just under 4 GiB
+        Mp4FastStart.Box mdatBox = new Mp4FastStart.Box("mdat", FTYP.length, 0xFFFFFFFFL);
+        Mp4FastStart.Box moovBox = new Mp4FastStart.Box("moov", mdatBox.end(), moov.length);
+
+        byte[] relocated = Mp4FastStart.relocate(ByteBuffer.wrap(moov), moovBox, mdatBox);
+
+        assertThat(relocated.length).isEqualTo(moov.length + 2 * 4);
+        assertThat(new String(relocated, StandardCharsets.ISO_8859_1)).contains("co64").doesNotContain("stco");
+        ByteBuffer table = ByteBuffer.wrap(relocated, relocated.length - 16, 16);
+        assertThat(table.getLong()).isEqualTo(CHUNK_1 + relocated.length);
+        assertThat(table.getLong()).isEqualTo(0xFFFFFFF0L + relocated.length);
+    }
+
+    @Test
+    @DisplayName("should leave files that already start with moov untouched")
+    void shouldKeepFastStartFile() throws Exception {
+        byte[] moov = moov(chunkOffsets("stco", 0, 0));
+        StorageService.StagedFile staged = stage(concat(FTYP, moov, MDAT));
+
+        assertThat(mp4FastStart.apply(staged)).isSameAs(staged);
+        assertThat(staged.path()).exists();
+    }
+
+    @Test
+    @DisplayName("should store malformed files as uploaded")
+    void shouldKeepMalformedFile() throws Exception {
+        byte[] truncated = concat(FTYP, ByteBuffer.allocate(8).putInt(1000).put("mdat".getBytes()).array());
+        StorageService.StagedFile staged = stage(truncated);
+
+        assertThat(mp4FastStart.apply(staged)).isSameAs(staged);
+    }
+}
@@ -0,0 +1,192 @@
+package com.portfolio.service;
+
+import com.portfolio.config.CacheConfig;
+import com.portfolio.dto.CacheStatsDto;
+import com.portfolio.dto.PostUpdateRequest;
+import com.portfolio.entity.Category;
+import com.portfolio.entity.Post;
+import com.portfolio.repository.PostRepository;
+import com.portfolio.repository.PostSimilarityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig(classes = {CacheConfig.class, PostCache.class, PostService.class, PostContentAnalyzer.class,
+        JacksonAutoConfiguration.class})
+@TestPropertySource(properties = "app.cache.spec=maximumSize=100,recordStats")
+@DisplayName("PostCache")
+class PostCacheTest {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostCache postCache;
+
+    @MockBean
+    private PostRepository postRepository;
+
+    @MockBean
+    private TagService tagService;
+
+    @MockBean
+    private PostSimilarityRepository postSimilarityRepository;
+
+    @MockBean
+    private RelatedPostService relatedPostService;
+
+    @MockBean
+    private MediaService mediaService;
+
+    private Post publishedPost;
+    private UUID postId;
+
+    @BeforeEach
+    void setUp() {
+        postCache.evictAll();
+        postId = UUID.randomUUID();
+        publishedPost = Post.builder()
+                .id(postId)
+                .category(Category.PERSONAL_PROJECT)
+                .titleEn("Cached")
+                .titlePl("Zbuforowany")
+                .slug("cached")
+                .published(true)
+                .hashtags(new String[]{"java", "spring"})
+                .build();
+        given(postRepository.findPublishedSummaries(anyString())).willReturn(List.of());
+        given(postRepository.findBySlug("cached")).willReturn(Optional.of(publishedPost));
+        given(postRepository.findById(postId)).willReturn(Optional.of(publishedPost));
+        given(postRepository.save(any(Post.class))).willAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Nested
+    @DisplayName("read-through")
+    class ReadThrough {
+
+        @Test
+        @DisplayName("should query the repository once per locale")
+        void shouldQueryRepositoryOncePerLocale() {
+            postService.getAllPublishedPosts("en");
+            postService.getAllPublishedPosts("en");
+            postService.getAllPublishedPosts("pl");
+
+            verify(postRepository, times(2)).findPublishedSummaries(anyString());
+        }
+
+        @Test
+        @DisplayName("should report hits and misses")
+        void shouldReportHitsAndMisses() {
+            CacheStatsDto before = statsFor(CacheConfig.POST_BY_SLUG);
+
+            postService.getPostBySlug("cached", "en");
+            postService.getPostBySlug("cached", "en");
+
+            CacheStatsDto after = statsFor(CacheConfig.POST_BY_SLUG);
+            assertThat(after.getMissCount() - before.getMissCount()).isEqualTo(1);
+            assertThat(after.getHitCount() - before.getHitCount()).isEqualTo(1);
+            assertThat(after.getSize()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should not cache cursor pages")
+        void shouldNotCacheCursorPages() {
+            given(postRepository.findPublishedFirstPage(anyInt())).willReturn(List.of());
+
+            postService.getPublishedPosts("", null, 10, "en");
+            postService.getPublishedPosts("", null, 10, "en");
+
+            verify(postRepository, times(2)).findPublishedFirstPage(anyInt());
+        }
+    }
+
+    @Nested
+    @DisplayName("eviction")
+    class Eviction {
+
+        @Test
+        @DisplayName("should evict listings and old slug when a published post changes slug")
+        void shouldEvictListingsAndOldSlug() {
+            postService.getAllPublishedPosts("en");
+            postService.getPostBySlug("cached", "pl");
+
+            PostUpdateRequest request = new PostUpdateRequest();
+            request.setSlug("renamed");
+            postService.updatePost(postId, request, "en");
+
+            postService.getAllPublishedPosts("en");
+            postService.getPostBySlug("cached", "pl");
+
+            verify(postRepository, times(2)).findPublishedSummaries(anyString());
+            verify(postRepository, times(2)).findBySlug("cached");
+        }
+
+        @Test
+        @DisplayName("should keep listings when an unpublished post changes")
+        void shouldKeepListingsForUnpublishedPost() {
+            Post draft = Post.builder()
+                    .id(UUID.randomUUID())
+                    .category(Category.PERSONAL_PROJECT)
+                    .titleEn("Draft")
+                    .titlePl("Szkic")
+                    .slug("draft")
+                    .published(false)
+                    .build();
+            given(postRepository.findById(draft.getId())).willReturn(Optional.of(draft));
+            postService.getAllPublishedPosts("en");
+
+            PostUpdateRequest request = new PostUpdateRequest();
+            request.setTitleEn("Draft v2");
+            postService.updatePost(draft.getId(), request, "en");
+            postService.getAllPublishedPosts("en");
+
+            verify(postRepository, times(1)).findPublishedSummaries(anyString());
+        }
+
+        @Test
+        @DisplayName("should evict listings when a post is published")
+        void shouldEvictListingsWhenPublished() {
+            publishedPost.setPublished(false);
+            postService.getAllPublishedPosts("en");
+
+            postService.togglePublish(postId, "en");
+            postService.getAllPublishedPosts("en");
+
+            verify(postRepository, times(2)).findPublishedSummaries(anyString());
+        }
+
+        @Test
+        @DisplayName("should count explicit invalidations")
+        void shouldCountInvalidations() throws Exception {
+            long before = statsFor(CacheConfig.PUBLISHED_POSTS).getInvalidationCount();
+
+            postService.deletePost(postId);
+
+            assertThat(statsFor(CacheConfig.PUBLISHED_POSTS).getInvalidationCount()).isGreaterThan(before);
+        }
+    }
+
+    private CacheStatsDto statsFor(String name) {
+        return postCache.getStats().stream()
+                .filter(stats -> stats.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
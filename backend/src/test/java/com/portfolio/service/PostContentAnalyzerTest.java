@@ -0,0 +1,132 @@
+package com.portfolio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portfolio.entity.Category;
+import com.portfolio.entity.Post;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PostContentAnalyzer")
+class PostContentAnalyzerTest {
+
+    private final PostContentAnalyzer analyzer = new PostContentAnalyzer(new ObjectMapper());
+
+    @Nested
+    @DisplayName("analyze")
+    class Analyze {
+
+        @Test
+        @DisplayName("should count words across marks without splitting them")
+        void shouldCountWordsAcrossMarks() {
+            String content = """
+                    {"type": "doc", "content": [
+                      {"type": "paragraph", "content": [
+                        {"type": "text", "text": "Spring"},
+                        {"type": "text", "marks": [{"type": "bold"}], "text": "Boot's"},
+                        {"type": "text", "text": " well-known auto-configuration, 3 times."}
+                      ]},
+                      {"type": "bulletList", "content": [
+                        {"type": "listItem", "content": [
+                          {"type": "paragraph", "content": [{"type": "text", "text": "Zażółć gęślą"}]}
+                        ]}
+                      ]}
+                    ]}
+                    """;
+
+            PostContentAnalyzer.Analysis analysis = analyzer.analyze(content);
+
+            assertThat(analysis.wordCount()).isEqualTo(7);
+        }
+
+        @Test
+        @DisplayName("should build a table of contents with unique anchors")
+        void shouldBuildTableOfContents() {
+            String content = """
+                    {"type": "doc", "content": [
+                      {"type": "heading", "attrs": {"level": 1}, "content": [{"type": "text", "text": "Intro"}]},
+                      {"type": "paragraph", "content": [{"type": "text", "text": "Body"}]},
+                      {"type": "heading", "attrs": {"level": 2}, "content": [{"type": "text", "text": "Intro"}]},
+                      {"type": "heading", "attrs": {"level": 3}, "content": []}
+                    ]}
+                    """;
+
+            PostContentAnalyzer.Analysis analysis = analyzer.analyze(content);
+
+            assertThat(analysis.headings()).containsExactly(
+                    new PostContentAnalyzer.Heading(1, "Intro", "intro"),
+                    new PostContentAnalyzer.Heading(2, "Intro", "intro-2"));
+        }
+
+        @Test
+        @DisplayName("should take the excerpt from paragraphs and cut it at a word boundary")
+        void shouldCutExcerptAtWordBoundary() {
+            String content = "{\"type\": \"doc\", \"content\": [" +
+                    "{\"type\": \"heading\", \"attrs\": {\"level\": 1}, \"content\": [{\"type\": \"text\", \"text\": \"Title\"}]}," +
+                    "{\"type\": \"paragraph\", \"content\": [{\"type\": \"text\", \"text\": \"" + "word ".repeat(60) + "\"}]}]}";
+
+            String excerpt = analyzer.analyze(content).plainExcerpt();
+
+            assertThat(excerpt).startsWith("word word").endsWith("word…");
+            assertThat(excerpt.length()).isLessThanOrEqualTo(PostContentAnalyzer.PLAIN_EXCERPT_LENGTH + 1);
+        }
+
+        @Test
+        @DisplayName("should find the first image")
+        void shouldFindFirstImage() {
+            String content = """
+                    {"type": "doc", "content": [
+                      {"type": "paragraph", "content": [{"type": "text", "text": "Before"}]},
+                      {"type": "image", "attrs": {"src": "/uploads/images/first.png"}},
+                      {"type": "image", "attrs": {"src": "/uploads/images/second.png"}}
+                    ]}
+                    """;
+
+            assertThat(analyzer.analyze(content).firstImage()).isEqualTo("/uploads/images/first.png");
+        }
+
+        @Test
+        @DisplayName("should return an empty analysis for missing or unreadable content")
+        void shouldHandleMissingContent() {
+            assertThat(analyzer.analyze(null).wordCount()).isZero();
+            assertThat(analyzer.analyze("not json").headings()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("derive")
+    class Derive {
+
+        @Test
+        @DisplayName("should include case study text and set the case study flag")
+        void shouldIncludeCaseStudy() {
+            Post post = Post.builder()
+                    .category(Category.PROFESSIONAL_PROJECT)
+                    .contentEn("{\"type\": \"doc\", \"content\": [{\"type\": \"paragraph\", " +
+                            "\"content\": [{\"type\": \"text\", \"text\": \"One two\"}]}]}")
+                    .caseStudyChallengeEn("Three four five")
+                    .caseStudySolutionPl("Jeden")
+                    .build();
+
+            analyzer.derive(post);
+
+            assertThat(post.getWordCountEn()).isEqualTo(5);
+            assertThat(post.getWordCountPl()).isEqualTo(1);
+            assertThat(post.getHasCaseStudy()).isTrue();
+            assertThat(post.getTocEn()).isNull();
+            assertThat(post.getPlainExcerptPl()).isNull();
+            assertThat(post.getDerivedVersion()).isEqualTo(PostContentAnalyzer.VERSION);
+        }
+
+        @Test
+        @DisplayName("should round reading time up to whole minutes")
+        void shouldRoundReadingTimeUp() {
+            assertThat(PostContentAnalyzer.readingMinutes(0)).isZero();
+            assertThat(PostContentAnalyzer.readingMinutes(1)).isEqualTo(1);
+            assertThat(PostContentAnalyzer.readingMinutes(200)).isEqualTo(1);
+            assertThat(PostContentAnalyzer.readingMinutes(201)).isEqualTo(2);
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package com.portfolio.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portfolio.dto.CursorPage;
 import com.portfolio.dto.PostCreateRequest;
 import com.portfolio.dto.PostDto;
+import com.portfolio.dto.PostSearchResultDto;
 import com.portfolio.dto.PostUpdateRequest;
 import com.portfolio.entity.Category;
+import com.portfolio.entity.Media;
+import com.portfolio.entity.MediaType;
 import com.portfolio.entity.Post;
+import com.portfolio.entity.Tag;
 import com.portfolio.repository.PostRepository;
+import com.portfolio.repository.PostSearchHit;
+import com.portfolio.repository.PostSimilarityRepository;
+import com.portfolio.repository.PostSummary;
+import com.portfolio.util.CursorUtils;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,19 +24,29 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 
@@ -37,6 +57,27 @@ class PostServiceTest {
     @Mock
     private PostRepository postRepository;
 
+    @Mock
+    private PostCache postCache;
+
+    @Mock
+    private TagService tagService;
+
+    @Mock
+    private PostSimilarityRepository postSimilarityRepository;
+
+    @Mock
+    private RelatedPostService relatedPostService;
+
+    @Mock
+    private MediaService mediaService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private PostContentAnalyzer postContentAnalyzer = new PostContentAnalyzer(new ObjectMapper());
+
     @InjectMocks
     private PostService postService;
 
@@ -71,15 +112,8 @@ class PostServiceTest {
         @Test
         @DisplayName("should return all published posts")
         void shouldReturnAllPublishedPosts() {
-            Post publishedPost = Post.builder()
-                    .id(UUID.randomUUID())
-                    .category(Category.PERSONAL_PROJECT)
-                    .titleEn("Published Post")
-                    .titlePl("Opublikowany Post")
-                    .slug("published-post")
-                    .published(true)
-                    .build();
-            given(postRepository.findAllPublished()).willReturn(List.of(publishedPost));
+            given(postRepository.findPublishedSummaries("en"))
+                    .willReturn(List.of(summary("Published Post", Category.PERSONAL_PROJECT)));
 
             List<PostDto> result = postService.getAllPublishedPosts("en");
 
@@ -90,7 +124,7 @@ class PostServiceTest {
         @Test
         @DisplayName("should return empty list when no published posts")
         void shouldReturnEmptyListWhenNoPublishedPosts() {
-            given(postRepository.findAllPublished()).willReturn(List.of());
+            given(postRepository.findPublishedSummaries("en")).willReturn(List.of());
 
             List<PostDto> result = postService.getAllPublishedPosts("en");
 
@@ -98,21 +132,29 @@ class PostServiceTest {
         }
 
         @Test
-        @DisplayName("should use Polish title when locale is pl")
-        void shouldUsePolishTitleWhenLocaleIsPl() {
-            Post post = Post.builder()
-                    .id(UUID.randomUUID())
-                    .category(Category.PERSONAL_PROJECT)
-                    .titleEn("English Title")
-                    .titlePl("Polski Tytuł")
-                    .slug("post")
-                    .published(true)
-                    .build();
-            given(postRepository.findAllPublished()).willReturn(List.of(post));
+        @DisplayName("should query Polish columns when locale is pl")
+        void shouldQueryPolishColumnsWhenLocaleIsPl() {
+            given(postRepository.findPublishedSummaries("pl"))
+                    .willReturn(List.of(summary("Polski Tytuł", Category.PERSONAL_PROJECT)));
 
             List<PostDto> result = postService.getAllPublishedPosts("pl");
 
             assertThat(result.get(0).getTitle()).isEqualTo("Polski Tytuł");
+            assertThat(result.get(0).getCategoryLabel())
+                    .isEqualTo(Category.PERSONAL_PROJECT.getLabel("pl"));
+        }
+
+        @Test
+        @DisplayName("should not include content in list items")
+        void shouldNotIncludeContent() {
+            given(postRepository.findPublishedSummaries("en"))
+                    .willReturn(List.of(summary("Published Post", Category.PERSONAL_PROJECT)));
+
+            PostDto result = postService.getAllPublishedPosts("en").get(0);
+
+            assertThat(result.getContent()).isNull();
+            assertThat(result.getCaseStudyChallenge()).isNull();
+            assertThat(result.getHasCaseStudy()).isFalse();
         }
     }
 
@@ -123,8 +165,8 @@ class PostServiceTest {
         @Test
         @DisplayName("should return posts for given category")
         void shouldReturnPostsForCategory() {
-            given(postRepository.findByCategoryAndPublishedTrueOrderByDisplayOrderAsc(Category.PERSONAL_PROJECT))
-                    .willReturn(List.of(samplePost));
+            given(postRepository.findPublishedSummariesByCategory(Category.PERSONAL_PROJECT, "en"))
+                    .willReturn(List.of(summary("Test Title EN", Category.PERSONAL_PROJECT)));
 
             List<PostDto> result = postService.getPostsByCategory(Category.PERSONAL_PROJECT, "en");
 
@@ -135,7 +177,7 @@ class PostServiceTest {
         @Test
         @DisplayName("should return empty list when no posts in category")
         void shouldReturnEmptyListWhenNoPosts() {
-            given(postRepository.findByCategoryAndPublishedTrueOrderByDisplayOrderAsc(Category.PERSONAL_PROJECT))
+            given(postRepository.findPublishedSummariesByCategory(Category.PERSONAL_PROJECT, "en"))
                     .willReturn(List.of());
 
             List<PostDto> result = postService.getPostsByCategory(Category.PERSONAL_PROJECT, "en");
@@ -144,6 +186,104 @@ class PostServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("getPublishedPosts (cursor)")
+    class GetPublishedPostsByCursor {
+
+        private Post publishedPost(int displayOrder) {
+            return Post.builder()
+                    .id(UUID.randomUUID())
+                    .category(Category.PERSONAL_PROJECT)
+                    .titleEn("Post " + displayOrder)
+                    .titlePl("Post " + displayOrder)
+                    .slug("post-" + displayOrder)
+                    .published(true)
+                    .displayOrder(displayOrder)
+                    .build();
+        }
+
+        @Test
+        @DisplayName("should return a next cursor pointing at the last row when more rows exist")
+        void shouldReturnNextCursorWhenMoreRowsExist() {
+            Post first = publishedPost(1);
+            Post second = publishedPost(2);
+            given(postRepository.findPublishedFirstPage(2)).willReturn(List.of(first, second));
+
+            CursorPage<PostDto> page = postService.getPublishedPosts(null, null, 1, "en");
+
+            assertThat(page.getContent()).hasSize(1);
+            assertThat(page.isHasNext()).isTrue();
+            assertThat(page.getNextCursor()).isEqualTo(CursorUtils.encode(1, first.getId()));
+        }
+
+        @Test
+        @DisplayName("should continue after the cursor row without a next cursor on the last page")
+        void shouldContinueAfterCursor() {
+            Post last = publishedPost(3);
+            UUID afterId = UUID.randomUUID();
+            given(postRepository.findPublishedByCategoryPageAfter("PERSONAL_PROJECT", 2, afterId, 11))
+                    .willReturn(List.of(last));
+
+            CursorPage<PostDto> page = postService.getPublishedPosts(
+                    CursorUtils.encode(2, afterId), Category.PERSONAL_PROJECT, 10, "en");
+
+            assertThat(page.getContent()).extracting(PostDto::getSlug).containsExactly("post-3");
+            assertThat(page.isHasNext()).isFalse();
+            assertThat(page.getNextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("should reject a malformed cursor")
+        void shouldRejectMalformedCursor() {
+            String cursor = CursorUtils.encode("not-a-number", "not-a-uuid");
+
+            assertThatThrownBy(() -> postService.getPublishedPosts(cursor, null, 10, "en"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid cursor");
+        }
+    }
+
+    @Nested
+    @DisplayName("searchPosts")
+    class SearchPosts {
+
+        @Test
+        @DisplayName("should escape the headline and turn match markers into <mark>")
+        void shouldEscapeAndHighlightHeadline() {
+            PostSearchHit hit = mock(PostSearchHit.class);
+            given(hit.getCategory()).willReturn("PERSONAL_PROJECT");
+            given(hit.getSlug()).willReturn("match");
+            given(hit.getRank()).willReturn(0.5f);
+            given(hit.getHeadline()).willReturn("<b>" + PostRepository.HIGHLIGHT_START + "spring"
+                    + PostRepository.HIGHLIGHT_STOP + " boot");
+            given(postRepository.searchPublishedEn("spring", 500, 20)).willReturn(List.of(hit));
+
+            List<PostSearchResultDto> results = postService.searchPosts("  spring ", 20, "en");
+
+            assertThat(results).hasSize(1);
+            assertThat(results.get(0).getHeadline()).isEqualTo("&lt;b&gt;<mark>spring</mark> boot");
+            assertThat(results.get(0).getCategoryLabel()).isEqualTo(Category.PERSONAL_PROJECT.getLabel("en"));
+            assertThat(results.get(0).getRank()).isEqualTo(0.5);
+        }
+
+        @Test
+        @DisplayName("should search Polish columns and cap the limit")
+        void shouldSearchPolishColumns() {
+            given(postRepository.searchPublishedPl("zrodlo", 500, 50)).willReturn(List.of());
+
+            assertThat(postService.searchPosts("zrodlo", 1000, "pl")).isEmpty();
+            verify(postRepository, never()).searchPublishedEn(anyString(), anyInt(), anyInt());
+        }
+
+        @Test
+        @DisplayName("should reject a blank query")
+        void shouldRejectBlankQuery() {
+            assertThatThrownBy(() -> postService.searchPosts("   ", 10, "en"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Search query must not be blank");
+        }
+    }
+
     @Nested
     @DisplayName("getPostBySlug")
     class GetPostBySlug {
@@ -170,6 +310,46 @@ class PostServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("getRelatedPosts")
+    class GetRelatedPosts {
+
+        @Test
+        @DisplayName("should map related summaries and cap the limit at the list size")
+        void shouldMapRelatedSummaries() {
+            given(postSimilarityRepository.findRelatedSummaries(eq("test-slug"), eq("en"), any(Pageable.class)))
+                    .willReturn(List.of(summary("Related", Category.PERSONAL_PROJECT)));
+
+            List<PostDto> result = postService.getRelatedPosts("test-slug", 50, "en");
+
+            assertThat(result).extracting(PostDto::getTitle).containsExactly("Related");
+            verify(postSimilarityRepository).findRelatedSummaries("test-slug", "en",
+                    PageRequest.of(0, RelatedPostService.LIST_SIZE));
+            verify(postRepository, never()).existsBySlug(anyString());
+        }
+
+        @Test
+        @DisplayName("should return an empty list for a post without related posts")
+        void shouldReturnEmptyList() {
+            given(postSimilarityRepository.findRelatedSummaries(eq("test-slug"), eq("en"), any(Pageable.class)))
+                    .willReturn(List.of());
+            given(postRepository.existsBySlug("test-slug")).willReturn(true);
+
+            assertThat(postService.getRelatedPosts("test-slug", 4, "en")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should throw EntityNotFoundException when post not found")
+        void shouldThrowExceptionWhenNotFound() {
+            given(postSimilarityRepository.findRelatedSummaries(eq("non-existent"), eq("en"), any(Pageable.class)))
+                    .willReturn(List.of());
+            given(postRepository.existsBySlug("non-existent")).willReturn(false);
+
+            assertThatThrownBy(() -> postService.getRelatedPosts("non-existent", 4, "en"))
+                    .isInstanceOf(EntityNotFoundException.class);
+        }
+    }
+
     @Nested
     @DisplayName("getPostById")
     class GetPostById {
@@ -227,6 +407,50 @@ class PostServiceTest {
             assertThat(savedPost.getCategory()).isEqualTo(Category.PERSONAL_PROJECT);
         }
 
+        @Test
+        @DisplayName("should store content as JSON text")
+        void shouldStoreContentAsJsonText() {
+            PostCreateRequest request = new PostCreateRequest();
+            request.setCategory(Category.PERSONAL_PROJECT);
+            request.setTitleEn("New Post");
+            request.setTitlePl("Nowy Post");
+            request.setSlug("new-post");
+            request.setContentEn(Map.of("type", "doc"));
+
+            given(postRepository.getMaxDisplayOrder(Category.PERSONAL_PROJECT)).willReturn(0);
+            given(postRepository.save(any(Post.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+            PostDto result = postService.createPost(request, "en");
+
+            verify(postRepository).save(postCaptor.capture());
+            assertThat(postCaptor.getValue().getContentEn()).isEqualTo("{\"type\":\"doc\"}");
+            assertThat(postCaptor.getValue().getContentPl()).isNull();
+            assertThat(result.getContent()).isEqualTo("{\"type\":\"doc\"}");
+        }
+
+        @Test
+        @DisplayName("should clean hashtags, attach tags and refresh their counts")
+        void shouldCleanHashtagsAndAttachTags() {
+            PostCreateRequest request = new PostCreateRequest();
+            request.setCategory(Category.PERSONAL_PROJECT);
+            request.setTitleEn("New Post");
+            request.setTitlePl("Nowy Post");
+            request.setSlug("new-post");
+            request.setHashtags(List.of("#Java", "java", " Spring  Boot "));
+            Set<Tag> tags = Set.of(Tag.builder().id(UUID.randomUUID()).normalizedName("java").name("Java").build());
+
+            given(postRepository.getMaxDisplayOrder(Category.PERSONAL_PROJECT)).willReturn(0);
+            given(tagService.resolve(any())).willReturn(tags);
+            given(postRepository.save(any(Post.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+            postService.createPost(request, "en");
+
+            verify(postRepository).save(postCaptor.capture());
+            assertThat(postCaptor.getValue().getHashtags()).containsExactly("Java", "Spring Boot");
+            assertThat(postCaptor.getValue().getTags()).isEqualTo(tags);
+            verify(tagService).refreshCounts(tags);
+        }
+
         @Test
         @DisplayName("should generate unique slug when not provided")
         void shouldGenerateUniqueSlug() {
@@ -315,6 +539,48 @@ class PostServiceTest {
             assertThat(postCaptor.getValue().getTitleEn()).isEqualTo("Updated Title");
         }
 
+        @Test
+        @DisplayName("should re-derive reading stats and excerpt from new content")
+        void shouldRederiveFromNewContent() {
+            given(postRepository.findById(postId)).willReturn(Optional.of(samplePost));
+            given(postRepository.save(any(Post.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+            PostUpdateRequest request = new PostUpdateRequest();
+            request.setContentEn(Map.of("type", "doc", "content", List.of(
+                    Map.of("type", "heading", "attrs", Map.of("level", 2),
+                            "content", List.of(Map.of("type", "text", "text", "Overview"))),
+                    Map.of("type", "paragraph",
+                            "content", List.of(Map.of("type", "text", "text", "Three more words"))))));
+
+            PostDto result = postService.updatePost(postId, request, "en");
+
+            verify(postRepository).save(postCaptor.capture());
+            Post saved = postCaptor.getValue();
+            assertThat(saved.getWordCountEn()).isEqualTo(4);
+            assertThat(saved.getReadingMinutesEn()).isEqualTo(1);
+            assertThat(saved.getPlainExcerptEn()).isEqualTo("Three more words");
+            assertThat(saved.getDerivedVersion()).isEqualTo(PostContentAnalyzer.VERSION);
+            assertThat(result.getReadingMinutes()).isEqualTo(1);
+            assertThat(result.getToc()).isEqualTo("[{\"level\":2,\"text\":\"Overview\",\"anchor\":\"overview\"}]");
+        }
+
+        @Test
+        @DisplayName("should refresh related posts only when similarity inputs change")
+        void shouldRefreshRelatedPostsOnlyWhenNeeded() {
+            given(postRepository.findById(postId)).willReturn(Optional.of(samplePost));
+            given(postRepository.save(any(Post.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+            PostUpdateRequest linkOnly = new PostUpdateRequest();
+            linkOnly.setGithubUrl("https://github.com/example/repo");
+            postService.updatePost(postId, linkOnly, "en");
+            verify(relatedPostService, never()).refresh(any());
+
+            PostUpdateRequest retitled = new PostUpdateRequest();
+            retitled.setTitleEn("Another Title");
+            postService.updatePost(postId, retitled, "en");
+            verify(relatedPostService).refresh(postId);
+        }
+
         @Test
         @DisplayName("should not update fields that are null in request")
         void shouldNotUpdateNullFields() {
@@ -350,19 +616,61 @@ class PostServiceTest {
 
         @Test
         @DisplayName("should delete post when exists")
-        void shouldDeletePostWhenExists() {
-            given(postRepository.existsById(postId)).willReturn(true);
+        void shouldDeletePostWhenExists() throws Exception {
+            given(postRepository.findById(postId)).willReturn(Optional.of(samplePost));
+
+            postService.deletePost(postId);
+
+            verify(postRepository).delete(samplePost);
+            verify(postCache).evict(PostCache.Footprint.of(samplePost), null);
+        }
+
+        @Test
+        @DisplayName("should rebuild the related lists that included the deleted post")
+        void shouldRebuildNeighbourLists() throws Exception {
+            List<UUID> neighbours = List.of(UUID.randomUUID());
+            given(postRepository.findById(postId)).willReturn(Optional.of(samplePost));
+            given(relatedPostService.findNeighbours(postId)).willReturn(neighbours);
 
             postService.deletePost(postId);
 
-            verify(postRepository).deleteById(postId);
+            InOrder inOrder = inOrder(relatedPostService, postRepository);
+            inOrder.verify(relatedPostService).findNeighbours(postId);
+            inOrder.verify(postRepository).delete(samplePost);
+            inOrder.verify(relatedPostService).recompute(neighbours);
+        }
+
+        @Test
+        @DisplayName("should refresh counts of the deleted post's tags")
+        void shouldRefreshTagCounts() throws Exception {
+            Tag tag = Tag.builder().id(UUID.randomUUID()).normalizedName("java").name("Java").build();
+            samplePost.setTags(new HashSet<>(Set.of(tag)));
+            given(postRepository.findById(postId)).willReturn(Optional.of(samplePost));
+
+            postService.deletePost(postId);
+
+            verify(tagService).refreshCounts(Set.of(tag));
+        }
+
+        @Test
+        @DisplayName("should release the post's media before deleting it")
+        void shouldReleaseMediaFiles() throws Exception {
+            Media upload = Media.builder().type(MediaType.IMAGE).filename("images/a.png").post(samplePost).build();
+            samplePost.setMedia(new ArrayList<>(List.of(upload)));
+            given(postRepository.findById(postId)).willReturn(Optional.of(samplePost));
+
+            postService.deletePost(postId);
+
+            InOrder inOrder = inOrder(mediaService, postRepository);
+            inOrder.verify(mediaService).releaseMedia(List.of(upload));
+            inOrder.verify(postRepository).delete(samplePost);
         }
 
         @Test
         @DisplayName("should throw EntityNotFoundException when post not found")
         void shouldThrowExceptionWhenNotFound() {
             UUID nonExistentId = UUID.randomUUID();
-            given(postRepository.existsById(nonExistentId)).willReturn(false);
+            given(postRepository.findById(nonExistentId)).willReturn(Optional.empty());
 
             assertThatThrownBy(() -> postService.deletePost(nonExistentId))
                     .isInstanceOf(EntityNotFoundException.class);
@@ -417,28 +725,19 @@ class PostServiceTest {
         @Test
         @DisplayName("should return all posts including unpublished")
         void shouldReturnAllPostsIncludingUnpublished() {
-            Post unpublished = Post.builder()
-                    .id(UUID.randomUUID())
-                    .category(Category.PERSONAL_PROJECT)
-                    .titleEn("Unpublished")
-                    .titlePl("Nieopublikowany")
-                    .slug("unpublished")
-                    .published(false)
-                    .build();
-            Post published = Post.builder()
-                    .id(UUID.randomUUID())
-                    .category(Category.PERSONAL_PROJECT)
-                    .titleEn("Published")
-                    .titlePl("Opublikowany")
-                    .slug("published")
-                    .published(true)
-                    .build();
-
-            given(postRepository.findAll()).willReturn(List.of(unpublished, published));
+            given(postRepository.findAllSummaries("en")).willReturn(List.of(
+                    summary("Unpublished", Category.PERSONAL_PROJECT),
+                    summary("Published", Category.PERSONAL_PROJECT)));
 
             List<PostDto> result = postService.getAllPosts("en");
 
             assertThat(result).hasSize(2);
         }
     }
+
+    private PostSummary summary(String title, Category category) {
+        return new PostSummary(UUID.randomUUID(), category, "slug", title, "excerpt",
+                null, null, null, null, true, 1, new String[0],
+                OffsetDateTime.now(), OffsetDateTime.now(), false, 0, 0);
+    }
 }
@@ -0,0 +1,269 @@
+package com.portfolio.service;
+
+import com.portfolio.dto.UploadSessionDto;
+import com.portfolio.entity.UploadSession;
+import com.portfolio.repository.MediaBlobRepository;
+import com.portfolio.repository.PostRepository;
+import com.portfolio.repository.UploadSessionRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ResumableUploadService")
+class ResumableUploadServiceTest {
+
+    private static final byte[] MP4 = mp4(100_000);
+
+    @Mock
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private MediaBlobRepository mediaBlobRepository;
+
+    @Mock
+    private MediaCache mediaCache;
+
+    @Mock
+    private MediaUsageService mediaUsageService;
+
+    @Mock
+    private MediaService mediaService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path root;
+
+    private ResumableUploadService uploadService;
+
+    private final UUID id = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore();
+        ReflectionTestUtils.setField(blobStore, "uploadPath", root.toString());
+        blobStore.init();
+        StorageService storageService = new StorageService(mediaBlobRepository, blobStore, mediaCache, mediaUsageService);
+        ReflectionTestUtils.setField(storageService, "uploadPath", root.toString());
+        ReflectionTestUtils.setField(storageService, "allowedTypes", "image/png,video/mp4");
+        ReflectionTestUtils.setField(storageService, "maxFileSize", DataSize.ofMegabytes(1));
+        storageService.init();
+
+        uploadService = new ResumableUploadService(uploadSessionRepository, postRepository, storageService,
+                mediaService, transactionManager);
+        ReflectionTestUtils.setField(uploadService, "uploadPath", root.toString());
+        ReflectionTestUtils.setField(uploadService, "maxFileSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(uploadService, "expireAfter", Duration.ofHours(24));
+        uploadService.init();
+    }
+
+    private static byte[] mp4(int size) {
+        byte[] content = new byte[size];
+        // ftyp box header, enough for the content type to be sniffed
+        System.arraycopy(new byte[]{0, 0, 0, 0x18, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm'}, 0, content, 0, 12);
+        return content;
+    }
+
+    private void givenSession(long length) {
+        UploadSession session = UploadSession.builder()
+                .id(id)
+                .originalName("clip.mp4")
+                .length(length)
+                .expiresAt(OffsetDateTime.now().plusHours(1))
+                .build();
+        given(uploadSessionRepository.findActive(eq(id), any())).willReturn(Optional.of(session));
+    }
+
+    private UploadSessionDto append(long offset, int from, int to) throws IOException {
+        return uploadService.append(id, offset, new ByteArrayInputStream(Arrays.copyOfRange(MP4, from, to)));
+    }
+
+    private Path part() {
+        return root.resolve(".uploads").resolve(id.toString());
+    }
+
+    @Nested
+    @DisplayName("create")
+    class Create {
+
+        @Test
+        @DisplayName("should reject uploads larger than the file size limit")
+        void shouldRejectTooLarge() {
+            assertThatThrownBy(() -> uploadService.create(DataSize.ofMegabytes(2).toBytes(), "big.mp4", null, null, null))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("should reject uploads for a missing post")
+        void shouldRejectMissingPost() {
+            UUID postId = UUID.randomUUID();
+
+            assertThatThrownBy(() -> uploadService.create(100, "clip.mp4", postId, null, null))
+                    .isInstanceOf(EntityNotFoundException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("append")
+    class Append {
+
+        @Test
+        @DisplayName("should append chunks at the current offset")
+        void shouldAppendChunks() throws Exception {
+            givenSession(MP4.length);
+
+            assertThat(append(0, 0, 40_000).getOffset()).isEqualTo(40_000);
+            assertThat(append(40_000, 40_000, 100_000).getOffset()).isEqualTo(100_000);
+
+            assertThat(part()).hasBinaryContent(MP4);
+            assertThat(uploadService.getSession(id).getOffset()).isEqualTo(100_000);
+            verify(uploadSessionRepository, times(2)).extend(eq(id), any());
+        }
+
+        @Test
+        @DisplayName("should refuse a chunk at any other offset")
+        void shouldRejectWrongOffset() throws Exception {
+            givenSession(MP4.length);
+            append(0, 0, 40_000);
+
+            assertThatThrownBy(() -> append(30_000, 30_000, 50_000))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+            assertThat(Files.size(part())).isEqualTo(40_000);
+        }
+
+        @Test
+        @DisplayName("should keep what arrived of a chunk cut off midway")
+        void shouldKeepPartialChunk() throws Exception {
+            givenSession(MP4.length);
+            InputStream dropped = new InputStream() {
+                private int sent;
+
+                @Override
+                public int read() throws IOException {
+                    if (sent == 70_000) {
+                        throw new IOException("Connection reset");
+                    }
+                    return MP4[sent++] & 0xFF;
+                }
+            };
+
+            assertThatThrownBy(() -> uploadService.append(id, 0, dropped)).isInstanceOf(IOException.class);
+            assertThat(uploadService.getSession(id).getOffset()).isEqualTo(70_000);
+
+            append(70_000, 70_000, 100_000);
+            assertThat(part()).hasBinaryContent(MP4);
+        }
+
+        @Test
+        @DisplayName("should not write past the declared length")
+        void shouldRejectOverlongChunk() throws Exception {
+            givenSession(50_000);
+
+            assertThatThrownBy(() -> append(0, 0, 100_000)).isInstanceOf(IllegalArgumentException.class);
+            assertThat(Files.size(part())).isLessThanOrEqualTo(50_000);
+        }
+    }
+
+    @Nested
+    @DisplayName("complete")
+    class Complete {
+
+        @Test
+        @DisplayName("should hand the staged upload to the media service and end the session")
+        void shouldComplete() throws Exception {
+            givenSession(MP4.length);
+            append(0, 0, MP4.length);
+            given(mediaService.uploadMedia(any(StorageService.StagedFile.class), eq("clip.mp4"), isNull(), isNull(),
+                    isNull(), eq("en"))).willReturn(CompletableFuture.completedFuture(null));
+
+            uploadService.complete(id, "en");
+
+            ArgumentCaptor<StorageService.StagedFile> staged = ArgumentCaptor.forClass(StorageService.StagedFile.class);
+            verify(mediaService).uploadMedia(staged.capture(), eq("clip.mp4"), isNull(), isNull(), isNull(), eq("en"));
+            assertThat(staged.getValue().contentType()).isEqualTo("video/mp4");
+            assertThat(staged.getValue().size()).isEqualTo(MP4.length);
+            assertThat(staged.getValue().path()).hasBinaryContent(MP4);
+            assertThat(part()).doesNotExist();
+            verify(uploadSessionRepository).deleteById(id);
+        }
+
+        @Test
+        @DisplayName("should refuse an incomplete upload")
+        void shouldRejectIncomplete() throws Exception {
+            givenSession(MP4.length);
+            append(0, 0, 40_000);
+
+            assertThatThrownBy(() -> uploadService.complete(id, "en"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("40000 of 100000");
+            assertThat(part()).exists();
+        }
+
+        @Test
+        @DisplayName("should end the session when the content is not allowed")
+        void shouldAbortDisallowedContent() throws Exception {
+            givenSession(1000);
+            uploadService.append(id, 0, new ByteArrayInputStream(new byte[1000]));
+
+            assertThatThrownBy(() -> uploadService.complete(id, "en")).isInstanceOf(IllegalArgumentException.class);
+            assertThat(part()).doesNotExist();
+            verify(uploadSessionRepository).delete(any(UploadSession.class));
+        }
+    }
+
+    @Test
+    @DisplayName("should remove part files whose session is gone")
+    void shouldSweepOrphanedParts() throws Exception {
+        givenSession(MP4.length);
+        append(0, 0, 1000);
+        Path live = root.resolve(".uploads").resolve(UUID.randomUUID().toString());
+        Files.write(live, new byte[10]);
+        given(uploadSessionRepository.existsById(id)).willReturn(false);
+        given(uploadSessionRepository.existsById(UUID.fromString(live.getFileName().toString()))).willReturn(true);
+
+        uploadService.removeExpired();
+
+        assertThat(part()).doesNotExist();
+        assertThat(live).exists();
+        verify(uploadSessionRepository).deleteExpired(any());
+    }
+}
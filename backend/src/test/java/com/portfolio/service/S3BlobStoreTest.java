@@ -0,0 +1,182 @@
+package com.portfolio.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Integration tests for the S3 blob store against MinIO.
+ * Requires Docker to be running. Tests will be skipped if Docker is unavailable.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("S3BlobStore")
+class S3BlobStoreTest {
+
+    @Container
+    static MinIOContainer minio = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+
+    private static S3Client s3;
+
+    @TempDir
+    Path staging;
+
+    private S3BlobStore blobStore;
+
+    @BeforeAll
+    static void connect() {
+        s3 = S3Client.builder()
+                .endpointOverride(URI.create(minio.getS3URL()))
+                .region(Region.US_EAST_1)
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(minio.getUserName(), minio.getPassword())))
+                .build();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        s3.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        String bucket = "media-" + UUID.randomUUID();
+        s3.createBucket(request -> request.bucket(bucket));
+        blobStore = new S3BlobStore(s3);
+        ReflectionTestUtils.setField(blobStore, "bucket", bucket);
+        ReflectionTestUtils.setField(blobStore, "multipartThreshold", DataSize.ofMegabytes(6));
+        ReflectionTestUtils.setField(blobStore, "partSize", DataSize.ofMegabytes(5));
+    }
+
+    private Path file(byte[] content) throws Exception {
+        return Files.write(staging.resolve(UUID.randomUUID().toString()), content);
+    }
+
+    private static byte[] random(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+
+    private byte[] read(String key, long position, int length) throws Exception {
+        try (SeekableByteChannel channel = blobStore.open(key)) {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            channel.position(position);
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // keep reading
+            }
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+    }
+
+    @Test
+    @DisplayName("should store a small file in one request and take over the staged copy")
+    void shouldPutSmallFile() throws Exception {
+        byte[] content = random(1000);
+        Path source = file(content);
+
+        blobStore.put("images/ab/cd/photo.jpg", source, "image/jpeg");
+
+        assertThat(source).doesNotExist();
+        assertThat(blobStore.stat("images/ab/cd/photo.jpg")).get()
+                .satisfies(blob -> assertThat(blob.size()).isEqualTo(1000));
+        assertThat(read("images/ab/cd/photo.jpg", 0, 1000)).isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("should upload large files in parts")
+    void shouldPutMultipart() throws Exception {
+        byte[] content = random(13 * 1024 * 1024);
+
+        blobStore.put("videos/clip.mp4", file(content), "video/mp4");
+
+        assertThat(s3.headObject(request -> request.bucket(bucket()).key("videos/clip.mp4")).eTag())
+                .as("multipart ETags end in the part count")
+                .endsWith("-3\"");
+        assertThat(read("videos/clip.mp4", 0, content.length)).isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("should read from any position without fetching what precedes it")
+    void shouldSeek() throws Exception {
+        byte[] content = random(100_000);
+        blobStore.put("videos/clip.mp4", file(content), "video/mp4");
+
+        assertThat(read("videos/clip.mp4", 90_000, 100)).isEqualTo(Arrays.copyOfRange(content, 90_000, 90_100));
+        assertThat(read("videos/clip.mp4", 99_990, 100)).isEqualTo(Arrays.copyOfRange(content, 99_990, 100_000));
+    }
+
+    @Test
+    @DisplayName("should list by prefix, move and delete blobs")
+    void shouldListMoveAndDelete() throws Exception {
+        blobStore.put("images/ab/cd/photo.jpg", file(random(10)), "image/jpeg");
+        blobStore.put("images/ab/cd/photo.d-w480.jpg", file(random(20)), "image/jpeg");
+        blobStore.put("images/ab/cd/other.jpg", file(random(30)), "image/jpeg");
+
+        try (Stream<BlobStore.BlobInfo> blobs = blobStore.list("images/ab/cd/photo.")) {
+            assertThat(blobs.map(BlobStore.BlobInfo::key).toList())
+                    .containsExactlyInAnyOrder("images/ab/cd/photo.jpg", "images/ab/cd/photo.d-w480.jpg");
+        }
+
+        blobStore.move("images/ab/cd/photo.jpg", ".trash/photo");
+        assertThat(blobStore.stat("images/ab/cd/photo.jpg")).isEmpty();
+        assertThat(blobStore.stat(".trash/photo")).isPresent();
+
+        blobStore.delete(".trash/photo");
+        blobStore.delete(".trash/photo");
+        assertThat(blobStore.stat(".trash/photo")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should list one level of keys at a time")
+    void shouldListLevel() throws Exception {
+        blobStore.put("images/ab/cd/photo.jpg", file(random(10)), "image/jpeg");
+        blobStore.put("images/legacy.jpg", file(random(20)), "image/jpeg");
+        blobStore.put("videos/clip.mp4", file(random(30)), "video/mp4");
+
+        assertThat(blobStore.listLevel("").prefixes()).containsExactlyInAnyOrder("images/", "videos/");
+        BlobStore.Listing images = blobStore.listLevel("images/");
+        assertThat(images.prefixes()).containsExactly("images/ab/");
+        assertThat(images.blobs()).extracting(BlobStore.BlobInfo::key, BlobStore.BlobInfo::size)
+                .containsExactly(tuple("images/legacy.jpg", 20L));
+    }
+
+    @Test
+    @DisplayName("should report missing blobs as missing files")
+    void shouldReportMissingBlobs() {
+        assertThatThrownBy(() -> blobStore.open("images/missing.jpg")).isInstanceOf(NoSuchFileException.class);
+        assertThatThrownBy(() -> blobStore.move("images/missing.jpg", "images/other.jpg"))
+                .isInstanceOf(NoSuchFileException.class);
+    }
+
+    private String bucket() {
+        return (String) ReflectionTestUtils.getField(blobStore, "bucket");
+    }
+}
@@ -0,0 +1,413 @@
+package com.portfolio.service;
+
+import com.portfolio.repository.MediaBlobRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StorageService")
+class StorageServiceTest {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+    private static final byte[] HELLO = png("hello");
+    private static final String HELLO_SHA256 = sha256(HELLO);
+    private static final String HELLO_FILENAME = "images/" + HELLO_SHA256 + ".png";
+
+    @Mock
+    private MediaBlobRepository mediaBlobRepository;
+
+    @Mock
+    private MediaCache mediaCache;
+
+    @Mock
+    private MediaUsageService mediaUsageService;
+
+    private StorageService storageService;
+
+    @TempDir
+    Path root;
+
+    @BeforeEach
+    void setUp() {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore();
+        ReflectionTestUtils.setField(blobStore, "uploadPath", root.toString());
+        blobStore.init();
+        storageService = new StorageService(mediaBlobRepository, blobStore, mediaCache, mediaUsageService);
+        ReflectionTestUtils.setField(storageService, "uploadPath", root.toString());
+        ReflectionTestUtils.setField(storageService, "allowedTypes", "image/png,image/jpeg,video/mp4");
+        ReflectionTestUtils.setField(storageService, "maxFileSize", DataSize.ofMegabytes(1));
+        storageService.init();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static byte[] png(String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        byte[] content = Arrays.copyOf(PNG_SIGNATURE, PNG_SIGNATURE.length + bytes.length);
+        System.arraycopy(bytes, 0, content, PNG_SIGNATURE.length, bytes.length);
+        return content;
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String upload(byte[] content) throws Exception {
+        return storageService.store(storageService.stage(new ByteArrayInputStream(content), "Screenshot.PNG"));
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    private Path stored() {
+        return root.resolve("images/" + HELLO_SHA256.substring(0, 2) + "/" + HELLO_SHA256.substring(2, 4) + "/" + HELLO_SHA256 + ".png");
+    }
+
+    private long stagedFiles() throws Exception {
+        try (Stream<Path> files = Files.list(root.resolve(".staging"))) {
+            return files.count();
+        }
+    }
+
+    @Nested
+    @DisplayName("store")
+    class Store {
+
+        @Test
+        @DisplayName("should name the file after its content and place it in hash-prefix directories before commit")
+        void shouldStoreByContentHash() throws Exception {
+            given(mediaBlobRepository.acquire(HELLO_FILENAME, HELLO_SHA256, HELLO.length)).willReturn(1);
+
+            String filename = upload(HELLO);
+
+            assertThat(filename).isEqualTo(HELLO_FILENAME);
+            assertThat(stored()).hasBinaryContent(HELLO);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+            assertThat(stored()).hasBinaryContent(HELLO);
+            assertThat(storageService.resolve(filename).localPath()).isEqualTo(stored());
+            assertThat(stagedFiles()).isZero();
+        }
+
+        @Test
+        @DisplayName("should keep a single copy when the same content is uploaded again")
+        void shouldDeduplicate() throws Exception {
+            given(mediaBlobRepository.acquire(HELLO_FILENAME, HELLO_SHA256, HELLO.length)).willReturn(1, 2);
+            upload(HELLO);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+
+            String filename = upload(HELLO);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+
+            assertThat(filename).isEqualTo(HELLO_FILENAME);
+            try (Stream<Path> files = Files.walk(root.resolve("images"))) {
+                assertThat(files.filter(Files::isRegularFile)).containsExactly(stored());
+            }
+            assertThat(stagedFiles()).isZero();
+        }
+
+        @Test
+        @DisplayName("should leave nothing behind when the transaction rolls back")
+        void shouldDiscardOnRollback() throws Exception {
+            given(mediaBlobRepository.acquire(anyString(), anyString(), anyLong())).willReturn(1);
+
+            upload(HELLO);
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+            assertThat(stored()).doesNotExist();
+            assertThat(stagedFiles()).isZero();
+        }
+
+        @Test
+        @DisplayName("should keep an existing file when a duplicate upload rolls back")
+        void shouldKeepExistingFileOnRollback() throws Exception {
+            given(mediaBlobRepository.acquire(HELLO_FILENAME, HELLO_SHA256, HELLO.length)).willReturn(1, 2);
+            upload(HELLO);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+
+            upload(HELLO);
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+            assertThat(stored()).hasBinaryContent(HELLO);
+            assertThat(stagedFiles()).isZero();
+        }
+
+        @Test
+        @DisplayName("should fail the upload when the file cannot be written to the store")
+        void shouldFailWhenPutFails() throws Exception {
+            given(mediaBlobRepository.acquire(HELLO_FILENAME, HELLO_SHA256, HELLO.length)).willReturn(1);
+            // A file where the hash-prefix directory has to go
+            Files.createDirectories(root.resolve("images"));
+            Files.writeString(root.resolve("images/" + HELLO_SHA256.substring(0, 2)), "in the way");
+
+            assertThatThrownBy(() -> upload(HELLO))
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasMessageContaining("Could not store");
+            assertThat(stagedFiles()).isZero();
+        }
+
+        @Test
+        @DisplayName("should reject content whose bytes match no allowed type")
+        void shouldRejectUnknownContent() throws Exception {
+            assertThatThrownBy(() -> upload("MZ\u0090 not an image".getBytes(StandardCharsets.UTF_8)))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("not allowed");
+            assertThat(stagedFiles()).isZero();
+        }
+
+        @Test
+        @DisplayName("should take only MP4 brands of an ftyp box for video/mp4")
+        void shouldSniffMp4ByBrand() {
+            byte[] mp4 = "\0\0\0\u0018ftypisom\0\0\2\0".getBytes(StandardCharsets.ISO_8859_1);
+            byte[] dash = "\0\0\0\u0018ftypdash\0\0\0\0".getBytes(StandardCharsets.ISO_8859_1);
+            byte[] heic = "\0\0\0\u0018ftypheic\0\0\0\0".getBytes(StandardCharsets.ISO_8859_1);
+            byte[] avif = "\0\0\0\u001Cftypavif\0\0\0\0".getBytes(StandardCharsets.ISO_8859_1);
+            byte[] quickTime = "\0\0\0\u0014ftypqt  \0\0\2\0".getBytes(StandardCharsets.ISO_8859_1);
+
+            assertThat(StorageService.sniffContentType(mp4)).isEqualTo("video/mp4");
+            assertThat(StorageService.sniffContentType(dash)).isEqualTo("video/mp4");
+            assertThat(StorageService.sniffContentType(heic)).isNull();
+            assertThat(StorageService.sniffContentType(avif)).isNull();
+            assertThat(StorageService.sniffContentType(quickTime)).isNull();
+        }
+
+        @Test
+        @DisplayName("should reject HEIC photos and QuickTime movies posing as MP4")
+        void shouldRejectOtherIsoMediaFiles() throws Exception {
+            byte[] heic = "\0\0\0\u0018ftypheic\0\0\0\0mif1heic".getBytes(StandardCharsets.ISO_8859_1);
+            byte[] quickTime = "\0\0\0\u0014ftypqt  \0\0\2\0qt  ".getBytes(StandardCharsets.ISO_8859_1);
+
+            assertThatThrownBy(() -> upload(heic))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("File type not allowed: unknown");
+            assertThatThrownBy(() -> upload(quickTime))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("File type not allowed: unknown");
+            assertThat(stagedFiles()).isZero();
+            then(mediaBlobRepository).shouldHaveNoInteractions();
+        }
+
+        @Test
+        @DisplayName("should reject sniffed types outside the allowlist")
+        void shouldRejectDisallowedType() {
+            byte[] gif = "GIF89a....".getBytes(StandardCharsets.US_ASCII);
+
+            assertThatThrownBy(() -> upload(gif))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("File type not allowed: image/gif");
+        }
+
+        @Test
+        @DisplayName("should reject and clean up uploads over the size limit")
+        void shouldRejectOversizedUpload() throws Exception {
+            ReflectionTestUtils.setField(storageService, "maxFileSize", DataSize.ofBytes(1000));
+            byte[] large = png("x".repeat(2000));
+
+            assertThatThrownBy(() -> upload(large))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("maximum");
+            assertThat(stagedFiles()).isZero();
+        }
+
+        @Test
+        @DisplayName("should count new content towards the storage usage, but not a duplicate")
+        void shouldCountNewContent() throws Exception {
+            given(mediaBlobRepository.acquire(HELLO_FILENAME, HELLO_SHA256, HELLO.length)).willReturn(1, 2);
+
+            upload(HELLO);
+            upload(HELLO);
+
+            then(mediaUsageService).should().blobStored(HELLO.length);
+        }
+
+        @Test
+        @DisplayName("should stop receiving an upload once it no longer fits the quota")
+        void shouldRejectUploadOverQuota() throws Exception {
+            given(mediaUsageService.remainingQuota()).willReturn(OptionalLong.of(HELLO.length - 1));
+
+            assertThatThrownBy(() -> upload(HELLO))
+                    .isInstanceOf(ResponseStatusException.class)
+                    .hasMessageContaining("quota");
+            assertThat(stagedFiles()).isZero();
+            then(mediaBlobRepository).shouldHaveNoInteractions();
+        }
+
+        @Test
+        @DisplayName("should report the sniffed type, size and hash of a staged upload")
+        void shouldDescribeStagedUpload() throws Exception {
+            StorageService.StagedFile staged = storageService.stage(new ByteArrayInputStream(HELLO), "a.bin");
+
+            assertThat(staged.contentType()).isEqualTo("image/png");
+            assertThat(staged.size()).isEqualTo(HELLO.length);
+            assertThat(staged.sha256()).isEqualTo(HELLO_SHA256);
+            assertThat(staged.path()).hasBinaryContent(HELLO);
+        }
+
+        @Test
+        @DisplayName("should resolve a stored file to its key in the blob store")
+        void shouldResolveKey() throws Exception {
+            given(mediaBlobRepository.acquire(HELLO_FILENAME, HELLO_SHA256, HELLO.length)).willReturn(1);
+            String filename = upload(HELLO);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+
+            assertThat(storageService.resolve(filename).key())
+                    .isEqualTo("images/" + HELLO_SHA256.substring(0, 2) + "/" + HELLO_SHA256.substring(2, 4)
+                            + "/" + HELLO_SHA256 + ".png");
+        }
+
+        @Test
+        @DisplayName("should map keys back to filenames and renditions to their original")
+        void shouldMapKeysBack() {
+            String key = storageService.key(HELLO_FILENAME);
+
+            assertThat(StorageService.filename(key)).isEqualTo(HELLO_FILENAME);
+            assertThat(StorageService.filename("images/legacy.png")).isEqualTo("images/legacy.png");
+            assertThat(StorageService.originalKey(storageService.derivativeKey(key, "w480"))).isEqualTo(key);
+            assertThat(StorageService.originalKey(key)).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("release")
+    class Release {
+
+        @BeforeEach
+        void storeHello() throws Exception {
+            given(mediaBlobRepository.acquire(HELLO_FILENAME, HELLO_SHA256, HELLO.length)).willReturn(1);
+            upload(HELLO);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        @Test
+        @DisplayName("should keep the file while other media reference it")
+        void shouldKeepSharedFile() throws Exception {
+            given(mediaBlobRepository.release(HELLO_FILENAME)).willReturn(1);
+
+            storageService.release(HELLO_FILENAME);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+
+            assertThat(stored()).exists();
+            then(mediaUsageService).should(never()).blobRemoved(anyLong());
+        }
+
+        @Test
+        @DisplayName("should stop counting the file with its last reference")
+        void shouldCountRemovedFile() throws Exception {
+            given(mediaBlobRepository.findSize(HELLO_FILENAME)).willReturn(Optional.of((long) HELLO.length));
+            given(mediaBlobRepository.release(HELLO_FILENAME)).willReturn(0);
+
+            storageService.release(HELLO_FILENAME);
+
+            then(mediaUsageService).should().blobRemoved(HELLO.length);
+        }
+
+        @Test
+        @DisplayName("should delete the file with its last reference")
+        void shouldDeleteLastReference() throws Exception {
+            given(mediaBlobRepository.release(HELLO_FILENAME)).willReturn(0);
+
+            storageService.release(HELLO_FILENAME);
+            assertThat(stored()).doesNotExist();
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+
+            assertThat(stored()).doesNotExist();
+            assertThat(stagedFiles()).isZero();
+            then(mediaCache).should().invalidate(storageService.key(HELLO_FILENAME));
+        }
+
+        @Test
+        @DisplayName("should delete derived renditions along with the original")
+        void shouldDeleteDerivatives() throws Exception {
+            Path derivative = Files.write(stored().resolveSibling(HELLO_SHA256 + ".d-w480.png"), HELLO);
+            given(mediaBlobRepository.release(HELLO_FILENAME)).willReturn(0);
+
+            storageService.release(HELLO_FILENAME);
+            assertThat(derivative).exists();
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+
+            assertThat(derivative).doesNotExist();
+            assertThat(derivative.getParent()).isEmptyDirectory();
+            then(mediaCache).should().invalidate(storageService.derivativeKey(storageService.key(HELLO_FILENAME), "w480"));
+        }
+
+        @Test
+        @DisplayName("should put the file back when the delete rolls back")
+        void shouldRestoreOnRollback() throws Exception {
+            given(mediaBlobRepository.release(HELLO_FILENAME)).willReturn(0);
+
+            storageService.release(HELLO_FILENAME);
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+            assertThat(stored()).hasBinaryContent(HELLO);
+            then(mediaCache).should(never()).invalidate(anyString());
+        }
+
+        @Test
+        @DisplayName("should delete files stored before content addressing from their flat location")
+        void shouldDeleteLegacyFile() throws Exception {
+            Path legacy = Files.writeString(Files.createDirectories(root.resolve("videos")).resolve("clip.mp4"), "x");
+            given(mediaBlobRepository.release(eq("videos/clip.mp4"))).willReturn(0);
+
+            storageService.release("videos/clip.mp4");
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+
+            assertThat(legacy).doesNotExist();
+        }
+    }
+
+    @Test
+    @DisplayName("should refuse paths outside the storage root")
+    void shouldRejectTraversal() {
+        assertThatThrownBy(() -> storageService.resolve("../secret.txt"))
+                .isInstanceOf(EntityNotFoundException.class);
+        assertThatThrownBy(() -> storageService.resolve(".staging/anything"))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+}
@@ -0,0 +1,121 @@
+package com.portfolio.service;
+
+import com.portfolio.dto.HashtagDto;
+import com.portfolio.entity.Tag;
+import com.portfolio.repository.TagRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TagService")
+class TagServiceTest {
+
+    @Mock
+    private TagRepository tagRepository;
+
+    @InjectMocks
+    private TagService tagService;
+
+    private static Tag tag(String normalizedName, String name, int count) {
+        return Tag.builder()
+                .id(UUID.randomUUID())
+                .normalizedName(normalizedName)
+                .name(name)
+                .publishedPostCount(count)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("clean")
+    class Clean {
+
+        @Test
+        @DisplayName("should strip #, collapse whitespace and keep the first spelling of duplicates")
+        void shouldNormalizeAndDeduplicate() {
+            Map<String, String> cleaned = TagService.clean(Arrays.asList("#Java", " JAVA ", "Spring   Boot", "", null, "##"));
+
+            assertThat(cleaned).containsExactly(Map.entry("java", "Java"), Map.entry("spring boot", "Spring Boot"));
+        }
+
+        @Test
+        @DisplayName("should reject hashtags longer than the column")
+        void shouldRejectLongHashtags() {
+            assertThatThrownBy(() -> TagService.clean(List.of("x".repeat(Tag.MAX_NAME_LENGTH + 1))))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("resolve")
+    class Resolve {
+
+        @Test
+        @DisplayName("should not insert when every tag exists")
+        void shouldReuseExistingTags() {
+            Tag java = tag("java", "Java", 1);
+            given(tagRepository.findByNormalizedNameIn(Set.of("java"))).willReturn(List.of(java));
+
+            Set<Tag> tags = tagService.resolve(Map.of("java", "java"));
+
+            assertThat(tags).containsExactly(java);
+            verify(tagRepository, never()).insertIfAbsent(any(), anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("should insert missing tags and read them back")
+        void shouldInsertMissingTags() {
+            Tag java = tag("java", "Java", 1);
+            Tag rust = tag("rust", "Rust", 0);
+            given(tagRepository.findByNormalizedNameIn(Set.of("java", "rust")))
+                    .willReturn(List.of(java))
+                    .willReturn(List.of(java, rust));
+
+            Set<Tag> tags = tagService.resolve(Map.of("java", "Java", "rust", "Rust"));
+
+            assertThat(tags).containsExactlyInAnyOrder(java, rust);
+            verify(tagRepository).insertIfAbsent(any(UUID.class), eq("rust"), eq("Rust"));
+        }
+    }
+
+    @Nested
+    @DisplayName("getPublishedHashtags")
+    class GetPublishedHashtags {
+
+        @Test
+        @DisplayName("should map tags with their published post counts")
+        void shouldMapCounts() {
+            given(tagRepository.findPublished()).willReturn(List.of(tag("java", "Java", 3)));
+
+            List<HashtagDto> hashtags = tagService.getPublishedHashtags();
+
+            assertThat(hashtags).containsExactly(new HashtagDto("Java", "java", 3));
+        }
+    }
+
+    @Test
+    @DisplayName("refreshCounts should skip the update when there are no tags")
+    void refreshCountsShouldSkipEmpty() {
+        tagService.refreshCounts(Set.of());
+
+        verifyNoInteractions(tagRepository);
+    }
+}
@@ -0,0 +1,74 @@
+package com.portfolio.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("BlurHash")
+class BlurHashTest {
+
+    private static final String BASE83 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    private static int decode83(String digits) {
+        int value = 0;
+        for (char c : digits.toCharArray()) {
+            value = value * 83 + BASE83.indexOf(c);
+        }
+        return value;
+    }
+
+    private static int[] solid(int rgb, int size) {
+        int[] pixels = new int[size];
+        Arrays.fill(pixels, rgb);
+        return pixels;
+    }
+
+    @Test
+    @DisplayName("should take two characters per component plus four for the header")
+    void shouldHaveExpectedLength() {
+        String hash = BlurHash.encode(solid(0x336699, 32 * 24), 32, 24, 4, 3);
+
+        assertThat(hash).hasSize(4 + 2 * 4 * 3);
+        assertThat(decode83(hash.substring(0, 1))).isEqualTo(3 + 2 * 9);
+    }
+
+    @Test
+    @DisplayName("should encode the average colour of the image in sRGB")
+    void shouldEncodeAverageColour() {
+        String hash = BlurHash.encode(solid(0x336699, 16 * 16), 16, 16, 3, 3);
+
+        assertThat(decode83(hash.substring(2, 6))).isEqualTo(0x336699);
+    }
+
+    @Test
+    @DisplayName("should carry a left-to-right change in the first horizontal component")
+    void shouldEncodeHorizontalGradient() {
+        int width = 16;
+        int[] pixels = new int[width * width];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = i % width < width / 2 ? 0x000000 : 0xFFFFFF;
+        }
+
+        String hash = BlurHash.encode(pixels, width, width, 2, 1);
+        int ac = decode83(hash.substring(6, 8));
+
+        // Bright on the right means a negative cosine weight, quantised below 9 on every channel
+        assertThat(ac / (19 * 19)).isLessThan(9);
+        assertThat(ac / 19 % 19).isLessThan(9);
+        assertThat(ac % 19).isLessThan(9);
+    }
+
+    @Test
+    @DisplayName("should reject out-of-range components")
+    void shouldRejectBadComponents() {
+        assertThatThrownBy(() -> BlurHash.encode(solid(0, 4), 2, 2, 0, 3))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BlurHash.encode(solid(0, 4), 2, 2, 10, 3))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,49 @@
+package com.portfolio.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("CursorUtils")
+class CursorUtilsTest {
+
+    @Test
+    @DisplayName("should round-trip sort key parts")
+    void shouldRoundTripParts() {
+        UUID id = UUID.randomUUID();
+
+        String cursor = CursorUtils.encode(42, id);
+
+        assertThat(CursorUtils.decode(cursor, 2)).containsExactly("42", id.toString());
+    }
+
+    @Test
+    @DisplayName("should produce URL-safe cursors")
+    void shouldProduceUrlSafeCursors() {
+        String cursor = CursorUtils.encode("2024-01-01T10:15:30.123456+01:00", UUID.randomUUID());
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    @DisplayName("should reject cursors that are not Base64")
+    void shouldRejectNonBase64() {
+        assertThatThrownBy(() -> CursorUtils.decode("***", 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    @DisplayName("should reject cursors with the wrong number of parts")
+    void shouldRejectWrongPartCount() {
+        String cursor = CursorUtils.encode(1, 2, 3);
+
+        assertThatThrownBy(() -> CursorUtils.decode(cursor, 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+}
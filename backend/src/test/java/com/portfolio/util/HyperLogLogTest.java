@@ -0,0 +1,74 @@
+package com.portfolio.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("HyperLogLog")
+class HyperLogLogTest {
+
+    @Test
+    @DisplayName("should estimate small cardinalities almost exactly")
+    void shouldEstimateSmallCardinalities() {
+        HyperLogLog sketch = new HyperLogLog();
+        IntStream.range(0, 100).forEach(i -> sketch.offer(HyperLogLog.hash("visitor-" + i)));
+
+        assertThat(sketch.estimate()).isCloseTo(100L, within(3L));
+    }
+
+    @Test
+    @DisplayName("should estimate large cardinalities within a few percent")
+    void shouldEstimateLargeCardinalities() {
+        HyperLogLog sketch = new HyperLogLog();
+        IntStream.range(0, 100_000).forEach(i -> sketch.offer(HyperLogLog.hash("visitor-" + i)));
+
+        assertThat(sketch.estimate()).isCloseTo(100_000L, within(5_000L));
+    }
+
+    @Test
+    @DisplayName("should ignore repeated elements")
+    void shouldIgnoreDuplicates() {
+        HyperLogLog sketch = new HyperLogLog();
+        long hash = HyperLogLog.hash("same-visitor");
+
+        assertThat(sketch.offer(hash)).isTrue();
+        assertThat(sketch.offer(hash)).isFalse();
+        assertThat(sketch.estimate()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should count the union when merging overlapping sketches")
+    void shouldMergeOverlappingSketches() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        IntStream.range(0, 6_000).forEach(i -> first.offer(HyperLogLog.hash("visitor-" + i)));
+        IntStream.range(4_000, 10_000).forEach(i -> second.offer(HyperLogLog.hash("visitor-" + i)));
+
+        first.merge(second);
+
+        assertThat(first.estimate()).isCloseTo(10_000L, within(500L));
+    }
+
+    @Test
+    @DisplayName("should round-trip through its byte form")
+    void shouldRoundTripBytes() {
+        HyperLogLog sketch = new HyperLogLog();
+        IntStream.range(0, 1_000).forEach(i -> sketch.offer(HyperLogLog.hash("visitor-" + i)));
+
+        HyperLogLog copy = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertThat(copy.estimate()).isEqualTo(sketch.estimate());
+    }
+
+    @Test
+    @DisplayName("should reject register arrays of the wrong size")
+    void shouldRejectWrongSize() {
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[16]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,92 @@
+package com.portfolio.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("TokenBucket")
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    @DisplayName("should let a full bucket's burst through without waiting")
+    void shouldAllowBurst() {
+        TokenBucket bucket = new TokenBucket(1000, 4000, now::get);
+
+        assertThat(bucket.reserve(3000)).isZero();
+        assertThat(bucket.reserve(1000)).isZero();
+    }
+
+    @Test
+    @DisplayName("should make callers wait for the tokens they overdraw")
+    void shouldWaitForDebt() {
+        TokenBucket bucket = new TokenBucket(1000, 1000, now::get);
+
+        assertThat(bucket.reserve(1000)).isZero();
+        assertThat(bucket.reserve(500)).isEqualTo(SECOND / 2);
+        // The next caller queues behind the first one's debt
+        assertThat(bucket.reserve(500)).isEqualTo(SECOND);
+    }
+
+    @Test
+    @DisplayName("should refill at the configured rate")
+    void shouldRefill() {
+        TokenBucket bucket = new TokenBucket(1000, 1000, now::get);
+        bucket.reserve(1000);
+
+        now.addAndGet(SECOND / 4);
+
+        assertThat(bucket.reserve(250)).isZero();
+        assertThat(bucket.reserve(250)).isEqualTo(SECOND / 4);
+    }
+
+    @Test
+    @DisplayName("should not accrue more than its capacity while idle")
+    void shouldCapAtCapacity() {
+        TokenBucket bucket = new TokenBucket(1000, 1000, now::get);
+
+        now.addAndGet(60 * SECOND);
+
+        assertThat(bucket.reserve(1000)).isZero();
+        assertThat(bucket.reserve(1000)).isEqualTo(SECOND);
+    }
+
+    @Test
+    @DisplayName("should only hand out tokens on trial when they are there")
+    void shouldTryReserve() {
+        TokenBucket bucket = new TokenBucket(1000, 1000, now::get);
+
+        assertThat(bucket.tryReserve(800)).isTrue();
+        assertThat(bucket.tryReserve(800)).isFalse();
+        assertThat(bucket.reserve(200)).isZero();
+    }
+
+    @Test
+    @DisplayName("should take refunded tokens back up to its capacity")
+    void shouldRefund() {
+        TokenBucket bucket = new TokenBucket(1000, 1000, now::get);
+        bucket.reserve(600);
+
+        bucket.refund(400);
+        bucket.refund(400);
+
+        assertThat(bucket.tryReserve(1000)).isTrue();
+        assertThat(bucket.tryReserve(1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("should reject a non-positive rate or capacity")
+    void shouldRejectInvalidSettings() {
+        assertThatThrownBy(() -> new TokenBucket(0, 1000))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1000, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
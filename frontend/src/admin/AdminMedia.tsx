@@ -211,6 +211,12 @@ export default function AdminMedia() {
                 <span className="text-dark-500">Size:</span>
                 <span className="text-dark-200">{selectedMedia.size ? formatFileSize(selectedMedia.size) : 'N/A'}</span>
               </div>
+              {selectedMedia.originalSize != null && selectedMedia.originalSize !== selectedMedia.size && (
+                <div className="flex justify-between">
+                  <span className="text-dark-500">Uploaded:</span>
+                  <span className="text-dark-200">{formatFileSize(selectedMedia.originalSize)}</span>
+                </div>
+              )}
               <div className="flex justify-between">
                 <span className="text-dark-500">URL:</span>
                 <input
@@ -162,12 +162,28 @@ export default function MediaManager({ postId, media, onMediaChange }: MediaMana
     async (files: FileList | null) => {
       if (!files || files.length === 0) return;
       setIsUploading(true);
-      for (const file of Array.from(files)) {
-        await uploadMutation.mutateAsync(file);
+      try {
+        if (files.length === 1) {
+          // Failures are reported by the mutation's onError
+          await uploadMutation.mutateAsync(files[0]).catch(() => undefined);
+          return;
+        }
+        const response = await adminMediaApi.uploadBatch(Array.from(files), postId);
+        const uploaded = response.data.flatMap((result) => (result.media ? [result.media] : []));
+        if (uploaded.length > 0) {
+          onMediaChange([...media, ...uploaded]);
+          toast.success(`${uploaded.length} of ${response.data.length} files uploaded`);
+        }
+        response.data
+          .filter((result) => !result.success)
+          .forEach((result) => toast.error(`${result.originalName}: ${result.error}`));
+      } catch {
+        toast.error('Failed to upload media');
+      } finally {
+        setIsUploading(false);
       }
-      setIsUploading(false);
     },
-    [uploadMutation]
+    [uploadMutation, postId, media, onMediaChange]
   );
 
   const handleDrop = useCallback(
@@ -2,8 +2,11 @@ import { Outlet } from 'react-router-dom';
 import { motion } from 'framer-motion';
 import Header from './Header';
 import Footer from './Footer';
+import { usePageTracking } from '@/hooks/usePageTracking';
 
 export default function Layout() {
+  usePageTracking();
+
   return (
     <div className="min-h-screen flex flex-col">
       <Header />
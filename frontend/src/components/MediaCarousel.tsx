@@ -2,6 +2,7 @@ import { useState } from 'react';
 import { motion } from 'framer-motion';
 import { Media, MediaType } from '@/types';
 import { getMediaUrl } from '@/lib/mediaUrl';
+import { getPlaceholderUrl } from '@/lib/blurhash';
 
 interface MediaCarouselProps {
   media: Media[];
@@ -75,11 +76,16 @@ export default function MediaCarousel({ media, className = '' }: MediaCarouselPr
       );
     }
 
+    const placeholder = getPlaceholderUrl(item.placeholder);
     return (
       <img
         src={getMediaUrl(item.url)}
         alt={item.altText || ''}
+        width={item.width ?? undefined}
+        height={item.height ?? undefined}
+        decoding="async"
         className="w-full h-full object-cover"
+        style={placeholder ? { backgroundImage: `url(${placeholder})`, backgroundSize: 'cover' } : undefined}
       />
     );
   };
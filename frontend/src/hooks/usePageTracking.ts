@@ -0,0 +1,29 @@
+import { useEffect } from 'react';
+import { useLocation } from 'react-router-dom';
+import { analyticsApi } from '@/services/api';
+
+const VISITOR_KEY = 'visitorId';
+const POST_PATH = /^\/projects\/([^/]+)\/?$/;
+
+function visitorId(): string | undefined {
+  try {
+    let id = localStorage.getItem(VISITOR_KEY);
+    if (!id) {
+      id = crypto.randomUUID();
+      localStorage.setItem(VISITOR_KEY, id);
+    }
+    return id;
+  } catch {
+    // Storage disabled: the server falls back to its own daily fingerprint
+    return undefined;
+  }
+}
+
+export function usePageTracking() {
+  const { pathname } = useLocation();
+
+  useEffect(() => {
+    const postSlug = POST_PATH.exec(pathname)?.[1];
+    analyticsApi.track({ path: pathname, postSlug, visitorId: visitorId() });
+  }, [pathname]);
+}
@@ -0,0 +1,97 @@
+// Decoder for the BlurHash placeholders the backend stores with each image (see https://blurha.sh)
+
+const BASE83 = '0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~';
+
+// Placeholders are blurred anyway; a tiny bitmap stretched by the browser looks the same
+const SIZE = 32;
+
+const cache = new Map<string, string>();
+
+function decode83(value: string): number {
+  let result = 0;
+  for (const char of value) {
+    result = result * 83 + BASE83.indexOf(char);
+  }
+  return result;
+}
+
+function toLinear(value: number): number {
+  const v = value / 255;
+  return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+}
+
+function toSrgb(value: number): number {
+  const v = Math.max(0, Math.min(1, value));
+  return v <= 0.0031308 ? Math.round(v * 12.92 * 255) : Math.round((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255);
+}
+
+function signPow(value: number, exponent: number): number {
+  return Math.sign(value) * Math.pow(Math.abs(value), exponent);
+}
+
+function decode(hash: string, width: number, height: number): Uint8ClampedArray {
+  const sizeFlag = decode83(hash[0]);
+  const componentsX = (sizeFlag % 9) + 1;
+  const componentsY = Math.floor(sizeFlag / 9) + 1;
+  if (hash.length !== 4 + 2 * componentsX * componentsY) {
+    throw new Error('Invalid BlurHash length');
+  }
+  const maximum = (decode83(hash[1]) + 1) / 166;
+
+  const colors: number[][] = [];
+  const dc = decode83(hash.substring(2, 6));
+  colors.push([toLinear(dc >> 16), toLinear((dc >> 8) & 255), toLinear(dc & 255)]);
+  for (let i = 1; i < componentsX * componentsY; i++) {
+    const ac = decode83(hash.substring(4 + i * 2, 6 + i * 2));
+    colors.push([
+      signPow((Math.floor(ac / (19 * 19)) - 9) / 9, 2) * maximum,
+      signPow(((Math.floor(ac / 19) % 19) - 9) / 9, 2) * maximum,
+      signPow(((ac % 19) - 9) / 9, 2) * maximum,
+    ]);
+  }
+
+  const pixels = new Uint8ClampedArray(width * height * 4);
+  for (let y = 0; y < height; y++) {
+    for (let x = 0; x < width; x++) {
+      let r = 0;
+      let g = 0;
+      let b = 0;
+      for (let j = 0; j < componentsY; j++) {
+        for (let i = 0; i < componentsX; i++) {
+          const basis = Math.cos((Math.PI * x * i) / width) * Math.cos((Math.PI * y * j) / height);
+          const color = colors[i + j * componentsX];
+          r += color[0] * basis;
+          g += color[1] * basis;
+          b += color[2] * basis;
+        }
+      }
+      const p = 4 * (x + y * width);
+      pixels[p] = toSrgb(r);
+      pixels[p + 1] = toSrgb(g);
+      pixels[p + 2] = toSrgb(b);
+      pixels[p + 3] = 255;
+    }
+  }
+  return pixels;
+}
+
+/** A data URL of the decoded placeholder, for use as a CSS background; undefined if it cannot be drawn. */
+export function getPlaceholderUrl(hash: string | null | undefined): string | undefined {
+  if (!hash || typeof document === 'undefined') return undefined;
+  const cached = cache.get(hash);
+  if (cached) return cached;
+
+  try {
+    const canvas = document.createElement('canvas');
+    canvas.width = SIZE;
+    canvas.height = SIZE;
+    const context = canvas.getContext('2d');
+    if (!context) return undefined;
+    context.putImageData(new ImageData(decode(hash, SIZE, SIZE), SIZE, SIZE), 0, 0);
+    const url = canvas.toDataURL();
+    cache.set(hash, url);
+    return url;
+  } catch {
+    return undefined;
+  }
+}
@@ -17,3 +17,25 @@ export function getMediaUrl(url: string | null | undefined): string {
 
   return url;
 }
+
+// Must match app.media.resize.widths on the backend; other widths are rejected
+export const IMAGE_WIDTHS = [160, 320, 480, 640, 960, 1280, 1920] as const;
+
+export type ImageWidth = (typeof IMAGE_WIDTHS)[number];
+
+function isResizable(url: string): boolean {
+  return url.startsWith('/api/media/images/');
+}
+
+/** URL of a stored image scaled down to the given width; other URLs are returned unchanged. */
+export function getResizedMediaUrl(url: string | null | undefined, width: ImageWidth): string {
+  if (!url) return '';
+  if (!isResizable(url)) return getMediaUrl(url);
+  return `${getMediaUrl(url)}?w=${width}`;
+}
+
+/** A srcset offering the given widths of a stored image, or undefined for other URLs. */
+export function getImageSrcSet(url: string | null | undefined, widths: readonly ImageWidth[]): string | undefined {
+  if (!url || !isResizable(url)) return undefined;
+  return widths.map((width) => `${getResizedMediaUrl(url, width)} ${width}w`).join(', ');
+}
@@ -34,9 +34,12 @@ import { Helmet } from 'react-helmet-async';
 import { settingsApi, postsApi, achievementsApi } from '@/services/api';
 import { useLanguage } from '@/contexts/LanguageContext';
 import { queryKeys } from '@/lib/queryKeys';
-import { getMediaUrl } from '@/lib/mediaUrl';
+import { getImageSrcSet, getResizedMediaUrl, type ImageWidth } from '@/lib/mediaUrl';
 import LoadingSpinner from '@/components/LoadingSpinner';
 
+// Cards span a third of the page on desktop and the full width on phones
+const CARD_WIDTHS: ImageWidth[] = [320, 480, 640, 960];
+
 const iconMap: Record<string, LucideIcon> = {
   target: Target,
   users: Users,
@@ -372,7 +375,10 @@ export default function Home() {
                   {post.featuredImage && (
                     <div className="aspect-video rounded-xl overflow-hidden mb-4 bg-dark-700">
                       <img
-                        src={getMediaUrl(post.featuredImage)}
+                        src={getResizedMediaUrl(post.featuredImage, 640)}
+                        srcSet={getImageSrcSet(post.featuredImage, CARD_WIDTHS)}
+                        sizes="(min-width: 768px) 33vw, 100vw"
+                        loading="lazy"
                         alt={post.title}
                         className="w-full h-full object-cover group-hover:scale-105 transition-transform duration-500"
                       />
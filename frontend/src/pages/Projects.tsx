@@ -7,10 +7,13 @@ import { ArrowRight, X, Github, ExternalLink } from 'lucide-react';
 import { postsApi } from '@/services/api';
 import { useLanguage } from '@/contexts/LanguageContext';
 import { queryKeys } from '@/lib/queryKeys';
-import { getMediaUrl } from '@/lib/mediaUrl';
+import { getImageSrcSet, getResizedMediaUrl, type ImageWidth } from '@/lib/mediaUrl';
 import LoadingSpinner from '@/components/LoadingSpinner';
 import HashtagList from '@/components/HashtagList';
 
+// Cards span a third of the page on desktop and the full width on phones
+const CARD_WIDTHS: ImageWidth[] = [320, 480, 640, 960];
+
 export default function Projects() {
   const { t } = useNerdTranslation();
   const { language } = useLanguage();
@@ -92,7 +95,10 @@ export default function Projects() {
                 {project.featuredImage && (
                   <div className="aspect-video rounded-xl overflow-hidden mb-4 bg-dark-700">
                     <img
-                      src={getMediaUrl(project.featuredImage)}
+                      src={getResizedMediaUrl(project.featuredImage, 640)}
+                      srcSet={getImageSrcSet(project.featuredImage, CARD_WIDTHS)}
+                      sizes="(min-width: 768px) 33vw, 100vw"
+                      loading="lazy"
                       alt={project.title}
                       className="w-full h-full object-cover group-hover:scale-105 transition-transform duration-500"
                     />
@@ -2,10 +2,14 @@ import axios, { AxiosInstance } from 'axios';
 import {
   ApiResponse,
   Post,
+  PostSearchResult,
+  Hashtag,
   CategoryInfo,
   SiteSettings,
   User,
   Media,
+  MediaUploadResult,
+  UploadSession,
   PostCreateRequest,
   PostUpdateRequest,
   SiteSettingsUpdateRequest,
@@ -33,6 +37,8 @@ import {
   RpgStat,
   RpgStatCreateRequest,
   RpgStatUpdateRequest,
+  AnalyticsEvent,
+  AnalyticsSummary,
 } from '@/types';
 
 const API_URL = import.meta.env.VITE_API_URL || '/api';
@@ -88,6 +94,12 @@ export const postsApi = {
     return data;
   },
 
+  getRelated: async (slug: string, limit?: number): Promise<ApiResponse<Post[]>> => {
+    const params = { ...(limit && { limit }) };
+    const { data } = await api.get(`/posts/${slug}/related`, { params });
+    return data;
+  },
+
   getPaged: async (
     page: number,
     size: number,
@@ -98,10 +110,16 @@ export const postsApi = {
     return data;
   },
 
-  getHashtags: async (): Promise<ApiResponse<string[]>> => {
+  getHashtags: async (): Promise<ApiResponse<Hashtag[]>> => {
     const { data } = await api.get('/posts/hashtags');
     return data;
   },
+
+  search: async (q: string, limit?: number): Promise<ApiResponse<PostSearchResult[]>> => {
+    const params = { q, ...(limit && { limit }) };
+    const { data } = await api.get('/posts/search', { params });
+    return data;
+  },
 };
 
 export const softSkillsApi = {
@@ -171,6 +189,17 @@ export const contactApi = {
   },
 };
 
+export const analyticsApi = {
+  // Fire-and-forget: a beacon survives navigation and never delays the page
+  track: (event: AnalyticsEvent): void => {
+    const body = new Blob([JSON.stringify(event)], { type: 'application/json' });
+    if (navigator.sendBeacon?.(`${API_URL}/analytics/events`, body)) {
+      return;
+    }
+    void api.post('/analytics/events', event).catch(() => undefined);
+  },
+};
+
 export const interestsApi = {
   getAll: async (): Promise<ApiResponse<Interest[]>> => {
     const { data } = await api.get('/interests');
@@ -342,6 +371,51 @@ export const adminExperiencesApi = {
   },
 };
 
+// Files larger than one chunk are uploaded resumably, a chunk per request
+const UPLOAD_CHUNK_SIZE = 8 * 1024 * 1024;
+const UPLOAD_RETRIES = 5;
+
+const uploadResumable = async (
+  file: File,
+  postId?: string,
+  altTextEn?: string,
+  altTextPl?: string
+): Promise<ApiResponse<Media>> => {
+  const { data: created } = await api.post<ApiResponse<UploadSession>>('/admin/media/uploads', null, {
+    headers: { 'Upload-Length': String(file.size) },
+    params: { filename: file.name, postId, altTextEn, altTextPl },
+  });
+  const url = `/admin/media/uploads/${created.data.id}`;
+
+  let offset = 0;
+  let failures = 0;
+  while (offset < file.size) {
+    try {
+      const { data } = await api.patch<ApiResponse<UploadSession>>(
+        url,
+        file.slice(offset, offset + UPLOAD_CHUNK_SIZE),
+        { headers: { 'Content-Type': 'application/offset+octet-stream', 'Upload-Offset': String(offset) } }
+      );
+      offset = data.data.offset;
+      failures = 0;
+    } catch (error) {
+      const retryable =
+        axios.isAxiosError(error) &&
+        (!error.response || error.response.status >= 500 || error.response.status === 409);
+      if (!retryable || ++failures > UPLOAD_RETRIES) {
+        throw error;
+      }
+      await new Promise((resolve) => setTimeout(resolve, 1000 * failures));
+      // Part of the chunk may have arrived; carry on from what the server has
+      const { data } = await api.get<ApiResponse<UploadSession>>(url);
+      offset = data.data.offset;
+    }
+  }
+
+  const { data } = await api.post(`${url}/complete`);
+  return data;
+};
+
 export const adminMediaApi = {
   getAll: async (
     page: number,
@@ -359,14 +433,24 @@ export const adminMediaApi = {
     altTextEn?: string,
     altTextPl?: string
   ): Promise<ApiResponse<Media>> => {
-    const formData = new FormData();
-    formData.append('file', file);
-    if (postId) formData.append('postId', postId);
-    if (altTextEn) formData.append('altTextEn', altTextEn);
-    if (altTextPl) formData.append('altTextPl', altTextPl);
+    if (file.size > UPLOAD_CHUNK_SIZE) {
+      return uploadResumable(file, postId, altTextEn, altTextPl);
+    }
+    // Raw body instead of multipart: the server streams it straight into storage
+    const { data } = await api.post('/admin/media/stream', file, {
+      headers: { 'Content-Type': file.type || 'application/octet-stream' },
+      params: { filename: file.name, postId, altTextEn, altTextPl },
+    });
+    return data;
+  },
 
-    const { data } = await api.post('/admin/media', formData, {
+  // Several files in one request; each gets its own result
+  uploadBatch: async (files: File[], postId?: string): Promise<ApiResponse<MediaUploadResult[]>> => {
+    const form = new FormData();
+    files.forEach((file) => form.append('files', file));
+    const { data } = await api.post('/admin/media/batch', form, {
       headers: { 'Content-Type': 'multipart/form-data' },
+      params: { postId },
     });
     return data;
   },
@@ -515,6 +599,13 @@ export const adminAchievementsApi = {
   },
 };
 
+export const adminAnalyticsApi = {
+  getSummary: async (from?: string, to?: string): Promise<ApiResponse<AnalyticsSummary>> => {
+    const { data } = await api.get('/admin/analytics', { params: { from, to } });
+    return data;
+  },
+};
+
 export const authApi = {
   getCurrentUser: async (): Promise<ApiResponse<User>> => {
     const { data } = await api.get('/admin/auth/me');
@@ -25,6 +25,8 @@ export interface Post {
   contentEn: Record<string, unknown>;
   contentPl: Record<string, unknown>;
   featuredImage: string | null;
+  // First image in the content, for cards without a featured image
+  firstImage: string | null;
   githubUrl: string | null;
   liveUrl: string | null;
   published: boolean;
@@ -32,6 +34,10 @@ export interface Post {
   hashtags: string[];
   createdAt: string;
   updatedAt: string;
+  // Derived from the content when the post is saved
+  wordCount: number;
+  readingMinutes: number;
+  toc?: TocEntry[] | null;
   media?: Media[];
   // Case Study fields
   hasCaseStudy: boolean;
@@ -50,6 +56,33 @@ export interface Post {
   caseStudyTestimonialAuthor: string | null;
 }
 
+export interface TocEntry {
+  level: number;
+  text: string;
+  anchor: string;
+}
+
+export interface Hashtag {
+  name: string;
+  normalizedName: string;
+  // Number of published posts carrying the tag
+  count: number;
+}
+
+export interface PostSearchResult {
+  id: string;
+  category: Category;
+  categoryLabel: string;
+  title: string;
+  slug: string;
+  excerpt: string | null;
+  featuredImage: string | null;
+  hashtags: string[];
+  rank: number;
+  // HTML-escaped snippet with matches wrapped in <mark>
+  headline: string | null;
+}
+
 export interface SoftSkill {
   id: string;
   name: string;
@@ -112,6 +145,12 @@ export interface Media {
   originalName: string | null;
   mimeType: string | null;
   size: number | null;
+  // Size as uploaded, before the backend optimized the image
+  originalSize: number | null;
+  width: number | null;
+  height: number | null;
+  // BlurHash to show while the image loads
+  placeholder: string | null;
   url: string;
   altText: string;
   altTextEn: string;
@@ -121,6 +160,22 @@ export interface Media {
   createdAt: string;
 }
 
+// One file of a batch upload: the media created, or why it was not
+export interface MediaUploadResult {
+  originalName: string;
+  success: boolean;
+  media: Media | null;
+  error: string | null;
+}
+
+// A resumable upload in progress; offset is how many bytes the server has
+export interface UploadSession {
+  id: string;
+  offset: number;
+  length: number;
+  expiresAt: string;
+}
+
 export interface CategoryInfo {
   value: Category;
   label: string;
@@ -385,3 +440,37 @@ export interface RpgStatCreateRequest {
 }
 
 export type RpgStatUpdateRequest = Partial<RpgStatCreateRequest>;
+
+export interface AnalyticsEvent {
+  path: string;
+  postSlug?: string;
+  visitorId?: string;
+}
+
+export interface DailyViews {
+  day: string;
+  views: number;
+}
+
+export interface PageViews {
+  path: string;
+  views: number;
+}
+
+export interface PostViews {
+  postId: string;
+  slug: string;
+  title: string;
+  views: number;
+  uniqueVisitors: number;
+}
+
+export interface AnalyticsSummary {
+  from: string;
+  to: string;
+  totalViews: number;
+  daily: DailyViews[];
+  topPages: PageViews[];
+  posts: PostViews[];
+  droppedEvents: number;
+}